@@ -1,7 +1,40 @@
+from typing import List, Optional
+
 from fastapi import APIRouter
+from pydantic import BaseModel
 
 router = APIRouter()
 
 @router.post("/check-answer")
 def check():
     return {"status": "mock_check"}
+
+
+class CheckItem(BaseModel):
+    id: str
+    question: Optional[str] = None
+    correct_answer: Optional[str] = None
+    student_answer: Optional[str] = None
+    solution_text: Optional[str] = None
+
+
+class CheckBatchRequest(BaseModel):
+    items: List[CheckItem]
+
+
+@router.post("/check-batch")
+def check_batch(request: CheckBatchRequest):
+    return {
+        "results": [
+            {
+                "id": item.id,
+                "analysis": "mock_check",
+                "feedback": None,
+                "error_type": None,
+                "recommendations": None,
+                "quality_score": 0,
+                "error": None,
+            }
+            for item in request.items
+        ]
+    }
@@ -1,7 +1,29 @@
+from typing import List
+
 from fastapi import APIRouter
+from pydantic import BaseModel
 
 router = APIRouter()
 
 @router.post("/recognize")
 def recognize():
     return {"status": "mock_ocr"}
+
+
+class OcrItem(BaseModel):
+    id: str
+    image_url: str
+
+
+class OcrBatchRequest(BaseModel):
+    items: List[OcrItem]
+
+
+@router.post("/recognize-batch")
+def recognize_batch(request: OcrBatchRequest):
+    return {
+        "results": [
+            {"id": item.id, "text": "mock_ocr", "confidence": 0.0, "error": None}
+            for item in request.items
+        ]
+    }
@@ -0,0 +1,36 @@
+package ru.stopro.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import ru.stopro.service.assignment.AssignmentSnapshotCache;
+import ru.stopro.service.attempt.AttemptExpiryScheduler;
+import ru.stopro.service.dedup.NearDuplicateService;
+import ru.stopro.service.proctoring.ProctoringBoard;
+import ru.stopro.service.stream.AttemptStreamHub;
+
+/**
+ * Подписки Redis pub/sub (рассылка событий между узлами)
+ */
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       AttemptStreamHub attemptStreamHub,
+                                                                       ProctoringBoard proctoringBoard,
+                                                                       AssignmentSnapshotCache assignmentSnapshotCache,
+                                                                       AttemptExpiryScheduler attemptExpiryScheduler,
+                                                                       NearDuplicateService nearDuplicateService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(attemptStreamHub, new ChannelTopic(AttemptStreamHub.CHANNEL));
+        container.addMessageListener(proctoringBoard, new ChannelTopic(ProctoringBoard.CHANNEL));
+        container.addMessageListener(assignmentSnapshotCache, new ChannelTopic(AssignmentSnapshotCache.CHANNEL));
+        container.addMessageListener(attemptExpiryScheduler, new ChannelTopic(AttemptExpiryScheduler.CHANNEL));
+        container.addMessageListener(nearDuplicateService, new ChannelTopic(NearDuplicateService.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.stopro.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import ru.stopro.security.WebSocketAuthInterceptor;
+import ru.stopro.service.proctoring.ProctoringWebSocketHandler;
+
+/**
+ * WebSocket-эндпоинты (живая панель учителя)
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ProctoringWebSocketHandler proctoringHandler;
+    private final WebSocketAuthInterceptor authInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(proctoringHandler, "/ws/proctoring")
+                .addInterceptors(authInterceptor)
+                .setAllowedOrigins("http://localhost:3000", "http://localhost:5173");
+    }
+}
@@ -4,9 +4,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,16 +16,25 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.stopro.domain.entity.User;
 import ru.stopro.dto.attempt.AttemptDto;
 import ru.stopro.dto.attempt.AttemptResultDto;
+import ru.stopro.dto.attempt.SolutionImageDto;
 import ru.stopro.dto.attempt.SubmitAnswerRequest;
+import ru.stopro.dto.common.CursorPage;
 import ru.stopro.repository.UserRepository;
 import ru.stopro.service.AttemptService;
+import ru.stopro.service.blob.SolutionImageService;
+import ru.stopro.service.stream.AttemptStreamHub;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,6 +49,8 @@ import java.util.UUID;
 public class AttemptController {
 
     private final AttemptService attemptService;
+    private final SolutionImageService solutionImageService;
+    private final AttemptStreamHub attemptStreamHub;
     private final UserRepository userRepository;
 
     /**
@@ -82,6 +95,32 @@ public class AttemptController {
         return ResponseEntity.ok(attempt);
     }
 
+    /**
+     * Загрузить фото рукописного решения
+     */
+    @Operation(summary = "Загрузить изображение решения",
+               description = "Тело запроса — само изображение (JPEG, PNG, GIF, WebP); пишется на диск потоком")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Изображение сохранено"),
+        @ApiResponse(responseCode = "429", description = "Слишком много одновременных загрузок")
+    })
+    @PutMapping(value = "/{attemptId}/solution-image",
+                consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE,
+                            "image/webp", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<SolutionImageDto> uploadSolutionImage(
+            @PathVariable UUID attemptId,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        try (InputStream body = request.getInputStream()) {
+            return ResponseEntity.ok(solutionImageService.upload(attemptId, user.getId(), body));
+        }
+    }
+
     /**
      * Завершить попытку
      */
@@ -96,6 +135,19 @@ public class AttemptController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Поток изменений попыток текущего ученика
+     */
+    @Operation(summary = "Поток изменений (SSE)",
+               description = "События attempt: статус попытки, AI-проверка, комментарий учителя — вместо опроса")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('STUDENT')")
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails userDetails) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return attemptStreamHub.subscribe(user.getId());
+    }
+
     /**
      * Получить текущую попытку
      */
@@ -132,6 +184,25 @@ public class AttemptController {
         return ResponseEntity.ok(attempts);
     }
 
+    /**
+     * Попытки текущего ученика с курсорной пагинацией
+     */
+    @Operation(summary = "Мои попытки (курсор)",
+               description = "Постраничная выдача попыток по непрозрачному курсору, без OFFSET")
+    @GetMapping("/my/scroll")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<CursorPage<AttemptDto>> scrollMyAttempts(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return ResponseEntity.ok(attemptService.getStudentAttemptsPage(user.getId(), cursor, size, withTotal));
+    }
+
     /**
      * Запросить AI-анализ решения
      */
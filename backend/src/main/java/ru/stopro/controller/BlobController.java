@@ -0,0 +1,106 @@
+package ru.stopro.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import ru.stopro.domain.entity.StoredBlob;
+import ru.stopro.domain.entity.User;
+import ru.stopro.dto.blob.BlobDto;
+import ru.stopro.repository.UserRepository;
+import ru.stopro.service.blob.BlobService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Контроллер файлов (изображения задач и решений, SVG-диаграммы).
+ *
+ * Адрес файла — хеш его содержимого, поэтому ответ никогда не меняется:
+ * сильный ETag, вечное кэширование и поддержка Range-запросов.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/blobs")
+@RequiredArgsConstructor
+@Tag(name = "Blobs", description = "Хранилище файлов с адресацией по содержимому")
+public class BlobController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable();
+
+    private final BlobService blobService;
+    private final UserRepository userRepository;
+
+    /**
+     * Загрузить файл
+     */
+    @Operation(summary = "Загрузить файл",
+               description = "Сохраняет изображение (PNG, JPEG, GIF, WebP, SVG); одинаковые файлы хранятся один раз")
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BlobDto> upload(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        try (InputStream in = file.getInputStream()) {
+            BlobDto blob = blobService.store(in, user.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(blob);
+        }
+    }
+
+    /**
+     * Скачать файл по хешу
+     */
+    @Operation(summary = "Получить файл", description = "Отдаёт файл с ETag, immutable-кэшированием и поддержкой Range")
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> download(@PathVariable String hash, WebRequest request) {
+        Optional<StoredBlob> blob = blobService.find(hash);
+        if (blob.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Содержимое определяется хешем: совпал ETag — файл не изменился
+        if (request.checkNotModified(hash)) {
+            return null;
+        }
+        Path path = blobService.pathOf(hash);
+        if (!Files.exists(path)) {
+            log.error("Blob {} has metadata but no file", hash);
+            return ResponseEntity.notFound().build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(hash)
+                .cacheControl(IMMUTABLE)
+                .contentType(MediaType.parseMediaType(blob.get().getContentType()))
+                .header("X-Content-Type-Options", "nosniff");
+        if (BlobService.SVG.equals(blob.get().getContentType())) {
+            // SVG может содержать скрипты: открытый напрямую файл не должен их выполнять
+            response.header("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox");
+        }
+        return response.body(new FileSystemResource(path));
+    }
+}
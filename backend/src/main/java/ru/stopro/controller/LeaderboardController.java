@@ -0,0 +1,43 @@
+package ru.stopro.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.stopro.domain.entity.User;
+import ru.stopro.dto.leaderboard.LeaderboardDto;
+import ru.stopro.service.leaderboard.LeaderboardService;
+import ru.stopro.service.leaderboard.LeaderboardWindow;
+
+import java.util.UUID;
+
+/**
+ * Контроллер рейтингов учебных групп (для учеников группы и её учителя)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/leaderboards")
+@RequiredArgsConstructor
+@Tag(name = "Leaderboards", description = "Рейтинги учеников внутри группы")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    @Operation(summary = "Рейтинг группы",
+               description = "Верх таблицы и место текущего ученика за неделю (WEEK) или за всё время (ALL_TIME)")
+    @GetMapping("/groups/{groupId}")
+    public ResponseEntity<LeaderboardDto> getGroupLeaderboard(
+            @PathVariable UUID groupId,
+            @RequestParam(defaultValue = "WEEK") LeaderboardWindow window,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(leaderboardService.getLeaderboard(groupId, user.getId(), window, limit));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.stopro.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.stopro.domain.entity.User;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.notification.MarkReadRequest;
+import ru.stopro.dto.notification.NotificationDto;
+import ru.stopro.service.notification.NotificationService;
+
+import java.util.Map;
+
+/**
+ * Контроллер входящих уведомлений (для учителей и учеников)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/notifications")
+@RequiredArgsConstructor
+@Tag(name = "Notifications", description = "Входящие уведомления пользователя")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    @Operation(summary = "Входящие", description = "Лента уведомлений, свежие первыми (курсорная пагинация)")
+    @GetMapping
+    public ResponseEntity<CursorPage<NotificationDto>> getInbox(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(notificationService.getInbox(user.getId(), cursor, size));
+    }
+
+    @Operation(summary = "Непрочитанные", description = "Число непрочитанных уведомлений для значка")
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Integer>> getUnreadCount(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(Map.of("unread", notificationService.getUnreadCount(user.getId())));
+    }
+
+    @Operation(summary = "Прочитать", description = "Отмечает уведомления прочитанными, возвращает остаток непрочитанных")
+    @PostMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markRead(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody MarkReadRequest request) {
+        return ResponseEntity.ok(Map.of("unread", notificationService.markRead(user.getId(), request.getIds())));
+    }
+
+    @Operation(summary = "Прочитать все", description = "Отмечает прочитанными все уведомления пользователя")
+    @PostMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllRead(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(Map.of("unread", notificationService.markAllRead(user.getId())));
+    }
+}
@@ -9,6 +9,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,14 +23,28 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.stopro.domain.entity.User;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.question.DuplicateReportDto;
 import ru.stopro.dto.question.QuestionCreateRequest;
 import ru.stopro.dto.question.QuestionDto;
 import ru.stopro.dto.question.QuestionFilterRequest;
+import ru.stopro.dto.question.QuestionImportJobDto;
+import ru.stopro.dto.question.QuestionSummaryDto;
 import ru.stopro.repository.UserRepository;
 import ru.stopro.service.QuestionService;
+import ru.stopro.service.dedup.NearDuplicateService;
+import ru.stopro.service.export.QuestionExportService;
+import ru.stopro.service.importer.ImportFormat;
+import ru.stopro.service.importer.QuestionImportService;
+import ru.stopro.service.latex.LatexValidationResult;
+import ru.stopro.service.search.SearchTextBackfillService;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +61,10 @@ import java.util.UUID;
 public class QuestionController {
 
     private final QuestionService questionService;
+    private final QuestionImportService questionImportService;
+    private final QuestionExportService questionExportService;
+    private final NearDuplicateService nearDuplicateService;
+    private final SearchTextBackfillService searchTextBackfillService;
     private final UserRepository userRepository;
 
     /**
@@ -109,26 +130,45 @@ public class QuestionController {
     @Operation(summary = "Мои задачи", description = "Возвращает все задачи текущего учителя")
     @GetMapping("/my")
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<Page<QuestionDto>> getMyQuestions(
+    public ResponseEntity<Page<QuestionSummaryDto>> getMyQuestions(
             @AuthenticationPrincipal UserDetails userDetails,
             Pageable pageable) {
         
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        Page<QuestionDto> questions = questionService.getByTeacher(user.getId(), pageable);
+        Page<QuestionSummaryDto> questions = questionService.getByTeacher(user.getId(), pageable);
         return ResponseEntity.ok(questions);
     }
 
+    /**
+     * Задачи учителя с курсорной пагинацией
+     */
+    @Operation(summary = "Мои задачи (курсор)",
+               description = "Постраничная выдача задач учителя по непрозрачному курсору, без OFFSET")
+    @GetMapping("/my/scroll")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<CursorPage<QuestionSummaryDto>> scrollMyQuestions(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return ResponseEntity.ok(questionService.getByTeacherPage(user.getId(), cursor, size, withTotal));
+    }
+
     /**
      * Поиск задач с фильтрами
      */
     @Operation(summary = "Поиск задач", description = "Поиск задач по темам, сложности, тегам")
     @PostMapping("/search")
-    public ResponseEntity<Page<QuestionDto>> searchQuestions(
+    public ResponseEntity<Page<QuestionSummaryDto>> searchQuestions(
             @RequestBody QuestionFilterRequest filter,
             Pageable pageable) {
-        Page<QuestionDto> questions = questionService.search(filter, pageable);
+        Page<QuestionSummaryDto> questions = questionService.search(filter, pageable);
         return ResponseEntity.ok(questions);
     }
 
@@ -166,6 +206,100 @@ public class QuestionController {
         return ResponseEntity.ok(questions);
     }
 
+    /**
+     * Массовый импорт задач из файла
+     */
+    @Operation(summary = "Массовый импорт",
+               description = "Загружает пакет задач (JSON-массив, NDJSON или CSV) и импортирует его в фоне")
+    @PostMapping(value = "/import/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<QuestionImportJobDto> bulkImport(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format,
+            @RequestParam(defaultValue = "false") boolean isPublic,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        QuestionImportJobDto job = questionImportService.startImport(user.getId(), file, format, isPublic);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Прогресс массового импорта
+     */
+    @Operation(summary = "Прогресс импорта", description = "Возвращает состояние задачи массового импорта")
+    @GetMapping("/import/bulk/{jobId}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<QuestionImportJobDto> getBulkImportStatus(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return ResponseEntity.ok(questionImportService.getJob(jobId, user.getId()));
+    }
+
+    /**
+     * Выгрузка задач в NDJSON
+     */
+    @Operation(summary = "Экспорт задач",
+               description = "Потоково выгружает задачи в NDJSON (формат массового импорта); scope = my | bank")
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<StreamingResponseBody> exportQuestions(
+            @RequestParam(defaultValue = "my") String scope,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        StreamingResponseBody body = switch (scope) {
+            case "my" -> out -> questionExportService.exportByAuthor(user.getId(), out, gzip);
+            case "bank" -> out -> questionExportService.exportBank(out, gzip);
+            default -> throw new IllegalArgumentException("Неизвестная область выгрузки: " + scope);
+        };
+
+        String filename = "questions-" + scope + "-" + LocalDate.now() + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                                  : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    /**
+     * Отчёт о почти-дубликатах
+     */
+    @Operation(summary = "Отчёт о дубликатах",
+               description = "Группы похожих задач по всему банку (MinHash + LSH), без попарного сравнения; "
+                       + "включает приватные задачи всех учителей, поэтому доступен только администратору")
+    @GetMapping("/duplicates/report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DuplicateReportDto> getDuplicateReport(
+            @RequestParam(required = false) Double threshold,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(nearDuplicateService.buildReport(threshold, limit));
+    }
+
+    /**
+     * Пересчёт поискового текста задач
+     */
+    @Operation(summary = "Пересчитать поисковый текст",
+               description = "Фоновое заполнение content_plain и keywords пачками; all=true пересчитывает все задачи")
+    @PostMapping("/search-text/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> backfillSearchText(@RequestParam(defaultValue = "false") boolean all) {
+        if (searchTextBackfillService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("started", false));
+        }
+        searchTextBackfillService.run(all);
+        return ResponseEntity.accepted().body(Map.of("started", true));
+    }
+
     /**
      * Проверка LaTeX синтаксиса
      */
@@ -174,12 +308,13 @@ public class QuestionController {
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<Map<String, Object>> validateLatex(@RequestBody Map<String, String> request) {
         String content = request.get("content");
-        boolean isValid = questionService.validateLatex(content);
+        LatexValidationResult result = questionService.validateLatex(content);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("valid", isValid);
-        if (!isValid) {
-            response.put("message", "Некорректный LaTeX синтаксис");
+        response.put("valid", result.valid());
+        if (!result.valid()) {
+            response.put("message", "Некорректный LaTeX синтаксис: " + result.firstError());
+            response.put("errors", result.errors());
         }
         return ResponseEntity.ok(response);
     }
@@ -189,8 +324,21 @@ public class QuestionController {
      */
     @Operation(summary = "Банк задач", description = "Возвращает публичные задачи из общего банка")
     @GetMapping("/bank")
-    public ResponseEntity<Page<QuestionDto>> getPublicBank(Pageable pageable) {
-        Page<QuestionDto> questions = questionService.getPublicBank(pageable);
+    public ResponseEntity<Page<QuestionSummaryDto>> getPublicBank(Pageable pageable) {
+        Page<QuestionSummaryDto> questions = questionService.getPublicBank(pageable);
         return ResponseEntity.ok(questions);
     }
+
+    /**
+     * Публичный банк задач с курсорной пагинацией
+     */
+    @Operation(summary = "Банк задач (курсор)",
+               description = "Постраничная выдача публичного банка по непрозрачному курсору, без OFFSET")
+    @GetMapping("/bank/scroll")
+    public ResponseEntity<CursorPage<QuestionSummaryDto>> scrollPublicBank(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(questionService.getPublicBankPage(cursor, size, withTotal));
+    }
 }
@@ -6,18 +6,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.stopro.domain.entity.Assignment;
 import ru.stopro.domain.entity.User;
 import ru.stopro.dto.assignment.AssignmentDto;
-import ru.stopro.repository.AssignmentRepository;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.service.AssignmentService;
+import ru.stopro.service.assignment.AssignmentPayload;
+import ru.stopro.service.assignment.AssignmentSnapshot;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Контроллер личного кабинета ученика.
@@ -32,16 +44,16 @@ import java.util.List;
 @Tag(name = "Student", description = "API личного кабинета ученика")
 public class StudentAssignmentController {
 
-    private final AssignmentRepository assignmentRepository;
+    private final AssignmentService assignmentService;
 
     /**
      * Возвращает активные тесты/ДЗ группы, к которой привязан текущий ученик.
      *
      * Логика:
      *  1. Из SecurityContext берём авторизованного User (ученик).
-     *  2. Через JPQL-запрос находим Assignment-ы, у которых
+     *  2. Через JPQL-запрос находим id Assignment-ов, у которых
      *     group.students содержит этого пользователя и статус PUBLISHED.
-     *  3. Возвращаем список DTO без правильных ответов.
+     *  3. Возвращаем DTO из кэша снимков, без правильных ответов.
      */
     @Operation(
         summary = "Мои задания",
@@ -57,13 +69,65 @@ public class StudentAssignmentController {
     ) {
         log.info("Ученик {} запрашивает свои задания", student.getUsername());
 
-        List<Assignment> assignments =
-                assignmentRepository.findActiveForStudent(student.getId());
-
-        List<AssignmentDto> dtos = assignments.stream()
-                .map(AssignmentDto::fromEntity)
-                .toList();
+        List<AssignmentDto> dtos = assignmentService.getActiveForStudent(student.getId());
 
         return ResponseEntity.ok(dtos);
     }
+
+    /**
+     * Задание с вопросами для прохождения (без ответов и решений).
+     *
+     * Тело — готовые байты снимка (при Accept-Encoding: gzip — заранее сжатые),
+     * ETag — хеш этих байтов: при совпадении If-None-Match Spring отвечает 304.
+     * Поля времени в тело не входят, клиент считает их по deadline.
+     * Если вопросы перемешиваются, порядок для ученика — в заголовке X-Question-Order.
+     */
+    @Operation(
+        summary = "Задание",
+        description = "Задание группы ученика с вопросами без ответов; готовый JSON с ETag и порядком вопросов в X-Question-Order"
+    )
+    @GetMapping("/assignments/{assignmentId}")
+    public ResponseEntity<byte[]> getAssignment(
+            @AuthenticationPrincipal User student,
+            @PathVariable UUID assignmentId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        AssignmentSnapshot snapshot = assignmentService.getForStudent(student.getId(), assignmentId);
+        AssignmentPayload payload = snapshot.getPayload();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(payload.etag(gzip))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (payload.isGzipped(gzip)) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        int[] order = snapshot.questionOrder(student.getId());
+        if (order != null) {
+            response.header("X-Question-Order", Arrays.stream(order)
+                    .mapToObj(Integer::toString)
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(payload.body(gzip));
+    }
+
+    /**
+     * Вся история заданий ученика (включая завершённые) с курсорной пагинацией.
+     */
+    @Operation(
+        summary = "История заданий",
+        description = "Все задания группы ученика по убыванию дедлайна, постранично по курсору"
+    )
+    @GetMapping("/assignments/history")
+    public ResponseEntity<CursorPage<AssignmentDto>> getAssignmentHistory(
+            @AuthenticationPrincipal User student,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return ResponseEntity.ok(
+                assignmentService.getStudentAssignmentsPage(student.getId(), cursor, size, withTotal));
+    }
 }
@@ -27,7 +27,8 @@ import java.util.UUID;
     @Index(name = "idx_assignment_status", columnList = "status"),
     @Index(name = "idx_assignment_deadline", columnList = "deadline"),
     @Index(name = "idx_assignment_type", columnList = "assignment_type"),
-    @Index(name = "idx_assignment_dates", columnList = "start_date, deadline")
+    @Index(name = "idx_assignment_dates", columnList = "start_date, deadline"),
+    @Index(name = "idx_assignment_group_keyset", columnList = "group_id, deadline DESC, id DESC")
 })
 @Getter
 @Setter
@@ -427,43 +428,6 @@ public class Assignment extends BaseEntity {
             .sum();
     }
 
-    /**
-     * Проверяет, может ли ученик начать новую попытку
-     */
-    public boolean canStartNewAttempt(User student) {
-        if (!isAvailable()) {
-            return false;
-        }
-        
-        // Проверяем количество попыток
-        if (maxAttempts != null) {
-            long studentAttempts = attempts.stream()
-                .filter(a -> a.getStudent().getId().equals(student.getId()))
-                .count();
-            if (studentAttempts >= maxAttempts) {
-                return false;
-            }
-        }
-        
-        // Проверяем cooldown
-        if (cooldownMinutes != null && cooldownMinutes > 0) {
-            LocalDateTime lastAttemptTime = attempts.stream()
-                .filter(a -> a.getStudent().getId().equals(student.getId()))
-                .map(Attempt::getStartedAt)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-            
-            if (lastAttemptTime != null) {
-                LocalDateTime cooldownEnd = lastAttemptTime.plusMinutes(cooldownMinutes);
-                if (LocalDateTime.now().isBefore(cooldownEnd)) {
-                    return false;
-                }
-            }
-        }
-        
-        return true;
-    }
-
     /**
      * Обновляет статистику после завершения попытки
      */
@@ -485,22 +449,6 @@ public class Assignment extends BaseEntity {
         }
     }
 
-    /**
-     * Автоматически обновляет статус задания
-     */
-    @PreUpdate
-    protected void updateStatusAutomatically() {
-        if (status == AssignmentStatus.PUBLISHED && isOverdue()) {
-            // Проверяем, все ли ученики выполнили
-            int totalStudents = group.getStudentsCount();
-            if (completedCount >= totalStudents) {
-                status = AssignmentStatus.COMPLETED;
-            } else {
-                status = AssignmentStatus.OVERDUE;
-            }
-        }
-    }
-
     /**
      * Создаёт копию задания (для шаблонов)
      */
@@ -1,5 +1,8 @@
 package ru.stopro.domain.entity;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 import lombok.*;
 import ru.stopro.domain.enums.AttemptStatus;
@@ -29,7 +32,8 @@ import java.util.UUID;
     @Index(name = "idx_attempt_status", columnList = "status"),
     @Index(name = "idx_attempt_started", columnList = "started_at"),
     @Index(name = "idx_attempt_student_assignment", columnList = "student_id, assignment_id"),
-    @Index(name = "idx_attempt_student_question", columnList = "student_id, question_id")
+    @Index(name = "idx_attempt_student_question", columnList = "student_id, question_id"),
+    @Index(name = "idx_attempt_student_keyset", columnList = "student_id, started_at DESC, id DESC")
 })
 @Getter
 @Setter
@@ -38,6 +42,9 @@ import java.util.UUID;
 @Builder
 public class Attempt extends BaseEntity {
 
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> ANSWERS_TYPE = new TypeReference<>() { };
+
     // =========================================
     // Основные связи
     // =========================================
@@ -128,6 +135,12 @@ public class Attempt extends BaseEntity {
     @Column(name = "checked_at")
     private LocalDateTime checkedAt;
 
+    /**
+     * Когда время попытки истекает (лимит времени или дедлайн задания)
+     */
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
     /**
      * Время, потраченное на вопрос (в секундах)
      */
@@ -147,6 +160,13 @@ public class Attempt extends BaseEntity {
         this.answers = answers;
     }
 
+    /**
+     * Количество отвеченных задач (для живой панели учителя)
+     */
+    @Column(name = "answered_count", nullable = false)
+    @Builder.Default
+    private Integer answeredCount = 0;
+
     /**
      * Количество правильных ответов (для совместимости)
      */
@@ -172,21 +192,49 @@ public class Attempt extends BaseEntity {
     private LocalDateTime finishedAt;
 
     /**
-     * Получить ответы как Map (для совместимости)
+     * Получить ответы как Map: id задачи → данные последнего ответа
      */
     @Transient
     public Map<String, Object> getAnswers() {
-        // В реальности это JSON парсинг
-        return new HashMap<>();
+        if (answers == null || answers.isBlank()) {
+            return new HashMap<>();
+        }
+        try {
+            return JSON.readValue(answers, ANSWERS_TYPE);
+        } catch (JsonProcessingException e) {
+            return new HashMap<>();
+        }
     }
 
     /**
-     * Установить ответы из Map (для совместимости)
+     * Установить ответы из Map
      */
     @Transient
     public void setAnswers(Map<String, Object> answers) {
-        // В реальности это JSON сериализация
-        this.answers = "{}";
+        try {
+            this.answers = JSON.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Ответы не сериализуются в JSON", e);
+        }
+    }
+
+    /**
+     * Записать ответ на задачу.
+     *
+     * Повторный ответ заменяет прежний: answeredCount растёт только на первом
+     * ответе, correctCount меняется, только если изменилась правильность.
+     */
+    public void recordAnswer(UUID questionId, Map<String, Object> answer, boolean correct) {
+        Map<String, Object> all = getAnswers();
+        Object previous = all.put(questionId.toString(), answer);
+        if (previous == null) {
+            answeredCount = getAnsweredCount() + 1;
+        }
+        boolean wasCorrect = previous instanceof Map<?, ?> p && Boolean.TRUE.equals(p.get("isCorrect"));
+        if (correct != wasCorrect) {
+            correctCount = getCorrectCount() + (correct ? 1 : -1);
+        }
+        setAnswers(all);
     }
 
     /**
@@ -276,6 +324,12 @@ public class Attempt extends BaseEntity {
     @Column(name = "solution_image_url", length = 500)
     private String solutionImageUrl;
 
+    /**
+     * Уменьшенная копия изображения решения (создаётся в фоне после загрузки)
+     */
+    @Column(name = "solution_thumbnail_url", length = 500)
+    private String solutionThumbnailUrl;
+
     /**
      * Дополнительные изображения решения (JSON массив)
      */
@@ -354,6 +408,31 @@ public class Attempt extends BaseEntity {
     @Column(name = "ai_check_status", length = 20)
     private String aiCheckStatus;
 
+    /**
+     * Сколько раз AI-проверка завершилась ошибкой
+     */
+    @Column(name = "ai_retry_count", nullable = false)
+    @Builder.Default
+    private Integer aiRetryCount = 0;
+
+    /**
+     * Не раньше этого времени задание снова попадёт воркеру (backoff)
+     */
+    @Column(name = "ai_next_attempt_at")
+    private LocalDateTime aiNextAttemptAt;
+
+    /**
+     * Когда воркер забрал задание (для возврата зависших заданий)
+     */
+    @Column(name = "ai_claimed_at")
+    private LocalDateTime aiClaimedAt;
+
+    /**
+     * Последняя ошибка AI-проверки
+     */
+    @Column(name = "ai_last_error", length = 500)
+    private String aiLastError;
+
     // =========================================
     // Проверка учителем
     // =========================================
@@ -593,6 +672,9 @@ public class Attempt extends BaseEntity {
         this.aiRecommendations = recommendations;
         this.aiQualityScore = qualityScore;
         this.aiCheckStatus = "COMPLETED";
+        this.aiClaimedAt = null;
+        this.aiNextAttemptAt = null;
+        this.aiLastError = null;
     }
 
     /**
@@ -28,7 +28,8 @@ import java.util.UUID;
     @Index(name = "idx_question_source", columnList = "source"),
     @Index(name = "idx_question_type", columnList = "question_type"),
     @Index(name = "idx_question_active", columnList = "is_active, is_deleted"),
-    @Index(name = "idx_question_author", columnList = "author_id")
+    @Index(name = "idx_question_author", columnList = "author_id"),
+    @Index(name = "idx_question_author_keyset", columnList = "author_id, created_at DESC, id DESC")
 })
 @Getter
 @Setter
@@ -77,6 +78,25 @@ public class Question extends BaseEntity {
     @Column(name = "content_plain", columnDefinition = "TEXT")
     private String contentPlain;
 
+    /**
+     * Условие, решение и подсказка в виде HTML с MathML.
+     * Рендерятся при сохранении, чтобы клиент не запускал LaTeX-движок
+     */
+    @Column(name = "content_rendered", columnDefinition = "TEXT")
+    private String contentRendered;
+
+    @Column(name = "solution_rendered", columnDefinition = "TEXT")
+    private String solutionRendered;
+
+    @Column(name = "hint_rendered", columnDefinition = "TEXT")
+    private String hintRendered;
+
+    /**
+     * Версия рендерера, которым получены фрагменты (null — ещё не отрендерено)
+     */
+    @Column(name = "render_version", length = 20)
+    private String renderVersion;
+
     /**
      * Правильный ответ
      * Может содержать:
@@ -194,6 +214,12 @@ public class Question extends BaseEntity {
     @Column(name = "diagram_svg", columnDefinition = "TEXT")
     private String diagramSvg;
 
+    /**
+     * SVG-диаграмма в хранилище файлов (SHA-256); заменяет diagramSvg
+     */
+    @Column(name = "diagram_blob_hash", length = 64)
+    private String diagramBlobHash;
+
     /**
      * GeoGebra applet ID для интерактивных задач
      */
@@ -305,6 +331,12 @@ public class Question extends BaseEntity {
     @Builder.Default
     private Boolean isLatestVersion = true;
 
+    /**
+     * Исходная задача неизменённой копии (сбрасывается при правке условия или ответа)
+     */
+    @Column(name = "copied_from_id")
+    private UUID copiedFromId;
+
     // =========================================
     // Состояние
     // =========================================
@@ -437,11 +469,16 @@ public class Question extends BaseEntity {
             .questionType(this.questionType)
             .content(this.content)
             .contentPlain(this.contentPlain)
+            .contentRendered(this.contentRendered)
+            .solutionRendered(this.solutionRendered)
+            .hintRendered(this.hintRendered)
+            .renderVersion(this.renderVersion)
             .answer(this.answer)
             .alternativeAnswers(this.alternativeAnswers)
             .solution(this.solution)
             .hint(this.hint)
             .imageUrl(this.imageUrl)
+            .diagramBlobHash(this.diagramBlobHash)
             .points(this.points)
             .estimatedTimeMinutes(this.estimatedTimeMinutes)
             .source(this.source)
@@ -0,0 +1,45 @@
+package ru.stopro.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Метаданные файла в хранилище с адресацией по содержимому.
+ *
+ * Ключ — SHA-256 содержимого: одинаковые файлы хранятся один раз,
+ * а запись не меняется после создания (поэтому без версии и аудита).
+ */
+@Entity
+@Table(name = "blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredBlob {
+
+    /**
+     * SHA-256 содержимого в hex (64 символа)
+     */
+    @Id
+    @Column(name = "hash", length = 64, nullable = false, updatable = false)
+    private String hash;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    /**
+     * Кто загрузил файл первым
+     */
+    @Column(name = "created_by")
+    private UUID createdBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -17,7 +17,7 @@ import java.util.UUID;
  * DTO для назначенного задания
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class AssignmentDto {
@@ -48,6 +48,7 @@ public class AttemptDto {
     
     // Решение (изображение)
     private String solutionImageUrl;
+    private String solutionThumbnailUrl;
     private String solutionText;
     
     // AI анализ
@@ -83,6 +84,7 @@ public class AttemptDto {
                 .status(attempt.getStatus())
                 .isInterrupted(attempt.getIsInterrupted())
                 .solutionImageUrl(attempt.getSolutionImageUrl())
+                .solutionThumbnailUrl(attempt.getSolutionThumbnailUrl())
                 .solutionText(attempt.getSolutionText())
                 .recognizedText(attempt.getRecognizedText())
                 .ocrConfidence(attempt.getOcrConfidence())
@@ -0,0 +1,43 @@
+package ru.stopro.dto.attempt;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stopro.domain.entity.Attempt;
+import ru.stopro.domain.enums.AttemptStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Изменение попытки, отправляемое ученику по SSE
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttemptUpdateDto {
+
+    private UUID attemptId;
+    private UUID studentId;
+    private AttemptStatus status;
+    private String aiCheckStatus;
+    private Double score;
+    private Integer aiQualityScore;
+    private String teacherComment;
+    private LocalDateTime updatedAt;
+
+    public static AttemptUpdateDto fromEntity(Attempt attempt) {
+        return AttemptUpdateDto.builder()
+                .attemptId(attempt.getId())
+                .studentId(attempt.getStudentId())
+                .status(attempt.getStatus())
+                .aiCheckStatus(attempt.getAiCheckStatus())
+                .score(attempt.getScore())
+                .aiQualityScore(attempt.getAiQualityScore())
+                .teacherComment(attempt.getTeacherComment())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
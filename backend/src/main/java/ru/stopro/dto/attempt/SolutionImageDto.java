@@ -0,0 +1,27 @@
+package ru.stopro.dto.attempt;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO загруженного изображения решения
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolutionImageDto {
+
+    private UUID attemptId;
+    private String hash;
+    private String imageUrl;
+    private String contentType;
+    private Long sizeBytes;
+
+    // Миниатюра создаётся в фоне и появится в попытке как solutionThumbnailUrl
+    private Boolean thumbnailPending;
+}
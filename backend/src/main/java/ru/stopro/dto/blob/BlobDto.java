@@ -0,0 +1,42 @@
+package ru.stopro.dto.blob;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stopro.domain.entity.StoredBlob;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO загруженного файла
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobDto {
+
+    private String hash;
+    private String contentType;
+    private Long sizeBytes;
+    private String url;
+    private LocalDateTime createdAt;
+
+    public static BlobDto fromEntity(StoredBlob blob) {
+        return BlobDto.builder()
+                .hash(blob.getHash())
+                .contentType(blob.getContentType())
+                .sizeBytes(blob.getSizeBytes())
+                .url(urlOf(blob.getHash()))
+                .createdAt(blob.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Адрес для скачивания файла по хешу
+     */
+    public static String urlOf(String hash) {
+        return hash != null ? "/api/v1/blobs/" + hash : null;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.stopro.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации.
+ *
+ * В отличие от Page не содержит номера страницы и не требует COUNT-запроса:
+ * total заполняется только по явному запросу клиента.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+
+    /**
+     * Токен следующей страницы (null, если страница последняя)
+     */
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    /**
+     * Общее количество записей (только при withTotal=true)
+     */
+    private Long total;
+
+    /**
+     * Нормализует запрошенный размер страницы
+     */
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Собирает страницу из выборки размером size + 1:
+     * лишняя строка служит признаком наличия следующей страницы.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, T> mapper,
+                                          Function<E, PageCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = hasNext
+                ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode()
+                : null;
+
+        return CursorPage.<T>builder()
+                .items(pageRows.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+}
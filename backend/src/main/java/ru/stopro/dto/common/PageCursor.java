@@ -0,0 +1,49 @@
+package ru.stopro.dto.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Курсор keyset-пагинации: пара (ключ сортировки, id) последней строки страницы.
+ *
+ * Клиенту отдаётся в виде непрозрачного base64url-токена,
+ * следующая страница читается по индексу (sort_key, id) без OFFSET.
+ */
+public record PageCursor(LocalDateTime sortKey, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Кодирует курсор в непрозрачный токен
+     */
+    public String encode() {
+        String raw = sortKey.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует токен, полученный от клиента.
+     * Пустой токен означает первую страницу (возвращается null).
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный курсор");
+            }
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+}
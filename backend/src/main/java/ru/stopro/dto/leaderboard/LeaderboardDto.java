@@ -0,0 +1,49 @@
+package ru.stopro.dto.leaderboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO рейтинга группы
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDto {
+
+    private UUID groupId;
+
+    /**
+     * WEEK или ALL_TIME
+     */
+    private String window;
+
+    private List<Entry> entries;
+
+    /**
+     * Позиция текущего ученика (null для учителя или вне рейтинга)
+     */
+    private Entry me;
+
+    /**
+     * Число учеников в рейтинге
+     */
+    private long size;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private long rank;
+        private UUID studentId;
+        private String fullName;
+        private double points;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.stopro.dto.notification;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запрос на отметку уведомлений прочитанными
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarkReadRequest {
+
+    @NotEmpty(message = "Notification ids are required")
+    private List<UUID> ids;
+}
@@ -0,0 +1,32 @@
+package ru.stopro.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO уведомления во входящих
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDto {
+
+    private UUID id;
+    private String type;
+    private String title;
+    private String body;
+
+    /**
+     * Объект уведомления (задание или попытка), если есть
+     */
+    private UUID subjectId;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime readAt;
+}
@@ -0,0 +1,26 @@
+package ru.stopro.dto.proctoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Кадр живой панели: полный снимок при подключении, затем только изменившиеся строки
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProctoringFrameDto {
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private String type;
+    private UUID assignmentId;
+    private List<ProgressRowDto> rows;
+}
@@ -0,0 +1,66 @@
+package ru.stopro.dto.proctoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stopro.domain.entity.Attempt;
+import ru.stopro.domain.enums.AttemptStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Строка живой панели учителя: прогресс одного ученика
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressRowDto {
+
+    private UUID attemptId;
+    private UUID studentId;
+    private String studentName;
+    private AttemptStatus status;
+    private Integer answered;
+    private Integer correct;
+    private Integer total;
+
+    // Когда время истечёт: оставшееся время клиент считает сам, без лишних кадров
+    private LocalDateTime endsAt;
+
+    private Integer tabSwitches;
+    private Boolean suspicious;
+    private LocalDateTime updatedAt;
+
+    public static ProgressRowDto fromEntity(Attempt attempt) {
+        return of(attempt, attempt.getAssignment().getDeadline(), attempt.getAssignment().getTimeLimitMinutes());
+    }
+
+    /**
+     * Строка по попытке и уже известным срокам задания (без обращения к attempt.getAssignment())
+     */
+    public static ProgressRowDto of(Attempt attempt, LocalDateTime deadline, Integer limit) {
+        LocalDateTime endsAt = deadline;
+        if (limit != null && attempt.getStartedAt() != null) {
+            LocalDateTime byLimit = attempt.getStartedAt().plusMinutes(limit);
+            if (endsAt == null || byLimit.isBefore(endsAt)) {
+                endsAt = byLimit;
+            }
+        }
+        return ProgressRowDto.builder()
+                .attemptId(attempt.getId())
+                .studentId(attempt.getStudentId())
+                .studentName(attempt.getStudent().getFullName())
+                .status(attempt.getStatus())
+                .answered(attempt.getAnsweredCount())
+                .correct(attempt.getCorrectCount())
+                .total(attempt.getTotalQuestions())
+                .endsAt(endsAt)
+                .tabSwitches(attempt.getTabSwitchesCount())
+                .suspicious(attempt.getIsSuspicious())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
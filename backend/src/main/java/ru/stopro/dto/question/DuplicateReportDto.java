@@ -0,0 +1,36 @@
+package ru.stopro.dto.question;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Отчёт о почти-дубликатах в банке задач
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateReportDto {
+
+    private double threshold;
+    private int indexedQuestions;
+    private int groupCount;
+    private int duplicateCount;     // задач во всех группах сверх одной на группу
+
+    private List<DuplicateGroup> groups;
+
+    /**
+     * Группа похожих задач
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DuplicateGroup {
+        private List<UUID> questionIds;
+    }
+}
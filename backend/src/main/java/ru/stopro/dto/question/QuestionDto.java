@@ -8,8 +8,10 @@ import ru.stopro.domain.entity.Question;
 import ru.stopro.domain.enums.QuestionType;
 import ru.stopro.domain.enums.TaskDifficulty;
 import ru.stopro.domain.enums.TaskSource;
+import ru.stopro.dto.blob.BlobDto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -35,6 +37,12 @@ public class QuestionDto {
     private String solution;
     private String hint;
     private String imageUrl;
+    private String diagramUrl;
+
+    // Предрендеренные фрагменты (HTML + MathML); null — клиент рендерит LaTeX сам
+    private String contentRendered;
+    private String solutionRendered;
+    private String hintRendered;
     
     // Метаданные
     private Integer points;
@@ -58,6 +66,9 @@ public class QuestionDto {
     
     private LocalDateTime createdAt;
 
+    // Похожие задачи в банке (заполняется при создании и копировании)
+    private List<UUID> possibleDuplicateIds;
+
     /**
      * Конвертация из Entity
      */
@@ -73,6 +84,10 @@ public class QuestionDto {
                 .solution(question.getSolution())
                 .hint(question.getHint())
                 .imageUrl(question.getImageUrl())
+                .diagramUrl(BlobDto.urlOf(question.getDiagramBlobHash()))
+                .contentRendered(question.getContentRendered())
+                .solutionRendered(question.getSolutionRendered())
+                .hintRendered(question.getHintRendered())
                 .points(question.getPoints())
                 .estimatedTimeMinutes(question.getEstimatedTimeMinutes())
                 .source(question.getSource())
@@ -105,6 +120,7 @@ public class QuestionDto {
         QuestionDto dto = fromEntity(question);
         dto.setAnswer(null);
         dto.setSolution(null);
+        dto.setSolutionRendered(null);
         return dto;
     }
 }
@@ -0,0 +1,46 @@
+package ru.stopro.dto.question;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Состояние задачи массового импорта
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImportJobDto {
+
+    private UUID jobId;
+    private String format;
+    private String status;      // QUEUED, RUNNING, COMPLETED, FAILED
+
+    // Прогресс
+    private long read;          // прочитано записей
+    private long imported;      // вставлено в базу
+    private long rejected;      // отклонено (ошибки валидации/разбора)
+
+    private List<RecordError> errors;
+    private String failureMessage;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    /**
+     * Ошибка в конкретной записи пакета
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        private long position;
+        private String message;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.stopro.dto.question;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stopro.domain.enums.QuestionType;
+import ru.stopro.domain.enums.TaskDifficulty;
+import ru.stopro.domain.enums.TaskSource;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Краткое представление задачи для списков и поиска.
+ *
+ * Заполняется JPQL-проекцией напрямую из запроса: TEXT-колонки
+ * (решение, подсказка, SVG и т.п.) не читаются, вместо условия
+ * передаётся только обрезанное превью.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSummaryDto {
+
+    /**
+     * Длина превью условия (символов)
+     */
+    public static final int PREVIEW_LENGTH = 200;
+
+    private UUID id;
+    private UUID topicId;
+    private String topicName;
+    private Integer egeNumber;
+    private TaskDifficulty difficulty;
+    private QuestionType questionType;
+
+    // Превью условия
+    private String preview;
+
+    // Метаданные
+    private Integer points;
+    private TaskSource source;
+    private Integer sourceYear;
+    private Boolean isVerified;
+    private Boolean isPublic;
+
+    // Статистика
+    private Integer timesAttempted;
+    private Double successRate;
+
+    private String tags;
+    private LocalDateTime createdAt;
+
+    /**
+     * Конструктор для JPQL-проекции (SELECT new ...)
+     */
+    public QuestionSummaryDto(UUID id, UUID topicId, String topicName, Integer egeNumber,
+                              TaskDifficulty difficulty, QuestionType questionType, String preview,
+                              Integer points, TaskSource source, Integer sourceYear,
+                              Boolean isVerified, Boolean isPublic,
+                              Integer timesAttempted, Integer timesCorrect,
+                              String tags, LocalDateTime createdAt) {
+        this.id = id;
+        this.topicId = topicId;
+        this.topicName = topicName;
+        this.egeNumber = egeNumber;
+        this.difficulty = difficulty;
+        this.questionType = questionType;
+        this.preview = preview;
+        this.points = points;
+        this.source = source;
+        this.sourceYear = sourceYear;
+        this.isVerified = isVerified;
+        this.isPublic = isPublic;
+        this.timesAttempted = timesAttempted;
+        this.successRate = timesAttempted == null || timesAttempted == 0 || timesCorrect == null
+                ? 0.0
+                : (double) timesCorrect / timesAttempted * 100;
+        this.tags = tags;
+        this.createdAt = createdAt;
+    }
+}
@@ -13,6 +13,7 @@ import ru.stopro.domain.enums.AssignmentType;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -107,6 +108,38 @@ public interface AssignmentRepository extends JpaRepository<Assignment, UUID> {
            "ORDER BY a.deadline ASC")
     List<Assignment> findActiveForStudent(@Param("studentId") UUID studentId);
 
+    /**
+     * Id активных заданий ученика (сами задания берутся из кэша снимков)
+     */
+    @Query("SELECT a.id FROM Assignment a " +
+           "JOIN a.group g " +
+           "JOIN g.students s " +
+           "WHERE s.id = :studentId AND a.status = 'PUBLISHED' " +
+           "AND (a.startDate IS NULL OR a.startDate <= CURRENT_TIMESTAMP) " +
+           "AND a.deadline > CURRENT_TIMESTAMP " +
+           "AND a.isDeleted = false " +
+           "ORDER BY a.deadline ASC")
+    List<UUID> findActiveIdsForStudent(@Param("studentId") UUID studentId);
+
+    /**
+     * Назначено ли задание ученику (через группу)
+     */
+    @Query("SELECT COUNT(a) > 0 FROM Assignment a " +
+           "JOIN a.group g " +
+           "JOIN g.students s " +
+           "WHERE a.id = :assignmentId AND s.id = :studentId AND a.isDeleted = false")
+    boolean isAssignedToStudent(@Param("assignmentId") UUID assignmentId, @Param("studentId") UUID studentId);
+
+    /**
+     * Задание с вопросами, группой и учителем одним запросом (для снимка)
+     */
+    @Query("SELECT a FROM Assignment a " +
+           "LEFT JOIN FETCH a.questions " +
+           "LEFT JOIN FETCH a.group " +
+           "LEFT JOIN FETCH a.teacher " +
+           "WHERE a.id = :id")
+    Optional<Assignment> findForSnapshot(@Param("id") UUID id);
+
     /**
      * Все задания ученика с пагинацией
      */
@@ -117,6 +150,41 @@ public interface AssignmentRepository extends JpaRepository<Assignment, UUID> {
            "ORDER BY a.deadline DESC")
     Page<Assignment> findAllForStudent(@Param("studentId") UUID studentId, Pageable pageable);
 
+    /**
+     * Первая страница заданий ученика (keyset по deadline DESC, id DESC)
+     */
+    @Query("SELECT a FROM Assignment a " +
+           "JOIN a.group g " +
+           "JOIN g.students s " +
+           "WHERE s.id = :studentId AND a.isDeleted = false " +
+           "ORDER BY a.deadline DESC, a.id DESC")
+    List<Assignment> findForStudentFirst(@Param("studentId") UUID studentId, Pageable pageable);
+
+    /**
+     * Следующая страница заданий ученика после курсора
+     */
+    @Query("SELECT a FROM Assignment a " +
+           "JOIN a.group g " +
+           "JOIN g.students s " +
+           "WHERE s.id = :studentId AND a.isDeleted = false " +
+           "AND a.deadline <= :deadline " +
+           "AND (a.deadline < :deadline OR a.id < :id) " +
+           "ORDER BY a.deadline DESC, a.id DESC")
+    List<Assignment> findForStudentAfter(
+            @Param("studentId") UUID studentId,
+            @Param("deadline") LocalDateTime deadline,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Количество заданий ученика (для withTotal)
+     */
+    @Query("SELECT COUNT(a) FROM Assignment a " +
+           "JOIN a.group g " +
+           "JOIN g.students s " +
+           "WHERE s.id = :studentId AND a.isDeleted = false")
+    long countForStudent(@Param("studentId") UUID studentId);
+
     /**
      * Задания ученика с невыполненными попытками
      */
@@ -11,6 +11,7 @@ import ru.stopro.domain.entity.Attempt;
 import ru.stopro.domain.enums.AttemptStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,6 +37,31 @@ public interface AttemptRepository extends JpaRepository<Attempt, UUID> {
     Page<Attempt> findByStudent_IdAndIsDeletedFalseOrderByStartedAtDesc(
             UUID studentId, Pageable pageable);
 
+    /**
+     * Первая страница попыток ученика (keyset по started_at DESC, id DESC)
+     */
+    @Query("SELECT a FROM Attempt a WHERE a.student.id = :studentId AND a.isDeleted = false " +
+           "ORDER BY a.startedAt DESC, a.id DESC")
+    List<Attempt> findByStudentFirst(@Param("studentId") UUID studentId, Pageable pageable);
+
+    /**
+     * Следующая страница попыток ученика после курсора
+     */
+    @Query("SELECT a FROM Attempt a WHERE a.student.id = :studentId AND a.isDeleted = false " +
+           "AND a.startedAt <= :startedAt " +
+           "AND (a.startedAt < :startedAt OR a.id < :id) " +
+           "ORDER BY a.startedAt DESC, a.id DESC")
+    List<Attempt> findByStudentAfter(
+            @Param("studentId") UUID studentId,
+            @Param("startedAt") LocalDateTime startedAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Количество попыток ученика (для withTotal)
+     */
+    long countByStudent_IdAndIsDeletedFalse(UUID studentId);
+
     /**
      * Попытки ученика по заданию
      */
@@ -89,6 +115,19 @@ public interface AttemptRepository extends JpaRepository<Attempt, UUID> {
      */
     List<Attempt> findByAssignment_IdAndIsDeletedFalse(UUID assignmentId);
 
+    /**
+     * Попытки по заданию вместе с учениками — снимок живой панели учителя одним запросом
+     */
+    @Query("SELECT a FROM Attempt a JOIN FETCH a.student JOIN FETCH a.assignment " +
+           "WHERE a.assignment.id = :assignmentId AND a.isDeleted = false")
+    List<Attempt> findForProctoring(@Param("assignmentId") UUID assignmentId);
+
+    /**
+     * Попытки по id вместе с учеником и заданием (события после пакетного завершения)
+     */
+    @Query("SELECT a FROM Attempt a JOIN FETCH a.student LEFT JOIN FETCH a.assignment WHERE a.id IN :ids")
+    List<Attempt> findWithStudentAndAssignment(@Param("ids") Collection<UUID> ids);
+
     /**
      * Завершённые попытки по заданию
      */
@@ -247,6 +286,24 @@ public interface AttemptRepository extends JpaRepository<Attempt, UUID> {
     @Query("UPDATE Attempt a SET a.aiCheckStatus = :status WHERE a.id = :id")
     void updateAiCheckStatus(@Param("id") UUID id, @Param("status") String status);
 
+    /**
+     * Привязать загруженное изображение решения (только к незавершённой попытке)
+     */
+    @Modifying
+    @Query("UPDATE Attempt a SET a.solutionImageUrl = :imageUrl, a.solutionThumbnailUrl = NULL " +
+           "WHERE a.id = :id AND a.status = 'IN_PROGRESS'")
+    int attachSolutionImage(@Param("id") UUID id, @Param("imageUrl") String imageUrl);
+
+    /**
+     * Привязать миниатюру, если изображение с тех пор не заменили
+     */
+    @Modifying
+    @Query("UPDATE Attempt a SET a.solutionThumbnailUrl = :thumbnailUrl " +
+           "WHERE a.id = :id AND a.solutionImageUrl = :imageUrl")
+    int attachSolutionThumbnail(@Param("id") UUID id,
+                                @Param("imageUrl") String imageUrl,
+                                @Param("thumbnailUrl") String thumbnailUrl);
+
     // =========================================
     // Подсчёты
     // =========================================
@@ -295,4 +352,15 @@ public interface AttemptRepository extends JpaRepository<Attempt, UUID> {
            "a.isInterrupted = true, a.interruptionReason = 'Timeout' " +
            "WHERE a.status = 'IN_PROGRESS' AND a.startedAt < :threshold")
     int markStaleAsInterrupted(@Param("threshold") LocalDateTime threshold);
+
+    /**
+     * Пересчитать сроки незавершённых попыток после изменения дедлайна задания
+     */
+    @Modifying
+    @Query(value = "UPDATE attempts a " +
+           "SET expires_at = LEAST(a.started_at + make_interval(mins => s.time_limit_minutes), s.deadline) " +
+           "FROM assignments s " +
+           "WHERE s.id = :assignmentId AND a.assignment_id = s.id AND a.status = 'IN_PROGRESS'",
+           nativeQuery = true)
+    int refreshExpiresAt(@Param("assignmentId") UUID assignmentId);
 }
@@ -0,0 +1,30 @@
+package ru.stopro.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.stopro.domain.entity.StoredBlob;
+
+import java.util.UUID;
+
+/**
+ * Репозиторий метаданных файлов (ключ — SHA-256 содержимого)
+ */
+@Repository
+public interface BlobRepository extends JpaRepository<StoredBlob, String> {
+
+    /**
+     * Записать метаданные, если файла с таким хешем ещё нет.
+     * Параллельные загрузки одного содержимого не конфликтуют.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO blobs (hash, content_type, size_bytes, created_by, created_at) " +
+                   "VALUES (:hash, :contentType, :sizeBytes, :createdBy, now()) " +
+                   "ON CONFLICT (hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash,
+                       @Param("contentType") String contentType,
+                       @Param("sizeBytes") long sizeBytes,
+                       @Param("createdBy") UUID createdBy);
+}
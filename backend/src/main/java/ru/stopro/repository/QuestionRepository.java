@@ -10,7 +10,9 @@ import org.springframework.stereotype.Repository;
 import ru.stopro.domain.entity.Question;
 import ru.stopro.domain.enums.TaskDifficulty;
 import ru.stopro.domain.enums.QuestionType;
+import ru.stopro.dto.question.QuestionSummaryDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -93,6 +95,112 @@ public interface QuestionRepository extends JpaRepository<Question, UUID> {
      */
     Page<Question> findByIsVerifiedTrueAndIsActiveTrueAndIsDeletedFalse(Pageable pageable);
 
+    // =========================================
+    // Проекции для списков (без TEXT-колонок)
+    // =========================================
+
+    /**
+     * Общий SELECT краткой проекции: вместо полного условия читается превью
+     * из первых PREVIEW_LENGTH символов, остальные TEXT-поля не затрагиваются
+     */
+    String SUMMARY_SELECT = "SELECT new ru.stopro.dto.question.QuestionSummaryDto(" +
+            "q.id, t.id, t.name, q.egeNumber, q.difficulty, q.questionType, " +
+            "SUBSTRING(COALESCE(q.contentPlain, q.content), 1, " + QuestionSummaryDto.PREVIEW_LENGTH + "), " +
+            "q.points, q.source, q.sourceYear, q.isVerified, q.isActive, " +
+            "q.timesAttempted, q.timesCorrect, q.tags, q.createdAt) " +
+            "FROM Question q LEFT JOIN q.topic t ";
+
+    /**
+     * Публичный банк (краткая проекция)
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE q.isActive = true AND q.isDeleted = false",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.isActive = true AND q.isDeleted = false")
+    Page<QuestionSummaryDto> findPublicBankSummaries(Pageable pageable);
+
+    /**
+     * Вопросы автора (краткая проекция)
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE q.author.id = :authorId AND q.isDeleted = false",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.author.id = :authorId AND q.isDeleted = false")
+    Page<QuestionSummaryDto> findSummariesByAuthor(@Param("authorId") UUID authorId, Pageable pageable);
+
+    /**
+     * Вопросы по теме (краткая проекция)
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE t.id = :topicId AND q.isDeleted = false",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.topic.id = :topicId AND q.isDeleted = false")
+    Page<QuestionSummaryDto> findSummariesByTopic(@Param("topicId") UUID topicId, Pageable pageable);
+
+    /**
+     * Вопросы по сложности (краткая проекция)
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE q.difficulty = :difficulty AND q.isDeleted = false",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.difficulty = :difficulty AND q.isDeleted = false")
+    Page<QuestionSummaryDto> findSummariesByDifficulty(
+            @Param("difficulty") TaskDifficulty difficulty, Pageable pageable);
+
+    /**
+     * Все неудалённые вопросы (краткая проекция)
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE q.isDeleted = false",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.isDeleted = false")
+    Page<QuestionSummaryDto> findAllSummaries(Pageable pageable);
+
+    // =========================================
+    // Keyset-пагинация (created_at DESC, id DESC)
+    // =========================================
+
+    /**
+     * Первая страница публичного банка
+     */
+    @Query(SUMMARY_SELECT + "WHERE q.isActive = true AND q.isDeleted = false " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummaryDto> findPublicBankFirst(Pageable pageable);
+
+    /**
+     * Следующая страница публичного банка после курсора.
+     * Условие createdAt <= :createdAt даёт индексу границу для seek,
+     * второе условие отсекает уже выданные строки с тем же createdAt.
+     */
+    @Query(SUMMARY_SELECT + "WHERE q.isActive = true AND q.isDeleted = false " +
+           "AND q.createdAt <= :createdAt " +
+           "AND (q.createdAt < :createdAt OR q.id < :id) " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummaryDto> findPublicBankAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Первая страница задач автора
+     */
+    @Query(SUMMARY_SELECT + "WHERE q.author.id = :authorId AND q.isDeleted = false " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummaryDto> findByAuthorFirst(@Param("authorId") UUID authorId, Pageable pageable);
+
+    /**
+     * Следующая страница задач автора после курсора
+     */
+    @Query(SUMMARY_SELECT + "WHERE q.author.id = :authorId AND q.isDeleted = false " +
+           "AND q.createdAt <= :createdAt " +
+           "AND (q.createdAt < :createdAt OR q.id < :id) " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummaryDto> findByAuthorAfter(
+            @Param("authorId") UUID authorId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Количество публичных вопросов (для withTotal)
+     */
+    long countByIsActiveTrueAndIsDeletedFalse();
+
+    /**
+     * Количество вопросов автора (для withTotal)
+     */
+    long countByAuthorIdAndIsDeletedFalse(UUID authorId);
+
     // =========================================
     // Сложные фильтры
     // =========================================
@@ -116,14 +224,17 @@ public interface QuestionRepository extends JpaRepository<Question, UUID> {
     );
 
     /**
-     * Полнотекстовый поиск по содержимому
+     * Поиск по тексту условия без разметки и ключевым словам.
+     * Запрос должен быть нормализован (QuestionTextExtractor.normalize):
+     * keywords хранятся в нижнем регистре, по LOWER(content_plain) есть триграммный индекс.
      */
-    @Query("SELECT q FROM Question q WHERE q.isActive = true AND q.isDeleted = false " +
-           "AND (LOWER(q.content) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(q.contentPlain) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(q.solution) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(q.keywords) LIKE LOWER(CONCAT('%', :query, '%')))")
-    Page<Question> searchByContent(@Param("query") String query, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "WHERE q.isActive = true AND q.isDeleted = false " +
+           "AND (LOWER(q.contentPlain) LIKE CONCAT('%', :query, '%') " +
+           "OR q.keywords LIKE CONCAT('%', :query, '%'))",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.isActive = true AND q.isDeleted = false " +
+           "AND (LOWER(q.contentPlain) LIKE CONCAT('%', :query, '%') " +
+           "OR q.keywords LIKE CONCAT('%', :query, '%'))")
+    Page<QuestionSummaryDto> searchByContent(@Param("query") String query, Pageable pageable);
 
     // =========================================
     // Генерация вариантов
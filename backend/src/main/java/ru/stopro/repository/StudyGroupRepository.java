@@ -1,6 +1,8 @@
 package ru.stopro.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.stopro.domain.entity.StudyGroup;
 
@@ -22,4 +24,8 @@ public interface StudyGroupRepository extends JpaRepository<StudyGroup, UUID> {
 
     /** Проверка существования кода-приглашения */
     boolean existsByInviteCode(String inviteCode);
+
+    /** Число учеников группы (без загрузки коллекции students) */
+    @Query("SELECT COUNT(s) FROM StudyGroup g JOIN g.students s WHERE g.id = :groupId")
+    long countStudents(@Param("groupId") UUID groupId);
 }
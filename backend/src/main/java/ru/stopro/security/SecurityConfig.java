@@ -1,5 +1,6 @@
 package ru.stopro.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,7 @@ import java.util.List;
  *  - /api/v1/groups/**      → только TEACHER
  *  - /api/student/**        → только STUDENT
  *  - /swagger-ui/**, /api-docs/** → публичный
+ *  - GET /api/v1/blobs/**   → публичный (адрес — SHA-256 содержимого, для <img> без токена)
  *  - остальное              → аутентифицированные пользователи
  */
 @Configuration
@@ -53,12 +55,18 @@ public class SecurityConfig {
             .authenticationProvider(authenticationProvider())
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
+                // Асинхронное продолжение (SSE, потоковая выгрузка) уже прошло проверку на исходном запросе
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Публичные эндпоинты
                 .requestMatchers("/api/v1/auth/**").permitAll()
                 .requestMatchers("/health", "/actuator/health").permitAll()
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html",
                                  "/api-docs/**", "/v3/api-docs/**").permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/v1/blobs/**").permitAll()
+                // WebSocket проверяет токен сам при рукопожатии (WebSocketAuthInterceptor)
+                .requestMatchers("/ws/**").permitAll()
 
                 // Группы — только учитель
                 .requestMatchers("/api/v1/groups/**").hasRole("TEACHER")
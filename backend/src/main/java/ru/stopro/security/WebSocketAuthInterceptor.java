@@ -0,0 +1,74 @@
+package ru.stopro.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.stopro.service.proctoring.ProctoringService;
+import ru.stopro.service.proctoring.ProctoringWebSocketHandler;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Проверка JWT при открытии WebSocket живой панели.
+ *
+ * Браузерный WebSocket не умеет передавать заголовок Authorization,
+ * поэтому токен приходит параметром token. Соединение открывается, только если
+ * токен действителен и пользователь — учитель, создавший задание.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketAuthInterceptor implements HandshakeInterceptor {
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final ProctoringService proctoringService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Map<String, String> params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams()
+                .toSingleValueMap();
+        String token = params.get("token");
+        UUID assignmentId;
+        try {
+            assignmentId = UUID.fromString(params.getOrDefault("assignmentId", ""));
+        } catch (IllegalArgumentException e) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        try {
+            String username = jwtService.extractUsername(token);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (!jwtService.isTokenValid(token, userDetails)) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            proctoringService.checkAccess(username, assignmentId);
+        } catch (AccessDeniedException e) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        } catch (RuntimeException e) {
+            log.debug("WebSocket handshake rejected: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(ProctoringWebSocketHandler.ASSIGNMENT_ID, assignmentId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
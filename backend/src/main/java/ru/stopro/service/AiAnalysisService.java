@@ -1,15 +1,79 @@
 package ru.stopro.service;
 
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.stopro.domain.entity.Attempt;
+import ru.stopro.dto.attempt.AttemptUpdateDto;
+import ru.stopro.repository.AttemptRepository;
+import ru.stopro.service.ai.AiAnalysisQueue;
+import ru.stopro.service.ai.AiBatch;
+import ru.stopro.service.outbox.OutboxService;
+import ru.stopro.service.stream.AttemptChangedEvent;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
+/**
+ * AI-анализ решений.
+ *
+ * Запрос только ставит попытку в очередь (ai_check_status = PENDING) в той же
+ * транзакции, что и сохранение ответа; вызовы AI-сервиса делает
+ * {@link ru.stopro.service.ai.AiAnalysisWorker} в фоне, пачками.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class AiAnalysisService {
 
-    public CompletableFuture<Void> analyzeAttempt(Attempt attempt) {
-        // Заглушка для компиляции. Реальная логика будет добавлена при интеграции с AI-сервисом.
-        return CompletableFuture.completedFuture(null);
+    private final AttemptRepository attemptRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Поставить попытку в очередь AI-проверки (сохраняется вместе с попыткой)
+     */
+    public void enqueue(Attempt attempt) {
+        attempt.setAiCheckStatus(AiAnalysisQueue.PENDING);
+        attempt.setAiRetryCount(0);
+        attempt.setAiNextAttemptAt(null);
+        attempt.setAiClaimedAt(null);
+        attempt.setAiLastError(null);
+        attempt.setCeleryTaskId(null);
+    }
+
+    /**
+     * Записать результат проверки, если задание всё ещё принадлежит воркеру с этим токеном
+     *
+     * @return false, если задание уже перехвачено или отменено
+     */
+    @Transactional
+    public boolean complete(String token, UUID attemptId, AiBatch.OcrResult ocr, AiBatch.CheckResult result) {
+        Attempt attempt = attemptRepository.findById(attemptId).orElse(null);
+        if (attempt == null
+                || !AiAnalysisQueue.PROCESSING.equals(attempt.getAiCheckStatus())
+                || !token.equals(attempt.getCeleryTaskId())) {
+            log.debug("Dropping stale AI result for attempt {}", attemptId);
+            return false;
+        }
+        if (ocr != null && ocr.error() == null) {
+            attempt.setRecognizedText(ocr.text());
+            attempt.setOcrConfidence(ocr.confidence());
+        }
+        attempt.setAiResult(result.analysis(), result.feedback(), result.errorType(), result.recommendations(),
+                result.qualityScore() != null ? result.qualityScore() : 0);
+        attemptRepository.save(attempt);
+        eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.fromEntity(attempt)));
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("attemptId", attemptId);
+        event.put("studentId", attempt.getStudentId());
+        event.put("qualityScore", attempt.getAiQualityScore());
+        outboxService.publish(OutboxService.ATTEMPT, attemptId, OutboxService.ATTEMPT_AI_CHECKED, event);
+        return true;
     }
 }
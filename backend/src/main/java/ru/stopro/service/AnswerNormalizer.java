@@ -0,0 +1,22 @@
+package ru.stopro.service;
+
+/**
+ * Каноническая форма ответа ученика: « 2,50 » и «2.5» — один ответ.
+ */
+public final class AnswerNormalizer {
+
+    private AnswerNormalizer() {
+    }
+
+    public static String normalize(String answer) {
+        if (answer == null) return "";
+
+        return answer
+                .trim()
+                .toLowerCase()
+                .replace(",", ".")
+                .replace(" ", "")
+                .replace("−", "-")  // Длинное тире на минус
+                .replaceAll("\\.0+$", ""); // Убираем .00
+    }
+}
@@ -2,6 +2,9 @@ package ru.stopro.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.stopro.domain.entity.Assignment;
@@ -12,9 +15,15 @@ import ru.stopro.domain.enums.TaskDifficulty;
 import ru.stopro.dto.assignment.AssignmentCreateRequest;
 import ru.stopro.dto.assignment.AssignmentDto;
 import ru.stopro.dto.assignment.GenerateAssignmentRequest;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.common.PageCursor;
 import ru.stopro.repository.AssignmentRepository;
+import ru.stopro.repository.AttemptRepository;
 import ru.stopro.repository.QuestionRepository;
 import ru.stopro.repository.StudyGroupRepository;
+import ru.stopro.service.assignment.AssignmentChangedEvent;
+import ru.stopro.service.assignment.AssignmentSnapshot;
+import ru.stopro.service.assignment.AssignmentSnapshotCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -31,8 +40,11 @@ import java.util.stream.Collectors;
 public class AssignmentService {
 
     private final AssignmentRepository assignmentRepository;
+    private final AttemptRepository attemptRepository;
     private final QuestionRepository questionRepository;
     private final StudyGroupRepository studyGroupRepository;
+    private final AssignmentSnapshotCache snapshotCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создать тест вручную из выбранных задач
@@ -177,6 +189,49 @@ public class AssignmentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Все задания ученика с keyset-пагинацией (без ответов)
+     */
+    public CursorPage<AssignmentDto> getStudentAssignmentsPage(UUID studentId, String cursor, Integer size, boolean withTotal) {
+        int limit = CursorPage.clampSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<Assignment> rows = after == null
+                ? assignmentRepository.findForStudentFirst(studentId, window)
+                : assignmentRepository.findForStudentAfter(studentId, after.sortKey(), after.id(), window);
+
+        CursorPage<AssignmentDto> page = CursorPage.of(rows, limit, a -> AssignmentDto.fromEntity(a),
+                a -> new PageCursor(a.getDeadline(), a.getId()));
+        if (withTotal) {
+            page.setTotal(assignmentRepository.countForStudent(studentId));
+        }
+        return page;
+    }
+
+    /**
+     * Активные задания ученика: один запрос за id, сами задания — из кэша снимков
+     */
+    public List<AssignmentDto> getActiveForStudent(UUID studentId) {
+        return assignmentRepository.findActiveIdsForStudent(studentId).stream()
+                .map(id -> snapshotCache.get(id).toStudentDto())
+                .toList();
+    }
+
+    /**
+     * Снимок задания с готовым JSON для ученика (проверяет группу и доступность)
+     */
+    public AssignmentSnapshot getForStudent(UUID studentId, UUID assignmentId) {
+        if (!assignmentRepository.isAssignedToStudent(assignmentId, studentId)) {
+            throw new RuntimeException("Assignment not found");
+        }
+        AssignmentSnapshot snapshot = snapshotCache.get(assignmentId);
+        if (!snapshot.isAvailable()) {
+            throw new RuntimeException("Задание недоступно");
+        }
+        return snapshot;
+    }
+
     /**
      * Опубликовать тест
      */
@@ -190,6 +245,8 @@ public class AssignmentService {
         
         assignment = assignmentRepository.save(assignment);
         log.info("Published assignment {}", assignmentId);
+        // Ученики начнут сразу после публикации: снимок строится заранее
+        eventPublisher.publishEvent(new AssignmentChangedEvent(assignmentId, true));
         
         return mapToDto(assignment);
     }
@@ -204,6 +261,7 @@ public class AssignmentService {
         
         assignment.setStatus(AssignmentStatus.ARCHIVED);
         assignment = assignmentRepository.save(assignment);
+        eventPublisher.publishEvent(new AssignmentChangedEvent(assignmentId, false));
         
         return mapToDto(assignment);
     }
@@ -247,7 +305,10 @@ public class AssignmentService {
                 .orElseThrow(() -> new RuntimeException("Assignment not found"));
         
         assignment.setDeadline(newDeadline);
-        assignment = assignmentRepository.save(assignment);
+        assignment = assignmentRepository.saveAndFlush(assignment);
+        // Незавершённые попытки получают новый срок; планировщик истечения перечитает его из базы
+        attemptRepository.refreshExpiresAt(assignmentId);
+        eventPublisher.publishEvent(new AssignmentChangedEvent(assignmentId, false));
         
         log.info("Extended deadline for assignment {} to {}", assignmentId, newDeadline);
         return mapToDto(assignment);
@@ -2,6 +2,9 @@ package ru.stopro.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.stopro.domain.entity.Assignment;
@@ -10,12 +13,23 @@ import ru.stopro.domain.entity.Question;
 import ru.stopro.domain.entity.User;
 import ru.stopro.domain.enums.AttemptStatus;
 import ru.stopro.dto.attempt.AttemptDto;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.common.PageCursor;
+import ru.stopro.dto.proctoring.ProgressRowDto;
 import ru.stopro.dto.attempt.AttemptResultDto;
+import ru.stopro.dto.attempt.AttemptUpdateDto;
 import ru.stopro.dto.attempt.SubmitAnswerRequest;
 import ru.stopro.repository.AssignmentRepository;
 import ru.stopro.repository.AttemptRepository;
 import ru.stopro.repository.QuestionRepository;
 import ru.stopro.repository.UserRepository;
+import ru.stopro.service.assignment.AssignmentSnapshot;
+import ru.stopro.service.assignment.AssignmentSnapshotCache;
+import ru.stopro.service.attempt.AttemptDeadlineEvent;
+import ru.stopro.service.attempt.AttemptSlots;
+import ru.stopro.service.outbox.OutboxService;
+import ru.stopro.service.proctoring.AttemptProgressEvent;
+import ru.stopro.service.stream.AttemptChangedEvent;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -35,38 +49,57 @@ public class AttemptService {
     private final QuestionRepository questionRepository;
     private final UserRepository userRepository;
     private final AiAnalysisService aiAnalysisService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AssignmentSnapshotCache snapshotCache;
+    private final AttemptSlots attemptSlots;
 
     /**
      * Начать новую попытку
      */
     @Transactional
     public AttemptDto startAttempt(UUID studentId, UUID assignmentId) {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        // Снимок задания из кэша: при старте экзамена вся группа не идёт в базу за одним и тем же
+        AssignmentSnapshot snapshot = snapshotCache.get(assignmentId);
 
-        // Проверяем лимит попыток
-        long existingAttempts = attemptRepository.countByStudent_IdAndAssignment_Id(studentId, assignmentId);
-        if (assignment.getMaxAttempts() != null && existingAttempts >= assignment.getMaxAttempts()) {
-            throw new RuntimeException("Превышен лимит попыток");
-        }
+        // Лимит попыток и cooldown: атомарный резерв слота, откатится вместе с транзакцией
+        LocalDateTime startedAt = LocalDateTime.now();
+        attemptSlots.reserve(studentId, assignmentId,
+                snapshot.getMaxAttempts(), snapshot.getCooldownMinutes(), startedAt);
 
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
+
+        // Срок попытки: лимит времени, но не позже дедлайна задания
+        LocalDateTime expiresAt = snapshot.getDeadline();
+        if (snapshot.getTimeLimitMinutes() != null) {
+            LocalDateTime byLimit = startedAt.plusMinutes(snapshot.getTimeLimitMinutes());
+            if (expiresAt == null || byLimit.isBefore(expiresAt)) {
+                expiresAt = byLimit;
+            }
+        }
         
         Attempt attempt = Attempt.builder()
                 .student(student)
-                .assignment(assignment)
+                .assignment(assignmentRepository.getReferenceById(assignmentId))
                 .status(AttemptStatus.IN_PROGRESS)
-                .startedAt(LocalDateTime.now())
+                .startedAt(startedAt)
+                .expiresAt(expiresAt)
                 .correctCount(0)
-                .totalQuestions(assignment.getQuestions().size())
+                .totalQuestions(snapshot.getQuestionsCount())
                 .build();
 
         attempt = attemptRepository.save(attempt);
+        if (expiresAt != null) {
+            eventPublisher.publishEvent(new AttemptDeadlineEvent(attempt.getId(), expiresAt));
+        }
+        eventPublisher.publishEvent(new AttemptProgressEvent(assignmentId,
+                ProgressRowDto.of(attempt, snapshot.getDeadline(), snapshot.getTimeLimitMinutes())));
         log.info("Started attempt {} for student {} on assignment {}", 
                 attempt.getId(), studentId, assignmentId);
 
-        return mapToDto(attempt);
+        // Ссылку на задание не инициализируем: название берём из снимка
+        return mapToDto(attempt, snapshot.getTitle());
     }
 
     /**
@@ -81,15 +114,9 @@ public class AttemptService {
             throw new RuntimeException("Попытка уже завершена");
         }
 
-        // Проверяем таймаут
-        Assignment assignment = attempt.getAssignment();
-        if (assignment.getTimeLimitMinutes() != null) {
-            LocalDateTime deadline = attempt.getStartedAt().plusMinutes(assignment.getTimeLimitMinutes());
-            if (LocalDateTime.now().isAfter(deadline)) {
-                attempt.setStatus(AttemptStatus.TIMEOUT);
-                attemptRepository.save(attempt);
-                throw new RuntimeException("Время вышло");
-            }
+        // Проверяем таймаут: саму попытку в TIMEOUT переводит AttemptExpiryScheduler
+        if (attempt.getExpiresAt() != null && LocalDateTime.now().isAfter(attempt.getExpiresAt())) {
+            throw new RuntimeException("Время вышло");
         }
 
         // Сохраняем ответ
@@ -105,22 +132,25 @@ public class AttemptService {
         boolean isCorrect = checkAnswer(question, request.getAnswer());
         answerData.put("isCorrect", isCorrect);
 
-        // Сохраняем ответ в JSON формате
-        // В реальности здесь должна быть JSON сериализация
-        String answersJson = "{}"; // Заглушка
-        attempt.setAnswers(answersJson);
-
-        // Обновляем счётчик правильных ответов
-        if (isCorrect) {
-            attempt.setCorrectCount(attempt.getCorrectCount() + 1);
-        }
+        // Повторный ответ на ту же задачу заменяет прежний и не накручивает счётчики
+        attempt.recordAnswer(question.getId(), answerData, isCorrect);
 
         // Если есть изображение решения - сохраняем URL
         if (request.getSolutionImage() != null) {
             attempt.setSolutionImageUrl(request.getSolutionImage());
         }
+        if (request.getSolutionText() != null && !request.getSolutionText().isBlank()) {
+            attempt.setSolutionText(request.getSolutionText());
+        }
+
+        // Развёрнутое решение проверяет AI — в фоне, не задерживая ответ
+        if (request.getSolutionImage() != null || attempt.getSolutionText() != null) {
+            aiAnalysisService.enqueue(attempt);
+        }
 
         attempt = attemptRepository.save(attempt);
+        eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.fromEntity(attempt)));
+        publishProgress(attempt);
         return mapToDto(attempt);
     }
 
@@ -131,6 +161,11 @@ public class AttemptService {
     public AttemptResultDto finishAttempt(UUID attemptId) {
         Attempt attempt = attemptRepository.findById(attemptId)
                 .orElseThrow(() -> new RuntimeException("Attempt not found"));
+        if (attempt.getStatus() != AttemptStatus.IN_PROGRESS) {
+            // Повторное «Завершить» (двойной клик, повтор клиента) или время вышло раньше:
+            // результат уже зафиксирован, событие о завершении опубликовано один раз
+            return mapToResultDto(attempt);
+        }
 
         attempt.setStatus(AttemptStatus.COMPLETED);
         attempt.setFinishedAt(LocalDateTime.now());
@@ -142,11 +177,32 @@ public class AttemptService {
         attempt.setScore(score);
 
         attempt = attemptRepository.save(attempt);
+        eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.fromEntity(attempt)));
+        publishProgress(attempt);
+        if (attempt.getExpiresAt() != null) {
+            eventPublisher.publishEvent(new AttemptDeadlineEvent(attempt.getId(), null));
+        }
         log.info("Finished attempt {} with score {}", attemptId, score);
 
+        // Уведомления уходят после коммита через outbox, не задерживая запрос
+        publishFinished(attempt);
+
         return mapToResultDto(attempt);
     }
 
+    /**
+     * События для попыток, которые AttemptExpiryScheduler только что перевёл в TIMEOUT
+     * (в той же транзакции, что и UPDATE)
+     */
+    @Transactional
+    public void publishTimedOut(List<UUID> attemptIds) {
+        for (Attempt attempt : attemptRepository.findWithStudentAndAssignment(attemptIds)) {
+            eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.fromEntity(attempt)));
+            publishProgress(attempt);
+            publishFinished(attempt);
+        }
+    }
+
     /**
      * Получить попытку
      */
@@ -175,6 +231,26 @@ public class AttemptService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Попытки ученика с keyset-пагинацией
+     */
+    public CursorPage<AttemptDto> getStudentAttemptsPage(UUID studentId, String cursor, Integer size, boolean withTotal) {
+        int limit = CursorPage.clampSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<Attempt> rows = after == null
+                ? attemptRepository.findByStudentFirst(studentId, window)
+                : attemptRepository.findByStudentAfter(studentId, after.sortKey(), after.id(), window);
+
+        CursorPage<AttemptDto> page = CursorPage.of(rows, limit, this::mapToDto,
+                a -> new PageCursor(a.getStartedAt(), a.getId()));
+        if (withTotal) {
+            page.setTotal(attemptRepository.countByStudent_IdAndIsDeletedFalse(studentId));
+        }
+        return page;
+    }
+
     /**
      * Запросить AI анализ
      */
@@ -183,10 +259,11 @@ public class AttemptService {
         Attempt attempt = attemptRepository.findById(attemptId)
                 .orElseThrow(() -> new RuntimeException("Attempt not found"));
         
-        // Заглушка - в реальности отправляем на AI сервис
-        attempt.setAiFeedback("AI analysis pending");
-        
+        // Проверка идёт в фоне, запрос только ставит попытку в очередь
+        aiAnalysisService.enqueue(attempt);
+
         attempt = attemptRepository.save(attempt);
+        eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.fromEntity(attempt)));
         return mapToDto(attempt);
     }
 
@@ -232,27 +309,56 @@ public class AttemptService {
         return false;
     }
 
+    /**
+     * Событие о завершении попытки в outbox (уведомления, рейтинг)
+     */
+    private void publishFinished(Attempt attempt) {
+        Assignment assignment = attempt.getAssignment();
+        Map<String, Object> event = new HashMap<>();
+        event.put("attemptId", attempt.getId());
+        event.put("studentId", attempt.getStudentId());
+        event.put("score", attempt.getScore());
+        event.put("status", attempt.getStatus().name());
+        if (assignment != null) {
+            event.put("assignmentId", assignment.getId());
+            event.put("assignmentTitle", assignment.getTitle());
+            event.put("teacherId", assignment.getTeacher() != null ? assignment.getTeacher().getId() : null);
+            event.put("notifyTeacher", Boolean.TRUE.equals(assignment.getNotifyTeacherOnComplete()));
+        }
+        outboxService.publish(OutboxService.ATTEMPT, attempt.getId(), OutboxService.ATTEMPT_FINISHED, event);
+        if (assignment != null && assignment.getGroup() != null) {
+            outboxService.publish(OutboxService.ATTEMPT, attempt.getId(), OutboxService.LEADERBOARD_UPDATE,
+                    Map.of("groupId", assignment.getGroup().getId(), "studentId", attempt.getStudentId()));
+        }
+    }
+
+    /**
+     * Обновить строку ученика на живой панели учителя (после коммита)
+     */
+    private void publishProgress(Attempt attempt) {
+        if (attempt.getAssignment() != null) {
+            eventPublisher.publishEvent(new AttemptProgressEvent(
+                    attempt.getAssignment().getId(), ProgressRowDto.fromEntity(attempt)));
+        }
+    }
+
     /**
      * Нормализация ответа
      */
     private String normalizeAnswer(String answer) {
-        if (answer == null) return "";
-        
-        return answer
-                .trim()
-                .toLowerCase()
-                .replace(",", ".")
-                .replace(" ", "")
-                .replace("−", "-")  // Длинное тире на минус
-                .replaceAll("\\.0+$", ""); // Убираем .00
+        return AnswerNormalizer.normalize(answer);
     }
 
     private AttemptDto mapToDto(Attempt attempt) {
+        return mapToDto(attempt, attempt.getAssignment().getTitle());
+    }
+
+    private AttemptDto mapToDto(Attempt attempt, String assignmentTitle) {
         return AttemptDto.builder()
                 .id(attempt.getId())
                 .studentId(attempt.getStudentId())
                 .assignmentId(attempt.getAssignment().getId())
-                .assignmentTitle(attempt.getAssignment().getTitle())
+                .assignmentTitle(assignmentTitle)
                 .status(attempt.getStatus())
                 .startedAt(attempt.getStartedAt())
                 .finishedAt(attempt.getFinishedAt() != null ? attempt.getFinishedAt() : attempt.getAnsweredAt())
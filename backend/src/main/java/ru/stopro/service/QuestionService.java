@@ -2,22 +2,39 @@ package ru.stopro.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.stopro.domain.entity.Question;
 import ru.stopro.domain.entity.Topic;
+import ru.stopro.domain.entity.User;
 import ru.stopro.repository.UserRepository;
+import ru.stopro.dto.blob.BlobDto;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.common.PageCursor;
 import ru.stopro.dto.question.QuestionCreateRequest;
 import ru.stopro.dto.question.QuestionDto;
 import ru.stopro.dto.question.QuestionFilterRequest;
+import ru.stopro.dto.question.QuestionSummaryDto;
 import ru.stopro.repository.QuestionRepository;
 import ru.stopro.repository.TopicRepository;
+import ru.stopro.service.blob.BlobService;
+import ru.stopro.service.dedup.NearDuplicateService;
+import ru.stopro.service.dedup.QuestionIndexEvent;
+import ru.stopro.service.latex.LatexRenderService;
+import ru.stopro.service.latex.LatexValidationResult;
+import ru.stopro.service.latex.LatexValidator;
+import ru.stopro.service.search.QuestionTextExtractor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,19 +46,19 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final TopicRepository topicRepository;
     private final UserRepository userRepository;
-
-    // Паттерн для проверки парности $ в LaTeX
-    private static final Pattern LATEX_PATTERN = Pattern.compile("\\$[^$]+\\$|\\$\\$[^$]+\\$\\$");
+    private final NearDuplicateService nearDuplicateService;
+    private final LatexRenderService latexRenderService;
+    private final BlobService blobService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создать новую задачу
      */
     @Transactional
     public QuestionDto create(UUID teacherId, QuestionCreateRequest request) {
-        // Валидация LaTeX
-        if (!validateLatex(request.getContent())) {
-            throw new IllegalArgumentException("Некорректный LaTeX синтаксис");
-        }
+        LatexValidationResult latex = requireValidLatex(request.getContent());
+        QuestionTextExtractor.SearchText searchText =
+                QuestionTextExtractor.extract(request.getContent(), latex.plainText());
 
         Topic topic = null;
         if (request.getTopicId() != null) {
@@ -50,6 +67,8 @@ public class QuestionService {
 
         Question question = Question.builder()
                 .content(request.getContent())
+                .contentPlain(searchText.contentPlain())
+                .keywords(searchText.keywords())
                 .answer(request.getCorrectAnswer())
                 .alternativeAnswers(request.getAlternativeAnswers() != null ? 
                     String.join(",", request.getAlternativeAnswers()) : null)
@@ -59,6 +78,7 @@ public class QuestionService {
                 .egeNumber(request.getEgeNumber())
                 .solution(request.getSolution())
                 .hint(request.getHint())
+                .diagramBlobHash(storeDiagram(request.getDiagramSvg(), teacherId))
                 .tags(request.getTags() != null ? String.join(",", request.getTags()) : null)
                 .isActive(request.isPublic())
                 .author(userRepository.findById(teacherId).orElse(null))
@@ -67,10 +87,18 @@ public class QuestionService {
                 .timesCorrect(0)
                 .build();
 
+        latexRenderService.renderQuestion(question);
         question = questionRepository.save(question);
         log.info("Created question {} by teacher {}", question.getId(), teacherId);
 
-        return mapToDto(question);
+        List<UUID> duplicates = nearDuplicateService.findDuplicates(
+                question.getContent(), question.getAnswer(), question.getId());
+        eventPublisher.publishEvent(
+                QuestionIndexEvent.index(question.getId(), question.getContent(), question.getAnswer()));
+
+        QuestionDto dto = mapToDto(question);
+        dto.setPossibleDuplicateIds(duplicates);
+        return dto;
     }
 
     /**
@@ -81,11 +109,15 @@ public class QuestionService {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
 
-        if (!validateLatex(request.getContent())) {
-            throw new IllegalArgumentException("Некорректный LaTeX синтаксис");
-        }
+        LatexValidationResult latex = requireValidLatex(request.getContent());
+        boolean textChanged = !Objects.equals(question.getContent(), request.getContent())
+                || !Objects.equals(question.getAnswer(), request.getCorrectAnswer());
 
         question.setContent(request.getContent());
+        QuestionTextExtractor.SearchText searchText =
+                QuestionTextExtractor.extract(request.getContent(), latex.plainText());
+        question.setContentPlain(searchText.contentPlain());
+        question.setKeywords(searchText.keywords());
         question.setAnswer(request.getCorrectAnswer());
         // alternativeAnswers нужно сериализовать в JSON
         if (request.getAlternativeAnswers() != null && !request.getAlternativeAnswers().isEmpty()) {
@@ -96,6 +128,11 @@ public class QuestionService {
         question.setEgeNumber(request.getEgeNumber());
         question.setSolution(request.getSolution());
         question.setHint(request.getHint());
+        if (request.getDiagramSvg() != null && !request.getDiagramSvg().isBlank()) {
+            question.setDiagramBlobHash(storeDiagram(request.getDiagramSvg(),
+                    question.getAuthor() != null ? question.getAuthor().getId() : null));
+            question.setDiagramSvg(null);
+        }
         // tags нужно сериализовать в JSON
         if (request.getTags() != null && !request.getTags().isEmpty()) {
             question.setTags(String.join(",", request.getTags()));
@@ -108,8 +145,18 @@ public class QuestionService {
         
         // При изменении сбрасываем верификацию
         question.setIsVerified(false);
+        latexRenderService.renderQuestion(question);
+
+        // Изменённая копия становится самостоятельной задачей и попадает в индекс дубликатов
+        if (textChanged) {
+            question.setCopiedFromId(null);
+        }
 
         question = questionRepository.save(question);
+        if (question.getCopiedFromId() == null) {
+            eventPublisher.publishEvent(
+                    QuestionIndexEvent.index(question.getId(), question.getContent(), question.getAnswer()));
+        }
         return mapToDto(question);
     }
 
@@ -123,6 +170,7 @@ public class QuestionService {
         
         question.setIsDeleted(true);
         questionRepository.save(question);
+        eventPublisher.publishEvent(QuestionIndexEvent.remove(questionId));
         log.info("Deleted question {}", questionId);
     }
 
@@ -138,27 +186,29 @@ public class QuestionService {
     /**
      * Получить задачи учителя
      */
-    public Page<QuestionDto> getByTeacher(UUID teacherId, Pageable pageable) {
-        return questionRepository.findByAuthorIdAndIsDeletedFalse(teacherId, pageable)
-                .map(this::mapToDto);
+    public Page<QuestionSummaryDto> getByTeacher(UUID teacherId, Pageable pageable) {
+        return questionRepository.findSummariesByAuthor(teacherId, pageable);
     }
 
     /**
      * Поиск с фильтрами
      */
-    public Page<QuestionDto> search(QuestionFilterRequest filter, Pageable pageable) {
+    public Page<QuestionSummaryDto> search(QuestionFilterRequest filter, Pageable pageable) {
         // Упрощённая реализация - в реальности используем Specification
+        if (filter.getSearchQuery() != null && !filter.getSearchQuery().isBlank()) {
+            return questionRepository.searchByContent(
+                    QuestionTextExtractor.normalize(filter.getSearchQuery()), pageable);
+        }
+
         if (filter.getTopicId() != null) {
-            return questionRepository.findByTopicIdAndIsDeletedFalse(filter.getTopicId(), pageable)
-                    .map(this::mapToDto);
+            return questionRepository.findSummariesByTopic(filter.getTopicId(), pageable);
         }
         
         if (filter.getDifficulty() != null) {
-            return questionRepository.findByDifficultyAndIsDeletedFalse(filter.getDifficulty(), pageable)
-                    .map(this::mapToDto);
+            return questionRepository.findSummariesByDifficulty(filter.getDifficulty(), pageable);
         }
         
-        return questionRepository.findByIsDeletedFalse(pageable).map(this::mapToDto);
+        return questionRepository.findAllSummaries(pageable);
     }
 
     /**
@@ -169,28 +219,18 @@ public class QuestionService {
         Question original = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
 
-        Question copy = Question.builder()
-                .content(original.getContent())
-                .answer(original.getAnswer())
-                .alternativeAnswers(original.getAlternativeAnswers())
-                .questionType(original.getQuestionType())
-                .difficulty(original.getDifficulty())
-                .topic(original.getTopic())
-                .egeNumber(original.getEgeNumber())
-                .solution(original.getSolution())
-                .hint(original.getHint())
-                .tags(original.getTags())
-                .isActive(false) // Копия приватная
-                .author(userRepository.findById(teacherId).orElse(null))
-                .isVerified(false)
-                .timesAttempted(0)
-                .timesCorrect(0)
-                .build();
+        Question copy = copyOf(original, userRepository.findById(teacherId).orElse(null));
 
         copy = questionRepository.save(copy);
         log.info("Duplicated question {} to {} by teacher {}", questionId, copy.getId(), teacherId);
 
-        return mapToDto(copy);
+        // Сам оригинал дубликатом не считаем — интересны другие копии той же задачи
+        List<UUID> duplicates = nearDuplicateService.findDuplicates(
+                copy.getContent(), copy.getAnswer(), copy.getCopiedFromId());
+
+        QuestionDto dto = mapToDto(copy);
+        dto.setPossibleDuplicateIds(duplicates);
+        return dto;
     }
 
     /**
@@ -198,30 +238,132 @@ public class QuestionService {
      */
     @Transactional
     public List<QuestionDto> importFromBank(UUID teacherId, List<UUID> questionIds) {
-        return questionIds.stream()
-                .map(id -> duplicate(id, teacherId))
+        // Один запрос на все оригиналы и одна ссылка на учителя вместо findById на каждую задачу
+        Map<UUID, Question> originals = questionRepository.findAllById(questionIds).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        User teacher = userRepository.getReferenceById(teacherId);
+
+        List<Question> copies = new ArrayList<>(questionIds.size());
+        for (UUID id : questionIds) {
+            Question original = originals.get(id);
+            if (original == null) {
+                throw new RuntimeException("Question not found");
+            }
+            copies.add(copyOf(original, teacher));
+        }
+
+        // Копии не индексируются, пока их не изменят (см. copied_from_id)
+        copies = questionRepository.saveAll(copies);
+        log.info("Imported {} questions from bank for teacher {}", copies.size(), teacherId);
+
+        return copies.stream()
+                .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Валидация LaTeX
+     * Валидация LaTeX: парность формул, скобок и окружений, известные команды
      */
-    public boolean validateLatex(String content) {
-        if (content == null) return false;
-        
-        // Проверяем парность $ символов
-        long singleDollarCount = content.chars().filter(ch -> ch == '$').count();
-        
-        // Количество $ должно быть чётным
-        return singleDollarCount % 2 == 0;
+    public LatexValidationResult validateLatex(String content) {
+        return LatexValidator.validate(content);
+    }
+
+    /**
+     * SVG-диаграмма уходит в хранилище файлов, в строке задачи остаётся хеш
+     */
+    private String storeDiagram(String svg, UUID ownerId) {
+        if (svg == null || svg.isBlank()) {
+            return null;
+        }
+        return blobService.storeSvg(svg, ownerId);
+    }
+
+    private LatexValidationResult requireValidLatex(String content) {
+        LatexValidationResult result = validateLatex(content);
+        if (!result.valid()) {
+            throw new IllegalArgumentException("Некорректный LaTeX синтаксис: " + result.firstError());
+        }
+        return result;
     }
 
     /**
      * Получить публичный банк задач
      */
-    public Page<QuestionDto> getPublicBank(Pageable pageable) {
-        return questionRepository.findByIsActiveTrueAndIsDeletedFalse(pageable)
-                .map(this::mapToDto);
+    public Page<QuestionSummaryDto> getPublicBank(Pageable pageable) {
+        return questionRepository.findPublicBankSummaries(pageable);
+    }
+
+    /**
+     * Публичный банк задач с keyset-пагинацией
+     */
+    public CursorPage<QuestionSummaryDto> getPublicBankPage(String cursor, Integer size, boolean withTotal) {
+        int limit = CursorPage.clampSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<QuestionSummaryDto> rows = after == null
+                ? questionRepository.findPublicBankFirst(window)
+                : questionRepository.findPublicBankAfter(after.sortKey(), after.id(), window);
+
+        CursorPage<QuestionSummaryDto> page = CursorPage.of(rows, limit, Function.identity(),
+                q -> new PageCursor(q.getCreatedAt(), q.getId()));
+        if (withTotal) {
+            page.setTotal(questionRepository.countByIsActiveTrueAndIsDeletedFalse());
+        }
+        return page;
+    }
+
+    /**
+     * Задачи учителя с keyset-пагинацией
+     */
+    public CursorPage<QuestionSummaryDto> getByTeacherPage(UUID teacherId, String cursor, Integer size, boolean withTotal) {
+        int limit = CursorPage.clampSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<QuestionSummaryDto> rows = after == null
+                ? questionRepository.findByAuthorFirst(teacherId, window)
+                : questionRepository.findByAuthorAfter(teacherId, after.sortKey(), after.id(), window);
+
+        CursorPage<QuestionSummaryDto> page = CursorPage.of(rows, limit, Function.identity(),
+                q -> new PageCursor(q.getCreatedAt(), q.getId()));
+        if (withTotal) {
+            page.setTotal(questionRepository.countByAuthorIdAndIsDeletedFalse(teacherId));
+        }
+        return page;
+    }
+
+    /**
+     * Приватная копия задачи для указанного учителя
+     */
+    private Question copyOf(Question original, User author) {
+        return Question.builder()
+                .content(original.getContent())
+                .contentPlain(original.getContentPlain())
+                .keywords(original.getKeywords())
+                .answer(original.getAnswer())
+                .alternativeAnswers(original.getAlternativeAnswers())
+                .questionType(original.getQuestionType())
+                .difficulty(original.getDifficulty())
+                .topic(original.getTopic())
+                .egeNumber(original.getEgeNumber())
+                .solution(original.getSolution())
+                .hint(original.getHint())
+                .contentRendered(original.getContentRendered())
+                .solutionRendered(original.getSolutionRendered())
+                .hintRendered(original.getHintRendered())
+                .renderVersion(original.getRenderVersion())
+                .imageUrl(original.getImageUrl())
+                .diagramBlobHash(original.getDiagramBlobHash())
+                .tags(original.getTags())
+                .isActive(false) // Копия приватная
+                .author(author)
+                // Копия копии ссылается на исходную задачу
+                .copiedFromId(original.getCopiedFromId() != null ? original.getCopiedFromId() : original.getId())
+                .isVerified(false)
+                .timesAttempted(0)
+                .timesCorrect(0)
+                .build();
     }
 
     private QuestionDto mapToDto(Question question) {
@@ -236,6 +378,11 @@ public class QuestionService {
                 .egeNumber(question.getEgeNumber())
                 .solution(question.getSolution())
                 .hint(question.getHint())
+                .imageUrl(question.getImageUrl())
+                .diagramUrl(BlobDto.urlOf(question.getDiagramBlobHash()))
+                .contentRendered(question.getContentRendered())
+                .solutionRendered(question.getSolutionRendered())
+                .hintRendered(question.getHintRendered())
                 .tags(question.getTags())
                 .isVerified(question.getIsVerified())
                 .timesAttempted(question.getTimesAttempted())
@@ -0,0 +1,110 @@
+package ru.stopro.service.ai;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Очередь AI-проверки поверх таблицы attempts.
+ *
+ * Очередь — это строки с ai_check_status = PENDING. Воркер забирает
+ * пачку одним UPDATE ... FOR UPDATE SKIP LOCKED, поэтому несколько
+ * экземпляров приложения не получают одно задание дважды. Токен захвата
+ * пишется в celery_task_id: результат принимается, только если токен
+ * совпадает (зависшее задание могли отдать другому воркеру).
+ */
+@Component
+public class AiAnalysisQueue {
+
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final String CLAIM_SQL =
+            "UPDATE attempts a SET ai_check_status = 'PROCESSING', ai_claimed_at = now(), celery_task_id = ? " +
+            "FROM (SELECT id FROM attempts " +
+            "      WHERE is_deleted = false " +
+            "        AND ((ai_check_status = 'PENDING' " +
+            "              AND (ai_next_attempt_at IS NULL OR ai_next_attempt_at <= now())) " +
+            "          OR (ai_check_status = 'PROCESSING' AND ai_claimed_at < ?)) " +
+            "      ORDER BY ai_next_attempt_at NULLS FIRST " +
+            "      LIMIT ? FOR UPDATE SKIP LOCKED) c, questions q " +
+            "WHERE a.id = c.id AND q.id = a.question_id " +
+            "RETURNING a.id, a.user_answer, a.solution_text, a.solution_image_url, a.recognized_text, " +
+            "a.ai_retry_count, a.student_id, a.question_id, q.question_version, q.content, q.answer";
+
+    private static final String RESCHEDULE_SQL =
+            "UPDATE attempts SET ai_check_status = ?, ai_retry_count = ?, ai_next_attempt_at = ?, " +
+            "ai_last_error = ?, ai_claimed_at = NULL " +
+            "WHERE id = ? AND celery_task_id = ? AND ai_check_status = 'PROCESSING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AiAnalysisQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Задание AI-проверки
+     */
+    public record Job(UUID attemptId, String userAnswer, String solutionText, String imageUrl,
+                      String recognizedText, int retryCount, UUID studentId, UUID questionId, int questionVersion,
+                      String question, String correctAnswer) {
+    }
+
+    /**
+     * Неудачная обработка: задание вернётся в очередь в nextAttemptAt или станет FAILED
+     */
+    public record Failure(UUID attemptId, int retryCount, LocalDateTime nextAttemptAt, String error) {
+    }
+
+    /**
+     * Забрать до limit готовых заданий (и зависших дольше staleBefore)
+     */
+    public List<Job> claim(String token, int limit, LocalDateTime staleBefore) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Job(
+                rs.getObject("id", UUID.class),
+                rs.getString("user_answer"),
+                rs.getString("solution_text"),
+                rs.getString("solution_image_url"),
+                rs.getString("recognized_text"),
+                rs.getInt("ai_retry_count"),
+                rs.getObject("student_id", UUID.class),
+                rs.getObject("question_id", UUID.class),
+                rs.getInt("question_version"),
+                rs.getString("content"),
+                rs.getString("answer")
+        ), token, Timestamp.valueOf(staleBefore), limit);
+    }
+
+    /**
+     * Вернуть задания в очередь с backoff; без nextAttemptAt — окончательная ошибка
+     */
+    public void reschedule(String token, List<Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RESCHEDULE_SQL, failures.stream()
+                .map(f -> new Object[] {
+                        f.nextAttemptAt() != null ? PENDING : FAILED,
+                        f.retryCount(),
+                        f.nextAttemptAt() != null ? Timestamp.valueOf(f.nextAttemptAt()) : null,
+                        truncate(f.error()),
+                        f.attemptId(),
+                        token
+                })
+                .toList());
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -0,0 +1,288 @@
+package ru.stopro.service.ai;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.stopro.dto.attempt.AttemptUpdateDto;
+import ru.stopro.service.AiAnalysisService;
+import ru.stopro.service.stream.AttemptChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновый обработчик очереди AI-проверки.
+ *
+ * Раз в poll-interval забирает из {@link AiAnalysisQueue} пачки до batch-size
+ * попыток и отправляет каждую пачку двумя запросами: OCR для фото решений
+ * и проверка решения. Одновременно обрабатывается не больше max-in-flight
+ * пачек — остальное ждёт в очереди, а не копится в памяти. Повторяющиеся
+ * ответы берутся из {@link AiResultCache} без вызова AI-сервиса. Ошибки
+ * повторяются с экспоненциальной задержкой, после max-retries попытка
+ * получает статус FAILED.
+ */
+@Slf4j
+@Component
+public class AiAnalysisWorker {
+
+    private final AiAnalysisQueue queue;
+    private final AiServiceClient client;
+    private final AiAnalysisService analysisService;
+    private final AiResultCache resultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final int claimTimeoutMinutes;
+    private final long coalesceWaitMs;
+
+    public AiAnalysisWorker(AiAnalysisQueue queue,
+                            AiServiceClient client,
+                            AiAnalysisService analysisService,
+                            AiResultCache resultCache,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${ai-analysis.batch-size}") int batchSize,
+                            @Value("${ai-analysis.max-in-flight}") int maxInFlight,
+                            @Value("${ai-analysis.max-retries}") int maxRetries,
+                            @Value("${ai-analysis.backoff-base-ms}") long backoffBaseMs,
+                            @Value("${ai-analysis.backoff-max-ms}") long backoffMaxMs,
+                            @Value("${ai-analysis.claim-timeout-minutes}") int claimTimeoutMinutes,
+                            @Value("${ai-service.timeout}") long coalesceWaitMs) {
+        this.queue = queue;
+        this.client = client;
+        this.analysisService = analysisService;
+        this.resultCache = resultCache;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.claimTimeoutMinutes = claimTimeoutMinutes;
+        this.coalesceWaitMs = coalesceWaitMs;
+        this.inFlight = new Semaphore(maxInFlight);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread thread = new Thread(r, "ai-analysis-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Забрать пачки, пока есть свободные слоты и готовые задания
+     */
+    @Scheduled(fixedDelayString = "${ai-analysis.poll-interval-ms}")
+    public void poll() {
+        while (inFlight.tryAcquire()) {
+            String token = UUID.randomUUID().toString();
+            List<AiAnalysisQueue.Job> jobs;
+            try {
+                jobs = queue.claim(token, batchSize, LocalDateTime.now().minusMinutes(claimTimeoutMinutes));
+            } catch (RuntimeException e) {
+                inFlight.release();
+                log.error("Failed to claim AI analysis batch", e);
+                return;
+            }
+            if (jobs.isEmpty()) {
+                inFlight.release();
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    process(token, jobs);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void process(String token, List<AiAnalysisQueue.Job> jobs) {
+        long started = System.currentTimeMillis();
+        Map<UUID, AiBatch.OcrResult> ocr = new HashMap<>();
+        Map<UUID, AiBatch.CheckResult> checks = new HashMap<>();
+        try {
+            List<AiBatch.OcrItem> ocrItems = jobs.stream()
+                    .filter(job -> job.imageUrl() != null && job.recognizedText() == null)
+                    .map(job -> new AiBatch.OcrItem(job.attemptId(), job.imageUrl()))
+                    .toList();
+            if (!ocrItems.isEmpty()) {
+                for (AiBatch.OcrResult result : client.recognize(ocrItems)) {
+                    ocr.put(result.id(), result);
+                }
+            }
+            checks.putAll(check(jobs, ocr));
+        } catch (AiServiceException e) {
+            log.warn("AI batch of {} failed: {}", jobs.size(), e.getMessage());
+            reschedule(token, jobs, jobs.stream()
+                    .map(job -> failure(job, e.getMessage(), e.isRetryable()))
+                    .toList());
+            return;
+        }
+
+        List<AiAnalysisQueue.Failure> failures = new ArrayList<>();
+        int completed = 0;
+        for (AiAnalysisQueue.Job job : jobs) {
+            AiBatch.CheckResult result = checks.get(job.attemptId());
+            if (result == null || result.error() != null) {
+                failures.add(failure(job, result == null ? "Нет результата в ответе" : result.error(), true));
+                continue;
+            }
+            try {
+                if (analysisService.complete(token, job.attemptId(), ocr.get(job.attemptId()), result)) {
+                    completed++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to save AI result for attempt {}", job.attemptId(), e);
+                failures.add(failure(job, e.getMessage(), true));
+            }
+        }
+        reschedule(token, jobs, failures);
+        log.debug("AI batch: {} completed, {} failed in {} ms",
+                completed, failures.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Проверка решений с учётом кэша: в AI-сервис уходят только ответы, которых
+     * нет в кэше и которые сейчас не проверяет другая пачка
+     */
+    private Map<UUID, AiBatch.CheckResult> check(List<AiAnalysisQueue.Job> jobs, Map<UUID, AiBatch.OcrResult> ocr) {
+        Map<UUID, AiBatch.CheckResult> results = new HashMap<>();
+        Map<UUID, String> keys = new HashMap<>();
+        Map<String, AiBatch.CheckItem> leading = new LinkedHashMap<>();
+        Map<String, CompletableFuture<AiBatch.CheckResult>> waiting = new HashMap<>();
+        for (AiAnalysisQueue.Job job : jobs) {
+            String text = solutionText(job, ocr.get(job.attemptId()));
+            String key = AiResultCache.keyOf(job.questionId(), job.questionVersion(), job.question(),
+                    job.correctAnswer(), job.userAnswer(), text);
+            keys.put(job.attemptId(), key);
+            if (leading.containsKey(key) || waiting.containsKey(key)) {
+                continue;
+            }
+            Optional<AiBatch.CheckResult> cached = resultCache.get(key);
+            if (cached.isPresent()) {
+                results.put(job.attemptId(), cached.get());
+                continue;
+            }
+            CompletableFuture<AiBatch.CheckResult> inFlight = resultCache.lead(key);
+            if (inFlight == null) {
+                leading.put(key, new AiBatch.CheckItem(job.attemptId(), job.question(), job.correctAnswer(),
+                        job.userAnswer(), text));
+            } else {
+                waiting.put(key, inFlight);
+            }
+        }
+
+        Map<String, AiBatch.CheckResult> byKey = new HashMap<>();
+        try {
+            if (!leading.isEmpty()) {
+                Map<UUID, AiBatch.CheckResult> fresh = new HashMap<>();
+                for (AiBatch.CheckResult result : client.check(new ArrayList<>(leading.values()))) {
+                    fresh.put(result.id(), result);
+                }
+                for (Map.Entry<String, AiBatch.CheckItem> entry : leading.entrySet()) {
+                    AiBatch.CheckResult result = fresh.get(entry.getValue().id());
+                    if (result != null) {
+                        byKey.put(entry.getKey(), result);
+                        resultCache.complete(entry.getKey(), result);
+                    }
+                }
+            }
+        } finally {
+            // Ждущие не должны зависнуть, если наш запрос не удался
+            for (String key : leading.keySet()) {
+                resultCache.fail(key, new AiServiceException("Проверка не выполнена", true));
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<AiBatch.CheckResult>> entry : waiting.entrySet()) {
+            try {
+                byKey.put(entry.getKey(), entry.getValue().get(coalesceWaitMs, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                log.debug("Coalesced AI check for {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        for (AiAnalysisQueue.Job job : jobs) {
+            AiBatch.CheckResult result = byKey.get(keys.get(job.attemptId()));
+            if (result != null) {
+                results.putIfAbsent(job.attemptId(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Текст решения: введённый учеником, иначе распознанный с фото
+     */
+    private static String solutionText(AiAnalysisQueue.Job job, AiBatch.OcrResult ocr) {
+        if (job.solutionText() != null && !job.solutionText().isBlank()) {
+            return job.solutionText();
+        }
+        if (ocr != null && ocr.error() == null) {
+            return ocr.text();
+        }
+        return job.recognizedText();
+    }
+
+    /**
+     * Вернуть неудачные задания в очередь; об окончательной ошибке сообщить ученику
+     */
+    private void reschedule(String token, List<AiAnalysisQueue.Job> jobs, List<AiAnalysisQueue.Failure> failures) {
+        queue.reschedule(token, failures);
+        for (AiAnalysisQueue.Failure failure : failures) {
+            if (failure.nextAttemptAt() != null) {
+                continue;
+            }
+            jobs.stream()
+                    .filter(job -> job.attemptId().equals(failure.attemptId()))
+                    .findFirst()
+                    .ifPresent(job -> eventPublisher.publishEvent(new AttemptChangedEvent(AttemptUpdateDto.builder()
+                            .attemptId(job.attemptId())
+                            .studentId(job.studentId())
+                            .aiCheckStatus(AiAnalysisQueue.FAILED)
+                            .updatedAt(LocalDateTime.now())
+                            .build())));
+        }
+    }
+
+    private AiAnalysisQueue.Failure failure(AiAnalysisQueue.Job job, String error, boolean retryable) {
+        int retries = job.retryCount() + 1;
+        if (!retryable || retries > maxRetries) {
+            return new AiAnalysisQueue.Failure(job.attemptId(), retries, null, error);
+        }
+        long delay = Math.min(backoffMaxMs, backoffBaseMs << Math.min(retries - 1, 20));
+        // Разброс, чтобы пачки после общего сбоя не возвращались одновременно
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        return new AiAnalysisQueue.Failure(job.attemptId(), retries,
+                LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)), error);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.stopro.service.ai;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запросы и ответы пакетных эндпоинтов AI-сервиса (JSON в snake_case)
+ */
+public final class AiBatch {
+
+    private AiBatch() {
+    }
+
+    public record OcrItem(UUID id, String imageUrl) {
+    }
+
+    public record OcrRequest(List<OcrItem> items) {
+    }
+
+    public record OcrResult(UUID id, String text, Double confidence, String error) {
+    }
+
+    public record OcrResponse(List<OcrResult> results) {
+    }
+
+    public record CheckItem(UUID id, String question, String correctAnswer, String studentAnswer,
+                            String solutionText) {
+    }
+
+    public record CheckRequest(List<CheckItem> items) {
+    }
+
+    public record CheckResult(UUID id, String analysis, String feedback, String errorType,
+                              String recommendations, Integer qualityScore, String error) {
+    }
+
+    public record CheckResponse(List<CheckResult> results) {
+    }
+}
@@ -0,0 +1,124 @@
+package ru.stopro.service.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.AnswerNormalizer;
+import ru.stopro.service.search.QuestionTextExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш результатов AI-проверки перед вызовом AI-сервиса.
+ *
+ * Многие ученики присылают один и тот же (часто одинаково неверный) ответ —
+ * результат проверки для него одинаков. Ключ: задача, её версия и хеш
+ * условия, эталона, канонического ответа и текста решения, так что правка
+ * задачи сразу делает старые записи недостижимыми.
+ *
+ * Одновременные одинаковые запросы объединяются: первый ({@link #lead})
+ * идёт в AI-сервис, остальные ждут его результат.
+ */
+@Component
+public class AiResultCache {
+
+    private final AiResultStore store;
+    private final ConcurrentHashMap<String, CompletableFuture<AiBatch.CheckResult>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public AiResultCache(AiResultStore store, MeterRegistry registry) {
+        this.store = store;
+        this.hits = registry.counter("ai.result.cache.requests", "result", "hit");
+        this.misses = registry.counter("ai.result.cache.requests", "result", "miss");
+        this.coalesced = registry.counter("ai.result.cache.requests", "result", "coalesced");
+        Gauge.builder("ai.result.cache.hit.ratio", this, AiResultCache::hitRatio)
+                .description("Доля проверок без отдельного вызова AI-сервиса")
+                .register(registry);
+    }
+
+    /**
+     * Ключ кэша для проверки решения
+     */
+    public static String keyOf(UUID questionId, Integer questionVersion, String question, String correctAnswer,
+                               String studentAnswer, String solutionText) {
+        MessageDigest digest = sha256();
+        for (String part : new String[] {question, correctAnswer, AnswerNormalizer.normalize(studentAnswer),
+                solutionText == null ? "" : QuestionTextExtractor.normalize(solutionText)}) {
+            digest.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return questionId + ":" + questionVersion + ":" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Готовый результат из кэша
+     */
+    public Optional<AiBatch.CheckResult> get(String key) {
+        Optional<AiBatch.CheckResult> cached = store.get(key);
+        if (cached.isPresent()) {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Стать ведущим запросом для ключа.
+     *
+     * @return null — вызывающий ведёт запрос и обязан вызвать {@link #complete} или {@link #fail};
+     *         иначе результат уже идущего запроса
+     */
+    public CompletableFuture<AiBatch.CheckResult> lead(String key) {
+        CompletableFuture<AiBatch.CheckResult> mine = new CompletableFuture<>();
+        CompletableFuture<AiBatch.CheckResult> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Результат ведущего запроса: сохраняется (если без ошибки) и отдаётся ждущим
+     */
+    public void complete(String key, AiBatch.CheckResult result) {
+        if (result.error() == null) {
+            store.put(key, result);
+        }
+        CompletableFuture<AiBatch.CheckResult> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(result);
+        }
+    }
+
+    public void fail(String key, Throwable error) {
+        CompletableFuture<AiBatch.CheckResult> future = inFlight.remove(key);
+        if (future != null) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private double hitRatio() {
+        double served = hits.count() + coalesced.count();
+        double total = served + misses.count();
+        return total == 0 ? 0 : served / total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.stopro.service.ai;
+
+import java.util.Optional;
+
+/**
+ * Хранилище готовых результатов AI-проверки (Redis или память процесса)
+ */
+public interface AiResultStore {
+
+    Optional<AiBatch.CheckResult> get(String key);
+
+    void put(String key, AiBatch.CheckResult result);
+}
@@ -0,0 +1,255 @@
+package ru.stopro.service.ai;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP-клиент пакетных эндпоинтов AI-сервиса (ai-service, FastAPI).
+ *
+ * Один запрос несёт пачку заданий: распознавание фото решений
+ * и проверку ответов. Ошибки делятся на повторяемые (сеть, таймаут,
+ * 5xx, 429) и окончательные (прочие 4xx, неразборчивый ответ).
+ *
+ * Каждый эндпоинт изолирован: свой таймаут, свой лимит одновременных
+ * запросов (bulkhead) и свой {@link CircuitBreaker}, так что медленный OCR
+ * не отнимает соединения у проверки ответов. Соединения переиспользуются
+ * общим {@link HttpClient}. OCR можно хеджировать: если ответа нет дольше
+ * ocr-hedge-delay-ms, отправляется второй такой же запрос и берётся первый
+ * успешный ответ (распознавание ничего не меняет, повтор безопасен).
+ */
+@Slf4j
+@Component
+public class AiServiceClient {
+
+    /**
+     * Эндпоинт с собственными таймаутом, bulkhead и автоматом защиты
+     */
+    private record Endpoint(String name, String path, Duration timeout, Semaphore bulkhead,
+                            CircuitBreaker breaker) {
+    }
+
+    private final HttpClient httpClient;
+    private final ObjectMapper mapper;
+    private final URI baseUri;
+    private final MeterRegistry registry;
+    private final Endpoint ocr;
+    private final Endpoint check;
+    private final long bulkheadWaitMs;
+    private final long ocrHedgeDelayMs;
+    private final Counter hedges;
+
+    public AiServiceClient(ObjectMapper objectMapper,
+                           MeterRegistry registry,
+                           @Value("${ai-service.url}") String url,
+                           @Value("${ai-service.connect-timeout}") long connectTimeoutMs,
+                           @Value("${ai-service.ocr-timeout}") long ocrTimeoutMs,
+                           @Value("${ai-service.check-timeout}") long checkTimeoutMs,
+                           @Value("${ai-service.max-concurrent-requests}") int maxConcurrentRequests,
+                           @Value("${ai-service.bulkhead-wait-ms}") long bulkheadWaitMs,
+                           @Value("${ai-service.ocr-hedge-delay-ms}") long ocrHedgeDelayMs,
+                           @Value("${ai-service.breaker-window-size}") int breakerWindowSize,
+                           @Value("${ai-service.breaker-failure-rate}") int breakerFailureRate,
+                           @Value("${ai-service.breaker-open-ms}") long breakerOpenMs) {
+        this.baseUri = URI.create(url.endsWith("/") ? url : url + "/");
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.mapper = objectMapper.copy()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.registry = registry;
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.ocrHedgeDelayMs = ocrHedgeDelayMs;
+        this.ocr = endpoint("ocr", "api/v1/ocr/recognize-batch", ocrTimeoutMs, maxConcurrentRequests,
+                new CircuitBreaker(breakerWindowSize, breakerFailureRate, breakerOpenMs));
+        this.check = endpoint("check", "api/v1/math/check-batch", checkTimeoutMs, maxConcurrentRequests,
+                new CircuitBreaker(breakerWindowSize, breakerFailureRate, breakerOpenMs));
+        this.hedges = registry.counter("ai.service.hedged.requests", "endpoint", ocr.name());
+    }
+
+    public List<AiBatch.OcrResult> recognize(List<AiBatch.OcrItem> items) {
+        return post(ocr, new AiBatch.OcrRequest(items), AiBatch.OcrResponse.class, ocrHedgeDelayMs)
+                .results();
+    }
+
+    public List<AiBatch.CheckResult> check(List<AiBatch.CheckItem> items) {
+        return post(check, new AiBatch.CheckRequest(items), AiBatch.CheckResponse.class, 0)
+                .results();
+    }
+
+    private Endpoint endpoint(String name, String path, long timeoutMs, int maxConcurrent, CircuitBreaker breaker) {
+        Gauge.builder("ai.service.circuit.state", breaker, b -> b.state().ordinal())
+                .description("0 — замкнута, 1 — разомкнута, 2 — пробный вызов")
+                .tag("endpoint", name)
+                .register(registry);
+        return new Endpoint(name, path, Duration.ofMillis(timeoutMs), new Semaphore(maxConcurrent), breaker);
+    }
+
+    private <T> T post(Endpoint endpoint, Object body, Class<T> responseType, long hedgeDelayMs) {
+        try {
+            if (!endpoint.bulkhead().tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS)) {
+                record(endpoint, "rejected", 0);
+                throw new AiServiceException("AI service " + endpoint.name() + " is saturated", true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("Interrupted", e, true);
+        }
+        try {
+            if (!endpoint.breaker().tryAcquire()) {
+                record(endpoint, "short-circuited", 0);
+                throw new AiServiceException("AI service " + endpoint.name() + " circuit is open", true);
+            }
+            long started = System.nanoTime();
+            try {
+                T result = call(endpoint, body, responseType, hedgeDelayMs);
+                endpoint.breaker().onSuccess();
+                record(endpoint, "success", System.nanoTime() - started);
+                return result;
+            } catch (AiServiceException e) {
+                // Отказ 4xx — сервис жив, цепь не размыкаем
+                if (e.isRetryable()) {
+                    endpoint.breaker().onFailure();
+                } else {
+                    endpoint.breaker().onSuccess();
+                }
+                record(endpoint, e.isRetryable() ? "error" : "rejected-by-service", System.nanoTime() - started);
+                throw e;
+            }
+        } finally {
+            endpoint.bulkhead().release();
+        }
+    }
+
+    private <T> T call(Endpoint endpoint, Object body, Class<T> responseType, long hedgeDelayMs) {
+        HttpResponse<byte[]> response;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(endpoint.path()))
+                    .timeout(endpoint.timeout())
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+            response = send(request, hedgeDelayMs);
+        } catch (HttpTimeoutException e) {
+            throw new AiServiceException("AI service timeout: " + endpoint.path(), e, true);
+        } catch (IOException e) {
+            throw new AiServiceException("AI service unavailable: " + e.getMessage(), e, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("Interrupted", e, true);
+        }
+
+        int status = response.statusCode();
+        if (status == 429 || status >= 500) {
+            throw new AiServiceException("AI service responded " + status + " for " + endpoint.path(), true);
+        }
+        if (status >= 400) {
+            throw new AiServiceException("AI service rejected request " + endpoint.path() + ": " + status, false);
+        }
+        try {
+            return mapper.readValue(response.body(), responseType);
+        } catch (IOException e) {
+            throw new AiServiceException("Malformed AI service response for " + endpoint.path(), e, false);
+        }
+    }
+
+    /**
+     * Отправить запрос; при hedgeDelayMs &gt; 0 — с дублирующим запросом после задержки
+     */
+    private HttpResponse<byte[]> send(HttpRequest request, long hedgeDelayMs)
+            throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<byte[]>> primary =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<HttpResponse<byte[]>> hedge = null;
+        try {
+            if (hedgeDelayMs <= 0) {
+                return primary.get();
+            }
+            try {
+                return primary.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                hedges.increment();
+                hedge = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+                return firstSuccessful(primary, hedge).get();
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (CancellationException e) {
+            throw new IOException("Request cancelled", e);
+        } finally {
+            // Проигравший запрос больше не нужен
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<byte[]>> firstSuccessful(
+            CompletableFuture<HttpResponse<byte[]>> first, CompletableFuture<HttpResponse<byte[]>> second) {
+        CompletableFuture<HttpResponse<byte[]>> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<byte[]>> future : List.of(first, second)) {
+            future.whenComplete((response, error) -> {
+                if (error == null && response.statusCode() < 500) {
+                    winner.complete(response);
+                } else if (failed.incrementAndGet() == 2) {
+                    if (error != null) {
+                        winner.completeExceptionally(error);
+                    } else {
+                        winner.complete(response);
+                    }
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        return new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+    }
+
+    private void record(Endpoint endpoint, String outcome, long nanos) {
+        Timer.builder("ai.service.requests")
+                .description("Запросы к AI-сервису")
+                .tag("endpoint", endpoint.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
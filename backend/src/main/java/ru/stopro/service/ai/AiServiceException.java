@@ -0,0 +1,26 @@
+package ru.stopro.service.ai;
+
+/**
+ * Ошибка обращения к AI-сервису
+ */
+public class AiServiceException extends RuntimeException {
+
+    /**
+     * Имеет ли смысл повторить запрос (таймаут, 5xx, 429)
+     */
+    private final boolean retryable;
+
+    public AiServiceException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public AiServiceException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
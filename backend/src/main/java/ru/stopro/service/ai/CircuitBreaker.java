@@ -0,0 +1,111 @@
+package ru.stopro.service.ai;
+
+import java.util.Arrays;
+
+/**
+ * Автомат защиты для одного эндпоинта AI-сервиса.
+ *
+ * Считает исходы последних windowSize вызовов. Если доля ошибок достигла
+ * порога, цепь размыкается: вызовы сразу отклоняются openDurationMs,
+ * не занимая потоки и соединения. Затем пропускается один пробный вызов —
+ * успех замыкает цепь, ошибка снова размыкает.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failures;
+    private long openUntil;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int windowSize, int failureRatePercent, long openDurationMs) {
+        this.window = new boolean[windowSize];
+        this.minCalls = Math.max(1, windowSize / 2);
+        this.failureRatePercent = failureRatePercent;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Можно ли выполнить вызов сейчас
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= minCalls && failures * 100 >= failureRatePercent * calls) {
+            open();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failed;
+        if (failed) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openDurationMs;
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        position = 0;
+        calls = 0;
+        failures = 0;
+        probeInFlight = false;
+        Arrays.fill(window, false);
+    }
+}
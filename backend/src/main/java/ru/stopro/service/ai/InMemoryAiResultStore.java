@@ -0,0 +1,54 @@
+package ru.stopro.service.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кэш результатов в памяти процесса: LRU с ограничением по числу записей и TTL.
+ * Для разработки и одного узла; в кластере — {@link RedisAiResultStore}.
+ */
+@Component
+@ConditionalOnProperty(name = "ai-result-cache.store", havingValue = "memory")
+public class InMemoryAiResultStore implements AiResultStore {
+
+    private record Entry(AiBatch.CheckResult result, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+
+    public InMemoryAiResultStore(@Value("${ai-result-cache.max-entries}") int maxEntries,
+                                 @Value("${ai-result-cache.ttl-hours}") long ttlHours) {
+        this.ttlMillis = Duration.ofHours(ttlHours).toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<AiBatch.CheckResult> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.result());
+    }
+
+    @Override
+    public synchronized void put(String key, AiBatch.CheckResult result) {
+        entries.put(key, new Entry(result, System.currentTimeMillis() + ttlMillis));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.stopro.service.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Кэш результатов в Redis, общий для всех узлов.
+ *
+ * Записи живут ttl-hours; общий объём ограничивает maxmemory Redis
+ * с политикой volatile-lru. Недоступный Redis — это промах, а не ошибка проверки.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ai-result-cache.store", havingValue = "redis", matchIfMissing = true)
+public class RedisAiResultStore implements AiResultStore {
+
+    private static final String PREFIX = "ai:check:";
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public RedisAiResultStore(StringRedisTemplate redis,
+                              ObjectMapper objectMapper,
+                              @Value("${ai-result-cache.ttl-hours}") long ttlHours) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Override
+    public Optional<AiBatch.CheckResult> get(String key) {
+        try {
+            String json = redis.opsForValue().get(PREFIX + key);
+            return json == null
+                    ? Optional.empty()
+                    : Optional.of(objectMapper.readValue(json, AiBatch.CheckResult.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("AI result cache read failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, AiBatch.CheckResult result) {
+        try {
+            redis.opsForValue().set(PREFIX + key, objectMapper.writeValueAsString(result), ttl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("AI result cache write failed: {}", e.getMessage());
+        }
+    }
+}
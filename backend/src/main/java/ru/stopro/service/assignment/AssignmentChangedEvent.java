@@ -0,0 +1,11 @@
+package ru.stopro.service.assignment;
+
+import java.util.UUID;
+
+/**
+ * Задание изменилось: снимок сбрасывается после коммита
+ *
+ * @param prewarm сразу построить новый снимок (публикация — ученики вот-вот начнут)
+ */
+public record AssignmentChangedEvent(UUID assignmentId, boolean prewarm) {
+}
@@ -0,0 +1,68 @@
+package ru.stopro.service.assignment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Закрытие заданий с прошедшим дедлайном: COMPLETED, если каждый ученик группы
+ * завершил хотя бы одну попытку, иначе OVERDUE.
+ *
+ * Завершивших и учеников группы считает сам UPDATE (по индексам attempts и
+ * group_students), сущности и коллекции учеников не загружаются.
+ */
+@Component
+public class AssignmentOverdueJob implements ClusterJob {
+
+    private static final String CLOSE_SQL =
+            "UPDATE assignments a SET status = CASE " +
+            "    WHEN (SELECT count(DISTINCT t.student_id) FROM attempts t " +
+            "          WHERE t.assignment_id = a.id AND t.finished_at IS NOT NULL AND t.is_deleted = false) " +
+            "       >= (SELECT count(*) FROM group_students gs WHERE gs.group_id = a.group_id) " +
+            "    THEN 'COMPLETED' ELSE 'OVERDUE' END, " +
+            "updated_at = now(), version = a.version + 1 " +
+            "FROM (SELECT id FROM assignments " +
+            "      WHERE status IN ('PUBLISHED', 'ACTIVE') AND deadline < ? AND is_deleted = false " +
+            "      ORDER BY deadline LIMIT ? FOR UPDATE SKIP LOCKED) s " +
+            "WHERE a.id = s.id " +
+            "RETURNING a.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${assignment-status.interval-ms}")
+    private long intervalMs;
+
+    public AssignmentOverdueJob(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "assignment-overdue";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        List<UUID> closed = jdbcTemplate.queryForList(CLOSE_SQL, UUID.class,
+                Timestamp.valueOf(LocalDateTime.now()), limit);
+        for (UUID assignmentId : closed) {
+            eventPublisher.publishEvent(new AssignmentChangedEvent(assignmentId, false));
+        }
+        return closed.size();
+    }
+}
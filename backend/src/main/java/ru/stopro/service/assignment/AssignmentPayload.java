@@ -0,0 +1,80 @@
+package ru.stopro.service.assignment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Готовый JSON задания для ученика: сериализуется один раз на версию снимка.
+ *
+ * ETag — хеш байтов JSON, поэтому он сильный: одинаковое содержимое даёт
+ * одинаковый ETag на всех узлах. У сжатого варианта свой ETag (другие байты).
+ */
+public final class AssignmentPayload {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    private AssignmentPayload(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    /**
+     * @param gzipMinBytes сжимать, только если JSON не меньше этого размера (меньше — выигрыша нет)
+     */
+    public static AssignmentPayload of(Object content, ObjectMapper objectMapper, int gzipMinBytes) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(content);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать задание", e);
+        }
+        byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+        return new AssignmentPayload(json, gzip, hash(json));
+    }
+
+    /**
+     * Байты для ответа (сжатые, если клиент их принимает и они есть)
+     */
+    public byte[] body(boolean gzipAccepted) {
+        return gzipAccepted && gzip != null ? gzip : json;
+    }
+
+    public boolean isGzipped(boolean gzipAccepted) {
+        return gzipAccepted && gzip != null;
+    }
+
+    public String etag(boolean gzipAccepted) {
+        return isGzipped(gzipAccepted) ? etag + "-gz" : etag;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
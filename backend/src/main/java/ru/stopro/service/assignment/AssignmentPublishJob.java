@@ -0,0 +1,63 @@
+package ru.stopro.service.assignment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Плановая публикация: SCHEDULED-задания с наступившей датой начала → PUBLISHED.
+ *
+ * Один UPDATE на пачку; снимки опубликованных заданий строятся заранее,
+ * как при ручной публикации.
+ */
+@Component
+public class AssignmentPublishJob implements ClusterJob {
+
+    private static final String PUBLISH_SQL =
+            "UPDATE assignments a SET status = 'PUBLISHED', published_at = COALESCE(a.published_at, now()), " +
+            "updated_at = now(), version = a.version + 1 " +
+            "FROM (SELECT id FROM assignments " +
+            "      WHERE status = 'SCHEDULED' AND start_date <= ? AND is_deleted = false " +
+            "      ORDER BY start_date LIMIT ? FOR UPDATE SKIP LOCKED) s " +
+            "WHERE a.id = s.id " +
+            "RETURNING a.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${assignment-status.interval-ms}")
+    private long intervalMs;
+
+    public AssignmentPublishJob(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "assignment-publish";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        List<UUID> published = jdbcTemplate.queryForList(PUBLISH_SQL, UUID.class,
+                Timestamp.valueOf(LocalDateTime.now()), limit);
+        for (UUID assignmentId : published) {
+            eventPublisher.publishEvent(new AssignmentChangedEvent(assignmentId, true));
+        }
+        return published.size();
+    }
+}
@@ -0,0 +1,236 @@
+package ru.stopro.service.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.stopro.domain.entity.Assignment;
+import ru.stopro.domain.entity.Question;
+import ru.stopro.domain.enums.AssignmentStatus;
+import ru.stopro.dto.assignment.AssignmentDto;
+import ru.stopro.dto.question.QuestionDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Неизменяемый снимок задания для учеников (вопросы без ответов).
+ *
+ * Строится один раз из базы и разделяется всеми запросами: старт попытки
+ * и выдача задания ученику больше не загружают сущности. Поля, зависящие
+ * от текущего времени (доступность, часы до дедлайна), считаются при выдаче.
+ *
+ * Задание с вопросами хранится уже сериализованным ({@link AssignmentPayload}):
+ * в эти байты не попадают ни поля времени, ни статистика, а перемешивание
+ * вопросов — это перестановка индексов поверх тех же байтов.
+ */
+public final class AssignmentSnapshot {
+
+    private final UUID id;
+    private final UUID groupId;
+    private final AssignmentStatus status;
+    private final LocalDateTime startDate;
+    private final LocalDateTime deadline;
+    private final Integer maxAttempts;
+    private final Integer timeLimitMinutes;
+    private final Integer cooldownMinutes;
+    private final boolean shuffleQuestions;
+    private final List<UUID> questionIds;
+    private final AssignmentDto template;
+    private final AssignmentPayload payload;
+    private final long loadedAt;
+
+    private AssignmentSnapshot(Assignment assignment, long studentsCount, ObjectMapper objectMapper, int gzipMinBytes) {
+        AssignmentDto full = dtoOf(assignment, studentsCount);
+        this.id = assignment.getId();
+        this.groupId = assignment.getGroup() != null ? assignment.getGroup().getId() : null;
+        this.status = assignment.getStatus();
+        this.startDate = assignment.getStartDate();
+        this.deadline = assignment.getDeadline();
+        this.maxAttempts = assignment.getMaxAttempts();
+        this.timeLimitMinutes = assignment.getTimeLimitMinutes();
+        this.cooldownMinutes = assignment.getCooldownMinutes();
+        this.shuffleQuestions = Boolean.TRUE.equals(assignment.getShuffleQuestions());
+        this.questionIds = assignment.getQuestions().stream().map(Question::getId).toList();
+        this.template = full.toBuilder().questions(null).build();
+        this.payload = AssignmentPayload.of(contentOf(full), objectMapper, gzipMinBytes);
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @param studentsCount размер группы задания (для процента выполнения)
+     */
+    public static AssignmentSnapshot of(Assignment assignment, long studentsCount,
+                                        ObjectMapper objectMapper, int gzipMinBytes) {
+        return new AssignmentSnapshot(assignment, studentsCount, objectMapper, gzipMinBytes);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return template.getTitle();
+    }
+
+    public UUID getGroupId() {
+        return groupId;
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Integer getTimeLimitMinutes() {
+        return timeLimitMinutes;
+    }
+
+    public Integer getCooldownMinutes() {
+        return cooldownMinutes;
+    }
+
+    public List<UUID> getQuestionIds() {
+        return questionIds;
+    }
+
+    public int getQuestionsCount() {
+        return questionIds.size();
+    }
+
+    public AssignmentPayload getPayload() {
+        return payload;
+    }
+
+    long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Доступно ли задание ученику сейчас (как {@link Assignment#isAvailable()})
+     */
+    public boolean isAvailable() {
+        LocalDateTime now = LocalDateTime.now();
+        if (status != AssignmentStatus.PUBLISHED) {
+            return false;
+        }
+        if (startDate != null && now.isBefore(startDate)) {
+            return false;
+        }
+        return !now.isAfter(deadline);
+    }
+
+    /**
+     * DTO для списка заданий ученика: копия шаблона с актуальными полями времени
+     */
+    public AssignmentDto toStudentDto() {
+        LocalDateTime now = LocalDateTime.now();
+        return template.toBuilder()
+                .isAvailable(isAvailable())
+                .isOverdue(now.isAfter(deadline))
+                .daysUntilDeadline(ChronoUnit.DAYS.between(now, deadline))
+                .hoursUntilDeadline(ChronoUnit.HOURS.between(now, deadline))
+                .build();
+    }
+
+    /**
+     * Порядок вопросов для ученика: индексы в массиве questions готового JSON.
+     *
+     * Перестановка зависит только от ученика и задания, поэтому при перезагрузке
+     * страницы порядок не меняется, а байты и ETag остаются общими для всех.
+     *
+     * @return null, если перемешивание выключено
+     */
+    public int[] questionOrder(UUID studentId) {
+        if (!shuffleQuestions) {
+            return null;
+        }
+        int[] order = new int[questionIds.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(
+                studentId.getMostSignificantBits() ^ studentId.getLeastSignificantBits()
+                        ^ id.getMostSignificantBits() * 31 ^ id.getLeastSignificantBits());
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    /**
+     * DTO задания с вопросами для учеников. Поля маппятся напрямую, а не через
+     * {@link AssignmentDto#fromEntity(Assignment, boolean)}: тот считает процент
+     * выполнения по коллекции учеников группы и лениво загружает её целиком.
+     * Поля времени не заполняются — их считает {@link #toStudentDto()}.
+     */
+    private static AssignmentDto dtoOf(Assignment assignment, long studentsCount) {
+        int completed = assignment.getCompletedCount() != null ? assignment.getCompletedCount() : 0;
+        AssignmentDto.AssignmentDtoBuilder builder = AssignmentDto.builder()
+                .id(assignment.getId())
+                .title(assignment.getTitle())
+                .description(assignment.getDescription())
+                .instructions(assignment.getInstructions())
+                .assignmentType(assignment.getAssignmentType())
+                .status(assignment.getStatus())
+                .startDate(assignment.getStartDate())
+                .deadline(assignment.getDeadline())
+                .softDeadline(assignment.getSoftDeadline())
+                .timeLimitMinutes(assignment.getTimeLimitMinutes())
+                .maxAttempts(assignment.getMaxAttempts())
+                .useBestAttempt(assignment.getUseBestAttempt())
+                .showCorrectAnswers(assignment.getShowCorrectAnswers())
+                .showSolutions(assignment.getShowSolutions())
+                .showImmediateFeedback(assignment.getShowImmediateFeedback())
+                .shuffleQuestions(assignment.getShuffleQuestions())
+                .passingScorePercent(assignment.getPassingScorePercent())
+                .totalPoints(assignment.getTotalPoints())
+                .questionsCount(assignment.getQuestionsCount())
+                .viewsCount(assignment.getViewsCount())
+                .startedCount(assignment.getStartedCount())
+                .completedCount(assignment.getCompletedCount())
+                .averageScore(assignment.getAverageScore())
+                .averageTimeMinutes(assignment.getAverageTimeMinutes())
+                .completionRate(studentsCount == 0 ? 0.0 : (double) completed / studentsCount * 100)
+                .createdAt(assignment.getCreatedAt())
+                .publishedAt(assignment.getPublishedAt())
+                .questions(assignment.getQuestions().stream()
+                        .map(QuestionDto::fromEntityForStudent)
+                        .toList());
+
+        if (assignment.getTeacher() != null) {
+            builder.teacherId(assignment.getTeacher().getId());
+            builder.teacherName(assignment.getTeacher().getFullName());
+        }
+        if (assignment.getGroup() != null) {
+            builder.groupId(assignment.getGroup().getId());
+            builder.groupName(assignment.getGroup().getName());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Содержимое для готового JSON: без полей времени и статистики,
+     * которые меняются без изменения самого задания
+     */
+    private static AssignmentDto contentOf(AssignmentDto full) {
+        return full.toBuilder()
+                .viewsCount(null)
+                .startedCount(null)
+                .completedCount(null)
+                .averageScore(null)
+                .averageTimeMinutes(null)
+                .completionRate(null)
+                .isAvailable(null)
+                .isOverdue(null)
+                .daysUntilDeadline(null)
+                .hoursUntilDeadline(null)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package ru.stopro.service.assignment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кэш снимков заданий с single-flight загрузкой.
+ *
+ * Когда класс одновременно нажимает «Начать», загрузку делает только первый
+ * запрос, остальные ждут его результат, а не идут в базу каждый сам.
+ * Снимок сбрасывается после коммита изменения задания (на других узлах —
+ * через Redis pub/sub) и в любом случае живёт не дольше ttl.
+ * Просроченные снимки периодически вычищаются, а сверх max-entries
+ * вытесняются самые старые — размер кэша ограничен.
+ */
+@Slf4j
+@Component
+public class AssignmentSnapshotCache implements MessageListener {
+
+    public static final String CHANNEL = "assignments:changed";
+
+    private final ConcurrentHashMap<UUID, CompletableFuture<AssignmentSnapshot>> snapshots = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AssignmentSnapshotLoader loader;
+    private final StringRedisTemplate redis;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final Counter loads;
+    private final Counter coalesced;
+    private final Counter evicted;
+
+    public AssignmentSnapshotCache(AssignmentSnapshotLoader loader,
+                                   StringRedisTemplate redis,
+                                   MeterRegistry registry,
+                                   @Value("${assignment-snapshot.ttl-seconds}") long ttlSeconds,
+                                   @Value("${assignment-snapshot.max-entries}") int maxEntries) {
+        this.loader = loader;
+        this.redis = redis;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.loads = registry.counter("assignment.snapshot.loads");
+        this.coalesced = registry.counter("assignment.snapshot.coalesced");
+        this.evicted = registry.counter("assignment.snapshot.evicted");
+        registry.gaugeMapSize("assignment.snapshot.size", List.of(), snapshots);
+    }
+
+    /**
+     * Снимок задания (из памяти или одной общей загрузкой)
+     */
+    public AssignmentSnapshot get(UUID assignmentId) {
+        CompletableFuture<AssignmentSnapshot> future = snapshots.get(assignmentId);
+        if (future != null && future.isDone() && !future.isCompletedExceptionally()
+                && System.currentTimeMillis() - future.join().getLoadedAt() > ttlMillis) {
+            snapshots.remove(assignmentId, future);
+            future = null;
+        }
+        if (future == null) {
+            CompletableFuture<AssignmentSnapshot> mine = new CompletableFuture<>();
+            future = snapshots.putIfAbsent(assignmentId, mine);
+            if (future == null) {
+                future = mine;
+                load(assignmentId, mine);
+                if (snapshots.size() > maxEntries) {
+                    sweep();
+                }
+            }
+        }
+        if (!future.isDone()) {
+            coalesced.increment();
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void evict(UUID assignmentId) {
+        snapshots.remove(assignmentId);
+    }
+
+    /**
+     * Убрать просроченные снимки, а если их всё ещё больше max-entries —
+     * самые давно загруженные (с запасом в 10%, чтобы не сортировать на каждом промахе)
+     */
+    @Scheduled(fixedDelayString = "${assignment-snapshot.sweep-interval-ms}")
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            List<Map.Entry<UUID, CompletableFuture<AssignmentSnapshot>>> loaded = new ArrayList<>();
+            for (Map.Entry<UUID, CompletableFuture<AssignmentSnapshot>> entry : snapshots.entrySet()) {
+                CompletableFuture<AssignmentSnapshot> future = entry.getValue();
+                // Идущие загрузки не трогаем: их результат ждут другие запросы
+                if (!future.isDone() || future.isCompletedExceptionally()) {
+                    continue;
+                }
+                if (now - future.join().getLoadedAt() > ttlMillis) {
+                    if (snapshots.remove(entry.getKey(), future)) {
+                        evicted.increment();
+                    }
+                } else {
+                    loaded.add(entry);
+                }
+            }
+
+            if (snapshots.size() > maxEntries) {
+                int excess = snapshots.size() - (maxEntries - maxEntries / 10);
+                loaded.sort(Comparator.comparingLong(entry -> entry.getValue().join().getLoadedAt()));
+                for (int i = 0; i < loaded.size() && excess > 0; i++) {
+                    if (snapshots.remove(loaded.get(i).getKey(), loaded.get(i).getValue())) {
+                        evicted.increment();
+                        excess--;
+                    }
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAssignmentChanged(AssignmentChangedEvent event) {
+        evict(event.assignmentId());
+        try {
+            redis.convertAndSend(CHANNEL, nodeId + " " + event.assignmentId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to relay assignment change {}: {}", event.assignmentId(), e.getMessage());
+        }
+        if (event.prewarm()) {
+            try {
+                get(event.assignmentId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to prewarm assignment snapshot {}: {}", event.assignmentId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Изменение задания на другом узле
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // Формат: "<узел> <id задания>"; своё изменение узел уже применил
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ", 2);
+        if (parts.length != 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            evict(UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed assignment change message");
+        }
+    }
+
+    private void load(UUID assignmentId, CompletableFuture<AssignmentSnapshot> future) {
+        loads.increment();
+        try {
+            future.complete(loader.load(assignmentId));
+        } catch (RuntimeException e) {
+            // Ошибку получают все ждущие, но не кэшируем её: следующий запрос попробует снова
+            snapshots.remove(assignmentId, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.stopro.service.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stopro.domain.entity.Assignment;
+import ru.stopro.repository.AssignmentRepository;
+import ru.stopro.repository.StudyGroupRepository;
+
+import java.util.UUID;
+
+/**
+ * Построение снимка задания из базы (в своей read-only транзакции)
+ * вместе с готовым JSON для учеников
+ */
+@Service
+@Transactional(readOnly = true)
+public class AssignmentSnapshotLoader {
+
+    private final AssignmentRepository assignmentRepository;
+    private final StudyGroupRepository studyGroupRepository;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+
+    public AssignmentSnapshotLoader(AssignmentRepository assignmentRepository,
+                                    StudyGroupRepository studyGroupRepository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${assignment-snapshot.gzip-min-bytes}") int gzipMinBytes) {
+        this.assignmentRepository = assignmentRepository;
+        this.studyGroupRepository = studyGroupRepository;
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public AssignmentSnapshot load(UUID assignmentId) {
+        Assignment assignment = assignmentRepository.findForSnapshot(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        // Размер группы — одним COUNT, а не загрузкой всех учеников ради процента выполнения
+        long studentsCount = assignment.getGroup() != null
+                ? studyGroupRepository.countStudents(assignment.getGroup().getId())
+                : 0;
+        return AssignmentSnapshot.of(assignment, studentsCount, objectMapper, gzipMinBytes);
+    }
+}
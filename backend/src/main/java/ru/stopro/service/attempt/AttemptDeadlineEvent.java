@@ -0,0 +1,12 @@
+package ru.stopro.service.attempt;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Срок попытки назначен или снят: колесо таймеров обновляется после коммита
+ *
+ * @param expiresAt когда попытка истекает (null — попытка завершена, таймер не нужен)
+ */
+public record AttemptDeadlineEvent(UUID attemptId, LocalDateTime expiresAt) {
+}
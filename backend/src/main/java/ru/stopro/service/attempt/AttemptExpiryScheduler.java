@@ -0,0 +1,302 @@
+package ru.stopro.service.attempt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.service.AttemptService;
+import ru.stopro.service.cluster.LeaseManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Завершение попыток ровно в момент истечения времени.
+ *
+ * Сроки незавершённых попыток лежат в {@link TimerWheel} в памяти одного узла —
+ * того, кто держит аренду {@value #LEASE}. При захвате аренды колесо заполняется
+ * из базы, дальше — событиями {@link AttemptDeadlineEvent} (свой узел — после
+ * коммита, другие — через Redis pub/sub) и периодической сверкой с базой.
+ * Сработавшие попытки переводятся в TIMEOUT пачками, одним UPDATE на пачку;
+ * условие expires_at &lt;= now в самом UPDATE защищает от продлённых сроков
+ * и повторного завершения.
+ */
+@Slf4j
+@Component
+public class AttemptExpiryScheduler implements MessageListener {
+
+    public static final String CHANNEL = "attempts:deadlines";
+    public static final String LEASE = "attempt-expiry";
+
+    private static final String LOAD_SQL =
+            "SELECT id, expires_at FROM attempts " +
+            "WHERE status = 'IN_PROGRESS' AND expires_at IS NOT NULL AND is_deleted = false";
+
+    private static final String EXPIRE_SQL =
+            "UPDATE attempts SET status = 'TIMEOUT', finished_at = expires_at, " +
+            "score = CASE WHEN total_questions > 0 " +
+            "             THEN COALESCE(correct_count, 0) * 100.0 / total_questions ELSE 0 END, " +
+            "updated_at = now(), version = version + 1 " +
+            "WHERE id = ANY(?) AND status = 'IN_PROGRESS' AND expires_at <= ? " +
+            "RETURNING id";
+
+    private static final String PENDING_SQL =
+            "SELECT id, expires_at FROM attempts " +
+            "WHERE id = ANY(?) AND status = 'IN_PROGRESS' AND expires_at IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaseManager leaseManager;
+    private final AttemptService attemptService;
+    private final StringRedisTemplate redis;
+    private final Counter expired;
+    private final Object lock = new Object();
+
+    private final long tickMillis;
+    private final long leaseTtlMillis;
+    private final long resyncMillis;
+    private final int batchSize;
+
+    // null, пока аренда у другого узла
+    private TimerWheel<UUID> wheel;
+    private long leaseCheckedAt;
+    private long resyncedAt;
+
+    public AttemptExpiryScheduler(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  LeaseManager leaseManager,
+                                  AttemptService attemptService,
+                                  StringRedisTemplate redis,
+                                  MeterRegistry registry,
+                                  @Value("${attempt-expiry.tick-ms}") long tickMillis,
+                                  @Value("${attempt-expiry.lease-ttl-ms}") long leaseTtlMillis,
+                                  @Value("${attempt-expiry.resync-ms}") long resyncMillis,
+                                  @Value("${attempt-expiry.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseManager = leaseManager;
+        this.attemptService = attemptService;
+        this.redis = redis;
+        this.tickMillis = tickMillis;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.resyncMillis = resyncMillis;
+        this.batchSize = batchSize;
+        this.expired = registry.counter("attempt.expiry.expired");
+        Gauge.builder("attempt.expiry.scheduled", this, AttemptExpiryScheduler::scheduledCount)
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${attempt-expiry.tick-ms}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        // Аренда продлевается с запасом: за треть ttl до истечения
+        if (now - leaseCheckedAt >= leaseTtlMillis / 3) {
+            leaseCheckedAt = now;
+            boolean leader = leaseManager.tryAcquire(LEASE, leaseTtlMillis);
+            synchronized (lock) {
+                if (leader && wheel == null) {
+                    wheel = new TimerWheel<>(tickMillis, now);
+                    resyncedAt = 0;
+                    log.info("Attempt expiry lease acquired by node {}", leaseManager.getNodeId());
+                } else if (!leader && wheel != null) {
+                    wheel = null;
+                    log.info("Attempt expiry lease lost by node {}", leaseManager.getNodeId());
+                }
+            }
+        }
+        if (!isLeader()) {
+            return;
+        }
+        if (now - resyncedAt >= resyncMillis) {
+            resyncedAt = now;
+            resync();
+        }
+        List<UUID> due;
+        synchronized (lock) {
+            if (wheel == null) {
+                return;
+            }
+            due = wheel.advance(now);
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            expire(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeadline(AttemptDeadlineEvent event) {
+        apply(event.attemptId(), event.expiresAt());
+        // Формат: "<узел> <id попытки> <срок в мс или ->"
+        String expiresAt = event.expiresAt() != null ? Long.toString(toMillis(event.expiresAt())) : "-";
+        try {
+            redis.convertAndSend(CHANNEL, leaseManager.getNodeId() + " " + event.attemptId() + " " + expiresAt);
+        } catch (RuntimeException e) {
+            // Сверка с базой подхватит срок не позже чем через resync-ms
+            log.warn("Failed to relay attempt deadline {}: {}", event.attemptId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Срок попытки, назначенный на другом узле
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length != 3 || leaseManager.getNodeId().equals(parts[0]) || !isLeader()) {
+            return;
+        }
+        try {
+            UUID attemptId = UUID.fromString(parts[1]);
+            if ("-".equals(parts[2])) {
+                apply(attemptId, null);
+            } else {
+                schedule(attemptId, Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed attempt deadline message");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (isLeader()) {
+            leaseManager.release(LEASE);
+        }
+    }
+
+    /**
+     * Перевести сработавшие попытки в TIMEOUT; продлённые — вернуть в колесо
+     */
+    private void expire(List<UUID> batch) {
+        List<UUID> done;
+        try {
+            done = transactionTemplate.execute(status -> {
+                List<UUID> ids = jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(EXPIRE_SQL);
+                    ps.setArray(1, con.createArrayOf("uuid", batch.toArray()));
+                    ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                    return ps;
+                }, (rs, rowNum) -> rs.getObject("id", UUID.class));
+                if (!ids.isEmpty()) {
+                    attemptService.publishTimedOut(ids);
+                }
+                return ids;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to expire {} attempts, retrying on next tick", batch.size(), e);
+            long retryAt = System.currentTimeMillis() + tickMillis;
+            for (UUID attemptId : batch) {
+                schedule(attemptId, retryAt);
+            }
+            return;
+        }
+        expired.increment(done.size());
+        if (done.size() < batch.size()) {
+            Set<UUID> rest = new HashSet<>(batch);
+            rest.removeAll(done);
+            reschedule(new ArrayList<>(rest));
+        }
+        if (!done.isEmpty()) {
+            log.info("Expired {} attempts", done.size());
+        }
+    }
+
+    /**
+     * Попытки, которые не истекли (срок продлён): новый срок из базы
+     */
+    private void reschedule(List<UUID> attemptIds) {
+        Map<UUID, Long> pending = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(PENDING_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", attemptIds.toArray()));
+            return ps;
+        }, rs -> {
+            pending.put(rs.getObject("id", UUID.class), toMillis(rs.getTimestamp("expires_at").toLocalDateTime()));
+        });
+        pending.forEach(this::schedule);
+    }
+
+    /**
+     * Сверка с базой: сроки попыток, начатых без события (или при недоступном Redis)
+     */
+    private void resync() {
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                rows.add(new Object[] {
+                        rs.getObject("id", UUID.class),
+                        toMillis(rs.getTimestamp("expires_at").toLocalDateTime())});
+            });
+        } catch (RuntimeException e) {
+            log.warn("Attempt expiry resync failed: {}", e.getMessage());
+            return;
+        }
+        synchronized (lock) {
+            if (wheel == null) {
+                return;
+            }
+            for (Object[] row : rows) {
+                wheel.schedule((UUID) row[0], (Long) row[1]);
+            }
+        }
+        log.debug("Attempt expiry resync: {} attempts in progress", rows.size());
+    }
+
+    private void apply(UUID attemptId, LocalDateTime expiresAt) {
+        synchronized (lock) {
+            if (wheel == null) {
+                return;
+            }
+            if (expiresAt == null) {
+                wheel.cancel(attemptId);
+            } else {
+                wheel.schedule(attemptId, toMillis(expiresAt));
+            }
+        }
+    }
+
+    private void schedule(UUID attemptId, long deadlineMillis) {
+        synchronized (lock) {
+            if (wheel != null) {
+                wheel.schedule(attemptId, deadlineMillis);
+            }
+        }
+    }
+
+    private boolean isLeader() {
+        synchronized (lock) {
+            return wheel != null;
+        }
+    }
+
+    private int scheduledCount() {
+        synchronized (lock) {
+            return wheel != null ? wheel.size() : 0;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
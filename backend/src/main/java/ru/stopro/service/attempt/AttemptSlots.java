@@ -0,0 +1,66 @@
+package ru.stopro.service.attempt;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Резервирование попыток ученика по заданию (таблица attempt_slots).
+ *
+ * Лимит попыток и cooldown проверяются и счётчик увеличивается одним
+ * INSERT ... ON CONFLICT DO UPDATE ... WHERE: строка счётчика блокируется
+ * до конца транзакции, поэтому два одновременных «Начать» не проходят
+ * проверку оба. Резерв делается в транзакции создания попытки и
+ * откатывается вместе с ней.
+ */
+@Component
+public class AttemptSlots {
+
+    private static final String RESERVE_SQL =
+            "INSERT INTO attempt_slots AS s (student_id, assignment_id, used, last_started_at) " +
+            "SELECT ?, ?, 1, ? WHERE ? > 0 " +
+            "ON CONFLICT (student_id, assignment_id) DO UPDATE " +
+            "SET used = s.used + 1, last_started_at = EXCLUDED.last_started_at " +
+            "WHERE s.used < ? " +
+            "  AND (? = 0 OR s.last_started_at IS NULL " +
+            "       OR s.last_started_at <= EXCLUDED.last_started_at - make_interval(mins => ?)) " +
+            "RETURNING s.used";
+
+    private static final String USED_SQL =
+            "SELECT used FROM attempt_slots WHERE student_id = ? AND assignment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttemptSlots(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Занять слот попытки (в текущей транзакции)
+     *
+     * @param maxAttempts     лимит попыток (null — без лимита)
+     * @param cooldownMinutes пауза между началами попыток (null или 0 — без паузы)
+     * @return номер попытки ученика по заданию
+     * @throws RuntimeException если лимит исчерпан или пауза не прошла
+     */
+    public int reserve(UUID studentId, UUID assignmentId, Integer maxAttempts, Integer cooldownMinutes,
+                       LocalDateTime startedAt) {
+        int limit = maxAttempts != null ? maxAttempts : Integer.MAX_VALUE;
+        int cooldown = cooldownMinutes != null ? Math.max(cooldownMinutes, 0) : 0;
+        List<Integer> used = jdbcTemplate.queryForList(RESERVE_SQL, Integer.class,
+                studentId, assignmentId, Timestamp.valueOf(startedAt), limit, limit, cooldown, cooldown);
+        if (!used.isEmpty()) {
+            return used.get(0);
+        }
+        // Отказ — редкий путь: отдельным запросом выясняем причину для сообщения
+        List<Integer> current = jdbcTemplate.queryForList(USED_SQL, Integer.class, studentId, assignmentId);
+        if (current.isEmpty() || current.get(0) >= limit) {
+            throw new RuntimeException("Превышен лимит попыток");
+        }
+        throw new RuntimeException("Новую попытку можно начать через " + cooldown + " мин. после предыдущей");
+    }
+}
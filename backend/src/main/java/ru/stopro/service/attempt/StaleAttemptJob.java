@@ -0,0 +1,57 @@
+package ru.stopro.service.attempt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Прерывание брошенных попыток без срока (expires_at не задан, например
+ * тренировка без задания), начатых больше max-age-hours назад.
+ *
+ * Попытки со сроком завершает {@link AttemptExpiryScheduler}.
+ */
+@Component
+public class StaleAttemptJob implements ClusterJob {
+
+    private static final String INTERRUPT_SQL =
+            "UPDATE attempts a SET status = 'INTERRUPTED', is_interrupted = true, " +
+            "interruption_reason = 'Timeout', updated_at = now(), version = a.version + 1 " +
+            "FROM (SELECT id FROM attempts " +
+            "      WHERE status = 'IN_PROGRESS' AND expires_at IS NULL AND started_at < ? " +
+            "        AND is_deleted = false " +
+            "      LIMIT ? FOR UPDATE SKIP LOCKED) s " +
+            "WHERE a.id = s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${stale-attempts.max-age-hours}")
+    private int maxAgeHours;
+
+    @Value("${stale-attempts.interval-ms}")
+    private long intervalMs;
+
+    public StaleAttemptJob(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "stale-attempts";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        return jdbcTemplate.update(INTERRUPT_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusHours(maxAgeHours)), limit);
+    }
+}
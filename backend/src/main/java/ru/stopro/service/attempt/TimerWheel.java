@@ -0,0 +1,166 @@
+package ru.stopro.service.attempt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Иерархическое колесо таймеров: дедлайны по ключу, срабатывание с точностью до тика.
+ *
+ * Уровень 0 — SLOTS тиков, каждый следующий — в SLOTS раз грубее. Таймер лежит
+ * на самом низком уровне, где старшие «цифры» его тика совпадают с текущими;
+ * когда текущий тик доходит до его ячейки на верхнем уровне, таймер опускается
+ * ниже. Добавление, отмена и перенос — O(1), продвижение — O(1) на тик плюс
+ * сработавшие таймеры. 4 уровня по 64 ячейки при тике в секунду покрывают
+ * ~194 дня, более далёкие дедлайны ждут в последней ячейке верхнего уровня.
+ *
+ * Не потокобезопасно: вызывающий синхронизирует доступ.
+ */
+public final class TimerWheel<K> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private static final class Timer<K> {
+        final K key;
+        final long tick;
+        Set<Timer<K>> bucket;
+
+        Timer(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<Timer<K>>[][] wheels = new Set[LEVELS][SLOTS];
+    private final Set<Timer<K>> due = new HashSet<>();
+    private long currentTick;
+
+    public TimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Поставить (или перенести) таймер ключа
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Округление вверх: таймер не срабатывает раньше дедлайна
+        Timer<K> timer = new Timer<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    public void cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer != null) {
+            timer.bucket.remove(timer);
+        }
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public void clear() {
+        timers.clear();
+        due.clear();
+        for (Set<Timer<K>>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Продвинуть колесо до текущего времени и забрать сработавшие ключи
+     */
+    public List<K> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Сначала опускаем таймеры с верхних уровней: они могут попасть в ячейку текущего тика
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, slotOf(currentTick, level));
+                }
+            }
+            Set<Timer<K>> bucket = wheels[0][slotOf(currentTick, 0)];
+            if (bucket != null && !bucket.isEmpty()) {
+                for (Timer<K> timer : bucket) {
+                    timer.bucket = due;
+                }
+                due.addAll(bucket);
+                bucket.clear();
+            }
+        }
+        if (due.isEmpty()) {
+            return List.of();
+        }
+        List<K> fired = new ArrayList<>(due.size());
+        for (Timer<K> timer : due) {
+            timers.remove(timer.key);
+            fired.add(timer.key);
+        }
+        due.clear();
+        return fired;
+    }
+
+    private void cascade(int level, int slot) {
+        Set<Timer<K>> bucket = wheels[level][slot];
+        if (bucket == null || bucket.isEmpty()) {
+            return;
+        }
+        wheels[level][slot] = null;
+        for (Timer<K> timer : bucket) {
+            place(timer);
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        if (timer.tick <= currentTick) {
+            add(due, timer);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * (level + 1);
+            if ((timer.tick >>> shift) == (currentTick >>> shift)) {
+                add(bucket(level, slotOf(timer.tick, level)), timer);
+                return;
+            }
+        }
+        // Дальше горизонта колеса: ячейка верхнего уровня, до которой дойдём последней
+        add(bucket(LEVELS - 1, (slotOf(currentTick, LEVELS - 1) - 1) & MASK), timer);
+    }
+
+    private Set<Timer<K>> bucket(int level, int slot) {
+        Set<Timer<K>> bucket = wheels[level][slot];
+        if (bucket == null) {
+            bucket = new HashSet<>();
+            wheels[level][slot] = bucket;
+        }
+        return bucket;
+    }
+
+    private static <K> void add(Set<Timer<K>> bucket, Timer<K> timer) {
+        bucket.add(timer);
+        timer.bucket = bucket;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (BITS * level)) & MASK);
+    }
+}
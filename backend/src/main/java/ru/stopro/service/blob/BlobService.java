@@ -0,0 +1,152 @@
+package ru.stopro.service.blob;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.domain.entity.StoredBlob;
+import ru.stopro.dto.blob.BlobDto;
+import ru.stopro.repository.BlobRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Загрузка и выдача файлов задач и ответов (изображения, SVG-диаграммы).
+ *
+ * Файлы лежат в {@link BlobStore}, в базе — только метаданные.
+ * Тип файла определяется по содержимому, а не по заголовку клиента.
+ * Поток читается без открытой транзакции: соединение из пула берётся
+ * только на короткую запись метаданных после того, как файл сохранён.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class BlobService {
+
+    public static final String SVG = "image/svg+xml";
+
+    private final BlobRepository blobRepository;
+    private final BlobStore store;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxSizeBytes;
+
+    public BlobService(BlobRepository blobRepository,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${blob-store.root-dir}") String rootDir,
+                       @Value("${blob-store.max-size-bytes}") long maxSizeBytes) throws IOException {
+        this.blobRepository = blobRepository;
+        this.store = new BlobStore(Path.of(rootDir));
+        this.transactionTemplate = transactionTemplate;
+        this.maxSizeBytes = maxSizeBytes;
+        log.info("Blob store at {}, max file size {} bytes", rootDir, maxSizeBytes);
+    }
+
+    public static final Set<String> ALL_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp", SVG);
+    public static final Set<String> RASTER_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+
+    /**
+     * Сохранить файл из потока
+     *
+     * @throws IllegalArgumentException если файл слишком большой или тип не поддерживается
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BlobDto store(InputStream in, UUID ownerId) {
+        return store(in, ownerId, ALL_TYPES);
+    }
+
+    /**
+     * Сохранить файл из потока, допуская только указанные типы
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BlobDto store(InputStream in, UUID ownerId, Set<String> allowedTypes) {
+        try {
+            BlobStore.Pending pending = store.write(in, maxSizeBytes);
+            String contentType = detectContentType(pending.head());
+            if (contentType == null || !allowedTypes.contains(contentType)) {
+                store.discard(pending);
+                throw new IllegalArgumentException("Неподдерживаемый тип файла");
+            }
+            store.commit(pending);
+            BlobDto blob = transactionTemplate.execute(status -> {
+                blobRepository.insertIfAbsent(pending.hash(), contentType, pending.size(), ownerId);
+                return blobRepository.findById(pending.hash())
+                        .map(BlobDto::fromEntity)
+                        .orElseThrow(() -> new IllegalStateException("Blob metadata not found"));
+            });
+            log.debug("Stored blob {} ({} bytes, {})", pending.hash(), pending.size(), contentType);
+            return blob;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить файл", e);
+        }
+    }
+
+    /**
+     * Сохранить SVG-диаграмму, возвращает хеш.
+     * SVG уже в памяти, поэтому метаданные пишутся в транзакции вызывающего, если она есть
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String storeSvg(String svg, UUID ownerId) {
+        return store(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), ownerId, Set.of(SVG))
+                .getHash();
+    }
+
+    public Optional<StoredBlob> find(String hash) {
+        if (hash == null || !BlobStore.HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        return blobRepository.findById(hash);
+    }
+
+    public Path pathOf(String hash) {
+        return store.pathOf(hash);
+    }
+
+    /**
+     * Тип по сигнатуре файла: PNG, JPEG, GIF, WebP или SVG
+     */
+    static String detectContentType(byte[] head) {
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        String text = new String(head, StandardCharsets.UTF_8).stripLeading();
+        if (!text.isEmpty() && text.charAt(0) == '\uFEFF') {
+            text = text.substring(1).stripLeading();
+        }
+        if (text.startsWith("<svg")
+                || ((text.startsWith("<?xml") || text.startsWith("<!--")) && text.contains("<svg"))) {
+            return SVG;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... signature) {
+        if (data.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.stopro.service.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Файловое хранилище с адресацией по содержимому.
+ *
+ * Файл сначала пишется во временный каталог с подсчётом SHA-256 на лету,
+ * затем атомарно переносится в ab/cd/&lt;hash&gt;. Если такой файл уже есть,
+ * временная копия удаляется — одинаковое содержимое хранится один раз.
+ * Готовые файлы не изменяются, поэтому их можно отдавать с вечным кэшированием.
+ */
+public class BlobStore {
+
+    public static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Сколько первых байт сохраняется для определения типа файла
+     */
+    static final int HEAD_SIZE = 1024;
+
+    private final Path root;
+    private final Path tmp;
+
+    public BlobStore(Path root) throws IOException {
+        this.root = root;
+        this.tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    /**
+     * Записанный, но ещё не опубликованный файл
+     *
+     * @param hash SHA-256 содержимого
+     * @param size размер в байтах
+     * @param head первые байты (для определения типа)
+     * @param file временный файл
+     */
+    public record Pending(String hash, long size, byte[] head, Path file) {
+    }
+
+    /**
+     * Записать поток во временный файл, посчитав хеш
+     *
+     * @throws IllegalArgumentException если поток длиннее maxBytes
+     */
+    public Pending write(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        Path file = Files.createTempFile(tmp, "upload", ".part");
+        byte[] head = new byte[HEAD_SIZE];
+        int headLength = 0;
+        long size = 0;
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest);
+             OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = digestIn.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new IllegalArgumentException("Файл больше " + maxBytes + " байт");
+                }
+                if (headLength < HEAD_SIZE) {
+                    int copy = Math.min(read, HEAD_SIZE - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, copy);
+                    headLength += copy;
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        return new Pending(hash, size, Arrays.copyOf(head, headLength), file);
+    }
+
+    /**
+     * Опубликовать файл под его хешем (повторная публикация того же содержимого — no-op)
+     */
+    public void commit(Pending pending) throws IOException {
+        Path target = pathOf(pending.hash());
+        if (Files.exists(target)) {
+            discard(pending);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(pending.file(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(pending.file(), target);
+        } catch (FileAlreadyExistsException e) {
+            // Параллельная загрузка того же содержимого успела раньше
+            discard(pending);
+        }
+    }
+
+    public void discard(Pending pending) throws IOException {
+        Files.deleteIfExists(pending.file());
+    }
+
+    /**
+     * Путь к файлу по хешу (файла может не быть)
+     */
+    public Path pathOf(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Некорректный хеш: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
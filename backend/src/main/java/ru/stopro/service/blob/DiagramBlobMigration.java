@@ -0,0 +1,92 @@
+package ru.stopro.service.blob;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Перенос SVG-диаграмм из строк questions в хранилище файлов.
+ *
+ * Большие TEXT-значения раздувают «горячие» строки задач; после переноса
+ * в строке остаётся только хеш. Идёт пачками по id, каждая пачка —
+ * отдельная транзакция; прерванный перенос продолжится при следующем старте.
+ */
+@Slf4j
+@Component
+public class DiagramBlobMigration {
+
+    private static final String SELECT_SQL =
+            "SELECT id, author_id, diagram_svg FROM questions " +
+            "WHERE id > ? AND diagram_svg IS NOT NULL AND diagram_blob_hash IS NULL ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_SQL =
+            "UPDATE questions SET diagram_blob_hash = ?, diagram_svg = NULL WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobService blobService;
+
+    @Value("${blob-store.migration-chunk-size}")
+    private int chunkSize;
+
+    public DiagramBlobMigration(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                BlobService blobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobService = blobService;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long moved = 0;
+        long skipped = 0;
+        UUID after = new UUID(0L, 0L);
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(chunkSize);
+            jdbcTemplate.query(SELECT_SQL, rs -> {
+                rows.add(new Object[] {
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("author_id", UUID.class),
+                        rs.getString("diagram_svg")
+                });
+            }, after, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                try {
+                    String hash = blobService.storeSvg((String) row[2], (UUID) row[1]);
+                    updates.add(new Object[] {hash, row[0]});
+                } catch (RuntimeException e) {
+                    // Некорректный SVG остаётся в строке как есть
+                    skipped++;
+                    log.warn("Failed to move diagram of question {} to blob store: {}", row[0], e.getMessage());
+                }
+            }
+            if (!updates.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+                moved += updates.size();
+            }
+            after = (UUID) rows.get(rows.size() - 1)[0];
+            if (rows.size() < chunkSize) {
+                break;
+            }
+        }
+        if (moved > 0 || skipped > 0) {
+            log.info("Moved {} question diagrams to blob store, {} skipped", moved, skipped);
+        }
+    }
+}
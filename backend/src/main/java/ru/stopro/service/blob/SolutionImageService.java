@@ -0,0 +1,139 @@
+package ru.stopro.service.blob;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.domain.entity.Attempt;
+import ru.stopro.domain.enums.AttemptStatus;
+import ru.stopro.dto.attempt.SolutionImageDto;
+import ru.stopro.dto.blob.BlobDto;
+import ru.stopro.repository.AttemptRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Загрузка фотографий рукописных решений.
+ *
+ * Тело запроса пишется прямо в хранилище файлов с подсчётом хеша — без
+ * буферизации в куче и без открытой транзакции на время передачи. Число
+ * одновременных загрузок на ученика ограничено, миниатюры строятся
+ * в отдельном небольшом пуле с ограниченной очередью.
+ */
+@Slf4j
+@Service
+public class SolutionImageService {
+
+    private final AttemptRepository attemptRepository;
+    private final BlobService blobService;
+    private final TransactionTemplate transactionTemplate;
+    private final UploadLimiter limiter;
+    private final ExecutorService thumbnailPool;
+    private final int thumbnailSize;
+
+    public SolutionImageService(AttemptRepository attemptRepository,
+                                BlobService blobService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${solution-upload.max-concurrent-per-user}") int maxConcurrentPerUser,
+                                @Value("${solution-upload.thumbnail-size}") int thumbnailSize,
+                                @Value("${solution-upload.thumbnail-threads}") int thumbnailThreads,
+                                @Value("${solution-upload.thumbnail-queue}") int thumbnailQueue) {
+        this.attemptRepository = attemptRepository;
+        this.blobService = blobService;
+        this.transactionTemplate = transactionTemplate;
+        this.limiter = new UploadLimiter(maxConcurrentPerUser);
+        this.thumbnailSize = thumbnailSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.thumbnailPool = new ThreadPoolExecutor(thumbnailThreads, thumbnailThreads,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(thumbnailQueue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Сохранить изображение решения и привязать его к попытке
+     *
+     * @throws TooManyUploadsException если у ученика уже идёт максимум загрузок
+     */
+    public SolutionImageDto upload(UUID attemptId, UUID studentId, InputStream body) {
+        Attempt attempt = attemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Attempt not found"));
+        if (!attempt.getStudent().getId().equals(studentId)) {
+            throw new RuntimeException("Access denied");
+        }
+        if (attempt.getStatus() != AttemptStatus.IN_PROGRESS) {
+            throw new RuntimeException("Попытка уже завершена");
+        }
+
+        if (!limiter.tryAcquire(studentId)) {
+            throw new TooManyUploadsException();
+        }
+        BlobDto blob;
+        try {
+            blob = blobService.store(body, studentId, BlobService.RASTER_TYPES);
+        } finally {
+            limiter.release(studentId);
+        }
+
+        Integer updated = transactionTemplate.execute(status ->
+                attemptRepository.attachSolutionImage(attemptId, blob.getUrl()));
+        if (updated == null || updated == 0) {
+            throw new RuntimeException("Попытка уже завершена");
+        }
+        log.info("Solution image {} ({} bytes) attached to attempt {}", blob.getHash(), blob.getSizeBytes(), attemptId);
+
+        boolean thumbnailPending = scheduleThumbnail(attemptId, blob, studentId);
+        return SolutionImageDto.builder()
+                .attemptId(attemptId)
+                .hash(blob.getHash())
+                .imageUrl(blob.getUrl())
+                .contentType(blob.getContentType())
+                .sizeBytes(blob.getSizeBytes())
+                .thumbnailPending(thumbnailPending)
+                .build();
+    }
+
+    private boolean scheduleThumbnail(UUID attemptId, BlobDto blob, UUID studentId) {
+        try {
+            thumbnailPool.execute(() -> createThumbnail(attemptId, blob, studentId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Миниатюра необязательна: при перегрузке клиент покажет полное изображение
+            log.warn("Thumbnail queue is full, skipping thumbnail for attempt {}", attemptId);
+            return false;
+        }
+    }
+
+    private void createThumbnail(UUID attemptId, BlobDto blob, UUID studentId) {
+        try {
+            byte[] jpeg = ThumbnailGenerator.generate(blobService.pathOf(blob.getHash()), thumbnailSize);
+            if (jpeg == null) {
+                log.debug("No ImageIO reader for {}, thumbnail skipped", blob.getContentType());
+                return;
+            }
+            BlobDto thumbnail = blobService.store(new ByteArrayInputStream(jpeg), studentId, BlobService.RASTER_TYPES);
+            transactionTemplate.executeWithoutResult(status ->
+                    attemptRepository.attachSolutionThumbnail(attemptId, blob.getUrl(), thumbnail.getUrl()));
+        } catch (Exception e) {
+            log.warn("Failed to create thumbnail for attempt {}", attemptId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thumbnailPool.shutdown();
+    }
+}
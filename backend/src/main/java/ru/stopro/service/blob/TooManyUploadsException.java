@@ -0,0 +1,15 @@
+package ru.stopro.service.blob;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * У пользователя уже идёт максимум одновременных загрузок
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyUploadsException extends RuntimeException {
+
+    public TooManyUploadsException() {
+        super("Слишком много одновременных загрузок");
+    }
+}
@@ -0,0 +1,41 @@
+package ru.stopro.service.blob;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничение числа одновременных загрузок на пользователя.
+ *
+ * Счётчик живёт в карте только пока у пользователя есть активные загрузки,
+ * поэтому карта не растёт с числом пользователей.
+ */
+public class UploadLimiter {
+
+    private final int maxPerUser;
+    private final Map<UUID, Integer> active = new ConcurrentHashMap<>();
+
+    public UploadLimiter(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * Занять слот загрузки; false — лимит исчерпан
+     */
+    public boolean tryAcquire(UUID userId) {
+        boolean[] acquired = new boolean[1];
+        active.compute(userId, (id, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxPerUser) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    public void release(UUID userId) {
+        active.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+}
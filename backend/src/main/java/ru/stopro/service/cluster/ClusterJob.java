@@ -0,0 +1,32 @@
+package ru.stopro.service.cluster;
+
+import java.time.Duration;
+
+/**
+ * Периодическая задача, которая в кластере выполняется на одном узле.
+ *
+ * Работа делится на порции: {@link ClusterJobRunner} вызывает
+ * {@link #processChunk(int)} в отдельной транзакции, пока задача не вернёт
+ * меньше limit или не выйдет время одного запуска. Порция должна выбирать
+ * строки с LIMIT (и FOR UPDATE SKIP LOCKED, если строки меняются),
+ * чтобы оборванный запуск можно было просто повторить.
+ */
+public interface ClusterJob {
+
+    /**
+     * Имя задачи: ключ аренды и тег метрик
+     */
+    String name();
+
+    /**
+     * Пауза между запусками
+     */
+    Duration interval();
+
+    /**
+     * Обработать одну порцию
+     *
+     * @return сколько записей обработано (меньше limit — работы больше нет)
+     */
+    int processChunk(int limit);
+}
@@ -0,0 +1,149 @@
+package ru.stopro.service.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запуск {@link ClusterJob} с выбором исполнителя через аренду в Postgres.
+ *
+ * Для каждой задачи своя аренда «job:&lt;имя&gt;» на интервал плюс lease-ttl: задачу
+ * выполняет узел, который её держит, остальные пропускают запуск. Аренда продлевается
+ * при каждом запуске, поэтому задача остаётся на одном узле, пока он жив, а разные
+ * задачи могут оказаться на разных узлах. Запуск ограничен по времени (max-run-ms
+ * меньше lease-ttl): недоделанное продолжится в следующий раз.
+ *
+ * Метрики (тег job): cluster.job.processed, cluster.job.failures, cluster.job.duration,
+ * cluster.job.last.success (epoch-секунды последнего успешного запуска на этом узле)
+ * и cluster.job.lag (на сколько мс запуск опоздал относительно плана).
+ */
+@Slf4j
+@Component
+public class ClusterJobRunner {
+
+    private static final String LEASE_PREFIX = "job:";
+
+    private static final class Job {
+        final ClusterJob job;
+        final Counter processed;
+        final Counter failures;
+        final Timer duration;
+        final AtomicLong lastSuccess = new AtomicLong();
+        final AtomicLong lag = new AtomicLong();
+        long dueAt;
+        boolean held;
+
+        Job(ClusterJob job, MeterRegistry registry) {
+            this.job = job;
+            this.processed = registry.counter("cluster.job.processed", "job", job.name());
+            this.failures = registry.counter("cluster.job.failures", "job", job.name());
+            this.duration = registry.timer("cluster.job.duration", "job", job.name());
+            Gauge.builder("cluster.job.last.success", lastSuccess, AtomicLong::get)
+                    .tag("job", job.name())
+                    .register(registry);
+            Gauge.builder("cluster.job.lag", lag, AtomicLong::get)
+                    .tag("job", job.name())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+
+    private final List<Job> jobs = new ArrayList<>();
+    private final LeaseManager leaseManager;
+    private final TransactionTemplate transactionTemplate;
+    private final long leaseTtlMillis;
+    private final long maxRunMillis;
+    private final int chunkSize;
+
+    public ClusterJobRunner(List<ClusterJob> clusterJobs,
+                            LeaseManager leaseManager,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry registry,
+                            @Value("${cluster-jobs.lease-ttl-ms}") long leaseTtlMillis,
+                            @Value("${cluster-jobs.max-run-ms}") long maxRunMillis,
+                            @Value("${cluster-jobs.chunk-size}") int chunkSize) {
+        if (maxRunMillis >= leaseTtlMillis) {
+            throw new IllegalArgumentException("cluster-jobs.max-run-ms должен быть меньше lease-ttl-ms");
+        }
+        Set<String> names = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (ClusterJob clusterJob : clusterJobs) {
+            if (!names.add(clusterJob.name())) {
+                throw new IllegalStateException("Две задачи с именем " + clusterJob.name());
+            }
+            Job job = new Job(clusterJob, registry);
+            job.dueAt = now;
+            jobs.add(job);
+        }
+        this.leaseManager = leaseManager;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.maxRunMillis = maxRunMillis;
+        this.chunkSize = chunkSize;
+        log.info("Cluster jobs: {}", names);
+    }
+
+    @Scheduled(fixedDelayString = "${cluster-jobs.tick-ms}")
+    public void tick() {
+        for (Job job : jobs) {
+            long now = System.currentTimeMillis();
+            if (now < job.dueAt) {
+                continue;
+            }
+            long interval = job.job.interval().toMillis();
+            // Аренда живёт до следующего запуска с запасом: пока узел жив, задача остаётся на нём
+            job.held = leaseManager.tryAcquire(LEASE_PREFIX + job.job.name(), interval + leaseTtlMillis);
+            if (job.held) {
+                job.lag.set(now - job.dueAt);
+                run(job, now);
+            }
+            job.dueAt = now + interval;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Job job : jobs) {
+            if (job.held) {
+                leaseManager.release(LEASE_PREFIX + job.job.name());
+            }
+        }
+    }
+
+    private void run(Job job, long startedAt) {
+        long total = 0;
+        try {
+            int processed;
+            do {
+                Integer result = transactionTemplate.execute(status -> job.job.processChunk(chunkSize));
+                processed = result != null ? result : 0;
+                total += processed;
+                job.processed.increment(processed);
+            } while (processed >= chunkSize && System.currentTimeMillis() - startedAt < maxRunMillis);
+            job.lastSuccess.set(System.currentTimeMillis() / 1000);
+            if (total > 0) {
+                log.info("Cluster job {} processed {} records in {} ms",
+                        job.job.name(), total, System.currentTimeMillis() - startedAt);
+            }
+        } catch (RuntimeException e) {
+            job.failures.increment();
+            log.error("Cluster job {} failed after {} records", job.job.name(), total, e);
+        } finally {
+            job.duration.record(System.currentTimeMillis() - startedAt, TimeUnit.MILLISECONDS);
+        }
+    }
+}
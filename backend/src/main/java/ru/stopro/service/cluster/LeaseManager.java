@@ -0,0 +1,71 @@
+package ru.stopro.service.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Аренда ролей между узлами (таблица scheduler_leases).
+ *
+ * Аренду держит один узел; он продлевает её раньше, чем она истечёт.
+ * Захват и продление — один условный INSERT ... ON CONFLICT DO UPDATE,
+ * время сравнивается по часам базы, поэтому расхождение часов узлов
+ * не приводит к двум владельцам.
+ */
+@Slf4j
+@Component
+public class LeaseManager {
+
+    private static final String ACQUIRE_SQL =
+            "INSERT INTO scheduler_leases AS l (name, owner, acquired_at, expires_at) " +
+            "VALUES (?, ?, now(), now() + ? * interval '1 millisecond') " +
+            "ON CONFLICT (name) DO UPDATE " +
+            "SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at, " +
+            "    acquired_at = CASE WHEN l.owner = EXCLUDED.owner THEN l.acquired_at ELSE now() END " +
+            "WHERE l.owner = EXCLUDED.owner OR l.expires_at < now() " +
+            "RETURNING l.owner";
+
+    private static final String RELEASE_SQL =
+            "DELETE FROM scheduler_leases WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public LeaseManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Захватить или продлить аренду на ttlMillis
+     *
+     * @return true, если аренда у этого узла
+     */
+    public boolean tryAcquire(String name, long ttlMillis) {
+        try {
+            List<String> owner = jdbcTemplate.queryForList(ACQUIRE_SQL, String.class, name, nodeId, ttlMillis);
+            return !owner.isEmpty();
+        } catch (RuntimeException e) {
+            // Без базы нельзя подтвердить аренду: считаем, что её нет
+            log.warn("Failed to acquire lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Отпустить аренду (при остановке), чтобы другой узел не ждал её истечения
+     */
+    public void release(String name) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, name, nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,187 @@
+package ru.stopro.service.dedup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LSH-индекс MinHash-сигнатур (BANDS полос по ROWS строк).
+ *
+ * Две задачи становятся кандидатами, если хотя бы одна полоса их сигнатур
+ * совпала целиком. При 16×4 пары со сходством 0.8 находятся с вероятностью
+ * ~99.9%, а пары со сходством 0.3 — лишь ~12%, поэтому поиск проверяет
+ * единицы кандидатов, а не весь банк.
+ *
+ * Переполненные корзины (больше MAX_BUCKET_SIZE) — это общие шаблонные
+ * фразы вроде "Найдите значение выражения", а не признак дубликата;
+ * они пропускаются, как стоп-слова.
+ */
+public class LshIndex {
+
+    public static final int BANDS = 16;
+    public static final int ROWS = MinHasher.SIGNATURE_SIZE / BANDS;
+    public static final int MAX_BUCKET_SIZE = 500;
+
+    private final Map<UUID, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Добавить или обновить сигнатуру
+     */
+    public void put(UUID id, int[] signature) {
+        int[] previous = signatures.put(id, signature);
+        if (previous != null) {
+            unbucket(id, previous);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            buckets.compute(bandKey(signature, band), (key, bucket) -> {
+                Set<UUID> target = bucket != null ? bucket : ConcurrentHashMap.newKeySet();
+                target.add(id);
+                return target;
+            });
+        }
+    }
+
+    public void remove(UUID id) {
+        int[] previous = signatures.remove(id);
+        if (previous != null) {
+            unbucket(id, previous);
+        }
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Похожие задачи со сходством не ниже threshold, по убыванию сходства
+     */
+    public Map<UUID, Double> findSimilar(int[] signature, double threshold, UUID excludeId) {
+        Set<UUID> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            Set<UUID> bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null && bucket.size() <= MAX_BUCKET_SIZE) {
+                candidates.addAll(bucket);
+            }
+        }
+        candidates.remove(excludeId);
+
+        List<Map.Entry<UUID, Double>> matches = new ArrayList<>();
+        for (UUID candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            if (other == null) {
+                continue;
+            }
+            double similarity = MinHasher.similarity(signature, other);
+            if (similarity >= threshold) {
+                matches.add(Map.entry(candidate, similarity));
+            }
+        }
+        matches.sort(Map.Entry.<UUID, Double>comparingByValue().reversed());
+
+        Map<UUID, Double> result = new LinkedHashMap<>();
+        matches.forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    /**
+     * Группы похожих задач по всему индексу.
+     * Пары берутся только внутри LSH-корзин, связность — через union-find.
+     */
+    public List<Set<UUID>> findGroups(double threshold) {
+        Map<UUID, UUID> parent = new HashMap<>();
+
+        for (Set<UUID> bucket : buckets.values()) {
+            if (bucket.size() < 2 || bucket.size() > MAX_BUCKET_SIZE) {
+                continue;
+            }
+            List<UUID> members = new ArrayList<>(bucket);
+            for (int i = 0; i < members.size(); i++) {
+                int[] a = signatures.get(members.get(i));
+                if (a == null) {
+                    continue;
+                }
+                for (int j = i + 1; j < members.size(); j++) {
+                    if (sameGroup(parent, members.get(i), members.get(j))) {
+                        continue;
+                    }
+                    int[] b = signatures.get(members.get(j));
+                    if (b != null && MinHasher.similarity(a, b) >= threshold) {
+                        union(parent, members.get(i), members.get(j));
+                    }
+                }
+            }
+        }
+
+        Map<UUID, Set<UUID>> groups = new HashMap<>();
+        for (UUID id : parent.keySet()) {
+            groups.computeIfAbsent(find(parent, id), k -> new HashSet<>()).add(id);
+        }
+        List<Set<UUID>> result = new ArrayList<>();
+        for (Set<UUID> group : groups.values()) {
+            if (group.size() > 1) {
+                result.add(Collections.unmodifiableSet(group));
+            }
+        }
+        result.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        return result;
+    }
+
+    public int[] signatureOf(UUID id) {
+        return signatures.get(id);
+    }
+
+    private void unbucket(UUID id, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            // compute* атомарны по ключу: пустая корзина не удалится поверх параллельного put
+            buckets.computeIfPresent(bandKey(signature, band), (key, bucket) -> {
+                bucket.remove(id);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long h = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            h = MinHasher.mix64(h * 31 + signature[row]);
+        }
+        return h;
+    }
+
+    private static UUID find(Map<UUID, UUID> parent, UUID id) {
+        UUID root = id;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        // Сжатие путей
+        UUID current = id;
+        while (!current.equals(root)) {
+            UUID next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static boolean sameGroup(Map<UUID, UUID> parent, UUID a, UUID b) {
+        return parent.containsKey(a) && parent.containsKey(b) && find(parent, a).equals(find(parent, b));
+    }
+
+    private static void union(Map<UUID, UUID> parent, UUID a, UUID b) {
+        parent.putIfAbsent(a, a);
+        parent.putIfAbsent(b, b);
+        UUID rootA = find(parent, a);
+        UUID rootB = find(parent, b);
+        if (!rootA.equals(rootB)) {
+            parent.put(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.stopro.service.dedup;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash-сигнатуры текстов задач.
+ *
+ * Текст нормализуется (регистр, ё/е, LaTeX-разметка, пробелы) и режется
+ * на символьные шинглы длины SHINGLE_LENGTH. Для каждой из SIGNATURE_SIZE
+ * хеш-функций в сигнатуру попадает минимальный хеш по всем шинглам;
+ * доля совпадающих позиций двух сигнатур оценивает коэффициент Жаккара
+ * множеств шинглов.
+ */
+public final class MinHasher {
+
+    public static final int SIGNATURE_SIZE = 64;
+    public static final int SHINGLE_LENGTH = 5;
+
+    /**
+     * Команды, не несущие смысла задачи (только оформление)
+     */
+    private static final Set<String> LAYOUT_COMMANDS = Set.of(
+            "left", "right", "circ", "displaystyle", "text", "textbf", "mathrm", "mathbf",
+            "quad", "qquad", "big", "bigl", "bigr", "limits", "cdot", "dfrac", "tfrac", "frac");
+
+    private static final long[] SEEDS = new long[SIGNATURE_SIZE];
+
+    static {
+        // Фиксированное зерно: сигнатуры должны совпадать между перезапусками
+        SplittableRandom random = new SplittableRandom(0x9E3779B97F4A7C15L);
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    private MinHasher() {
+    }
+
+    /**
+     * Сигнатура задачи по условию и ответу
+     */
+    public static int[] signature(String content, String answer) {
+        String text = normalize(content) + " | " + normalize(answer);
+
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingleHash = hashShingle(text, start, Math.min(text.length(), start + SHINGLE_LENGTH));
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int h = (int) (mix64(shingleHash ^ SEEDS[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Оценка сходства (доля совпавших позиций сигнатур)
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * Нормализация: нижний регистр, ё → е, десятичная запятая → точка,
+     * без скобок, знаков препинания и оформительских LaTeX-команд.
+     * Содержательные команды (\sin, \log, \sqrt ...) остаются словами,
+     * чтобы "$\cos A = 0,8$" и "cos A = 0.8" давали одинаковый текст.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        StringBuilder sb = new StringBuilder(lower.length());
+        boolean space = false;
+
+        for (int i = 0; i < lower.length(); i++) {
+            char ch = lower.charAt(i);
+            if (ch == '\\') {
+                int end = i + 1;
+                while (end < lower.length() && Character.isLetter(lower.charAt(end))) {
+                    end++;
+                }
+                String command = lower.substring(i + 1, end);
+                i = end - 1;
+                if (!command.isEmpty() && !LAYOUT_COMMANDS.contains(command)) {
+                    if (sb.length() > 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(command);
+                }
+                space = sb.length() > 0;
+                continue;
+            }
+            boolean decimalPoint = (ch == ',' || ch == '.') && i > 0 && i + 1 < lower.length()
+                    && Character.isDigit(lower.charAt(i - 1)) && Character.isDigit(lower.charAt(i + 1));
+            if (decimalPoint) {
+                ch = '.';
+            }
+            if (Character.isLetterOrDigit(ch) || decimalPoint || "+-*/=<>".indexOf(ch) >= 0) {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(ch);
+            } else {
+                space = sb.length() > 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long hashShingle(String text, int from, int to) {
+        // FNV-1a по символам шингла
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Финализатор SplitMix64 — хорошее перемешивание для производных хешей
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,183 @@
+package ru.stopro.service.dedup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.dto.question.DuplicateReportDto;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Поиск почти-дубликатов задач.
+ *
+ * Держит в памяти LSH-индекс MinHash-сигнатур всех неудалённых задач:
+ * индекс строится при старте одним проходом курсором по таблице
+ * и поддерживается по {@link QuestionIndexEvent} после коммита изменения;
+ * другим узлам готовые сигнатуры уходят через Redis pub/sub.
+ * Неизменённые копии (copied_from_id) не индексируются: это намеренные
+ * дубликаты, которые иначе переполняли бы корзины оригиналов.
+ * Проверка новой задачи — 16 обращений к корзинам и сравнение
+ * нескольких сигнатур, без попарного сканирования банка.
+ */
+@Slf4j
+@Service
+public class NearDuplicateService implements MessageListener {
+
+    public static final String CHANNEL = "questions:dedup";
+
+    private static final String LOAD_SQL =
+            "SELECT id, content, answer FROM questions WHERE is_deleted = false AND copied_from_id IS NULL";
+
+    /**
+     * Сообщение между узлами; signature = null — задача удалена из индекса
+     */
+    private record Relay(String origin, List<RelayEntry> entries) {
+    }
+
+    private record RelayEntry(UUID questionId, int[] signature) {
+    }
+
+    private final LshIndex index = new LshIndex();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+
+    @Value("${question-dedup.threshold}")
+    private double threshold;
+
+    private volatile boolean ready;
+
+    public NearDuplicateService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                StringRedisTemplate redis,
+                                ObjectMapper objectMapper,
+                                @Value("${question-dedup.fetch-size}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Построить индекс по всему банку (в фоне после старта приложения)
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        readOnlyTransaction.executeWithoutResult(status ->
+                cursorTemplate.query(LOAD_SQL, rs -> {
+                    index.put(rs.getObject("id", UUID.class),
+                            MinHasher.signature(rs.getString("content"), rs.getString("answer")));
+                }));
+        ready = true;
+        log.info("Near-duplicate index built: {} questions in {} ms",
+                index.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Похожие задачи (id по убыванию сходства)
+     *
+     * @param excludeId задача, которую не нужно считать дубликатом (сама задача или оригинал копии)
+     */
+    public List<UUID> findDuplicates(String content, String answer, UUID excludeId) {
+        if (!ready) {
+            return List.of();
+        }
+        int[] signature = MinHasher.signature(content, answer);
+        return new ArrayList<>(index.findSimilar(signature, threshold, excludeId).keySet());
+    }
+
+    /**
+     * Изменение задач закоммичено (или сделано вне транзакции):
+     * применяем к своему индексу и рассылаем сигнатуры остальным узлам
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuestionIndex(QuestionIndexEvent event) {
+        List<RelayEntry> entries = new ArrayList<>(event.entries().size());
+        for (QuestionIndexEvent.Entry entry : event.entries()) {
+            int[] signature = entry.content() != null
+                    ? MinHasher.signature(entry.content(), entry.answer())
+                    : null;
+            entries.add(new RelayEntry(entry.questionId(), signature));
+        }
+        apply(entries);
+        try {
+            redis.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Relay(nodeId, entries)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to relay {} near-duplicate index changes: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Изменение индекса с другого узла
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!nodeId.equals(relay.origin())) {
+                apply(relay.entries());
+            }
+        } catch (IOException e) {
+            log.warn("Malformed near-duplicate index relay: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<RelayEntry> entries) {
+        for (RelayEntry entry : entries) {
+            if (entry.signature() != null) {
+                index.put(entry.questionId(), entry.signature());
+            } else {
+                index.remove(entry.questionId());
+            }
+        }
+    }
+
+    /**
+     * Отчёт по всему банку: группы задач со сходством не ниже порога
+     */
+    public DuplicateReportDto buildReport(Double requestedThreshold, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("Индекс дубликатов ещё строится");
+        }
+        double effective = requestedThreshold != null ? requestedThreshold : threshold;
+        List<Set<UUID>> groups = index.findGroups(effective);
+
+        int duplicates = groups.stream().mapToInt(g -> g.size() - 1).sum();
+        List<DuplicateReportDto.DuplicateGroup> top = groups.stream()
+                .limit(limit)
+                .map(g -> new DuplicateReportDto.DuplicateGroup(new ArrayList<>(g)))
+                .toList();
+
+        return DuplicateReportDto.builder()
+                .threshold(effective)
+                .indexedQuestions(index.size())
+                .groupCount(groups.size())
+                .duplicateCount(duplicates)
+                .groups(top)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.stopro.service.dedup;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Задачи изменились; индекс дубликатов обновляется после коммита транзакции
+ * (на других узлах — через Redis pub/sub)
+ *
+ * @param entries задачи для индексации; запись с content = null удаляет задачу из индекса
+ */
+public record QuestionIndexEvent(List<Entry> entries) {
+
+    public record Entry(UUID questionId, String content, String answer) {
+    }
+
+    public static QuestionIndexEvent index(UUID questionId, String content, String answer) {
+        return new QuestionIndexEvent(List.of(new Entry(questionId, content, answer)));
+    }
+
+    public static QuestionIndexEvent remove(UUID questionId) {
+        return new QuestionIndexEvent(List.of(new Entry(questionId, null, null)));
+    }
+}
@@ -0,0 +1,206 @@
+package ru.stopro.service.export;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.domain.enums.QuestionType;
+import ru.stopro.domain.enums.TaskDifficulty;
+import ru.stopro.domain.enums.TaskSource;
+import ru.stopro.service.blob.BlobService;
+import ru.stopro.service.importer.QuestionImportRecord;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка задач в NDJSON.
+ *
+ * Строки читаются серверным курсором PostgreSQL (fetch size внутри read-only
+ * транзакции) и сразу пишутся в поток ответа, поэтому расход памяти
+ * не зависит от размера банка. Формат записи совпадает с форматом
+ * массового импорта, так что выгрузку можно загрузить в другое окружение:
+ * выгружаются все поля содержимого, а SVG-диаграмма — вместе с файлом
+ * из хранилища, а не только ссылкой на него.
+ */
+@Slf4j
+@Service
+public class QuestionExportService {
+
+    private static final String SELECT_SQL =
+            "SELECT q.topic_id, t.name AS topic_name, q.ege_number, q.difficulty, q.question_type, " +
+            "q.content, q.answer, q.alternative_answers, q.solution, q.step_by_step_solution, q.hint, " +
+            "q.common_mistakes, q.image_url, q.additional_images, q.diagram_svg, q.diagram_blob_hash, " +
+            "q.geogebra_id, q.tags, q.keywords, q.prerequisites, q.points, q.estimated_time_minutes, " +
+            "q.source, q.source_year, q.source_variant, q.source_url, q.is_verified " +
+            "FROM questions q JOIN topics t ON t.id = q.topic_id ";
+
+    private static final String BANK_SQL = SELECT_SQL +
+            "WHERE q.is_active = true AND q.is_deleted = false ORDER BY q.created_at, q.id";
+
+    private static final String AUTHOR_SQL = SELECT_SQL +
+            "WHERE q.author_id = ? AND q.is_deleted = false ORDER BY q.created_at, q.id";
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper exportMapper;
+    private final BlobService blobService;
+
+    public QuestionExportService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 BlobService blobService,
+                                 @Value("${question-export.fetch-size}") int fetchSize) {
+        // Драйвер PostgreSQL использует курсор только при fetchSize > 0 и выключенном autocommit
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        // Поток ответа закрывает контейнер; сброс буфера — раз в конце, а не после каждой записи
+        this.exportMapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.blobService = blobService;
+    }
+
+    /**
+     * Выгрузить публичный банк задач
+     */
+    public long exportBank(OutputStream out, boolean gzip) throws IOException {
+        return export(out, gzip, BANK_SQL);
+    }
+
+    /**
+     * Выгрузить задачи учителя
+     */
+    public long exportByAuthor(UUID authorId, OutputStream out, boolean gzip) throws IOException {
+        return export(out, gzip, AUTHOR_SQL, authorId);
+    }
+
+    private long export(OutputStream out, boolean gzip, String sql, Object... args) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        AtomicLong count = new AtomicLong();
+
+        try (JsonGenerator generator = exportMapper.getFactory().createGenerator(target)) {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    cursorTemplate.query(sql, rs -> {
+                        try {
+                            exportMapper.writeValue(generator, toRecord(rs));
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count.incrementAndGet();
+                    }, args));
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            // Клиент оборвал соединение — курсор уже закрыт вместе с транзакцией
+            throw e.getCause();
+        }
+
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        log.info("Exported {} questions (gzip={})", count.get(), gzip);
+        return count.get();
+    }
+
+    private QuestionImportRecord toRecord(ResultSet rs) throws SQLException {
+        String diagramHash = rs.getString("diagram_blob_hash");
+        return QuestionImportRecord.builder()
+                .topicId(rs.getObject("topic_id", UUID.class))
+                .topicName(rs.getString("topic_name"))
+                .egeNumber(rs.getInt("ege_number"))
+                .difficulty(TaskDifficulty.valueOf(rs.getString("difficulty")))
+                .type(QuestionType.valueOf(rs.getString("question_type")))
+                .content(rs.getString("content"))
+                .answer(rs.getString("answer"))
+                // Списки хранятся склеенными через запятую; в выгрузке — настоящие JSON-массивы,
+                // импорт склеит их обратно
+                .alternativeAnswers(asList(rs.getString("alternative_answers")))
+                .solution(rs.getString("solution"))
+                .stepByStepSolution(rs.getString("step_by_step_solution"))
+                .hint(rs.getString("hint"))
+                .commonMistakes(rs.getString("common_mistakes"))
+                .imageUrl(rs.getString("image_url"))
+                .additionalImages(asList(rs.getString("additional_images")))
+                .diagramSvg(diagramOf(rs.getString("diagram_svg"), diagramHash))
+                .diagramBlobHash(diagramHash)
+                .geogebraId(rs.getString("geogebra_id"))
+                .tags(asList(rs.getString("tags")))
+                .keywords(rs.getString("keywords"))
+                .prerequisites(rs.getString("prerequisites"))
+                .points(rs.getInt("points"))
+                .estimatedTimeMinutes(rs.getObject("estimated_time_minutes", Integer.class))
+                .source(asSource(rs.getString("source")))
+                .sourceYear(rs.getObject("source_year", Integer.class))
+                .sourceVariant(rs.getObject("source_variant", Integer.class))
+                .sourceUrl(rs.getString("source_url"))
+                .verified(rs.getBoolean("is_verified"))
+                .build();
+    }
+
+    /**
+     * SVG диаграммы: из строки (ещё не перенесённые в хранилище) или из файла по хешу
+     */
+    private String diagramOf(String inlineSvg, String hash) {
+        if (inlineSvg != null || hash == null) {
+            return inlineSvg;
+        }
+        try {
+            return Files.readString(blobService.pathOf(hash), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Без файла выгружаем только ссылку: импорт примет её, если файл есть в целевом окружении
+            log.warn("Diagram blob {} is not readable, exporting the reference only: {}", hash, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Список из склеенной через запятую строки (старые записи — JSON-массив строк)
+     */
+    static List<String> asList(String joined) {
+        if (joined == null || joined.isBlank()) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String value : joined.replace("[", "").replace("]", "").replace("\"", "").split(",")) {
+            if (!value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+        return values.isEmpty() ? null : values;
+    }
+
+    private static TaskSource asSource(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return TaskSource.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            // Устаревшие значения нормализует миграция (V21); молча подменять источник нельзя
+            throw new IllegalStateException("Неизвестный источник задачи: " + value, e);
+        }
+    }
+}
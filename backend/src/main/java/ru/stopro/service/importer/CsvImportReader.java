@@ -0,0 +1,153 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение CSV (RFC 4180): первая строка — имена полей QuestionImportRecord.
+ *
+ * Поддерживаются значения в кавычках, экранирование "" и переводы строк
+ * внутри кавычек (LaTeX-условия часто многострочные). Разделитель — запятая
+ * или точка с запятой (определяется по заголовку, как в выгрузках из Excel).
+ * Пустые ячейки считаются отсутствующими значениями.
+ */
+class CsvImportReader implements QuestionImportReader {
+
+    private static final int EOF = -1;
+
+    private final BufferedReader reader;
+    private final ObjectMapper mapper;
+    private final List<String> header;
+    private char delimiter = ',';
+    private long position;
+    private boolean endOfInput;
+
+    CsvImportReader(InputStream in, ObjectMapper mapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.mapper = mapper;
+
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+
+        reader.mark(64 * 1024);
+        String firstLine = reader.readLine();
+        if (firstLine == null) {
+            throw new IOException("Пустой CSV-файл");
+        }
+        if (firstLine.indexOf(';') >= 0 && firstLine.indexOf(',') < 0) {
+            delimiter = ';';
+        }
+        reader.reset();
+
+        this.header = readRow();
+        if (header == null || header.isEmpty()) {
+            throw new IOException("В CSV отсутствует строка заголовков");
+        }
+    }
+
+    @Override
+    public QuestionImportRecord next() throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isEmpty());
+        position++;
+
+        if (row.size() > header.size()) {
+            throw new InvalidImportRecordException(position,
+                    "Колонок больше, чем в заголовке: " + row.size() + " > " + header.size());
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < row.size(); i++) {
+            String value = row.get(i);
+            if (!value.isEmpty()) {
+                values.put(header.get(i), value);
+            }
+        }
+
+        try {
+            return mapper.convertValue(values, QuestionImportRecord.class);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportRecordException(position, e.getMessage());
+        }
+    }
+
+    /**
+     * Прочитать одну логическую строку CSV (может занимать несколько физических)
+     */
+    private List<String> readRow() throws IOException {
+        if (endOfInput) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        while (true) {
+            int ch = reader.read();
+            if (ch == EOF) {
+                endOfInput = true;
+                if (quoted) {
+                    throw new IOException("Незакрытая кавычка в конце CSV");
+                }
+                if (!any) {
+                    return null;
+                }
+                fields.add(field.toString().trim());
+                return fields;
+            }
+            any = true;
+
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString().trim());
+                return fields;
+            } else if (ch != '\r') {
+                field.append((char) ch);
+            }
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,31 @@
+package ru.stopro.service.importer;
+
+import java.util.Locale;
+
+/**
+ * Формат пакета задач для импорта
+ */
+public enum ImportFormat {
+    JSON,       // JSON-массив объектов
+    NDJSON,     // Один JSON-объект на строку
+    CSV;        // Первая строка — заголовки полей
+
+    /**
+     * Определить формат по имени файла и Content-Type
+     */
+    public static ImportFormat detect(String filename, String contentType) {
+        String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || type.contains("ndjson")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv") || type.contains("csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".json") || type.contains("json")) {
+            return JSON;
+        }
+        throw new IllegalArgumentException("Не удалось определить формат файла: " + filename);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.stopro.service.importer;
+
+import lombok.Getter;
+import ru.stopro.dto.question.QuestionImportJobDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Состояние одной задачи импорта.
+ * Обновляется потоком-исполнителем; снимки для запросов прогресса
+ * сохраняет {@link ImportJobStore}.
+ */
+@Getter
+public class ImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID teacherId;
+    private final ImportFormat format;
+    private final boolean isPublic;
+    private final int maxErrors;
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<QuestionImportJobDto.RecordError> errors = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String failureMessage;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public ImportJob(UUID teacherId, ImportFormat format, boolean isPublic, int maxErrors) {
+        this.teacherId = teacherId;
+        this.format = format;
+        this.isPublic = isPublic;
+        this.maxErrors = maxErrors;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void recordRead() {
+        read.incrementAndGet();
+    }
+
+    void recordImported(int count) {
+        imported.addAndGet(count);
+    }
+
+    /**
+     * Отклонить запись; в отчёт попадают только первые maxErrors ошибок
+     */
+    void reject(long position, String message) {
+        reject(1, position, message);
+    }
+
+    void reject(int count, long position, String message) {
+        rejected.addAndGet(count);
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new QuestionImportJobDto.RecordError(position, message));
+            }
+        }
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public QuestionImportJobDto toDto() {
+        List<QuestionImportJobDto.RecordError> errorsCopy;
+        synchronized (errors) {
+            errorsCopy = List.copyOf(errors);
+        }
+        return QuestionImportJobDto.builder()
+                .jobId(id)
+                .format(format.name())
+                .status(status.name())
+                .read(read.get())
+                .imported(imported.get())
+                .rejected(rejected.get())
+                .errors(errorsCopy)
+                .failureMessage(failureMessage)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
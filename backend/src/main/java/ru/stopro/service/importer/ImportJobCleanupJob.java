@@ -0,0 +1,69 @@
+package ru.stopro.service.importer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Обслуживание таблицы задач импорта.
+ *
+ * Задача, которую исполнитель не обновлял дольше stale-minutes, прервана
+ * вместе с узлом (временный файл пакета остался на нём) — она помечается
+ * FAILED, чтобы учитель не ждал её вечно. Завершённые задачи старше
+ * job-retention-minutes удаляются.
+ */
+@Component
+public class ImportJobCleanupJob implements ClusterJob {
+
+    private static final String ABANDON_SQL =
+            "UPDATE question_import_jobs SET status = 'FAILED', finished_at = now(), updated_at = now(), " +
+            "failure_message = 'Импорт прерван: узел, выполнявший его, остановлен' " +
+            "WHERE id IN (SELECT id FROM question_import_jobs " +
+            "             WHERE status IN ('QUEUED', 'RUNNING') AND updated_at < ? " +
+            "             LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private static final String CLEANUP_SQL =
+            "DELETE FROM question_import_jobs WHERE id IN (" +
+            "  SELECT id FROM question_import_jobs WHERE status IN ('COMPLETED', 'FAILED') AND finished_at < ? " +
+            "  LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${question-import.stale-minutes}")
+    private long staleMinutes;
+
+    @Value("${question-import.job-retention-minutes}")
+    private long retentionMinutes;
+
+    @Value("${question-import.cleanup-interval-ms}")
+    private long intervalMs;
+
+    public ImportJobCleanupJob(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "question-import-cleanup";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = jdbcTemplate.update(ABANDON_SQL,
+                Timestamp.valueOf(now.minusMinutes(staleMinutes)), limit);
+        int deleted = jdbcTemplate.update(CLEANUP_SQL,
+                Timestamp.valueOf(now.minusMinutes(retentionMinutes)), limit - abandoned);
+        return abandoned + deleted;
+    }
+}
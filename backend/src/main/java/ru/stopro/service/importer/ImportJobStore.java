@@ -0,0 +1,125 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.dto.question.QuestionImportJobDto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Состояние задач импорта в Postgres.
+ *
+ * Импорт идёт на одном узле, а прогресс запрашивают через балансировщик —
+ * поэтому исполнитель сохраняет снимок {@link ImportJob} после каждой пачки,
+ * а читается он из таблицы на любом узле и переживает перезапуск.
+ */
+@Slf4j
+@Component
+public class ImportJobStore {
+
+    private static final String SAVE_SQL =
+            "INSERT INTO question_import_jobs (id, teacher_id, format, status, read_count, imported_count, " +
+            "rejected_count, errors, failure_message, started_at, finished_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (id) DO UPDATE SET status = EXCLUDED.status, read_count = EXCLUDED.read_count, " +
+            "imported_count = EXCLUDED.imported_count, rejected_count = EXCLUDED.rejected_count, " +
+            "errors = EXCLUDED.errors, failure_message = EXCLUDED.failure_message, " +
+            "started_at = EXCLUDED.started_at, finished_at = EXCLUDED.finished_at, updated_at = now()";
+
+    private static final String FIND_SQL =
+            "SELECT id, format, status, read_count, imported_count, rejected_count, errors, failure_message, " +
+            "started_at, finished_at FROM question_import_jobs WHERE id = ? AND teacher_id = ?";
+
+    private static final TypeReference<List<QuestionImportJobDto.RecordError>> ERRORS_TYPE =
+            new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ImportJobStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Создать задачу (ошибка базы прерывает постановку в очередь)
+     */
+    public void create(ImportJob job) {
+        write(job.toDto(), job.getTeacherId());
+    }
+
+    /**
+     * Сохранить прогресс; ошибка базы не прерывает сам импорт
+     */
+    public void save(ImportJob job) {
+        try {
+            write(job.toDto(), job.getTeacherId());
+        } catch (DataAccessException e) {
+            log.warn("Failed to save progress of import job {}", job.getId(), e);
+        }
+    }
+
+    /**
+     * Состояние задачи, если она есть и принадлежит учителю
+     */
+    public Optional<QuestionImportJobDto> find(UUID jobId, UUID teacherId) {
+        return jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> toDto(rs), jobId, teacherId).stream().findFirst();
+    }
+
+    private void write(QuestionImportJobDto dto, UUID teacherId) {
+        String errors;
+        try {
+            errors = objectMapper.writeValueAsString(dto.getErrors());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Ошибки импорта не сериализуются в JSON", e);
+        }
+        jdbcTemplate.update(SAVE_SQL, dto.getJobId(), teacherId, dto.getFormat(), dto.getStatus(),
+                dto.getRead(), dto.getImported(), dto.getRejected(), errors, dto.getFailureMessage(),
+                timestamp(dto.getStartedAt()), timestamp(dto.getFinishedAt()));
+    }
+
+    private QuestionImportJobDto toDto(ResultSet rs) throws SQLException {
+        return QuestionImportJobDto.builder()
+                .jobId(rs.getObject("id", UUID.class))
+                .format(rs.getString("format"))
+                .status(rs.getString("status"))
+                .read(rs.getLong("read_count"))
+                .imported(rs.getLong("imported_count"))
+                .rejected(rs.getLong("rejected_count"))
+                .errors(readErrors(rs.getString("errors")))
+                .failureMessage(rs.getString("failure_message"))
+                .startedAt(localDateTime(rs.getTimestamp("started_at")))
+                .finishedAt(localDateTime(rs.getTimestamp("finished_at")))
+                .build();
+    }
+
+    private List<QuestionImportJobDto.RecordError> readErrors(String json) {
+        if (json == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, ERRORS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждён список ошибок импорта", e);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime localDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
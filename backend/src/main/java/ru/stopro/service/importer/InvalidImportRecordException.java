@@ -0,0 +1,20 @@
+package ru.stopro.service.importer;
+
+import lombok.Getter;
+
+/**
+ * Ошибка в отдельной записи пакета.
+ *
+ * Поток при этом остаётся на границе следующей записи,
+ * поэтому импорт продолжается, а запись попадает в отчёт.
+ */
+@Getter
+public class InvalidImportRecordException extends RuntimeException {
+
+    private final long position;
+
+    public InvalidImportRecordException(long position, String message) {
+        super(message);
+        this.position = position;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Чтение JSON-массива задач через потоковый JsonParser.
+ * Каждый элемент читается в дерево отдельно, так что ошибка маппинга
+ * одного объекта не мешает читать следующие.
+ */
+class JsonArrayImportReader implements QuestionImportReader {
+
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private long position;
+
+    JsonArrayImportReader(InputStream in, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Ожидается JSON-массив задач");
+        }
+    }
+
+    @Override
+    public QuestionImportRecord next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        position++;
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new InvalidImportRecordException(position, "Элемент массива не является объектом");
+        }
+
+        JsonNode node = parser.readValueAsTree();
+        try {
+            return mapper.treeToValue(node, QuestionImportRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportRecordException(position, e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
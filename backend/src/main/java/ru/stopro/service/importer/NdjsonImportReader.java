@@ -0,0 +1,54 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Чтение NDJSON: одна задача на строку, пустые строки пропускаются.
+ * Позиция записи совпадает с номером строки файла.
+ */
+class NdjsonImportReader implements QuestionImportReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper mapper;
+    private long position;
+
+    NdjsonImportReader(InputStream in, ObjectMapper mapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.mapper = mapper;
+    }
+
+    @Override
+    public QuestionImportRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            position++;
+        } while (line.isBlank());
+
+        try {
+            return mapper.readValue(line, QuestionImportRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportRecordException(position, e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
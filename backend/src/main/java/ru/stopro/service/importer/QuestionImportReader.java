@@ -0,0 +1,37 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Потоковое чтение пакета задач: в памяти находится только текущая запись.
+ */
+public interface QuestionImportReader extends Closeable {
+
+    /**
+     * Следующая запись или null, если пакет закончился.
+     *
+     * @throws InvalidImportRecordException запись повреждена, но чтение можно продолжать
+     * @throws IOException поток прочитать дальше невозможно
+     */
+    QuestionImportRecord next() throws IOException;
+
+    /**
+     * Порядковый номер последней прочитанной записи (с 1) — для отчёта об ошибках
+     */
+    long position();
+
+    /**
+     * Открыть читатель для указанного формата
+     */
+    static QuestionImportReader open(ImportFormat format, InputStream in, ObjectMapper mapper) throws IOException {
+        return switch (format) {
+            case JSON -> new JsonArrayImportReader(in, mapper);
+            case NDJSON -> new NdjsonImportReader(in, mapper);
+            case CSV -> new CsvImportReader(in, mapper);
+        };
+    }
+}
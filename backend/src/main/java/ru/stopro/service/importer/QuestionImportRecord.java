@@ -0,0 +1,64 @@
+package ru.stopro.service.importer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stopro.domain.enums.QuestionType;
+import ru.stopro.domain.enums.TaskDifficulty;
+import ru.stopro.domain.enums.TaskSource;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Одна задача из пакета импорта (JSON / NDJSON / CSV).
+ *
+ * Тема задаётся либо topicId, либо topicName; если не указано ни то, ни другое,
+ * тема подбирается по номеру задания ЕГЭ.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImportRecord {
+
+    // Классификация
+    private UUID topicId;
+    private String topicName;
+    private Integer egeNumber;
+    private TaskDifficulty difficulty;
+    private QuestionType type;
+
+    // Содержимое
+    private String content;
+    private String answer;
+    private List<String> alternativeAnswers;
+    private String solution;
+    private String stepByStepSolution;
+    private String hint;
+    private String commonMistakes;
+    private String imageUrl;
+    private List<String> additionalImages;
+    private String geogebraId;
+    private List<String> tags;
+    private String keywords;
+    private String prerequisites;
+
+    // Диаграмма: SVG сохраняется в хранилище файлов; хеш принимается, только если файл уже есть
+    private String diagramSvg;
+    private String diagramBlobHash;
+
+    // Метаданные
+    private Integer points;
+    private Integer estimatedTimeMinutes;
+
+    // Происхождение (например, вариант ЕГЭ прошлых лет)
+    private TaskSource source;
+    private Integer sourceYear;
+    private Integer sourceVariant;
+    private String sourceUrl;
+
+    // Проверена методистом в исходном окружении (при импорте проверка сбрасывается)
+    private Boolean verified;
+}
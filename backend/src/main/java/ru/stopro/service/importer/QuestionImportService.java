@@ -0,0 +1,70 @@
+package ru.stopro.service.importer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import ru.stopro.dto.question.QuestionImportJobDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Массовый импорт задач из файлов-пакетов.
+ *
+ * Загруженный файл сохраняется во временный файл, после чего импорт
+ * выполняется асинхронно; прогресс доступен по id задачи с любого узла
+ * (хранится в {@link ImportJobStore}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuestionImportService {
+
+    private final QuestionImportWorker worker;
+    private final ImportJobStore jobStore;
+
+    @Value("${question-import.max-errors}")
+    private int maxErrors;
+
+    /**
+     * Запустить импорт пакета
+     *
+     * @param format формат файла; если null — определяется по имени и Content-Type
+     */
+    public QuestionImportJobDto startImport(UUID teacherId, MultipartFile file, ImportFormat format, boolean isPublic) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Файл пакета пуст");
+        }
+        ImportFormat resolved = format != null
+                ? format
+                : ImportFormat.detect(file.getOriginalFilename(), file.getContentType());
+
+        Path spool;
+        try {
+            spool = Files.createTempFile("question-import-", "." + resolved.name().toLowerCase());
+            file.transferTo(spool);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось сохранить файл импорта", e);
+        }
+
+        ImportJob job = new ImportJob(teacherId, resolved, isPublic, maxErrors);
+        jobStore.create(job);
+        log.info("Queued import job {} ({} bytes, {}) for teacher {}",
+                job.getId(), file.getSize(), resolved, teacherId);
+
+        worker.run(job, spool);
+        return job.toDto();
+    }
+
+    /**
+     * Прогресс импорта (доступен только автору задачи импорта)
+     */
+    public QuestionImportJobDto getJob(UUID jobId, UUID teacherId) {
+        return jobStore.find(jobId, teacherId)
+                .orElseThrow(() -> new RuntimeException("Import job not found"));
+    }
+}
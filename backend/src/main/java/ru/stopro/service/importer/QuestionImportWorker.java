@@ -0,0 +1,353 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.domain.entity.Topic;
+import ru.stopro.domain.enums.QuestionType;
+import ru.stopro.domain.enums.TaskDifficulty;
+import ru.stopro.domain.enums.TaskSource;
+import ru.stopro.repository.TopicRepository;
+import ru.stopro.service.QuestionService;
+import ru.stopro.service.blob.BlobService;
+import ru.stopro.service.dedup.QuestionIndexEvent;
+import ru.stopro.service.latex.LatexRenderService;
+import ru.stopro.service.latex.LatexValidationResult;
+import ru.stopro.service.latex.MathMlRenderer;
+import ru.stopro.service.search.QuestionTextExtractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Исполнитель массового импорта задач.
+ *
+ * Файл читается потоково, записи валидируются и накапливаются в пачки,
+ * каждая пачка вставляется одним JDBC batch в собственной транзакции.
+ * Темы разрешаются по карте, загруженной один раз на задачу,
+ * а id генерируются на стороне приложения — без обращений к базе на каждую запись.
+ */
+@Slf4j
+@Component
+public class QuestionImportWorker {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO questions (id, topic_id, ege_number, difficulty, question_type, " +
+            "content, answer, alternative_answers, solution, hint, image_url, tags, " +
+            "points, estimated_time_minutes, source, source_year, source_variant, source_url, " +
+            "author_id, is_active, content_plain, keywords, is_verified, created_at, " +
+            "content_rendered, solution_rendered, hint_rendered, render_version, " +
+            "step_by_step_solution, common_mistakes, additional_images, diagram_blob_hash, " +
+            "geogebra_id, prerequisites) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?, ?, " +
+            "?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TopicRepository topicRepository;
+    private final QuestionService questionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LatexRenderService latexRenderService;
+    private final BlobService blobService;
+    private final ImportJobStore jobStore;
+    private final ObjectMapper importMapper;
+
+    @Value("${question-import.chunk-size}")
+    private int chunkSize;
+
+    public QuestionImportWorker(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                TopicRepository topicRepository,
+                                QuestionService questionService,
+                                ApplicationEventPublisher eventPublisher,
+                                LatexRenderService latexRenderService,
+                                BlobService blobService,
+                                ImportJobStore jobStore,
+                                ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.topicRepository = topicRepository;
+        this.questionService = questionService;
+        this.eventPublisher = eventPublisher;
+        this.latexRenderService = latexRenderService;
+        this.blobService = blobService;
+        this.jobStore = jobStore;
+        // Пакеты готовят вручную: допускаем лишние поля, одиночные значения вместо
+        // списков и перечисления в любом регистре
+        this.importMapper = objectMapper.copy()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true)
+                .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS, true);
+    }
+
+    /**
+     * Выполнить импорт из временного файла (файл удаляется по завершении)
+     */
+    @Async
+    public void run(ImportJob job, Path file) {
+        job.start();
+        jobStore.save(job);
+        log.info("Import job {} started: format={}, teacher={}", job.getId(), job.getFormat(), job.getTeacherId());
+
+        try (InputStream in = Files.newInputStream(file);
+             QuestionImportReader reader = QuestionImportReader.open(job.getFormat(), in, importMapper)) {
+
+            TopicIndex topics = new TopicIndex(topicRepository.findAll());
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            long chunkStart = 1;
+            LocalDateTime now = LocalDateTime.now();
+
+            while (true) {
+                QuestionImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (InvalidImportRecordException e) {
+                    recordRead(job);
+                    job.reject(e.getPosition(), e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                recordRead(job);
+
+                Topic topic = topics.resolve(record);
+                String error = validate(record, topic);
+                LatexValidationResult latex = null;
+                if (error == null) {
+                    latex = questionService.validateLatex(record.getContent());
+                    if (!latex.valid()) {
+                        error = "Некорректный LaTeX синтаксис: " + latex.firstError();
+                    }
+                }
+                String diagramHash = null;
+                if (error == null) {
+                    try {
+                        diagramHash = resolveDiagram(record, job.getTeacherId());
+                    } catch (RuntimeException e) {
+                        error = "Некорректная диаграмма: " + e.getMessage();
+                    }
+                }
+                if (error != null) {
+                    job.reject(reader.position(), error);
+                    continue;
+                }
+
+                if (chunk.isEmpty()) {
+                    chunkStart = reader.position();
+                }
+                chunk.add(toRow(record, topic, latex.plainText(), diagramHash, job, now));
+                if (chunk.size() >= chunkSize) {
+                    flush(job, chunk, chunkStart);
+                }
+            }
+            flush(job, chunk, chunkStart);
+
+            job.complete();
+            log.info("Import job {} completed: read={}, imported={}, rejected={}",
+                    job.getId(), job.getRead().get(), job.getImported().get(), job.getRejected().get());
+        } catch (IOException | RuntimeException e) {
+            log.error("Import job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            jobStore.save(job);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete import spool file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Учесть прочитанную запись; прогресс сохраняется раз в chunk-size записей,
+     * даже если они все отклонены и пачки не вставляются
+     */
+    private void recordRead(ImportJob job) {
+        job.recordRead();
+        if (job.getRead().get() % chunkSize == 0) {
+            jobStore.save(job);
+        }
+    }
+
+    /**
+     * Вставить накопленную пачку одним batch-запросом.
+     * Ошибка базы отклоняет только эту пачку, импорт продолжается.
+     */
+    private void flush(ImportJob job, List<Object[]> chunk, long chunkStart) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, chunk);
+                // Индекс дубликатов обновится после коммита пачки, одним сообщением на все узлы
+                List<QuestionIndexEvent.Entry> entries = new ArrayList<>(chunk.size());
+                for (Object[] row : chunk) {
+                    entries.add(new QuestionIndexEvent.Entry((UUID) row[0], (String) row[5], (String) row[6]));
+                }
+                eventPublisher.publishEvent(new QuestionIndexEvent(entries));
+            });
+            job.recordImported(chunk.size());
+        } catch (RuntimeException e) {
+            log.warn("Import job {}: batch starting at record {} rejected", job.getId(), chunkStart, e);
+            job.reject(chunk.size(), chunkStart, "Пачка отклонена базой данных: " + e.getMessage());
+        }
+        chunk.clear();
+        jobStore.save(job);
+    }
+
+    private String validate(QuestionImportRecord record, Topic topic) {
+        String content = record.getContent();
+        if (content == null || content.isBlank()) {
+            return "Условие задачи обязательно";
+        }
+        if (content.length() < 10 || content.length() > 10000) {
+            return "Условие от 10 до 10000 символов";
+        }
+        if (record.getAnswer() == null || record.getAnswer().isBlank()) {
+            return "Ответ обязателен";
+        }
+        if (record.getAnswer().length() > 1000) {
+            return "Ответ не более 1000 символов";
+        }
+        if (topic == null) {
+            return "Тема не найдена";
+        }
+        Integer egeNumber = egeNumberOf(record, topic);
+        if (egeNumber == null || egeNumber < 1 || egeNumber > 19) {
+            return "Номер задания от 1 до 19";
+        }
+        return null;
+    }
+
+    /**
+     * Диаграмма записи: SVG сохраняется в хранилище файлов (одинаковые файлы
+     * дают один хеш), ссылка без SVG принимается, только если файл уже есть здесь
+     */
+    private String resolveDiagram(QuestionImportRecord record, UUID ownerId) {
+        if (record.getDiagramSvg() != null && !record.getDiagramSvg().isBlank()) {
+            return blobService.storeSvg(record.getDiagramSvg(), ownerId);
+        }
+        String hash = record.getDiagramBlobHash();
+        if (hash == null || hash.isBlank()) {
+            return null;
+        }
+        if (blobService.find(hash).isEmpty()) {
+            throw new IllegalArgumentException("файл " + hash + " не найден");
+        }
+        return hash;
+    }
+
+    private Object[] toRow(QuestionImportRecord record, Topic topic, String plainText,
+                           String diagramHash, ImportJob job, LocalDateTime now) {
+        TaskDifficulty difficulty = record.getDifficulty() != null ? record.getDifficulty() : TaskDifficulty.MEDIUM;
+        QuestionType type = record.getType() != null ? record.getType() : QuestionType.SHORT_ANSWER;
+        TaskSource source = record.getSource() != null ? record.getSource() : TaskSource.BANK;
+        QuestionTextExtractor.SearchText searchText = QuestionTextExtractor.extract(record.getContent(), plainText);
+
+        return new Object[] {
+                UUID.randomUUID(),
+                topic.getId(),
+                egeNumberOf(record, topic),
+                difficulty.name(),
+                type.name(),
+                record.getContent(),
+                record.getAnswer().trim(),
+                joinList(record.getAlternativeAnswers()),
+                record.getSolution(),
+                record.getHint(),
+                record.getImageUrl(),
+                joinList(record.getTags()),
+                record.getPoints() != null ? record.getPoints() : 1,
+                record.getEstimatedTimeMinutes() != null ? record.getEstimatedTimeMinutes() : 5,
+                source.name(),
+                record.getSourceYear(),
+                record.getSourceVariant(),
+                record.getSourceUrl(),
+                job.getTeacherId(),
+                job.isPublic(),
+                searchText.contentPlain(),
+                record.getKeywords() != null ? record.getKeywords() : searchText.keywords(),
+                // is_verified = false: проверку методиста в новом окружении проходят заново
+                Timestamp.valueOf(now),
+                latexRenderService.render(record.getContent()),
+                latexRenderService.render(record.getSolution()),
+                latexRenderService.render(record.getHint()),
+                MathMlRenderer.VERSION,
+                record.getStepByStepSolution(),
+                record.getCommonMistakes(),
+                joinList(record.getAdditionalImages()),
+                diagramHash,
+                record.getGeogebraId(),
+                record.getPrerequisites()
+        };
+    }
+
+    private static Integer egeNumberOf(QuestionImportRecord record, Topic topic) {
+        return record.getEgeNumber() != null ? record.getEgeNumber() : topic.getEgeNumber();
+    }
+
+    private static String joinList(List<String> values) {
+        return values != null && !values.isEmpty() ? String.join(",", values) : null;
+    }
+
+    /**
+     * Карта тем для разрешения без запросов к базе: по id, по имени
+     * (без учёта регистра) и по номеру задания ЕГЭ
+     */
+    private static class TopicIndex {
+
+        private final Map<UUID, Topic> byId = new HashMap<>();
+        private final Map<String, Topic> byName = new HashMap<>();
+        private final Map<Integer, Topic> byEgeNumber = new HashMap<>();
+
+        TopicIndex(List<Topic> topics) {
+            for (Topic topic : topics) {
+                if (Boolean.TRUE.equals(topic.getIsDeleted())) {
+                    continue;
+                }
+                byId.put(topic.getId(), topic);
+                byName.putIfAbsent(normalize(topic.getName()), topic);
+                if (topic.getEgeNumber() != null) {
+                    byEgeNumber.putIfAbsent(topic.getEgeNumber(), topic);
+                }
+            }
+        }
+
+        Topic resolve(QuestionImportRecord record) {
+            // id темы из другого окружения может не совпасть — тогда пробуем имя
+            if (record.getTopicId() != null && byId.containsKey(record.getTopicId())) {
+                return byId.get(record.getTopicId());
+            }
+            if (record.getTopicName() != null && !record.getTopicName().isBlank()) {
+                return byName.get(normalize(record.getTopicName()));
+            }
+            if (record.getEgeNumber() != null) {
+                return byEgeNumber.get(record.getEgeNumber());
+            }
+            return null;
+        }
+
+        private static String normalize(String name) {
+            return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.stopro.service.latex;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Map.entry;
+
+/**
+ * Словарь поддерживаемых LaTeX-команд.
+ *
+ * Общий для рендерера и валидатора: команда, которую валидатор пропускает,
+ * гарантированно имеет отображение в MathML.
+ */
+final class LatexCommands {
+
+    static final Map<String, String> GREEK = Map.ofEntries(
+            entry("alpha", "α"), entry("beta", "β"), entry("gamma", "γ"), entry("delta", "δ"),
+            entry("epsilon", "ϵ"), entry("varepsilon", "ε"), entry("zeta", "ζ"), entry("eta", "η"),
+            entry("theta", "θ"), entry("vartheta", "ϑ"), entry("iota", "ι"), entry("kappa", "κ"),
+            entry("lambda", "λ"), entry("mu", "μ"), entry("nu", "ν"), entry("xi", "ξ"),
+            entry("pi", "π"), entry("rho", "ρ"), entry("sigma", "σ"), entry("tau", "τ"),
+            entry("upsilon", "υ"), entry("phi", "ϕ"), entry("varphi", "φ"), entry("chi", "χ"),
+            entry("psi", "ψ"), entry("omega", "ω"),
+            entry("Gamma", "Γ"), entry("Delta", "Δ"), entry("Theta", "Θ"), entry("Lambda", "Λ"),
+            entry("Xi", "Ξ"), entry("Pi", "Π"), entry("Sigma", "Σ"), entry("Phi", "Φ"),
+            entry("Psi", "Ψ"), entry("Omega", "Ω"));
+
+    static final Map<String, String> OPERATORS = Map.ofEntries(
+            entry("cdot", "·"), entry("times", "×"), entry("div", "÷"), entry("pm", "±"), entry("mp", "∓"),
+            entry("leq", "≤"), entry("le", "≤"), entry("geq", "≥"), entry("ge", "≥"),
+            entry("leqslant", "⩽"), entry("geqslant", "⩾"), entry("neq", "≠"), entry("ne", "≠"),
+            entry("approx", "≈"), entry("equiv", "≡"), entry("sim", "∼"),
+            entry("in", "∈"), entry("notin", "∉"), entry("subset", "⊂"), entry("subseteq", "⊆"),
+            entry("cup", "∪"), entry("cap", "∩"), entry("emptyset", "∅"), entry("varnothing", "∅"),
+            entry("to", "→"), entry("rightarrow", "→"), entry("Rightarrow", "⇒"),
+            entry("leftrightarrow", "↔"), entry("Leftrightarrow", "⇔"), entry("iff", "⇔"),
+            entry("infty", "∞"), entry("angle", "∠"), entry("perp", "⊥"), entry("parallel", "∥"),
+            entry("triangle", "△"), entry("circ", "∘"), entry("degree", "°"),
+            entry("ldots", "…"), entry("dots", "…"), entry("cdots", "⋯"),
+            entry("forall", "∀"), entry("exists", "∃"), entry("neg", "¬"),
+            entry("land", "∧"), entry("lor", "∨"), entry("wedge", "∧"), entry("vee", "∨"),
+            entry("partial", "∂"), entry("nabla", "∇"), entry("mid", "∣"),
+            entry("langle", "⟨"), entry("rangle", "⟩"), entry("lfloor", "⌊"), entry("rfloor", "⌋"),
+            entry("lceil", "⌈"), entry("rceil", "⌉"), entry("%", "%"), entry("$", "$"),
+            entry("{", "{"), entry("}", "}"), entry("|", "‖"), entry("#", "#"), entry("&", "&amp;"));
+
+    static final Set<String> FUNCTIONS = Set.of(
+            "sin", "cos", "tan", "cot", "tg", "ctg", "sec", "csc",
+            "arcsin", "arccos", "arctan", "arctg", "arcctg", "sinh", "cosh", "tanh",
+            "log", "ln", "lg", "exp", "deg", "det", "gcd", "sgn", "mod", "arg");
+
+    static final Set<String> LIMIT_OPERATORS = Set.of("lim", "max", "min", "sup", "inf");
+
+    static final Map<String, String> LARGE_OPERATORS = Map.of(
+            "sum", "∑", "prod", "∏", "int", "∫", "iint", "∬", "oint", "∮");
+
+    static final Map<String, String> ACCENTS = Map.of(
+            "overline", "‾", "bar", "‾", "vec", "→", "overrightarrow", "→", "hat", "^",
+            "widehat", "^", "tilde", "~", "widetilde", "~", "dot", "˙", "smile", "⌣");
+
+    static final Map<String, String> SPACES = Map.of(
+            ",", "0.167em", ":", "0.222em", ">", "0.222em", ";", "0.278em",
+            " ", "0.333em", "quad", "1em", "qquad", "2em", "!", "-0.167em");
+
+    /**
+     * Команды, разбираемые рендерером структурно (аргументы, окружения, разделители)
+     */
+    static final Set<String> STRUCTURAL = Set.of(
+            "frac", "dfrac", "tfrac", "cfrac", "sqrt",
+            "left", "right", "bigl", "bigr", "Bigl", "Bigr", "big", "Big",
+            "text", "textrm", "mbox", "textit", "textbf",
+            "mathrm", "operatorname", "mathbf", "mathbb",
+            "displaystyle", "limits", "nolimits", "begin", "end", "\\");
+
+    /**
+     * Окружения, поддерживаемые внутри формул
+     */
+    static final Set<String> ENVIRONMENTS = Set.of(
+            "cases", "system", "array", "matrix", "pmatrix", "bmatrix", "vmatrix",
+            "aligned", "align", "gathered", "split");
+
+    /**
+     * Команды, допустимые в тексте вне формул
+     */
+    static final Set<String> TEXT_COMMANDS = Set.of(
+            "\\", "newline", "textbf", "textit", "emph", "underline", "quad", "qquad",
+            "%", "$", "&", "#", "{", "}", ",", " ", "ldots", "dots", "degree", "no");
+
+    /**
+     * Все команды, допустимые внутри формул
+     */
+    static final Set<String> MATH_COMMANDS;
+
+    static {
+        Set<String> all = new HashSet<>(STRUCTURAL);
+        all.addAll(GREEK.keySet());
+        all.addAll(OPERATORS.keySet());
+        all.addAll(FUNCTIONS);
+        all.addAll(LIMIT_OPERATORS);
+        all.addAll(LARGE_OPERATORS.keySet());
+        all.addAll(ACCENTS.keySet());
+        all.addAll(SPACES.keySet());
+        MATH_COMMANDS = Set.copyOf(all);
+    }
+
+    private LatexCommands() {
+    }
+}
@@ -0,0 +1,95 @@
+package ru.stopro.service.latex;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.stopro.domain.entity.Question;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Серверный рендер LaTeX задач в MathML с кэшем по хешу содержимого.
+ *
+ * Один и тот же текст рендерится не более одного раза: результат лежит
+ * в кэше под ключом SHA-256(версия рендерера + текст), а параллельные
+ * запросы одного ключа ждут единственный рендер.
+ */
+@Slf4j
+@Service
+public class LatexRenderService {
+
+    private final MathMlRenderer renderer = new MathMlRenderer();
+    private final RenderCache cache;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public LatexRenderService(@Value("${latex-render.memory-entries}") int memoryEntries,
+                              @Value("${latex-render.cache-dir}") String cacheDir) {
+        Path directory = cacheDir == null || cacheDir.isBlank() ? null : Path.of(cacheDir);
+        this.cache = new RenderCache(memoryEntries, directory);
+        log.info("LaTeX render cache: {} entries in memory, disk tier {}",
+                memoryEntries, directory != null ? directory : "disabled");
+    }
+
+    /**
+     * HTML-фрагмент с MathML для текста задачи (null для пустого текста)
+     */
+    public String render(String source) {
+        if (source == null || source.isBlank()) {
+            return null;
+        }
+        String key = cacheKey(source);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            String html = cache.get(key);
+            if (html == null) {
+                html = renderer.render(source);
+                cache.put(key, html);
+            }
+            mine.complete(html);
+            return html;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Отрендерить условие, решение и подсказку задачи в её поля (перед сохранением)
+     */
+    public void renderQuestion(Question question) {
+        question.setContentRendered(render(question.getContent()));
+        question.setSolutionRendered(render(question.getSolution()));
+        question.setHintRendered(render(question.getHint()));
+        question.setRenderVersion(MathMlRenderer.VERSION);
+    }
+
+    static String cacheKey(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(MathMlRenderer.VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
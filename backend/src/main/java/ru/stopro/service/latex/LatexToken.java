@@ -0,0 +1,37 @@
+package ru.stopro.service.latex;
+
+/**
+ * Лексема LaTeX-разметки задачи
+ *
+ * @param type     тип лексемы
+ * @param text     исходный текст лексемы (для команд — вместе с обратной косой чертой)
+ * @param position смещение начала лексемы в исходной строке
+ */
+public record LatexToken(Type type, String text, int position) {
+
+    public enum Type {
+        COMMAND,        // \frac, \sqrt, \{, \,, \(, \[, \\
+        MATH_SHIFT,     // $ или $$
+        BEGIN_GROUP,    // {
+        END_GROUP,      // }
+        SUPERSCRIPT,    // ^
+        SUBSCRIPT,      // _
+        WHITESPACE,     // последовательность пробельных символов
+        CHAR            // любой другой одиночный символ
+    }
+
+    public boolean is(Type expected, String expectedText) {
+        return type == expected && text.equals(expectedText);
+    }
+
+    public boolean isChar(char ch) {
+        return type == Type.CHAR && text.charAt(0) == ch;
+    }
+
+    /**
+     * Имя команды без обратной косой черты
+     */
+    public String commandName() {
+        return text.substring(1);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.stopro.service.latex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Однопроходный потоковый лексер LaTeX-разметки задач.
+ *
+ * Не создаёт объектов на лексему: {@link #next()} возвращает тип,
+ * а границы доступны через {@link #start()} / {@link #end()}. Так валидатор
+ * проходит длинные решения без аллокаций; рендереру, которому нужен
+ * произвольный доступ, {@link #tokenize(String)} отдаёт готовый список.
+ * Разметку не интерпретирует — только режет строку на лексемы.
+ */
+public final class LatexTokenizer {
+
+    private final String source;
+    private final int length;
+    private int start;
+    private int end;
+
+    public LatexTokenizer(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * Следующая лексема или null в конце строки
+     */
+    public LatexToken.Type next() {
+        start = end;
+        if (start >= length) {
+            return null;
+        }
+        char ch = source.charAt(start);
+        int i = start + 1;
+
+        LatexToken.Type type;
+        switch (ch) {
+            case '\\' -> {
+                if (i < length && Character.isLetter(source.charAt(i))) {
+                    while (i < length && Character.isLetter(source.charAt(i))) {
+                        i++;
+                    }
+                } else if (i < length) {
+                    i++;
+                }
+                type = LatexToken.Type.COMMAND;
+            }
+            case '$' -> {
+                if (i < length && source.charAt(i) == '$') {
+                    i++;
+                }
+                type = LatexToken.Type.MATH_SHIFT;
+            }
+            case '{' -> type = LatexToken.Type.BEGIN_GROUP;
+            case '}' -> type = LatexToken.Type.END_GROUP;
+            case '^' -> type = LatexToken.Type.SUPERSCRIPT;
+            case '_' -> type = LatexToken.Type.SUBSCRIPT;
+            default -> {
+                if (Character.isWhitespace(ch)) {
+                    while (i < length && Character.isWhitespace(source.charAt(i))) {
+                        i++;
+                    }
+                    type = LatexToken.Type.WHITESPACE;
+                } else {
+                    if (Character.isHighSurrogate(ch) && i < length && Character.isLowSurrogate(source.charAt(i))) {
+                        i++;
+                    }
+                    type = LatexToken.Type.CHAR;
+                }
+            }
+        }
+        end = i;
+        return type;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Текст текущей лексемы (аллоцирует строку)
+     */
+    public String text() {
+        return source.substring(start, end);
+    }
+
+    /**
+     * Совпадает ли текущая лексема с текстом — без аллокации
+     */
+    public boolean textEquals(String expected) {
+        return end - start == expected.length() && source.startsWith(expected, start);
+    }
+
+    /**
+     * Весь текст разметки списком лексем
+     */
+    public static List<LatexToken> tokenize(String source) {
+        List<LatexToken> tokens = new ArrayList<>(source.length() / 2 + 1);
+        LatexTokenizer tokenizer = new LatexTokenizer(source);
+        LatexToken.Type type;
+        while ((type = tokenizer.next()) != null) {
+            tokens.add(new LatexToken(type, tokenizer.text(), tokenizer.start()));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.stopro.service.latex;
+
+import java.util.List;
+
+/**
+ * Результат проверки LaTeX-разметки задачи
+ *
+ * @param valid     разметка корректна
+ * @param errors    найденные ошибки в порядке появления (не более {@link LatexValidator#MAX_ERRORS})
+ * @param plainText текст без разметки — для поиска и превью
+ */
+public record LatexValidationResult(boolean valid, List<LatexError> errors, String plainText) {
+
+    /**
+     * Ошибка разметки
+     *
+     * @param position смещение в исходной строке
+     * @param line     номер строки (с 1)
+     * @param column   номер символа в строке (с 1)
+     * @param message  описание ошибки
+     */
+    public record LatexError(int position, int line, int column, String message) {
+
+        @Override
+        public String toString() {
+            return message + " (строка " + line + ", символ " + column + ")";
+        }
+    }
+
+    /**
+     * Первая ошибка или null, если разметка корректна
+     */
+    public LatexError firstError() {
+        return errors.isEmpty() ? null : errors.get(0);
+    }
+}
@@ -0,0 +1,384 @@
+package ru.stopro.service.latex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Проверка LaTeX-разметки задач за один проход.
+ *
+ * Проверяет парность ограничителей формул ($, $$, \( \), \[ \]), фигурных
+ * скобок и окружений \begin/\end, а также что все команды известны рендереру.
+ * В том же проходе собирает текст без разметки для поиска. На символы
+ * не аллоцирует: строки создаются только для имён команд и окружений.
+ */
+public final class LatexValidator {
+
+    public static final int MAX_ERRORS = 50;
+
+    private enum MathMode {
+        NONE(null), INLINE("$"), DISPLAY("$$"), PAREN("\\)"), BRACKET("\\]");
+
+        private final String closing;
+
+        MathMode(String closing) {
+            this.closing = closing;
+        }
+    }
+
+    private final String source;
+    private final LatexTokenizer tokenizer;
+    private final List<LatexValidationResult.LatexError> errors = new ArrayList<>();
+    private final StringBuilder plain;
+
+    private MathMode math = MathMode.NONE;
+    private int mathStart;
+    private int mathBraceBase;
+    private int mathEnvironmentBase;
+
+    private int[] braces = new int[16];
+    private int braceDepth;
+
+    // Глубины скобок, на которых закрывается числитель \frac: там в plain-текст ставится «/»
+    private int[] fractions = new int[8];
+    private int fractionCount;
+
+    private final List<String> environments = new ArrayList<>();
+    private final List<Integer> environmentPositions = new ArrayList<>();
+
+    private LatexValidator(String source) {
+        this.source = source;
+        this.tokenizer = new LatexTokenizer(source);
+        this.plain = new StringBuilder(source.length());
+    }
+
+    public static LatexValidationResult validate(String source) {
+        if (source == null || source.isEmpty()) {
+            return new LatexValidationResult(true, List.of(), "");
+        }
+        return new LatexValidator(source).run();
+    }
+
+    private LatexValidationResult run() {
+        LatexToken.Type type;
+        while ((type = tokenizer.next()) != null) {
+            switch (type) {
+                case MATH_SHIFT -> mathShift();
+                case COMMAND -> command();
+                case BEGIN_GROUP -> pushBrace(tokenizer.start());
+                case END_GROUP -> popBrace(tokenizer.start());
+                case SUPERSCRIPT, SUBSCRIPT -> script(type);
+                case WHITESPACE -> space();
+                case CHAR -> character();
+            }
+        }
+
+        if (math != MathMode.NONE) {
+            error(mathStart, "Незакрытая формула: нет парного «" + math.closing + "»");
+            closeMath(source.length());
+        }
+        for (int i = environments.size() - 1; i >= 0; i--) {
+            error(environmentPositions.get(i), "Незакрытое окружение «" + environments.get(i) + "»");
+        }
+        for (int i = braceDepth - 1; i >= 0; i--) {
+            error(braces[i], "Незакрытая скобка «{»");
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.position(), b.position()));
+        return new LatexValidationResult(errors.isEmpty(), List.copyOf(errors), plain.toString().strip());
+    }
+
+    // ==================== Формулы ====================
+
+    private void mathShift() {
+        int position = tokenizer.start();
+        boolean display = tokenizer.end() - position == 2;
+        switch (math) {
+            case NONE -> {
+                openMath(display ? MathMode.DISPLAY : MathMode.INLINE, position);
+                space();
+            }
+            case INLINE -> {
+                closeMath(position);
+                if (display) {
+                    // $a$$b$ — две формулы подряд
+                    openMath(MathMode.INLINE, position + 1);
+                    space();
+                }
+            }
+            case DISPLAY -> {
+                if (!display) {
+                    error(position, "Формула открыта «$$», а закрыта «$»");
+                }
+                closeMath(position);
+            }
+            default -> error(position, "Формула «" + (display ? "$$" : "$")
+                    + "» внутри другой формулы");
+        }
+    }
+
+    private void openMath(MathMode kind, int position) {
+        math = kind;
+        mathStart = position;
+        mathBraceBase = braceDepth;
+        mathEnvironmentBase = environments.size();
+    }
+
+    /**
+     * Скобки и окружения не могут пересекать границу формулы
+     */
+    private void closeMath(int position) {
+        while (environments.size() > mathEnvironmentBase) {
+            int last = environments.size() - 1;
+            error(environmentPositions.get(last), "Окружение «" + environments.get(last)
+                    + "» не закрыто до конца формулы");
+            environments.remove(last);
+            environmentPositions.remove(last);
+        }
+        while (braceDepth > mathBraceBase) {
+            error(braces[--braceDepth], "Скобка «{» не закрыта до конца формулы");
+        }
+        fractionCount = 0;
+        math = MathMode.NONE;
+    }
+
+    // ==================== Команды ====================
+
+    private void command() {
+        int position = tokenizer.start();
+        if (tokenizer.end() - position == 1) {
+            error(position, "Одиночная «\\» в конце текста");
+            return;
+        }
+        String name = source.substring(position + 1, tokenizer.end());
+
+        switch (name) {
+            case "(", "[" -> {
+                if (math != MathMode.NONE) {
+                    error(position, "Формула «\\" + name + "» внутри другой формулы");
+                } else {
+                    openMath(name.equals("(") ? MathMode.PAREN : MathMode.BRACKET, position);
+                    space();
+                }
+                return;
+            }
+            case ")", "]" -> {
+                MathMode expected = name.equals(")") ? MathMode.PAREN : MathMode.BRACKET;
+                if (math == expected) {
+                    closeMath(position);
+                } else {
+                    error(position, "Закрывающая «\\" + name + "» без открывающей");
+                }
+                return;
+            }
+            case "begin" -> {
+                beginEnvironment(position);
+                return;
+            }
+            case "end" -> {
+                endEnvironment(position);
+                return;
+            }
+            default -> {
+            }
+        }
+
+        if (math == MathMode.NONE) {
+            if (!LatexCommands.TEXT_COMMANDS.contains(name)) {
+                error(position, LatexCommands.MATH_COMMANDS.contains(name)
+                        ? "Команда «\\" + name + "» допустима только внутри формулы"
+                        : "Неизвестная команда «\\" + name + "»");
+            }
+        } else if (!LatexCommands.MATH_COMMANDS.contains(name)) {
+            error(position, "Неизвестная команда «\\" + name + "»");
+        }
+        appendCommand(name);
+    }
+
+    private void beginEnvironment(int position) {
+        String name = environmentName(position, "begin");
+        if (name == null) {
+            return;
+        }
+        if (math == MathMode.NONE) {
+            error(position, "Окружение «" + name + "» вне формулы");
+        } else if (!LatexCommands.ENVIRONMENTS.contains(name)) {
+            error(position, "Неизвестное окружение «" + name + "»");
+        }
+        environments.add(name);
+        environmentPositions.add(position);
+        space();
+    }
+
+    private void endEnvironment(int position) {
+        String name = environmentName(position, "end");
+        if (name == null) {
+            return;
+        }
+        int base = math == MathMode.NONE ? 0 : mathEnvironmentBase;
+        int last = environments.size() - 1;
+        if (last < base) {
+            error(position, "«\\end{" + name + "}» без «\\begin»");
+        } else if (!environments.get(last).equals(name)) {
+            error(position, "«\\end{" + name + "}» не соответствует «\\begin{" + environments.get(last) + "}»");
+            environments.remove(last);
+            environmentPositions.remove(last);
+        } else {
+            environments.remove(last);
+            environmentPositions.remove(last);
+        }
+        space();
+    }
+
+    /**
+     * Имя окружения из аргумента {name} после \begin или \end
+     */
+    private String environmentName(int position, String command) {
+        LatexToken.Type type = tokenizer.next();
+        while (type == LatexToken.Type.WHITESPACE) {
+            type = tokenizer.next();
+        }
+        if (type != LatexToken.Type.BEGIN_GROUP) {
+            error(position, "«\\" + command + "» без имени окружения");
+            if (type != null) {
+                redispatch(type);
+            }
+            return null;
+        }
+        int nameStart = tokenizer.end();
+        while ((type = tokenizer.next()) == LatexToken.Type.CHAR) {
+            char ch = source.charAt(tokenizer.start());
+            if (!Character.isLetter(ch) && ch != '*') {
+                break;
+            }
+        }
+        if (type != LatexToken.Type.END_GROUP) {
+            error(position, "Некорректное имя окружения в «\\" + command + "»");
+            // Открывающую скобку считаем обычной, чтобы не потерять парность
+            pushBrace(nameStart - 1);
+            if (type != null) {
+                redispatch(type);
+            }
+            return null;
+        }
+        String name = source.substring(nameStart, tokenizer.start());
+        if (name.isEmpty()) {
+            error(position, "«\\" + command + "» без имени окружения");
+            return null;
+        }
+        return name;
+    }
+
+    private void redispatch(LatexToken.Type type) {
+        switch (type) {
+            case MATH_SHIFT -> mathShift();
+            case COMMAND -> command();
+            case BEGIN_GROUP -> pushBrace(tokenizer.start());
+            case END_GROUP -> popBrace(tokenizer.start());
+            case SUPERSCRIPT, SUBSCRIPT -> script(type);
+            case WHITESPACE -> space();
+            case CHAR -> character();
+        }
+    }
+
+    // ==================== Скобки и символы ====================
+
+    private void pushBrace(int position) {
+        if (braceDepth == braces.length) {
+            braces = Arrays.copyOf(braces, braceDepth * 2);
+        }
+        braces[braceDepth++] = position;
+    }
+
+    private void popBrace(int position) {
+        int base = math == MathMode.NONE ? 0 : mathBraceBase;
+        if (braceDepth <= base) {
+            error(position, "Лишняя закрывающая скобка «}»");
+        } else {
+            braceDepth--;
+            if (fractionCount > 0 && fractions[fractionCount - 1] == braceDepth) {
+                fractionCount--;
+                plain.append('/');
+            }
+        }
+    }
+
+    private void script(LatexToken.Type type) {
+        if (math == MathMode.NONE) {
+            error(tokenizer.start(), "Символ «" + (type == LatexToken.Type.SUPERSCRIPT ? '^' : '_')
+                    + "» вне формулы");
+        }
+        if (type == LatexToken.Type.SUPERSCRIPT) {
+            plain.append('^');
+        }
+    }
+
+    private void character() {
+        int start = tokenizer.start();
+        char ch = source.charAt(start);
+        if (math != MathMode.NONE && ch == '&') {
+            space();
+            return;
+        }
+        plain.append(source, start, tokenizer.end());
+    }
+
+    // ==================== Текст без разметки ====================
+
+    private void appendCommand(String name) {
+        String symbol = LatexCommands.GREEK.get(name);
+        if (symbol == null) {
+            symbol = LatexCommands.OPERATORS.get(name);
+        }
+        if (symbol == null) {
+            symbol = LatexCommands.LARGE_OPERATORS.get(name);
+        }
+        if (symbol != null) {
+            plain.append(symbol.equals("&amp;") ? "&" : symbol);
+            return;
+        }
+        if (LatexCommands.FUNCTIONS.contains(name) || LatexCommands.LIMIT_OPERATORS.contains(name)) {
+            space();
+            plain.append(name).append(' ');
+            return;
+        }
+        switch (name) {
+            case "frac", "dfrac", "tfrac", "cfrac" -> {
+                if (fractionCount == fractions.length) {
+                    fractions = Arrays.copyOf(fractions, fractionCount * 2);
+                }
+                fractions[fractionCount++] = braceDepth;
+            }
+            case "sqrt" -> plain.append('√');
+            case "no" -> plain.append('№');
+            case "\\", "newline" -> space();
+            default -> {
+                if (LatexCommands.SPACES.containsKey(name)) {
+                    space();
+                }
+            }
+        }
+    }
+
+    private void space() {
+        int length = plain.length();
+        if (length > 0 && plain.charAt(length - 1) != ' ') {
+            plain.append(' ');
+        }
+    }
+
+    private void error(int position, String message) {
+        if (errors.size() >= MAX_ERRORS) {
+            return;
+        }
+        int line = 1;
+        int lineStart = 0;
+        for (int i = 0; i < position && i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        errors.add(new LatexValidationResult.LatexError(position, line, position - lineStart + 1, message));
+    }
+}
@@ -0,0 +1,451 @@
+package ru.stopro.service.latex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Преобразование текста задачи с LaTeX-формулами в HTML-фрагмент с MathML.
+ *
+ * Поддерживается подмножество LaTeX, которое встречается в задачах ЕГЭ:
+ * дроби, корни, степени и индексы, греческие буквы, функции, \left/\right,
+ * \text, надчёркивания, окружения cases/matrix/array. Текст вне формул
+ * экранируется. Неизвестные команды выводятся в &lt;merror&gt;, а не роняют рендер.
+ *
+ * Экземпляр не хранит состояния между вызовами и потокобезопасен.
+ */
+public class MathMlRenderer {
+
+    /**
+     * Версия рендерера — часть ключа кэша: смена версии инвалидирует кэш
+     */
+    public static final String VERSION = "mathml-1";
+
+    private static final String MATH_NS = "http://www.w3.org/1998/Math/MathML";
+
+    private static final String OPERATOR_CHARS = "+-=<>*/()[]|,;:!?'.";
+
+    /**
+     * Отрендерить текст задачи (null и пустые строки возвращаются как есть)
+     */
+    public String render(String source) {
+        if (source == null || source.isEmpty()) {
+            return source;
+        }
+        return new Parser(source).document();
+    }
+
+    /**
+     * Рекурсивный спуск по лексемам одного документа
+     */
+    private static final class Parser {
+
+        private final String source;
+        private final List<LatexToken> tokens;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+            this.tokens = LatexTokenizer.tokenize(source);
+        }
+
+        String document() {
+            StringBuilder out = new StringBuilder(source.length() * 3);
+            while (pos < tokens.size()) {
+                LatexToken token = tokens.get(pos);
+                if (token.type() == LatexToken.Type.MATH_SHIFT) {
+                    pos++;
+                    String close = token.text();
+                    math(out, t -> t.is(LatexToken.Type.MATH_SHIFT, close), close.length() == 2);
+                } else if (token.is(LatexToken.Type.COMMAND, "\\(")) {
+                    pos++;
+                    math(out, t -> t.is(LatexToken.Type.COMMAND, "\\)"), false);
+                } else if (token.is(LatexToken.Type.COMMAND, "\\[")) {
+                    pos++;
+                    math(out, t -> t.is(LatexToken.Type.COMMAND, "\\]"), true);
+                } else if (token.is(LatexToken.Type.COMMAND, "\\\\")) {
+                    pos++;
+                    out.append("<br/>");
+                } else {
+                    pos++;
+                    out.append(escape(token.text()));
+                }
+            }
+            return out.toString();
+        }
+
+        private void math(StringBuilder out, Predicate<LatexToken> close, boolean display) {
+            String body = sequence(close);
+            if (pos < tokens.size()) {
+                pos++; // закрывающий разделитель
+            }
+            out.append("<math xmlns=\"").append(MATH_NS).append('"');
+            if (display) {
+                out.append(" display=\"block\"");
+            }
+            out.append("><mrow>").append(body).append("</mrow></math>");
+        }
+
+        /**
+         * Последовательность атомов до стоп-лексемы (сама стоп-лексема не поглощается)
+         */
+        private String sequence(Predicate<LatexToken> stop) {
+            StringBuilder sb = new StringBuilder();
+            while (pos < tokens.size() && !stop.test(tokens.get(pos))) {
+                String atom = atom(stop);
+                if (atom != null) {
+                    sb.append(scripts(atom, stop));
+                }
+            }
+            return sb.toString();
+        }
+
+        private String atom(Predicate<LatexToken> stop) {
+            LatexToken token = tokens.get(pos);
+            switch (token.type()) {
+                case WHITESPACE -> {
+                    pos++;
+                    return null;
+                }
+                case BEGIN_GROUP -> {
+                    return group(stop);
+                }
+                case END_GROUP -> {
+                    pos++;
+                    return "<mo>}</mo>";
+                }
+                case SUPERSCRIPT, SUBSCRIPT -> {
+                    // Индекс без основания: основание пустое
+                    return "<mrow></mrow>";
+                }
+                case MATH_SHIFT -> {
+                    pos++;
+                    return null;
+                }
+                case COMMAND -> {
+                    pos++;
+                    return command(token, stop);
+                }
+                default -> {
+                    return character(token);
+                }
+            }
+        }
+
+        private String group(Predicate<LatexToken> outerStop) {
+            pos++; // {
+            String inner = sequence(t -> t.type() == LatexToken.Type.END_GROUP || outerStop.test(t));
+            if (pos < tokens.size() && tokens.get(pos).type() == LatexToken.Type.END_GROUP) {
+                pos++;
+            }
+            return "<mrow>" + inner + "</mrow>";
+        }
+
+        private String character(LatexToken token) {
+            char ch = token.text().charAt(0);
+            if (Character.isDigit(ch)) {
+                return number();
+            }
+            pos++;
+            if (Character.isLetter(ch)) {
+                return "<mi>" + escape(token.text()) + "</mi>";
+            }
+            if (ch == '~') {
+                return "<mspace width=\"0.333em\"/>";
+            }
+            if (ch == '&') {
+                return null;
+            }
+            if (ch == '-') {
+                return "<mo>−</mo>";
+            }
+            if (ch == '\'') {
+                return "<mo>′</mo>";
+            }
+            if (OPERATOR_CHARS.indexOf(ch) >= 0) {
+                boolean fence = "()[]|".indexOf(ch) >= 0;
+                return fence ? "<mo stretchy=\"false\">" + escape(token.text()) + "</mo>"
+                             : "<mo>" + escape(token.text()) + "</mo>";
+            }
+            return "<mo>" + escape(token.text()) + "</mo>";
+        }
+
+        /**
+         * Число: цифры с десятичной точкой или запятой (запятая — только перед цифрой)
+         */
+        private String number() {
+            StringBuilder sb = new StringBuilder();
+            while (pos < tokens.size()) {
+                LatexToken token = tokens.get(pos);
+                if (token.type() != LatexToken.Type.CHAR) {
+                    break;
+                }
+                char ch = token.text().charAt(0);
+                boolean separator = (ch == '.' || ch == ',')
+                        && sb.length() > 0
+                        && pos + 1 < tokens.size()
+                        && tokens.get(pos + 1).type() == LatexToken.Type.CHAR
+                        && Character.isDigit(tokens.get(pos + 1).text().charAt(0));
+                if (!Character.isDigit(ch) && !separator) {
+                    break;
+                }
+                sb.append(ch);
+                pos++;
+            }
+            return "<mn>" + sb + "</mn>";
+        }
+
+        private String command(LatexToken token, Predicate<LatexToken> stop) {
+            String name = token.commandName();
+
+            switch (name) {
+                case "frac", "dfrac", "tfrac", "cfrac" -> {
+                    String numerator = argument(stop);
+                    String denominator = argument(stop);
+                    return "<mfrac>" + numerator + denominator + "</mfrac>";
+                }
+                case "sqrt" -> {
+                    skipWhitespace();
+                    if (pos < tokens.size() && tokens.get(pos).isChar('[')) {
+                        pos++;
+                        String index = sequence(t -> t.isChar(']') || stop.test(t));
+                        if (pos < tokens.size() && tokens.get(pos).isChar(']')) {
+                            pos++;
+                        }
+                        return "<mroot>" + argument(stop) + "<mrow>" + index + "</mrow></mroot>";
+                    }
+                    return "<msqrt>" + argument(stop) + "</msqrt>";
+                }
+                case "left", "right", "bigl", "bigr", "Bigl", "Bigr", "big", "Big" -> {
+                    return delimiter(name.startsWith("left") || name.startsWith("right"));
+                }
+                case "text", "textrm", "mbox", "textit", "textbf" -> {
+                    return "<mtext>" + escape(rawArgument()) + "</mtext>";
+                }
+                case "mathrm", "operatorname" -> {
+                    return "<mi mathvariant=\"normal\">" + escape(rawArgument()) + "</mi>";
+                }
+                case "mathbf" -> {
+                    return "<mi mathvariant=\"bold\">" + escape(rawArgument()) + "</mi>";
+                }
+                case "mathbb" -> {
+                    return "<mi mathvariant=\"double-struck\">" + escape(rawArgument()) + "</mi>";
+                }
+                case "displaystyle", "limits", "nolimits" -> {
+                    return null;
+                }
+                case "begin" -> {
+                    return environment(rawArgument(), stop);
+                }
+                case "\\" -> {
+                    return null;
+                }
+                default -> {
+                    return symbol(name, stop);
+                }
+            }
+        }
+
+        private String symbol(String name, Predicate<LatexToken> stop) {
+            if (LatexCommands.GREEK.containsKey(name)) {
+                boolean upper = Character.isUpperCase(name.charAt(0));
+                return upper ? "<mi mathvariant=\"normal\">" + LatexCommands.GREEK.get(name) + "</mi>"
+                             : "<mi>" + LatexCommands.GREEK.get(name) + "</mi>";
+            }
+            if (LatexCommands.OPERATORS.containsKey(name)) {
+                return "<mo>" + LatexCommands.OPERATORS.get(name) + "</mo>";
+            }
+            if (LatexCommands.FUNCTIONS.contains(name)) {
+                return "<mi>" + name + "</mi>";
+            }
+            if (LatexCommands.LIMIT_OPERATORS.contains(name)) {
+                return "<mo movablelimits=\"true\">" + name + "</mo>";
+            }
+            if (LatexCommands.LARGE_OPERATORS.containsKey(name)) {
+                return "<mo largeop=\"true\">" + LatexCommands.LARGE_OPERATORS.get(name) + "</mo>";
+            }
+            if (LatexCommands.ACCENTS.containsKey(name)) {
+                return "<mover accent=\"true\">" + argument(stop)
+                        + "<mo>" + LatexCommands.ACCENTS.get(name) + "</mo></mover>";
+            }
+            if (LatexCommands.SPACES.containsKey(name)) {
+                return "<mspace width=\"" + LatexCommands.SPACES.get(name) + "\"/>";
+            }
+            return "<merror><mtext>\\" + escape(name) + "</mtext></merror>";
+        }
+
+        /**
+         * Степени и индексы после атома: x^2, a_n, a_{i}^{2}
+         */
+        private String scripts(String base, Predicate<LatexToken> stop) {
+            String sub = null;
+            String sup = null;
+            while (pos < tokens.size()) {
+                LatexToken token = tokens.get(pos);
+                if (token.type() == LatexToken.Type.SUPERSCRIPT && sup == null) {
+                    pos++;
+                    sup = argument(stop);
+                } else if (token.type() == LatexToken.Type.SUBSCRIPT && sub == null) {
+                    pos++;
+                    sub = argument(stop);
+                } else {
+                    break;
+                }
+            }
+            boolean underOver = base.startsWith("<mo movablelimits") || base.startsWith("<mo largeop=\"true\">∑")
+                    || base.startsWith("<mo largeop=\"true\">∏");
+            if (sub != null && sup != null) {
+                return (underOver ? "<munderover>" : "<msubsup>") + base + sub + sup
+                        + (underOver ? "</munderover>" : "</msubsup>");
+            }
+            if (sub != null) {
+                return (underOver ? "<munder>" : "<msub>") + base + sub + (underOver ? "</munder>" : "</msub>");
+            }
+            if (sup != null) {
+                return (underOver ? "<mover>" : "<msup>") + base + sup + (underOver ? "</mover>" : "</msup>");
+            }
+            return base;
+        }
+
+        /**
+         * Аргумент команды: группа {..} или один символ (\frac12 → 1 и 2)
+         */
+        private String argument(Predicate<LatexToken> stop) {
+            skipWhitespace();
+            if (pos >= tokens.size() || stop.test(tokens.get(pos))) {
+                return "<mrow></mrow>";
+            }
+            LatexToken token = tokens.get(pos);
+            if (token.type() == LatexToken.Type.BEGIN_GROUP) {
+                return group(stop);
+            }
+            if (token.type() == LatexToken.Type.CHAR && Character.isDigit(token.text().charAt(0))) {
+                pos++;
+                return "<mn>" + token.text() + "</mn>";
+            }
+            String atom = atom(stop);
+            return atom != null ? atom : "<mrow></mrow>";
+        }
+
+        /**
+         * Исходный текст аргумента в фигурных скобках без интерпретации (для \text, \begin)
+         */
+        private String rawArgument() {
+            skipWhitespace();
+            if (pos >= tokens.size() || tokens.get(pos).type() != LatexToken.Type.BEGIN_GROUP) {
+                return "";
+            }
+            int start = tokens.get(pos).position() + 1;
+            int depth = 0;
+            while (pos < tokens.size()) {
+                LatexToken token = tokens.get(pos++);
+                if (token.type() == LatexToken.Type.BEGIN_GROUP) {
+                    depth++;
+                } else if (token.type() == LatexToken.Type.END_GROUP && --depth == 0) {
+                    return source.substring(start, token.position());
+                }
+            }
+            return source.substring(start);
+        }
+
+        private String delimiter(boolean stretchy) {
+            skipWhitespace();
+            if (pos >= tokens.size()) {
+                return null;
+            }
+            LatexToken token = tokens.get(pos++);
+            String symbol;
+            if (token.type() == LatexToken.Type.COMMAND) {
+                symbol = LatexCommands.OPERATORS.getOrDefault(token.commandName(), "");
+            } else if (token.isChar('.')) {
+                symbol = "";
+            } else {
+                symbol = escape(token.text());
+            }
+            return "<mo fence=\"true\" stretchy=\"" + stretchy + "\">" + symbol + "</mo>";
+        }
+
+        /**
+         * Окружения cases, matrix/pmatrix/bmatrix, array, aligned, system
+         */
+        private String environment(String name, Predicate<LatexToken> outerStop) {
+            if (name.equals("array")) {
+                rawArgument(); // спецификация колонок
+            }
+            Predicate<LatexToken> cellStop = t -> t.isChar('&')
+                    || t.is(LatexToken.Type.COMMAND, "\\\\")
+                    || t.is(LatexToken.Type.COMMAND, "\\end")
+                    || outerStop.test(t);
+
+            List<List<String>> rows = new ArrayList<>();
+            List<String> row = new ArrayList<>();
+            while (pos < tokens.size()) {
+                row.add(sequence(cellStop));
+                if (pos >= tokens.size() || outerStop.test(tokens.get(pos))) {
+                    break;
+                }
+                LatexToken separator = tokens.get(pos++);
+                if (separator.is(LatexToken.Type.COMMAND, "\\end")) {
+                    rawArgument();
+                    break;
+                }
+                if (separator.is(LatexToken.Type.COMMAND, "\\\\")) {
+                    rows.add(row);
+                    row = new ArrayList<>();
+                }
+            }
+            if (!(row.size() == 1 && row.get(0).isEmpty())) {
+                rows.add(row);
+            }
+
+            StringBuilder table = new StringBuilder("<mtable columnalign=\"left\">");
+            for (List<String> cells : rows) {
+                table.append("<mtr>");
+                for (String cell : cells) {
+                    table.append("<mtd>").append(cell).append("</mtd>");
+                }
+                table.append("</mtr>");
+            }
+            table.append("</mtable>");
+
+            return switch (name) {
+                case "cases", "system" -> "<mrow><mo>{</mo>" + table + "</mrow>";
+                case "pmatrix" -> "<mrow><mo>(</mo>" + table + "<mo>)</mo></mrow>";
+                case "bmatrix" -> "<mrow><mo>[</mo>" + table + "<mo>]</mo></mrow>";
+                case "vmatrix" -> "<mrow><mo>|</mo>" + table + "<mo>|</mo></mrow>";
+                default -> table.toString();
+            };
+        }
+
+        private void skipWhitespace() {
+            while (pos < tokens.size() && tokens.get(pos).type() == LatexToken.Type.WHITESPACE) {
+                pos++;
+            }
+        }
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            String replacement = switch (ch) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(ch);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : text;
+    }
+}
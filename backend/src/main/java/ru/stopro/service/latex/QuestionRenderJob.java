@@ -0,0 +1,68 @@
+package ru.stopro.service.latex;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Дорендер задач, сохранённых до появления MathML или старой версией рендерера.
+ *
+ * Новые и изменённые задачи рендерятся при сохранении; это задание только
+ * догоняет остальные порциями, строки забираются через SKIP LOCKED.
+ */
+@Component
+public class QuestionRenderJob implements ClusterJob {
+
+    private static final String CLAIM_SQL =
+            "SELECT id, content, solution, hint FROM questions " +
+            "WHERE (render_version IS NULL OR render_version <> ?) AND is_deleted = false " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String UPDATE_SQL =
+            "UPDATE questions SET content_rendered = ?, solution_rendered = ?, hint_rendered = ?, " +
+            "render_version = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LatexRenderService latexRenderService;
+
+    @Value("${latex-render.backfill-interval-ms}")
+    private long intervalMs;
+
+    public QuestionRenderJob(JdbcTemplate jdbcTemplate, LatexRenderService latexRenderService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.latexRenderService = latexRenderService;
+    }
+
+    @Override
+    public String name() {
+        return "question-render";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            updates.add(new Object[] {
+                    latexRenderService.render(rs.getString("content")),
+                    latexRenderService.render(rs.getString("solution")),
+                    latexRenderService.render(rs.getString("hint")),
+                    MathMlRenderer.VERSION,
+                    rs.getObject("id", UUID.class)});
+        }, MathMlRenderer.VERSION, limit);
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+        return updates.size();
+    }
+}
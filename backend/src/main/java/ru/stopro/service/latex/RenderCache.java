@@ -0,0 +1,90 @@
+package ru.stopro.service.latex;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Двухуровневый кэш отрендеренных фрагментов с адресацией по содержимому.
+ *
+ * Ключ — хеш исходника, поэтому запись никогда не устаревает: изменённый текст
+ * просто получает новый ключ. Первый уровень — LRU в памяти, второй — файлы
+ * на диске (переживают перезапуск). Запись на диск атомарна: через временный
+ * файл и move, так что параллельные читатели не видят частичных файлов.
+ */
+@Slf4j
+public class RenderCache {
+
+    private final Map<String, String> memory;
+    private final Path directory;
+
+    public RenderCache(int memoryEntries, Path directory) {
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+        this.directory = directory;
+    }
+
+    public String get(String key) {
+        String value = memory.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (directory == null) {
+            return null;
+        }
+        try {
+            value = Files.readString(fileOf(key), StandardCharsets.UTF_8);
+            memory.put(key, value);
+            return value;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read render cache entry {}", key, e);
+            return null;
+        }
+    }
+
+    public void put(String key, String value) {
+        memory.put(key, value);
+        if (directory == null) {
+            return;
+        }
+        Path target = fileOf(key);
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.writeString(tmp, value, StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Дисковый уровень — оптимизация: при ошибке работаем только из памяти
+            log.warn("Failed to write render cache entry {}", key, e);
+        }
+    }
+
+    /**
+     * Файлы раскладываются по подкаталогам из первых двух символов ключа
+     */
+    private Path fileOf(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".html");
+    }
+}
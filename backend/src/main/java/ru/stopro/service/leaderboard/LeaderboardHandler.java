@@ -0,0 +1,68 @@
+package ru.stopro.service.leaderboard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.outbox.OutboxEvent;
+import ru.stopro.service.outbox.OutboxHandler;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Обновление рейтингов после завершения попыток.
+ *
+ * Пачка событий сворачивается в уникальные пары (группа, ученик), очки пар
+ * считаются одним запросом и записываются в рейтинг абсолютными значениями.
+ * Группы без таблицы в Redis (истекла, вытеснена, новая неделя) собираются целиком.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LeaderboardHandler implements OutboxHandler {
+
+    private record Member(UUID groupId, UUID studentId) {
+    }
+
+    private final LeaderboardScores scores;
+    private final LeaderboardStore store;
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(OutboxService.LEADERBOARD_UPDATE);
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        Set<Member> members = new LinkedHashSet<>();
+        for (OutboxEvent event : events) {
+            JsonNode payload = event.payload();
+            members.add(new Member(
+                    UUID.fromString(payload.path("groupId").asText()),
+                    UUID.fromString(payload.path("studentId").asText())));
+        }
+        List<UUID> groupIds = new ArrayList<>(members.size());
+        List<UUID> studentIds = new ArrayList<>(members.size());
+        for (Member member : members) {
+            groupIds.add(member.groupId());
+            studentIds.add(member.studentId());
+        }
+        List<LeaderboardScores.Row> rows = scores.forStudents(groupIds, studentIds);
+        Set<UUID> missing = store.update(rows);
+        if (!missing.isEmpty()) {
+            Map<UUID, List<LeaderboardScores.Row>> rebuilt = scores.forGroups(missing).stream()
+                    .collect(Collectors.groupingBy(LeaderboardScores.Row::groupId));
+            for (UUID groupId : missing) {
+                store.replace(groupId, rebuilt.getOrDefault(groupId, List.of()));
+            }
+        }
+        log.debug("Leaderboards updated for {} students, {} groups rebuilt", rows.size(), missing.size());
+    }
+}
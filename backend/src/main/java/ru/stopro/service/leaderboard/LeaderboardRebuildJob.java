@@ -0,0 +1,82 @@
+package ru.stopro.service.leaderboard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Пересборка рейтингов из базы: исправляет пропущенные события, вступления
+ * и выходы из групп, начинает новую неделю.
+ *
+ * Группы обходятся по id порциями; очки порции — один запрос, каждая группа
+ * подменяется в Redis целиком. Позиция обхода живёт между порциями одного
+ * прогона, после последней порции обход начинается заново.
+ */
+@Slf4j
+@Component
+public class LeaderboardRebuildJob implements ClusterJob {
+
+    private static final String FIRST_SQL =
+            "SELECT id FROM study_groups WHERE is_deleted = false ORDER BY id LIMIT ?";
+
+    private static final String NEXT_SQL =
+            "SELECT id FROM study_groups WHERE is_deleted = false AND id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderboardScores scores;
+    private final LeaderboardStore store;
+
+    @Value("${leaderboards.rebuild-interval-ms}")
+    private long intervalMs;
+
+    // Последняя обработанная группа (null — обход с начала)
+    private volatile UUID after;
+
+    public LeaderboardRebuildJob(JdbcTemplate jdbcTemplate, LeaderboardScores scores, LeaderboardStore store) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scores = scores;
+        this.store = store;
+    }
+
+    @Override
+    public String name() {
+        return "leaderboard-rebuild";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        List<UUID> groupIds = after == null
+                ? jdbcTemplate.queryForList(FIRST_SQL, UUID.class, limit)
+                : jdbcTemplate.queryForList(NEXT_SQL, UUID.class, after, limit);
+        if (groupIds.isEmpty()) {
+            after = null;
+            return 0;
+        }
+
+        Map<UUID, List<LeaderboardScores.Row>> byGroup = new HashMap<>();
+        for (UUID groupId : groupIds) {
+            byGroup.put(groupId, new ArrayList<>());
+        }
+        for (LeaderboardScores.Row row : scores.forGroups(groupIds)) {
+            byGroup.get(row.groupId()).add(row);
+        }
+        byGroup.forEach(store::replace);
+
+        after = groupIds.size() < limit ? null : groupIds.get(groupIds.size() - 1);
+        return groupIds.size();
+    }
+}
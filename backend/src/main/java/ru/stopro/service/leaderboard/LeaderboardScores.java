@@ -0,0 +1,102 @@
+package ru.stopro.service.leaderboard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Очки рейтинга из базы: сумма лучших результатов ученика по заданиям группы.
+ *
+ * Лучший результат, а не сумма попыток — повторные попытки не накручивают рейтинг.
+ * Значения абсолютные, поэтому запись в рейтинг идемпотентна: повторная доставка
+ * события или пересборка дают тот же результат.
+ */
+@Component
+public class LeaderboardScores {
+
+    public record Row(UUID groupId, UUID studentId, double allTime, double week) {
+    }
+
+    private static final String BEST =
+            "best AS (SELECT a.group_id, t.student_id, t.assignment_id, " +
+            "                MAX(t.score) AS all_best, " +
+            "                MAX(t.score) FILTER (WHERE t.finished_at >= ?) AS week_best " +
+            "         FROM attempts t JOIN assignments a ON a.id = t.assignment_id " +
+            "         WHERE %s AND a.is_deleted = false AND t.is_deleted = false " +
+            "           AND t.finished_at IS NOT NULL AND t.score IS NOT NULL " +
+            "         GROUP BY a.group_id, t.student_id, t.assignment_id) ";
+
+    private static final String TOTALS =
+            "SELECT m.group_id, m.student_id, " +
+            "       COALESCE(SUM(b.all_best), 0) AS all_time, COALESCE(SUM(b.week_best), 0) AS week " +
+            "FROM members m LEFT JOIN best b ON b.group_id = m.group_id AND b.student_id = m.student_id " +
+            "GROUP BY m.group_id, m.student_id";
+
+    // Все ученики групп, включая тех, у кого ещё нет результатов
+    private static final String GROUPS_SQL =
+            "WITH members AS (SELECT group_id, student_id FROM group_students WHERE group_id = ANY(?)), " +
+            String.format(BEST, "a.group_id = ANY(?)") + TOTALS;
+
+    private static final String PAIRS_SQL =
+            "WITH members AS (SELECT p.group_id, p.student_id " +
+            "                 FROM unnest(?::uuid[], ?::uuid[]) AS p(group_id, student_id) " +
+            "                 JOIN group_students gs ON gs.group_id = p.group_id AND gs.student_id = p.student_id), " +
+            String.format(BEST, "(a.group_id, t.student_id) IN (SELECT group_id, student_id FROM members)") + TOTALS;
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(
+            rs.getObject("group_id", UUID.class),
+            rs.getObject("student_id", UUID.class),
+            rs.getDouble("all_time"),
+            rs.getDouble("week"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LeaderboardScores(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Очки всех учеников указанных групп
+     */
+    public List<Row> forGroups(Collection<UUID> groupIds) {
+        Timestamp weekStart = Timestamp.valueOf(weekStart());
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(GROUPS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", groupIds.toArray()));
+            ps.setTimestamp(2, weekStart);
+            ps.setArray(3, con.createArrayOf("uuid", groupIds.toArray()));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Очки конкретных учеников в конкретных группах (пары с одинаковыми индексами);
+     * ученики, уже покинувшие группу, в результат не попадают
+     */
+    public List<Row> forStudents(List<UUID> groupIds, List<UUID> studentIds) {
+        Timestamp weekStart = Timestamp.valueOf(weekStart());
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(PAIRS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", groupIds.toArray()));
+            ps.setArray(2, con.createArrayOf("uuid", studentIds.toArray()));
+            ps.setTimestamp(3, weekStart);
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Начало текущей недели (понедельник, 00:00)
+     */
+    public static LocalDateTime weekStart() {
+        return LocalDate.now().with(DayOfWeek.MONDAY).atStartOfDay();
+    }
+}
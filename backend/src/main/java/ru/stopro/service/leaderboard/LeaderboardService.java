@@ -0,0 +1,148 @@
+package ru.stopro.service.leaderboard;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stopro.domain.entity.User;
+import ru.stopro.dto.leaderboard.LeaderboardDto;
+import ru.stopro.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Рейтинги учеников внутри учебной группы.
+ *
+ * Читаются из {@link LeaderboardStore}: верх таблицы и позиция ученика без
+ * агрегации по попыткам. Таблица, которой ещё нет в Redis, собирается для
+ * одной группы при первом обращении; при недоступном Redis рейтинг группы
+ * считается из базы.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class LeaderboardService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String ACCESS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM study_groups g " +
+            "               WHERE g.id = ? AND g.is_deleted = false " +
+            "                 AND (g.teacher_id = ? OR EXISTS (SELECT 1 FROM group_students gs " +
+            "                                                 WHERE gs.group_id = g.id AND gs.student_id = ?)))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderboardScores scores;
+    private final LeaderboardStore store;
+    private final UserRepository userRepository;
+
+    /**
+     * Рейтинг группы для её учителя или ученика
+     *
+     * @throws AccessDeniedException если пользователь не состоит в группе и не ведёт её
+     */
+    public LeaderboardDto getLeaderboard(UUID groupId, UUID userId, LeaderboardWindow window, Integer limit) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(ACCESS_SQL, Boolean.class, groupId, userId, userId))) {
+            throw new AccessDeniedException("Нет доступа к группе");
+        }
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        LeaderboardDto leaderboard;
+        try {
+            leaderboard = fromStore(groupId, userId, window, size);
+        } catch (RuntimeException e) {
+            log.warn("Leaderboard store unavailable, computing group {} from database: {}", groupId, e.getMessage());
+            leaderboard = fromDatabase(groupId, userId, window, size);
+        }
+        fillNames(leaderboard);
+        return leaderboard;
+    }
+
+    private LeaderboardDto fromStore(UUID groupId, UUID userId, LeaderboardWindow window, int size) {
+        if (!store.exists(groupId, window)) {
+            store.replace(groupId, scores.forGroups(List.of(groupId)));
+        }
+        List<LeaderboardDto.Entry> entries = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> tuple : store.top(groupId, window, size)) {
+            entries.add(entry(entries, UUID.fromString(tuple.getValue()), tuple.getScore()));
+        }
+        LeaderboardDto.Entry me = null;
+        Double points = store.score(groupId, window, userId);
+        if (points != null) {
+            me = LeaderboardDto.Entry.builder()
+                    .rank(store.rankOf(groupId, window, points))
+                    .studentId(userId)
+                    .points(points)
+                    .build();
+        }
+        return LeaderboardDto.builder()
+                .groupId(groupId)
+                .window(window.name())
+                .entries(entries)
+                .me(me)
+                .size(store.size(groupId, window))
+                .build();
+    }
+
+    private LeaderboardDto fromDatabase(UUID groupId, UUID userId, LeaderboardWindow window, int size) {
+        Function<LeaderboardScores.Row, Double> points = window == LeaderboardWindow.WEEK
+                ? LeaderboardScores.Row::week
+                : LeaderboardScores.Row::allTime;
+        // Порядок как у ZREVRANGE: очки по убыванию, при равенстве — id по убыванию
+        List<LeaderboardScores.Row> rows = scores.forGroups(List.of(groupId)).stream()
+                .sorted(Comparator.comparing(points).reversed()
+                        .thenComparing(row -> row.studentId().toString(), Comparator.reverseOrder()))
+                .toList();
+        List<LeaderboardDto.Entry> ranked = new ArrayList<>(rows.size());
+        for (LeaderboardScores.Row row : rows) {
+            ranked.add(entry(ranked, row.studentId(), points.apply(row)));
+        }
+        return LeaderboardDto.builder()
+                .groupId(groupId)
+                .window(window.name())
+                .entries(new ArrayList<>(ranked.subList(0, Math.min(size, ranked.size()))))
+                .me(ranked.stream().filter(e -> e.getStudentId().equals(userId)).findFirst().orElse(null))
+                .size(ranked.size())
+                .build();
+    }
+
+    /**
+     * Следующая строка таблицы: при равных очках место как у предыдущего
+     */
+    private static LeaderboardDto.Entry entry(List<LeaderboardDto.Entry> above, UUID studentId, Double points) {
+        double value = points != null ? points : 0;
+        LeaderboardDto.Entry previous = above.isEmpty() ? null : above.get(above.size() - 1);
+        long rank = previous != null && previous.getPoints() == value ? previous.getRank() : above.size() + 1;
+        return LeaderboardDto.Entry.builder()
+                .rank(rank)
+                .studentId(studentId)
+                .points(value)
+                .build();
+    }
+
+    private void fillNames(LeaderboardDto leaderboard) {
+        List<UUID> ids = new ArrayList<>(leaderboard.getEntries().stream()
+                .map(LeaderboardDto.Entry::getStudentId)
+                .toList());
+        if (leaderboard.getMe() != null) {
+            ids.add(leaderboard.getMe().getStudentId());
+        }
+        Map<UUID, String> names = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, User::getFullName));
+        leaderboard.getEntries().forEach(e -> e.setFullName(names.get(e.getStudentId())));
+        if (leaderboard.getMe() != null) {
+            leaderboard.getMe().setFullName(names.get(leaderboard.getMe().getStudentId()));
+        }
+    }
+}
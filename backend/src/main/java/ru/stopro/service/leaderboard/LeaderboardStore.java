@@ -0,0 +1,144 @@
+package ru.stopro.service.leaderboard;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Рейтинги групп в sorted set Redis: один ключ на группу и окно.
+ *
+ * Позиция и очки ученика — ZREVRANK/ZSCORE, верх таблицы — ZREVRANGE, всё за O(log n).
+ * Недельный ключ содержит дату понедельника и истекает сам; пересборка пишет
+ * во временный ключ и подменяет рабочий через RENAME, читатели не видят
+ * наполовину собранную таблицу.
+ */
+@Component
+public class LeaderboardStore {
+
+    private static final String PREFIX = "leaderboard:";
+    private static final Duration WEEK_TTL = Duration.ofDays(14);
+    private static final Duration REBUILD_TTL = Duration.ofMinutes(5);
+
+    /**
+     * ZADD только в существующий ключ (ARGV — пары очки, ученик); 0 — ключа нет
+     */
+    private static final RedisScript<Long> ADD_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "for i = 1, #ARGV, 2 do redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redis;
+
+    public LeaderboardStore(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    /**
+     * Записать очки учеников в обе таблицы их групп.
+     *
+     * Пишем только в существующие таблицы (проверка и ZADD атомарны):
+     * созданный заново ключ содержал бы лишь этих учеников, а exists()
+     * считал бы такую таблицу полной.
+     *
+     * @return группы, у которых нет хотя бы одной таблицы — их нужно собрать через {@link #replace}
+     */
+    public Set<UUID> update(List<LeaderboardScores.Row> rows) {
+        Map<UUID, List<LeaderboardScores.Row>> byGroup = new LinkedHashMap<>();
+        for (LeaderboardScores.Row row : rows) {
+            byGroup.computeIfAbsent(row.groupId(), id -> new ArrayList<>()).add(row);
+        }
+        Set<UUID> missing = new LinkedHashSet<>();
+        for (Map.Entry<UUID, List<LeaderboardScores.Row>> group : byGroup.entrySet()) {
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                List<String> args = new ArrayList<>(group.getValue().size() * 2);
+                for (LeaderboardScores.Row row : group.getValue()) {
+                    double points = window == LeaderboardWindow.WEEK ? row.week() : row.allTime();
+                    args.add(Double.toString(points));
+                    args.add(row.studentId().toString());
+                }
+                Long applied = redis.execute(ADD_IF_EXISTS, List.of(key(group.getKey(), window)), args.toArray());
+                if (applied == null || applied == 0) {
+                    missing.add(group.getKey());
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Подменить обе таблицы группы целиком (rows — все ученики группы)
+     */
+    public void replace(UUID groupId, List<LeaderboardScores.Row> rows) {
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            String key = key(groupId, window);
+            if (rows.isEmpty()) {
+                redis.delete(key);
+                continue;
+            }
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            for (LeaderboardScores.Row row : rows) {
+                double points = window == LeaderboardWindow.WEEK ? row.week() : row.allTime();
+                tuples.add(ZSetOperations.TypedTuple.of(row.studentId().toString(), points));
+            }
+            // Свой временный ключ на каждую сборку; брошенный истечёт сам
+            String tmp = key + ":rebuild:" + UUID.randomUUID();
+            redis.opsForZSet().add(tmp, tuples);
+            redis.expire(tmp, REBUILD_TTL);
+            redis.rename(tmp, key);
+            // RENAME переносит ttl временного ключа
+            if (window == LeaderboardWindow.WEEK) {
+                redis.expire(key, WEEK_TTL);
+            } else {
+                redis.persist(key);
+            }
+        }
+    }
+
+    public boolean exists(UUID groupId, LeaderboardWindow window) {
+        return Boolean.TRUE.equals(redis.hasKey(key(groupId, window)));
+    }
+
+    /**
+     * Первые limit учеников, по убыванию очков
+     */
+    public Set<ZSetOperations.TypedTuple<String>> top(UUID groupId, LeaderboardWindow window, int limit) {
+        return redis.opsForZSet().reverseRangeWithScores(key(groupId, window), 0, limit - 1);
+    }
+
+    public Double score(UUID groupId, LeaderboardWindow window, UUID studentId) {
+        return redis.opsForZSet().score(key(groupId, window), studentId.toString());
+    }
+
+    /**
+     * Место с учётом равных очков: 1 + число учеников со строго большими очками
+     */
+    public long rankOf(UUID groupId, LeaderboardWindow window, double points) {
+        Long higher = redis.opsForZSet().count(key(groupId, window), Math.nextUp(points), Double.POSITIVE_INFINITY);
+        return (higher != null ? higher : 0) + 1;
+    }
+
+    public long size(UUID groupId, LeaderboardWindow window) {
+        Long size = redis.opsForZSet().zCard(key(groupId, window));
+        return size != null ? size : 0;
+    }
+
+    private static String key(UUID groupId, LeaderboardWindow window) {
+        if (window == LeaderboardWindow.WEEK) {
+            return PREFIX + groupId + ":week:" + LeaderboardScores.weekStart().format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+        return PREFIX + groupId + ":all";
+    }
+}
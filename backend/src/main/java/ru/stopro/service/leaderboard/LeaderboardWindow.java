@@ -0,0 +1,9 @@
+package ru.stopro.service.leaderboard;
+
+/**
+ * Окно рейтинга: текущая неделя (с понедельника) или всё время
+ */
+public enum LeaderboardWindow {
+    WEEK,
+    ALL_TIME
+}
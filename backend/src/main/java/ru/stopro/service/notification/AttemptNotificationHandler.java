@@ -0,0 +1,66 @@
+package ru.stopro.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.stopro.service.outbox.OutboxEvent;
+import ru.stopro.service.outbox.OutboxHandler;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Уведомления о попытках: завершение (учителю) и готовая AI-проверка (ученику).
+ *
+ * Вся пачка событий уходит в {@link NotificationDispatcher} одной транзакцией.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttemptNotificationHandler implements OutboxHandler {
+
+    public static final String ATTEMPT_FINISHED = "ATTEMPT_FINISHED";
+    public static final String AI_CHECKED = "AI_CHECKED";
+
+    private final NotificationDispatcher dispatcher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(OutboxService.ATTEMPT_FINISHED, OutboxService.ATTEMPT_AI_CHECKED);
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<Notification> notifications = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            JsonNode payload = event.payload();
+            if (OutboxService.ATTEMPT_FINISHED.equals(event.eventType())) {
+                if (payload.path("notifyTeacher").asBoolean(false) && payload.hasNonNull("teacherId")) {
+                    notifications.add(new Notification(
+                            UUID.fromString(payload.path("teacherId").asText()),
+                            ATTEMPT_FINISHED,
+                            "Ученик завершил задание: " + payload.path("assignmentTitle").asText(""),
+                            String.format("Результат: %.0f%%", payload.path("score").asDouble()),
+                            event.aggregateId()));
+                }
+            } else if (payload.hasNonNull("studentId")) {
+                notifications.add(new Notification(
+                        UUID.fromString(payload.path("studentId").asText()),
+                        AI_CHECKED,
+                        "Готова AI-проверка решения",
+                        "Откройте попытку, чтобы посмотреть разбор и рекомендации",
+                        event.aggregateId()));
+            }
+        }
+        if (!notifications.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> dispatcher.dispatch(notifications));
+            log.debug("Sent {} attempt notifications", notifications.size());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.stopro.service.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Напоминания о дедлайне ученикам, которые ещё не сдали задание.
+ *
+ * Порция — два запроса на любое число учеников:
+ *  1. забрать пачку заданий, у которых наступило окно напоминания
+ *     (reminder_hours_before до дедлайна), по частичному индексу;
+ *  2. одним INSERT ... SELECT развернуть их в учеников групп без завершённой
+ *     попытки и записать в reminder_ledger; ON CONFLICT DO NOTHING отсекает
+ *     уже напомненных, RETURNING даёт список получателей.
+ * Уведомления уходят через {@link NotificationDispatcher} в той же транзакции.
+ */
+@Component
+public class DeadlineReminderJob implements ClusterJob {
+
+    public static final String TYPE = "DEADLINE_REMINDER";
+
+    private static final DateTimeFormatter DEADLINE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+    private static final String CLAIM_SQL =
+            "UPDATE assignments a SET reminder_sent_at = now() " +
+            "FROM (SELECT id FROM assignments " +
+            "      WHERE send_deadline_reminder = true AND reminder_sent_at IS NULL " +
+            "        AND status IN ('PUBLISHED', 'ACTIVE') AND is_deleted = false " +
+            "        AND deadline > ? AND deadline <= ? " +
+            "        AND deadline <= ? + make_interval(hours => COALESCE(reminder_hours_before, ?)) " +
+            "      ORDER BY deadline LIMIT ? FOR UPDATE SKIP LOCKED) s " +
+            "WHERE a.id = s.id " +
+            "RETURNING a.id, a.title, a.deadline";
+
+    private static final String FAN_OUT_SQL =
+            "INSERT INTO reminder_ledger (assignment_id, kind, recipient_id) " +
+            "SELECT a.id, '" + TYPE + "', gs.student_id " +
+            "FROM assignments a JOIN group_students gs ON gs.group_id = a.group_id " +
+            "WHERE a.id = ANY(?) " +
+            "  AND NOT EXISTS (SELECT 1 FROM attempts t " +
+            "                  WHERE t.assignment_id = a.id AND t.student_id = gs.student_id " +
+            "                    AND t.finished_at IS NOT NULL AND t.is_deleted = false) " +
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING assignment_id, recipient_id";
+
+    private record Due(String title, LocalDateTime deadline) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationDispatcher dispatcher;
+
+    @Value("${deadline-reminders.interval-ms}")
+    private long intervalMs;
+
+    @Value("${deadline-reminders.max-window-hours}")
+    private int maxWindowHours;
+
+    @Value("${deadline-reminders.default-hours-before}")
+    private int defaultHoursBefore;
+
+    public DeadlineReminderJob(JdbcTemplate jdbcTemplate, NotificationDispatcher dispatcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public String name() {
+        return "deadline-reminders";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Due> due = new HashMap<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            due.put(rs.getObject("id", UUID.class),
+                    new Due(rs.getString("title"), rs.getTimestamp("deadline").toLocalDateTime()));
+        }, Timestamp.valueOf(now), Timestamp.valueOf(now.plusHours(maxWindowHours)), Timestamp.valueOf(now),
+                defaultHoursBefore, limit);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FAN_OUT_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", due.keySet().toArray()));
+            return ps;
+        }, rs -> {
+            UUID assignmentId = rs.getObject("assignment_id", UUID.class);
+            Due assignment = due.get(assignmentId);
+            notifications.add(new Notification(
+                    rs.getObject("recipient_id", UUID.class),
+                    TYPE,
+                    "Скоро дедлайн: " + assignment.title(),
+                    "Сдайте задание до " + assignment.deadline().format(DEADLINE_FORMAT),
+                    assignmentId));
+        });
+        dispatcher.dispatch(notifications);
+        return due.size();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.stopro.service.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Удаление отправленных (и пропущенных) писем старше retention-hours
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.email.enabled", havingValue = "true")
+public class EmailDeliveryCleanupJob implements ClusterJob {
+
+    private static final String CLEANUP_SQL =
+            "DELETE FROM email_deliveries WHERE id IN (" +
+            "  SELECT id FROM email_deliveries WHERE status IN ('SENT', 'SKIPPED') AND sent_at < ? " +
+            "  LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notifications.email.retention-hours}")
+    private int retentionHours;
+
+    @Value("${notifications.email.cleanup-interval-ms}")
+    private long intervalMs;
+
+    public EmailDeliveryCleanupJob(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "email-delivery-cleanup";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        return jdbcTemplate.update(CLEANUP_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)), limit);
+    }
+}
@@ -0,0 +1,188 @@
+package ru.stopro.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отправка писем из очереди email_deliveries.
+ *
+ * Работает на своём потоке, а не на потоке outbox или общем пуле
+ * планировщика: ограничение скорости ждёт здесь и больше никого не держит.
+ * Узлы делят очередь через FOR UPDATE SKIP LOCKED порциями по claim-size;
+ * порция, которую узел не закрыл за claim-timeout-seconds (узел упал),
+ * достаётся другому. Каждое письмо отмечается SENT сразу после отправки,
+ * а на отправку одной порции отводится не больше половины claim-timeout:
+ * что не успели — возвращается в очередь, а не перехватывается другим узлом
+ * посреди отправки. Поэтому рассылка любой длины не приводит к повторным письмам.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.email.enabled", havingValue = "true")
+public class EmailDeliveryWorker {
+
+    private static final String CLAIM_SQL =
+            "UPDATE email_deliveries d SET status = 'SENDING', claimed_by = ?, claimed_at = now() " +
+            "FROM (SELECT id FROM email_deliveries " +
+            "      WHERE status = 'PENDING' OR (status = 'SENDING' AND claimed_at < ?) " +
+            "      ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) c " +
+            "WHERE d.id = c.id " +
+            "RETURNING d.id, d.recipient_id, d.title, d.body";
+
+    private static final String RECIPIENTS_SQL =
+            "SELECT id, username FROM users WHERE id = ANY(?) AND is_deleted = false";
+
+    private static final String FINISH_SQL =
+            "UPDATE email_deliveries SET status = ?, sent_at = now(), claimed_at = NULL " +
+            "WHERE id = ? AND claimed_by = ? AND status = 'SENDING'";
+
+    private static final String RELEASE_SQL =
+            "UPDATE email_deliveries SET status = 'PENDING', claimed_by = NULL, claimed_at = NULL " +
+            "WHERE id = ANY(?) AND claimed_by = ? AND status = 'SENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailTransport transport;
+    private final RateLimiter rateLimiter;
+    private final Counter sent;
+    private final int claimSize;
+    private final long claimTimeoutSeconds;
+    private final long pollIntervalMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "email-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmailDeliveryWorker(JdbcTemplate jdbcTemplate,
+                               EmailTransport transport,
+                               MeterRegistry registry,
+                               @Value("${notifications.email.rate-per-second}") double ratePerSecond,
+                               @Value("${notifications.email.claim-size}") int claimSize,
+                               @Value("${notifications.email.claim-timeout-seconds}") long claimTimeoutSeconds,
+                               @Value("${notifications.email.poll-interval-ms}") long pollIntervalMs) {
+        if (claimSize / ratePerSecond >= claimTimeoutSeconds / 2d) {
+            throw new IllegalStateException("Порция писем отправляется дольше половины claim-timeout-seconds: "
+                    + "уменьшите claim-size или увеличьте claim-timeout-seconds");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transport = transport;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.sent = registry.counter("notifications.email.sent");
+        this.claimSize = claimSize;
+        this.claimTimeoutSeconds = claimTimeoutSeconds;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    void start() {
+        executor.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Отправить всё, что есть в очереди (порциями, пока она не опустеет)
+     */
+    void drain() {
+        try {
+            while (sendChunk() == claimSize) {
+                // следующая порция
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Email delivery failed", e);
+        }
+    }
+
+    /**
+     * Забрать и отправить одну порцию
+     *
+     * @return сколько писем забрано
+     */
+    int sendChunk() throws InterruptedException {
+        List<Delivery> chunk = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Delivery(
+                rs.getLong("id"),
+                rs.getObject("recipient_id", UUID.class),
+                rs.getString("title"),
+                rs.getString("body")
+        ), nodeId, Timestamp.valueOf(LocalDateTime.now().minusSeconds(claimTimeoutSeconds)), claimSize);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, String> addresses = addressesOf(chunk);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(claimTimeoutSeconds) / 2;
+        for (int i = 0; i < chunk.size(); i++) {
+            Delivery delivery = chunk.get(i);
+            String address = addresses.get(delivery.recipientId());
+            if (address == null) {
+                jdbcTemplate.update(FINISH_SQL, "SKIPPED", delivery.id(), nodeId);
+                continue;
+            }
+            if (System.nanoTime() > deadline) {
+                release(chunk.subList(i, chunk.size()));
+                break;
+            }
+            rateLimiter.acquire();
+            transport.send(address, delivery.title(), delivery.body());
+            if (jdbcTemplate.update(FINISH_SQL, "SENT", delivery.id(), nodeId) == 0) {
+                log.warn("Email delivery {} was reclaimed by another node while sending", delivery.id());
+            }
+            sent.increment();
+        }
+        return chunk.size();
+    }
+
+    private void release(List<Delivery> rest) {
+        Long[] ids = rest.stream().map(Delivery::id).toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(RELEASE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setString(2, nodeId);
+            return ps;
+        });
+    }
+
+    private Map<UUID, String> addressesOf(List<Delivery> chunk) {
+        Set<UUID> recipientIds = new LinkedHashSet<>();
+        for (Delivery delivery : chunk) {
+            recipientIds.add(delivery.recipientId());
+        }
+        Map<UUID, String> addresses = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RECIPIENTS_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", recipientIds.toArray()));
+            return ps;
+        }, rs -> {
+            addresses.put(rs.getObject("id", UUID.class), rs.getString("username"));
+        });
+        return addresses;
+    }
+
+    private record Delivery(long id, UUID recipientId, String title, String body) {
+    }
+}
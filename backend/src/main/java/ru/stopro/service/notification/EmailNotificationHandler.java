@@ -0,0 +1,63 @@
+package ru.stopro.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.outbox.OutboxEvent;
+import ru.stopro.service.outbox.OutboxHandler;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Письма из outbox — в очередь email_deliveries.
+ *
+ * Сам обработчик ничего не отправляет: одна вставка на пачку событий
+ * занимает миллисекунды, поэтому рассылка на всю школу не держит поток
+ * outbox дольше claim-timeout и не задерживает другие события. Отправляет
+ * письма {@link EmailDeliveryWorker}. Повторная доставка события ничего
+ * не дублирует: письмо однозначно задано событием и своим номером в нём.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.email.enabled", havingValue = "true")
+public class EmailNotificationHandler implements OutboxHandler {
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO email_deliveries (event_id, item_index, recipient_id, title, body) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (event_id, item_index) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmailNotificationHandler(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(OutboxService.NOTIFICATION_EMAIL);
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<Object[]> rows = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            int index = 0;
+            for (JsonNode item : event.payload().path("items")) {
+                rows.add(new Object[] {
+                        event.id(),
+                        index++,
+                        UUID.fromString(item.path("recipientId").asText()),
+                        item.path("title").asText(),
+                        item.path("body").asText(null)
+                });
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ENQUEUE_SQL, rows);
+        }
+    }
+}
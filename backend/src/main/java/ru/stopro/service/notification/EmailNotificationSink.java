@@ -0,0 +1,43 @@
+package ru.stopro.service.notification;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Почта: пачка уходит одним событием outbox, после коммита
+ * {@link EmailNotificationHandler} ставит письма в очередь, а отправляет их
+ * {@link EmailDeliveryWorker} с ограничением скорости
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.email.enabled", havingValue = "true")
+public class EmailNotificationSink implements NotificationSink {
+
+    private final OutboxService outboxService;
+
+    public EmailNotificationSink(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public void send(List<Notification> batch) {
+        List<Map<String, Object>> items = batch.stream()
+                .map(n -> Map.<String, Object>of(
+                        "recipientId", n.recipientId(),
+                        "title", n.title(),
+                        "body", n.body() != null ? n.body() : ""))
+                .toList();
+        // Пачки независимы: у каждой свой агрегат, чтобы они не ждали друг друга в outbox
+        outboxService.publish(OutboxService.NOTIFICATION, UUID.randomUUID(),
+                OutboxService.NOTIFICATION_EMAIL, Map.of("items", items));
+    }
+}
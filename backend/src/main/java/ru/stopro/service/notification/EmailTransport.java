@@ -0,0 +1,9 @@
+package ru.stopro.service.notification;
+
+/**
+ * Отправка одного письма (SMTP или заглушка)
+ */
+public interface EmailTransport {
+
+    void send(String address, String title, String body);
+}
@@ -0,0 +1,45 @@
+package ru.stopro.service.notification;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Входящие уведомления в приложении: пачка — один batch INSERT
+ * и одно обновление счётчиков непрочитанных
+ */
+@Component
+public class InboxNotificationSink implements NotificationSink {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, type, title, body, subject_id) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCounters unreadCounters;
+
+    public InboxNotificationSink(JdbcTemplate jdbcTemplate, UnreadCounters unreadCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.unreadCounters = unreadCounters;
+    }
+
+    @Override
+    public String name() {
+        return "inbox";
+    }
+
+    @Override
+    public void send(List<Notification> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch.stream()
+                .map(n -> new Object[] {n.recipientId(), n.type(), n.title(), n.body(), n.subjectId()})
+                .toList());
+        Map<UUID, Integer> delta = new HashMap<>();
+        for (Notification n : batch) {
+            delta.merge(n.recipientId(), 1, Integer::sum);
+        }
+        unreadCounters.add(delta);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.stopro.service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Локальная заглушка SMTP: пока почтового сервера нет, письмо пишется в лог
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.email.enabled", havingValue = "true")
+public class LogEmailTransport implements EmailTransport {
+
+    @Override
+    public void send(String address, String title, String body) {
+        log.debug("Email to {}: {}", address, title);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.stopro.service.notification;
+
+import java.util.UUID;
+
+/**
+ * Уведомление одному получателю
+ *
+ * @param type      тип (DEADLINE_REMINDER, ATTEMPT_FINISHED, ...)
+ * @param subjectId о чём уведомление (задание, попытка), может быть null
+ */
+public record Notification(UUID recipientId, String type, String title, String body, UUID subjectId) {
+}
@@ -0,0 +1,40 @@
+package ru.stopro.service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Рассылка уведомлений по всем каналам пачками по notifications.batch-size.
+ *
+ * Работает в транзакции вызывающего: уведомления (и записи в ledger у рассылок)
+ * фиксируются вместе, поэтому сбой посередине не оставляет полу-разосланных пачек.
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private final List<NotificationSink> sinks;
+    private final int batchSize;
+
+    public NotificationDispatcher(List<NotificationSink> sinks,
+                                  @Value("${notifications.batch-size}") int batchSize) {
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        log.info("Notification sinks: {}", sinks.stream().map(NotificationSink::name).toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void dispatch(List<Notification> notifications) {
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            List<Notification> batch = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+            for (NotificationSink sink : sinks) {
+                sink.send(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.stopro.service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Месячные секции notifications: создаёт секции на months-ahead месяцев вперёд
+ * и удаляет целиком те, что старше retention-months.
+ *
+ * Удаление секции — DROP TABLE вместо DELETE по строкам; непрочитанные
+ * в ней предварительно вычитаются из счётчиков. Если строки месяца успели
+ * попасть в секцию по умолчанию, при создании секции они переносятся в неё.
+ */
+@Slf4j
+@Component
+public class NotificationPartitionJob implements ClusterJob {
+
+    private static final String PREFIX = "notifications_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'notifications'";
+
+    private static final String CREATE_SQL =
+            "CREATE TABLE %s PARTITION OF notifications FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String STRAY_SQL =
+            "SELECT EXISTS (SELECT 1 FROM notifications_default WHERE created_at >= ? AND created_at < ?)";
+
+    private static final String STASH_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS notifications_stray (LIKE notifications) ON COMMIT DROP";
+
+    private static final String MOVE_OUT_SQL =
+            "WITH moved AS (DELETE FROM notifications_default WHERE created_at >= ? AND created_at < ? RETURNING *) " +
+            "INSERT INTO notifications_stray SELECT * FROM moved";
+
+    private static final String MOVE_IN_SQL =
+            "WITH moved AS (DELETE FROM notifications_stray RETURNING *) " +
+            "INSERT INTO notifications SELECT * FROM moved";
+
+    private static final String RELEASE_SQL =
+            "UPDATE notification_counters c SET unread = GREATEST(c.unread - d.n, 0), version = c.version + 1 " +
+            "FROM (SELECT user_id, count(*) AS n FROM %s WHERE read_at IS NULL GROUP BY user_id) d " +
+            "WHERE c.user_id = d.user_id " +
+            "RETURNING c.user_id, c.unread, c.version";
+
+    private static final String DROP_SQL = "DROP TABLE %s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${notifications.partitions.interval-ms}")
+    private long intervalMs;
+
+    @Value("${notifications.partitions.months-ahead}")
+    private int monthsAhead;
+
+    @Value("${notifications.partitions.retention-months}")
+    private int retentionMonths;
+
+    public NotificationPartitionJob(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "notification-partitions";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        Set<String> partitions = new HashSet<>(jdbcTemplate.queryForList(PARTITIONS_SQL, String.class));
+        YearMonth current = YearMonth.now();
+        int changed = 0;
+
+        for (int i = 0; i <= monthsAhead && changed < limit; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!partitions.contains(nameOf(month))) {
+                create(month);
+                changed++;
+            }
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : partitions) {
+            if (changed >= limit || !partition.startsWith(PREFIX)) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(partition.substring(PREFIX.length()), SUFFIX);
+            if (month.isBefore(oldestKept)) {
+                drop(partition);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private void create(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        Timestamp fromTs = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toTs = Timestamp.valueOf(to.atStartOfDay());
+        // Секция с DEFAULT не создаётся, пока в DEFAULT есть строки её диапазона
+        boolean stray = Boolean.TRUE.equals(jdbcTemplate.queryForObject(STRAY_SQL, Boolean.class, fromTs, toTs));
+        if (stray) {
+            jdbcTemplate.execute(STASH_SQL);
+            jdbcTemplate.update(MOVE_OUT_SQL, fromTs, toTs);
+        }
+        jdbcTemplate.execute(String.format(CREATE_SQL, nameOf(month), from, to));
+        if (stray) {
+            int moved = jdbcTemplate.update(MOVE_IN_SQL);
+            log.warn("Moved {} notifications from default partition to {}", moved, nameOf(month));
+        }
+        log.info("Created notification partition {}", nameOf(month));
+    }
+
+    private void drop(String partition) {
+        Map<UUID, UnreadCountEvent.Count> unread = new HashMap<>();
+        jdbcTemplate.query(String.format(RELEASE_SQL, partition), rs -> {
+            unread.put(rs.getObject("user_id", UUID.class),
+                    new UnreadCountEvent.Count(rs.getInt("unread"), rs.getLong("version")));
+        });
+        jdbcTemplate.execute(String.format(DROP_SQL, partition));
+        if (!unread.isEmpty()) {
+            eventPublisher.publishEvent(new UnreadCountEvent(unread));
+        }
+        log.info("Dropped notification partition {}", partition);
+    }
+
+    private static String nameOf(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+}
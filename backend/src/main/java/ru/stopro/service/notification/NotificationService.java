@@ -0,0 +1,115 @@
+package ru.stopro.service.notification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stopro.dto.common.CursorPage;
+import ru.stopro.dto.common.PageCursor;
+import ru.stopro.dto.notification.NotificationDto;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Входящие уведомления пользователя: лента, значок непрочитанных, отметка о прочтении.
+ *
+ * Лента читается keyset-пагинацией по (created_at, id) — свежие месяцы
+ * лежат в последних секциях, старые не затрагиваются. Значок берётся из
+ * {@link UnreadCounters}, прочтение меняет счётчик на число реально
+ * отмеченных строк.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class NotificationService {
+
+    private static final String COLUMNS =
+            "SELECT id, type, title, body, subject_id, created_at, read_at FROM notifications ";
+
+    private static final String FIRST_SQL = COLUMNS +
+            "WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String AFTER_SQL = COLUMNS +
+            "WHERE user_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String READ_SQL =
+            "UPDATE notifications SET read_at = now() " +
+            "WHERE user_id = ? AND id = ANY(?) AND read_at IS NULL";
+
+    private static final String READ_ALL_SQL =
+            "UPDATE notifications SET read_at = now() WHERE user_id = ? AND read_at IS NULL";
+
+    private static final RowMapper<NotificationDto> ROW_MAPPER = (rs, rowNum) -> NotificationDto.builder()
+            .id(rs.getObject("id", UUID.class))
+            .type(rs.getString("type"))
+            .title(rs.getString("title"))
+            .body(rs.getString("body"))
+            .subjectId(rs.getObject("subject_id", UUID.class))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .readAt(rs.getTimestamp("read_at") != null ? rs.getTimestamp("read_at").toLocalDateTime() : null)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCounters unreadCounters;
+
+    /**
+     * Страница входящих, свежие первыми
+     */
+    public CursorPage<NotificationDto> getInbox(UUID userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+
+        List<NotificationDto> rows = after == null
+                ? jdbcTemplate.query(FIRST_SQL, ROW_MAPPER, userId, limit + 1)
+                : jdbcTemplate.query(AFTER_SQL, ROW_MAPPER,
+                        userId, Timestamp.valueOf(after.sortKey()), after.id(), limit + 1);
+
+        return CursorPage.of(rows, limit, n -> n, n -> new PageCursor(n.getCreatedAt(), n.getId()));
+    }
+
+    public int getUnreadCount(UUID userId) {
+        return unreadCounters.get(userId);
+    }
+
+    /**
+     * Отметить уведомления прочитанными, возвращает новое число непрочитанных
+     */
+    @Transactional
+    public int markRead(UUID userId, List<UUID> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return unreadCounters.get(userId);
+        }
+        if (notificationIds.size() > CursorPage.MAX_SIZE) {
+            throw new IllegalArgumentException("Слишком много уведомлений за один запрос");
+        }
+        int updated = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(READ_SQL);
+            ps.setObject(1, userId);
+            ps.setArray(2, con.createArrayOf("uuid", notificationIds.toArray()));
+            return ps;
+        });
+        return decrement(userId, updated);
+    }
+
+    /**
+     * Отметить прочитанными все уведомления пользователя
+     */
+    @Transactional
+    public int markAllRead(UUID userId) {
+        return decrement(userId, jdbcTemplate.update(READ_ALL_SQL, userId));
+    }
+
+    private int decrement(UUID userId, int read) {
+        if (read > 0) {
+            return unreadCounters.add(Map.of(userId, -read)).getOrDefault(userId, 0);
+        }
+        return unreadCounters.get(userId);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.stopro.service.notification;
+
+import java.util.List;
+
+/**
+ * Канал доставки уведомлений (входящие в приложении, почта, ...).
+ *
+ * Вызывается внутри транзакции, которая создаёт уведомления: канал либо
+ * пишет в базу сам, либо ставит отправку в outbox — сетевых вызовов здесь нет.
+ */
+public interface NotificationSink {
+
+    String name();
+
+    /**
+     * Принять пачку уведомлений (не больше notifications.batch-size)
+     */
+    void send(List<Notification> batch);
+}
@@ -0,0 +1,40 @@
+package ru.stopro.service.notification;
+
+/**
+ * Ограничение скорости (token bucket): не больше ratePerSecond в среднем,
+ * всплеск — до одной секунды запаса
+ */
+class RateLimiter {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    RateLimiter(double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond должен быть больше 0");
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1, ratePerSecond);
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Дождаться разрешения на одну операцию
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return;
+            }
+            long waitNanos = (long) Math.ceil((1 - tokens) / ratePerNano);
+            wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.stopro.service.notification;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Новые значения счётчиков непрочитанных (пользователь → количество и версия строки).
+ *
+ * Публикуется внутри транзакции, кэш обновляется после её коммита.
+ */
+public record UnreadCountEvent(Map<UUID, Count> counts) {
+
+    public record Count(int unread, long version) {
+    }
+}
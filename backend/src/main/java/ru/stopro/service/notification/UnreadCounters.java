@@ -0,0 +1,145 @@
+package ru.stopro.service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Счётчики непрочитанных уведомлений.
+ *
+ * Источник истины — строка notification_counters: она меняется в той же
+ * транзакции, что и уведомления, на разницу реально вставленных или прочитанных
+ * строк. Redis хранит копию для значка на каждой странице; промах кэша —
+ * чтение строки по первичному ключу, COUNT(*) по уведомлениям не делается никогда.
+ *
+ * Строка несёт версию, растущую при каждом изменении, и кэш принимает только
+ * более новую версию. Поэтому значение, прочитанное при промахе до чужого
+ * коммита, не затрёт записанное после коммита, в каком бы порядке
+ * ни пришли записи в Redis.
+ */
+@Slf4j
+@Component
+public class UnreadCounters {
+
+    private static final String PREFIX = "notifications:unread:";
+
+    private static final String ADD_SQL =
+            "INSERT INTO notification_counters (user_id, unread, version) " +
+            "SELECT t.user_id, t.delta, 1 FROM unnest(?::uuid[], ?::int[]) AS t(user_id, delta) " +
+            "ON CONFLICT (user_id) DO UPDATE " +
+            "SET unread = GREATEST(notification_counters.unread + EXCLUDED.unread, 0), " +
+            "version = notification_counters.version + 1 " +
+            "RETURNING user_id, unread, version";
+
+    private static final String GET_SQL =
+            "SELECT unread, version FROM notification_counters WHERE user_id = ?";
+
+    /**
+     * Записать "непрочитано:версия", только если в кэше нет значения с версией не меньше
+     * (ARGV: непрочитано, версия, ttl в секундах)
+     */
+    private static final RedisScript<Long> PUT_IF_NEWER = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current then " +
+            "  local sep = string.find(current, ':', 1, true) " +
+            "  if sep and tonumber(string.sub(current, sep + 1)) >= tonumber(ARGV[2]) then return 0 end " +
+            "end " +
+            "redis.call('SET', KEYS[1], ARGV[1] .. ':' .. ARGV[2], 'EX', ARGV[3]) " +
+            "return 1", Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redis;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration ttl;
+
+    public UnreadCounters(JdbcTemplate jdbcTemplate,
+                          StringRedisTemplate redis,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${notifications.unread-cache-ttl-minutes}") long ttlMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redis = redis;
+        this.eventPublisher = eventPublisher;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Изменить счётчики на delta (отрицательная — прочитано), возвращает новые значения
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<UUID, Integer> add(Map<UUID, Integer> delta) {
+        if (delta.isEmpty()) {
+            return Map.of();
+        }
+        // Строки счётчиков блокируются в порядке id: параллельные пачки не взаимоблокируются
+        TreeMap<UUID, Integer> ordered = new TreeMap<>(delta);
+        Map<UUID, Integer> unread = new HashMap<>();
+        Map<UUID, UnreadCountEvent.Count> counts = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ADD_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", ordered.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("integer", ordered.values().toArray()));
+            return ps;
+        }, rs -> {
+            UUID userId = rs.getObject("user_id", UUID.class);
+            int value = rs.getInt("unread");
+            unread.put(userId, value);
+            counts.put(userId, new UnreadCountEvent.Count(value, rs.getLong("version")));
+        });
+        eventPublisher.publishEvent(new UnreadCountEvent(counts));
+        return unread;
+    }
+
+    /**
+     * Количество непрочитанных: из кэша, при промахе — строка счётчика
+     */
+    public int get(UUID userId) {
+        try {
+            // Формат значения: "<непрочитано>:<версия>"
+            String cached = redis.opsForValue().get(PREFIX + userId);
+            int separator = cached != null ? cached.indexOf(':') : -1;
+            if (separator > 0) {
+                return Integer.parseInt(cached.substring(0, separator));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unread counter cache read failed: {}", e.getMessage());
+        }
+        List<UnreadCountEvent.Count> rows = jdbcTemplate.query(GET_SQL,
+                (rs, i) -> new UnreadCountEvent.Count(rs.getInt("unread"), rs.getLong("version")), userId);
+        // Строки ещё нет — версия 0, первое изменение её перекроет
+        UnreadCountEvent.Count count = rows.isEmpty() ? new UnreadCountEvent.Count(0, 0) : rows.get(0);
+        put(userId, count);
+        return count.unread();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUnreadCount(UnreadCountEvent event) {
+        event.counts().forEach(this::put);
+    }
+
+    private void put(UUID userId, UnreadCountEvent.Count count) {
+        try {
+            redis.execute(PUT_IF_NEWER, List.of(PREFIX + userId),
+                    Integer.toString(count.unread()), Long.toString(count.version()), Long.toString(ttl.toSeconds()));
+        } catch (RuntimeException e) {
+            // Кэш догонит значение при следующем изменении или по истечении ttl
+            log.warn("Unread counter cache write failed: {}", e.getMessage());
+        }
+    }
+}
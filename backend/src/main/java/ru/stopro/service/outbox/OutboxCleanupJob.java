@@ -0,0 +1,53 @@
+package ru.stopro.service.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.stopro.service.cluster.ClusterJob;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Удаление опубликованных событий outbox старше retention-hours.
+ *
+ * Удаляет порциями, а не одним DELETE на всю таблицу: после всплеска
+ * событий длинная транзакция не держит блокировки и не раздувает WAL.
+ */
+@Component
+public class OutboxCleanupJob implements ClusterJob {
+
+    private static final String CLEANUP_SQL =
+            "DELETE FROM outbox_events WHERE id IN (" +
+            "  SELECT id FROM outbox_events WHERE status = 'PUBLISHED' AND published_at < ? " +
+            "  LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.retention-hours}")
+    private int retentionHours;
+
+    @Value("${outbox.cleanup-interval-ms}")
+    private long intervalMs;
+
+    public OutboxCleanupJob(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "outbox-cleanup";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public int processChunk(int limit) {
+        return jdbcTemplate.update(CLEANUP_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)), limit);
+    }
+}
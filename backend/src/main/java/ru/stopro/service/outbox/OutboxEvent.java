@@ -0,0 +1,20 @@
+package ru.stopro.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Событие из outbox, переданное обработчику
+ *
+ * @param id            номер события (растёт в порядке записи)
+ * @param aggregateType тип агрегата (attempt, assignment)
+ * @param aggregateId   id агрегата; события одного агрегата доставляются по порядку
+ * @param eventType     тип события
+ * @param payload       данные события
+ * @param retryCount    сколько раз доставка уже не удалась
+ */
+public record OutboxEvent(long id, String aggregateType, UUID aggregateId, String eventType,
+                          JsonNode payload, int retryCount, LocalDateTime createdAt) {
+}
@@ -0,0 +1,24 @@
+package ru.stopro.service.outbox;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Обработчик событий outbox.
+ *
+ * Доставка «хотя бы один раз»: после сбоя узла или ошибки событие придёт
+ * снова, поэтому обработка должна быть идемпотентной (ключ — {@link OutboxEvent#id()}).
+ */
+public interface OutboxHandler {
+
+    /**
+     * Типы событий, которые обрабатывает этот обработчик
+     */
+    Set<String> eventTypes();
+
+    /**
+     * Обработать пачку событий одного типа (в порядке id).
+     * Исключение — вся пачка будет доставлена повторно.
+     */
+    void handle(List<OutboxEvent> events);
+}
@@ -0,0 +1,167 @@
+package ru.stopro.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Доставка событий outbox обработчикам.
+ *
+ * Каждый узел забирает пачки через FOR UPDATE SKIP LOCKED, поэтому узлы
+ * делят поток событий без координации. Порядок по агрегату сохраняется:
+ * забирается только самое раннее необработанное событие агрегата, следующее
+ * ждёт, пока предыдущее не будет опубликовано (или не уйдёт в DEAD).
+ * Ошибки повторяются с экспоненциальной задержкой.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_events o SET status = 'PROCESSING', claimed_at = now(), claimed_by = ? " +
+            "FROM (SELECT e.id FROM outbox_events e " +
+            "      WHERE ((e.status = 'PENDING' AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= now())) " +
+            "          OR (e.status = 'PROCESSING' AND e.claimed_at < ?)) " +
+            "        AND NOT EXISTS (SELECT 1 FROM outbox_events p " +
+            "                        WHERE p.aggregate_id = e.aggregate_id AND p.id < e.id " +
+            "                          AND p.status IN ('PENDING', 'PROCESSING')) " +
+            "      ORDER BY e.id LIMIT ? FOR UPDATE SKIP LOCKED) c " +
+            "WHERE o.id = c.id " +
+            "RETURNING o.id, o.aggregate_type, o.aggregate_id, o.event_type, o.payload, o.retry_count, o.created_at";
+
+    private static final String PUBLISHED_SQL =
+            "UPDATE outbox_events SET status = 'PUBLISHED', published_at = now(), claimed_at = NULL, last_error = NULL " +
+            "WHERE id = ? AND claimed_by = ? AND status = 'PROCESSING'";
+
+    private static final String RESCHEDULE_SQL =
+            "UPDATE outbox_events SET status = ?, retry_count = ?, next_attempt_at = ?, last_error = ?, " +
+            "claimed_at = NULL WHERE id = ? AND claimed_by = ? AND status = 'PROCESSING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.max-retries}")
+    private int maxRetries;
+
+    @Value("${outbox.backoff-base-ms}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.backoff-max-ms}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.claim-timeout-minutes}")
+    private int claimTimeoutMinutes;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, List<OutboxHandler> handlers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        for (OutboxHandler handler : handlers) {
+            for (String eventType : handler.eventTypes()) {
+                if (this.handlers.put(eventType, handler) != null) {
+                    throw new IllegalStateException("Два обработчика для события " + eventType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Доставить всё, что готово (пачками, пока очередь не опустеет)
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms}")
+    public void relay() {
+        try {
+            List<OutboxEvent> batch;
+            do {
+                batch = claim();
+                deliver(batch);
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    private List<OutboxEvent> claim() {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEvent(
+                rs.getLong("id"),
+                rs.getString("aggregate_type"),
+                rs.getObject("aggregate_id", UUID.class),
+                rs.getString("event_type"),
+                readPayload(rs.getString("payload")),
+                rs.getInt("retry_count"),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        ), nodeId, Timestamp.valueOf(LocalDateTime.now().minusMinutes(claimTimeoutMinutes)), batchSize);
+    }
+
+    private void deliver(List<OutboxEvent> batch) {
+        Map<String, List<OutboxEvent>> byType = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byType.computeIfAbsent(event.eventType(), t -> new ArrayList<>()).add(event);
+        }
+        List<Object[]> published = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (Map.Entry<String, List<OutboxEvent>> entry : byType.entrySet()) {
+            List<OutboxEvent> events = entry.getValue();
+            OutboxHandler handler = handlers.get(entry.getKey());
+            if (handler == null) {
+                events.forEach(e -> failed.add(failure(e, "Нет обработчика", false)));
+                continue;
+            }
+            try {
+                handler.handle(events);
+                events.forEach(e -> published.add(new Object[] {e.id(), nodeId}));
+            } catch (RuntimeException e) {
+                log.warn("Outbox handler for {} failed on {} events: {}", entry.getKey(), events.size(), e.getMessage());
+                events.forEach(event -> failed.add(failure(event, e.getMessage(), true)));
+            }
+        }
+        if (!published.isEmpty()) {
+            jdbcTemplate.batchUpdate(PUBLISHED_SQL, published);
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESCHEDULE_SQL, failed);
+        }
+    }
+
+    private Object[] failure(OutboxEvent event, String error, boolean retryable) {
+        int retries = event.retryCount() + 1;
+        if (error != null && error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+        if (!retryable || retries > maxRetries) {
+            log.error("Outbox event {} ({}) moved to DEAD: {}", event.id(), event.eventType(), error);
+            return new Object[] {"DEAD", retries, null, error, event.id(), nodeId};
+        }
+        long delay = Math.min(backoffMaxMs, backoffBaseMs << Math.min(retries - 1, 20));
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        return new Object[] {"PENDING", retries, Timestamp.valueOf(LocalDateTime.now().plusNanos(delay * 1_000_000)),
+                error, event.id(), nodeId};
+    }
+
+    private JsonNode readPayload(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Некорректный payload события outbox", e);
+        }
+    }
+}
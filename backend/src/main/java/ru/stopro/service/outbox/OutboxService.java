@@ -0,0 +1,48 @@
+package ru.stopro.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Запись событий в outbox.
+ *
+ * Вызывается только внутри транзакции, меняющей данные: событие сохраняется
+ * атомарно вместе с изменением, а сетевые вызовы делает {@link OutboxRelay}
+ * уже после коммита. Без транзакции — ошибка, а не тихая потеря события.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String ATTEMPT = "attempt";
+    public static final String NOTIFICATION = "notification";
+
+    public static final String ATTEMPT_FINISHED = "attempt.finished";
+    public static final String ATTEMPT_AI_CHECKED = "attempt.ai-checked";
+    public static final String NOTIFICATION_EMAIL = "notification.email";
+    public static final String LEADERBOARD_UPDATE = "leaderboard.update";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, UUID aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать событие " + eventType, e);
+        }
+        jdbcTemplate.update(INSERT_SQL, aggregateType, aggregateId, eventType, json);
+    }
+}
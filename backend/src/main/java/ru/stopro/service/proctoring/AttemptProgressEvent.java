@@ -0,0 +1,11 @@
+package ru.stopro.service.proctoring;
+
+import ru.stopro.dto.proctoring.ProgressRowDto;
+
+import java.util.UUID;
+
+/**
+ * Прогресс ученика по заданию изменился (старт, ответ, завершение)
+ */
+public record AttemptProgressEvent(UUID assignmentId, ProgressRowDto row) {
+}
@@ -0,0 +1,172 @@
+package ru.stopro.service.proctoring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import ru.stopro.dto.proctoring.ProctoringFrameDto;
+import ru.stopro.dto.proctoring.ProgressRowDto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Живая панель учителя: прогресс учеников по заданию в памяти.
+ *
+ * Доска существует, пока на задание подписан хотя бы один учитель:
+ * при первой подписке она заполняется из базы, дальше обновляется событиями
+ * {@link AttemptProgressEvent} (свой узел — после коммита, другие — через
+ * Redis pub/sub). Изменения не отправляются сразу: строки помечаются,
+ * и раз в frame-interval уходит один кадр с изменившимися строками —
+ * всплеск ответов в начале теста не превращается в поток сообщений.
+ */
+@Slf4j
+@Component
+public class ProctoringBoard implements MessageListener {
+
+    public static final String CHANNEL = "proctoring:progress";
+
+    private record Relay(String origin, UUID assignmentId, ProgressRowDto row) {
+    }
+
+    private static final class Board {
+        final Map<UUID, ProgressRowDto> rows = new ConcurrentHashMap<>();
+        final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+        final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+    }
+
+    private final ConcurrentHashMap<UUID, Board> boards = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ProctoringService proctoringService;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+
+    public ProctoringBoard(ProctoringService proctoringService, StringRedisTemplate redis, ObjectMapper objectMapper) {
+        this.proctoringService = proctoringService;
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Подписать сессию учителя и отправить ей полный снимок
+     */
+    public void subscribe(UUID assignmentId, WebSocketSession session) throws IOException {
+        Board board = boards.computeIfAbsent(assignmentId, id -> new Board());
+        board.sessions.add(session);
+        if (board.rows.isEmpty()) {
+            // События, пришедшие во время загрузки, новее снимка — их не перезаписываем
+            for (ProgressRowDto row : proctoringService.loadRows(assignmentId)) {
+                board.rows.putIfAbsent(row.getAttemptId(), row);
+            }
+        }
+        session.sendMessage(frame(ProctoringFrameDto.SNAPSHOT, assignmentId, new ArrayList<>(board.rows.values())));
+    }
+
+    public void unsubscribe(UUID assignmentId, WebSocketSession session) {
+        boards.computeIfPresent(assignmentId, (id, board) -> {
+            board.sessions.remove(session);
+            return board.sessions.isEmpty() ? null : board;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProgress(AttemptProgressEvent event) {
+        apply(event.assignmentId(), event.row());
+        try {
+            redis.convertAndSend(CHANNEL,
+                    objectMapper.writeValueAsString(new Relay(nodeId, event.assignmentId(), event.row())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to relay proctoring progress: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!nodeId.equals(relay.origin())) {
+                apply(relay.assignmentId(), relay.row());
+            }
+        } catch (IOException e) {
+            log.warn("Malformed proctoring relay: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Разослать накопившиеся изменения: не больше одного кадра на задание за интервал
+     */
+    @Scheduled(fixedDelayString = "${proctoring.frame-interval-ms}")
+    public void flush() {
+        boards.forEach((assignmentId, board) -> {
+            if (board.dirty.isEmpty()) {
+                return;
+            }
+            List<ProgressRowDto> changed = new ArrayList<>();
+            for (Iterator<UUID> it = board.dirty.iterator(); it.hasNext(); ) {
+                UUID attemptId = it.next();
+                it.remove();
+                ProgressRowDto row = board.rows.get(attemptId);
+                if (row != null) {
+                    changed.add(row);
+                }
+            }
+            TextMessage frame;
+            try {
+                frame = frame(ProctoringFrameDto.DELTA, assignmentId, changed);
+            } catch (IOException e) {
+                log.error("Failed to serialize proctoring frame", e);
+                return;
+            }
+            for (WebSocketSession session : board.sessions) {
+                try {
+                    session.sendMessage(frame);
+                } catch (IOException | RuntimeException e) {
+                    // Клиент не успевает принимать кадры или отключился
+                    unsubscribe(assignmentId, session);
+                    closeQuietly(session);
+                }
+            }
+        });
+    }
+
+    private void apply(UUID assignmentId, ProgressRowDto row) {
+        Board board = boards.get(assignmentId);
+        if (board == null) {
+            return;
+        }
+        board.rows.merge(row.getAttemptId(), row,
+                (old, fresh) -> fresh.getUpdatedAt().isBefore(old.getUpdatedAt()) ? old : fresh);
+        board.dirty.add(row.getAttemptId());
+    }
+
+    private TextMessage frame(String type, UUID assignmentId, List<ProgressRowDto> rows) throws JsonProcessingException {
+        return new TextMessage(objectMapper.writeValueAsString(ProctoringFrameDto.builder()
+                .type(type)
+                .assignmentId(assignmentId)
+                .rows(rows)
+                .build()));
+    }
+
+    private static void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException ignored) {
+            // Соединение уже закрыто
+        }
+    }
+}
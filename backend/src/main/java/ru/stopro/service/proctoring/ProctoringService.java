@@ -0,0 +1,55 @@
+package ru.stopro.service.proctoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stopro.domain.entity.Assignment;
+import ru.stopro.domain.entity.User;
+import ru.stopro.domain.enums.UserRole;
+import ru.stopro.dto.proctoring.ProgressRowDto;
+import ru.stopro.repository.AssignmentRepository;
+import ru.stopro.repository.AttemptRepository;
+import ru.stopro.repository.UserRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Данные живой панели учителя из базы: права доступа и начальный снимок
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProctoringService {
+
+    private final AttemptRepository attemptRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Проверить, что пользователь — учитель, создавший задание
+     *
+     * @throws AccessDeniedException если нет
+     */
+    public void checkAccess(String username, UUID assignmentId) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new AccessDeniedException("User not found"));
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new AccessDeniedException("Assignment not found"));
+        if (user.getRole() != UserRole.TEACHER
+                || assignment.getTeacher() == null
+                || !assignment.getTeacher().getId().equals(user.getId())) {
+            throw new AccessDeniedException("Нет доступа к заданию");
+        }
+    }
+
+    /**
+     * Текущий прогресс всех учеников по заданию
+     */
+    public List<ProgressRowDto> loadRows(UUID assignmentId) {
+        return attemptRepository.findForProctoring(assignmentId).stream()
+                .map(ProgressRowDto::fromEntity)
+                .toList();
+    }
+}
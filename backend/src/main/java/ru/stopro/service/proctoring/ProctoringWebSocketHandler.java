@@ -0,0 +1,62 @@
+package ru.stopro.service.proctoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.UUID;
+
+/**
+ * WebSocket живой панели учителя: /ws/proctoring?assignmentId=...&amp;token=...
+ *
+ * Права проверяются при рукопожатии ({@link ru.stopro.security.WebSocketAuthInterceptor}).
+ * Отправка идёт через ConcurrentWebSocketSessionDecorator: медленный клиент
+ * копит буфер до предела и отключается, не задерживая остальных.
+ */
+@Slf4j
+@Component
+public class ProctoringWebSocketHandler extends TextWebSocketHandler {
+
+    public static final String ASSIGNMENT_ID = "assignmentId";
+    private static final String DECORATED = "decoratedSession";
+
+    private final ProctoringBoard board;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    public ProctoringWebSocketHandler(ProctoringBoard board,
+                                      @Value("${proctoring.send-time-limit-ms}") int sendTimeLimitMs,
+                                      @Value("${proctoring.buffer-size-limit}") int bufferSizeLimit) {
+        this.board = board;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        UUID assignmentId = (UUID) session.getAttributes().get(ASSIGNMENT_ID);
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit);
+        session.getAttributes().put(DECORATED, decorated);
+        board.subscribe(assignmentId, decorated);
+        log.debug("Proctoring session {} subscribed to assignment {}", session.getId(), assignmentId);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // Канал односторонний: сообщения клиента (пинги) не обрабатываются
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        UUID assignmentId = (UUID) session.getAttributes().get(ASSIGNMENT_ID);
+        WebSocketSession decorated = (WebSocketSession) session.getAttributes().get(DECORATED);
+        if (assignmentId != null && decorated != null) {
+            board.unsubscribe(assignmentId, decorated);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.stopro.service.search;
+
+import ru.stopro.service.latex.LatexToken;
+import ru.stopro.service.latex.LatexTokenizer;
+import ru.stopro.service.latex.LatexValidator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Поисковый текст задачи: условие без разметки и математические ключевые слова.
+ *
+ * Поиск идёт по content_plain и keywords, а не по сырому LaTeX: в plain-тексте
+ * нет команд и скобок, а ключевые слова находят задачу по теме даже тогда,
+ * когда в условии есть только формула (\log_2 x — «логарифм»).
+ */
+public final class QuestionTextExtractor {
+
+    /**
+     * Ключевое слово, команды LaTeX и основы слов, по которым оно ставится
+     */
+    private record Rule(String keyword, Set<String> commands, List<String> stems) {
+    }
+
+    private static final List<Rule> RULES = List.of(
+            new Rule("логарифм", Set.of("log", "ln", "lg"), List.of("логарифм")),
+            new Rule("производная", Set.of("prime"), List.of("производн", "касательн", "экстремум")),
+            new Rule("первообразная", Set.of("int", "iint", "oint"), List.of("первообразн", "интеграл")),
+            new Rule("тригонометрия",
+                    Set.of("sin", "cos", "tan", "cot", "tg", "ctg", "sec", "csc",
+                            "arcsin", "arccos", "arctan", "arctg", "arcctg"),
+                    List.of("синус", "косинус", "тангенс", "котангенс", "тригонометр")),
+            new Rule("корень", Set.of("sqrt"), List.of("корн", "корен", "радикал")),
+            new Rule("степень", Set.of("exp"), List.of("степен", "показательн")),
+            new Rule("неравенство", Set.of("leq", "geq", "le", "ge", "leqslant", "geqslant"),
+                    List.of("неравенств")),
+            new Rule("уравнение", Set.of(), List.of("уравнени")),
+            new Rule("система", Set.of(), List.of("систем")),
+            new Rule("модуль", Set.of(), List.of("модул", "абсолютн")),
+            new Rule("предел", Set.of("lim"), List.of("предел")),
+            new Rule("вероятность", Set.of(), List.of("вероятн", "случайн", "монет", "кубик")),
+            new Rule("прогрессия", Set.of(), List.of("прогресси")),
+            new Rule("проценты", Set.of(), List.of("процент")),
+            new Rule("параметр", Set.of(), List.of("параметр")),
+            new Rule("вектор", Set.of("vec", "overrightarrow"), List.of("вектор")),
+            new Rule("треугольник", Set.of("triangle"), List.of("треугольник")),
+            new Rule("окружность", Set.of(), List.of("окружност", "радиус", "диаметр", "вписан", "описан")),
+            new Rule("площадь", Set.of(), List.of("площад")),
+            new Rule("объем", Set.of(),
+                    List.of("объем", "параллелепипед", "призм", "пирамид", "цилиндр", "конус", "сфер")),
+            new Rule("функция", Set.of(), List.of("функци", "график"))
+    );
+
+    private QuestionTextExtractor() {
+    }
+
+    /**
+     * Поисковый текст задачи
+     *
+     * @param contentPlain условие без разметки (ё заменена на е)
+     * @param keywords     ключевые слова через запятую, в нижнем регистре (пустая строка, если нет)
+     */
+    public record SearchText(String contentPlain, String keywords) {
+    }
+
+    public static SearchText extract(String content) {
+        return extract(content, LatexValidator.validate(content).plainText());
+    }
+
+    /**
+     * Поисковый текст по условию и уже полученному из валидатора plain-тексту
+     */
+    public static SearchText extract(String content, String plainText) {
+        if (content == null || content.isBlank()) {
+            return new SearchText(null, "");
+        }
+        String contentPlain = replaceYo(plainText);
+        String normalized = normalize(contentPlain);
+        Set<String> commands = commandsOf(content);
+
+        StringJoiner keywords = new StringJoiner(",");
+        for (Rule rule : RULES) {
+            if (matches(rule, commands, normalized)) {
+                keywords.add(rule.keyword());
+            }
+        }
+        return new SearchText(contentPlain, keywords.toString());
+    }
+
+    /**
+     * Нормализация для поиска: нижний регистр, ё → е, схлопнутые пробелы
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        return replaceYo(text).toLowerCase(Locale.ROOT).strip().replaceAll("\\s+", " ");
+    }
+
+    private static String replaceYo(String text) {
+        return text.replace('ё', 'е').replace('Ё', 'Е');
+    }
+
+    private static boolean matches(Rule rule, Set<String> commands, String normalized) {
+        for (String command : rule.commands()) {
+            if (commands.contains(command)) {
+                return true;
+            }
+        }
+        for (String stem : rule.stems()) {
+            if (normalized.contains(stem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> commandsOf(String content) {
+        Set<String> commands = new HashSet<>();
+        LatexTokenizer tokenizer = new LatexTokenizer(content);
+        LatexToken.Type type;
+        while ((type = tokenizer.next()) != null) {
+            if (type == LatexToken.Type.COMMAND && tokenizer.end() - tokenizer.start() > 1) {
+                commands.add(content.substring(tokenizer.start() + 1, tokenizer.end()));
+            } else if (type == LatexToken.Type.CHAR && content.charAt(tokenizer.start()) == '\'') {
+                // f'(x) — штрих производной
+                commands.add("prime");
+            }
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.stopro.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Заполнение content_plain и keywords для уже существующих задач.
+ *
+ * Идёт по таблице пачками по id (keyset), каждая пачка — отдельная короткая
+ * транзакция с одним batch UPDATE, так что длинных блокировок нет,
+ * а прерванный проход просто продолжится при следующем запуске.
+ */
+@Slf4j
+@Service
+public class SearchTextBackfillService {
+
+    private static final String SELECT_MISSING_SQL =
+            "SELECT id, content FROM questions " +
+            "WHERE id > ? AND (content_plain IS NULL OR keywords IS NULL) ORDER BY id LIMIT ?";
+
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, content FROM questions WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_SQL =
+            "UPDATE questions SET content_plain = ?, keywords = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${question-search.backfill-chunk-size}")
+    private int chunkSize;
+
+    public SearchTextBackfillService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Дозаполнить задачи без поискового текста (в фоне после старта приложения)
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        backfill(false);
+    }
+
+    /**
+     * Запустить проход в фоне (если проход уже идёт, вызов ничего не делает)
+     *
+     * @param all пересчитать все задачи, а не только незаполненные (после изменения правил)
+     */
+    @Async
+    public void run(boolean all) {
+        backfill(all);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void backfill(boolean all) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long updated = 0;
+        try {
+            UUID after = new UUID(0L, 0L);
+            while (true) {
+                List<Object[]> chunk = new ArrayList<>(chunkSize);
+                jdbcTemplate.query(all ? SELECT_ALL_SQL : SELECT_MISSING_SQL, rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    QuestionTextExtractor.SearchText text = QuestionTextExtractor.extract(rs.getString("content"));
+                    chunk.add(new Object[] {text.contentPlain(), text.keywords(), id});
+                }, after, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, chunk));
+                updated += chunk.size();
+                after = (UUID) chunk.get(chunk.size() - 1)[2];
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            log.info("Search text backfill finished: {} questions in {} ms",
+                    updated, System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("Search text backfill failed after {} questions", updated, e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.stopro.service.stream;
+
+import ru.stopro.dto.attempt.AttemptUpdateDto;
+
+/**
+ * Попытка изменилась; ученику уходит SSE-сообщение после коммита транзакции
+ */
+public record AttemptChangedEvent(AttemptUpdateDto update) {
+}
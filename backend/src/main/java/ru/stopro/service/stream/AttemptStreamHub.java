@@ -0,0 +1,176 @@
+package ru.stopro.service.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.stopro.dto.attempt.AttemptUpdateDto;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка изменений попыток ученикам по SSE.
+ *
+ * Открытое соединение — это только SseEmitter в памяти, поток на него
+ * не тратится; отправка идёт в виртуальных потоках, поэтому медленный клиент
+ * никого не задерживает. Изменение рассылается после коммита транзакции:
+ * своим подписчикам сразу, остальным узлам — через Redis pub/sub.
+ */
+@Slf4j
+@Component
+public class AttemptStreamHub implements MessageListener {
+
+    public static final String CHANNEL = "attempts:updates";
+
+    /**
+     * Сообщение между узлами; origin — чтобы узел не доставил своё изменение дважды
+     */
+    private record Relay(String origin, AttemptUpdateDto update) {
+    }
+
+    private final ConcurrentHashMap<UUID, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxPerStudent;
+
+    public AttemptStreamHub(StringRedisTemplate redis,
+                            ObjectMapper objectMapper,
+                            MeterRegistry registry,
+                            @Value("${attempt-stream.timeout-ms}") long timeoutMs,
+                            @Value("${attempt-stream.max-connections-per-student}") int maxPerStudent) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxPerStudent = maxPerStudent;
+        Gauge.builder("attempt.stream.connections", connections, AtomicInteger::get)
+                .description("Открытые SSE-соединения")
+                .register(registry);
+    }
+
+    /**
+     * Подписать ученика на изменения его попыток
+     */
+    public SseEmitter subscribe(UUID studentId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        SseEmitter[] evicted = new SseEmitter[1];
+        emitters.compute(studentId, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            // Слишком много вкладок: одно из прежних соединений закрываем
+            if (set.size() >= maxPerStudent) {
+                evicted[0] = set.iterator().next();
+                set.remove(evicted[0]);
+                connections.decrementAndGet();
+            }
+            set.add(emitter);
+            return set;
+        });
+        connections.incrementAndGet();
+        if (evicted[0] != null) {
+            evicted[0].complete();
+        }
+        emitter.onCompletion(() -> remove(studentId, emitter));
+        emitter.onTimeout(() -> remove(studentId, emitter));
+        emitter.onError(e -> remove(studentId, emitter));
+        send(studentId, emitter, SseEmitter.event().name("ready").reconnectTime(3000).data("ok"));
+        return emitter;
+    }
+
+    /**
+     * Изменение закоммичено (или сделано вне транзакции)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttemptChanged(AttemptChangedEvent event) {
+        deliver(event.update());
+        try {
+            redis.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Relay(nodeId, event.update())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to relay attempt update {}: {}", event.update().getAttemptId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Изменение с другого узла
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!nodeId.equals(relay.origin())) {
+                deliver(relay.update());
+            }
+        } catch (IOException e) {
+            log.warn("Malformed attempt update relay: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Комментарий-пинг: держит соединение через прокси и выявляет закрытые клиентом
+     */
+    @Scheduled(fixedDelayString = "${attempt-stream.heartbeat-ms}")
+    public void heartbeat() {
+        emitters.forEach((studentId, set) -> set.forEach(emitter ->
+                senders.execute(() -> send(studentId, emitter, SseEmitter.event().comment("ping")))));
+    }
+
+    private void deliver(AttemptUpdateDto update) {
+        UUID studentId = update.getStudentId();
+        Set<SseEmitter> set = studentId != null ? emitters.get(studentId) : null;
+        if (set == null) {
+            return;
+        }
+        for (SseEmitter emitter : set) {
+            senders.execute(() -> send(studentId, emitter, SseEmitter.event()
+                    .name("attempt")
+                    .data(update, MediaType.APPLICATION_JSON)));
+        }
+    }
+
+    private void send(UUID studentId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Клиент ушёл: соединение закрываем и забываем
+            remove(studentId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(UUID studentId, SseEmitter emitter) {
+        emitters.computeIfPresent(studentId, (id, set) -> {
+            if (set.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+        emitters.values().forEach(set -> set.forEach(SseEmitter::complete));
+    }
+}
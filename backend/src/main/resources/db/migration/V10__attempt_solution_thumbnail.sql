@@ -0,0 +1,8 @@
+-- =============================================
+-- СТОПРО — V10: Миниатюра изображения решения
+-- Полное фото и миниатюра лежат в хранилище файлов (blobs),
+-- в попытке — ссылки /api/v1/blobs/<hash>
+-- =============================================
+
+ALTER TABLE attempts
+    ADD COLUMN IF NOT EXISTS solution_thumbnail_url VARCHAR(500);
@@ -0,0 +1,16 @@
+-- =============================================
+-- СТОПРО — V11: Очередь AI-проверки на таблице attempts
+-- Воркеры забирают пачки через FOR UPDATE SKIP LOCKED,
+-- celery_task_id хранит токен захвата пачки
+-- =============================================
+
+ALTER TABLE attempts
+    ADD COLUMN IF NOT EXISTS ai_retry_count     INTEGER   NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS ai_next_attempt_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS ai_claimed_at      TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS ai_last_error      VARCHAR(500);
+
+-- Очередь маленькая относительно таблицы: индексируем только активные задания
+CREATE INDEX IF NOT EXISTS idx_attempt_ai_queue
+    ON attempts (ai_next_attempt_at NULLS FIRST)
+    WHERE ai_check_status IN ('PENDING', 'PROCESSING');
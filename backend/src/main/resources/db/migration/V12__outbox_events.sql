@@ -0,0 +1,36 @@
+-- =============================================
+-- СТОПРО — V12: Transactional outbox
+-- События пишутся в одной транзакции с изменением данных,
+-- relay публикует их пачками (FOR UPDATE SKIP LOCKED)
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id              BIGSERIAL PRIMARY KEY,
+    aggregate_type  VARCHAR(50)  NOT NULL,
+    aggregate_id    UUID         NOT NULL,
+    event_type      VARCHAR(100) NOT NULL,
+    payload         TEXT         NOT NULL,
+    status          VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    retry_count     INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP,
+    claimed_at      TIMESTAMP,
+    claimed_by      VARCHAR(100),
+    last_error      VARCHAR(500),
+    created_at      TIMESTAMP    NOT NULL DEFAULT now(),
+    published_at    TIMESTAMP
+);
+
+-- Необработанные события: выборка головы очереди по порядку id
+CREATE INDEX IF NOT EXISTS idx_outbox_pending
+    ON outbox_events (id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- Проверка «нет ли более раннего необработанного события того же агрегата»
+CREATE INDEX IF NOT EXISTS idx_outbox_aggregate_pending
+    ON outbox_events (aggregate_id, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- Очистка опубликованных
+CREATE INDEX IF NOT EXISTS idx_outbox_published
+    ON outbox_events (published_at)
+    WHERE status = 'PUBLISHED';
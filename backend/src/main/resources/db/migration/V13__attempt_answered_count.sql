@@ -0,0 +1,7 @@
+-- =============================================
+-- СТОПРО — V13: Счётчик отвеченных задач в попытке
+-- Нужен живой панели учителя без подсчёта ответов
+-- =============================================
+
+ALTER TABLE attempts
+    ADD COLUMN IF NOT EXISTS answered_count INTEGER NOT NULL DEFAULT 0;
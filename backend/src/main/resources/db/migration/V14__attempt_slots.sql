@@ -0,0 +1,21 @@
+-- =============================================
+-- СТОПРО — V14: Счётчик попыток ученика по заданию
+-- Лимит попыток и cooldown проверяются одним
+-- условным INSERT ... ON CONFLICT DO UPDATE
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS attempt_slots (
+    student_id      UUID      NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    assignment_id   UUID      NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    used            INTEGER   NOT NULL DEFAULT 0,
+    last_started_at TIMESTAMP,
+    PRIMARY KEY (student_id, assignment_id)
+);
+
+-- Уже начатые попытки занимают слоты
+INSERT INTO attempt_slots (student_id, assignment_id, used, last_started_at)
+SELECT student_id, assignment_id, count(*), max(started_at)
+FROM attempts
+WHERE assignment_id IS NOT NULL AND student_id IS NOT NULL
+GROUP BY student_id, assignment_id
+ON CONFLICT (student_id, assignment_id) DO NOTHING;
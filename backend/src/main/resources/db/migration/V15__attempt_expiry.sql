@@ -0,0 +1,27 @@
+-- =============================================
+-- СТОПРО — V15: Истечение времени попыток
+-- expires_at — момент, когда попытку завершает планировщик;
+-- scheduler_leases — аренда фоновых ролей между узлами
+-- =============================================
+
+ALTER TABLE attempts
+    ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP;
+
+-- Незавершённые попытки: лимит времени, но не позже дедлайна задания
+UPDATE attempts a
+SET expires_at = LEAST(a.started_at + make_interval(mins => s.time_limit_minutes), s.deadline)
+FROM assignments s
+WHERE a.assignment_id = s.id
+  AND a.status = 'IN_PROGRESS';
+
+-- Загрузка колеса таймеров при старте и перехвате аренды
+CREATE INDEX IF NOT EXISTS idx_attempts_expiring
+    ON attempts (expires_at)
+    WHERE status = 'IN_PROGRESS' AND expires_at IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name        VARCHAR(100) PRIMARY KEY,
+    owner       VARCHAR(100) NOT NULL,
+    acquired_at TIMESTAMP    NOT NULL,
+    expires_at  TIMESTAMP    NOT NULL
+);
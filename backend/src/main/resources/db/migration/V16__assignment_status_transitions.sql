@@ -0,0 +1,13 @@
+-- =============================================
+-- СТОПРО — V16: Индексы для переходов статусов заданий
+-- Плановая публикация и просрочка выбираются пачками
+-- по частичным индексам, без сканирования всех заданий
+-- =============================================
+
+CREATE INDEX IF NOT EXISTS idx_assignment_scheduled_start
+    ON assignments (start_date)
+    WHERE status = 'SCHEDULED' AND is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_assignment_open_deadline
+    ON assignments (deadline)
+    WHERE status IN ('PUBLISHED', 'ACTIVE') AND is_deleted = false;
@@ -0,0 +1,36 @@
+-- =============================================
+-- СТОПРО — V17: Напоминания о дедлайнах
+-- reminder_ledger — кому и что уже отправлено (без дублей),
+-- notifications — входящие уведомления в приложении
+-- =============================================
+
+-- Задание обработано рассылкой (выборка по частичному индексу)
+ALTER TABLE assignments
+    ADD COLUMN IF NOT EXISTS reminder_sent_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_assignment_reminder_due
+    ON assignments (deadline)
+    WHERE send_deadline_reminder = true AND reminder_sent_at IS NULL
+      AND status IN ('PUBLISHED', 'ACTIVE') AND is_deleted = false;
+
+CREATE TABLE IF NOT EXISTS reminder_ledger (
+    assignment_id UUID        NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    kind          VARCHAR(30) NOT NULL,
+    recipient_id  UUID        NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    sent_at       TIMESTAMP   NOT NULL DEFAULT now(),
+    PRIMARY KEY (assignment_id, kind, recipient_id)
+);
+
+CREATE TABLE IF NOT EXISTS notifications (
+    id         BIGSERIAL    PRIMARY KEY,
+    user_id    UUID         NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    type       VARCHAR(50)  NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    body       TEXT,
+    subject_id UUID,
+    created_at TIMESTAMP    NOT NULL DEFAULT now(),
+    read_at    TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user
+    ON notifications (user_id, id DESC);
@@ -0,0 +1,61 @@
+-- =============================================
+-- СТОПРО — V18: Входящие уведомления
+-- notifications секционируется по месяцам created_at (только добавление,
+-- старые месяцы удаляются целиком), notification_counters — счётчик
+-- непрочитанных на пользователя, чтобы не считать COUNT(*)
+-- =============================================
+
+CREATE TABLE notifications_partitioned (
+    id         UUID         NOT NULL DEFAULT uuid_generate_v4(),
+    user_id    UUID         NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    type       VARCHAR(50)  NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    body       TEXT,
+    subject_id UUID,
+    created_at TIMESTAMP    NOT NULL DEFAULT now(),
+    read_at    TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Страховка на случай, если задание не успело создать секцию месяца
+CREATE TABLE notifications_default PARTITION OF notifications_partitioned DEFAULT;
+
+-- Секции с месяца самого старого уведомления до трёх месяцев вперёд
+-- (дальше их создаёт NotificationPartitionJob)
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM notifications), now()));
+BEGIN
+    WHILE month <= date_trunc('month', now()) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_p' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notifications_partitioned (user_id, type, title, body, subject_id, created_at, read_at)
+SELECT user_id, type, title, body, subject_id, created_at, read_at
+FROM notifications;
+
+CREATE TABLE IF NOT EXISTS notification_counters (
+    user_id UUID    PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    unread  INTEGER NOT NULL DEFAULT 0
+);
+
+INSERT INTO notification_counters (user_id, unread)
+SELECT user_id, count(*)
+FROM notifications
+WHERE read_at IS NULL
+GROUP BY user_id;
+
+DROP TABLE notifications;
+ALTER TABLE notifications_partitioned RENAME TO notifications;
+
+-- Лента пользователя: keyset по (created_at, id), свежие первыми
+CREATE INDEX IF NOT EXISTS idx_notifications_user
+    ON notifications (user_id, created_at DESC, id DESC);
+
+-- «Прочитать всё» трогает только непрочитанные
+CREATE INDEX IF NOT EXISTS idx_notifications_unread
+    ON notifications (user_id)
+    WHERE read_at IS NULL;
@@ -0,0 +1,15 @@
+-- =============================================
+-- СТОПРО — V19: Предрендеренный MathML задач
+-- Фрагменты рендерятся при сохранении задачи и хранятся в строке,
+-- render_version — версия рендерера (старые строки дорендерит QuestionRenderJob)
+-- =============================================
+
+ALTER TABLE questions
+    ADD COLUMN IF NOT EXISTS content_rendered  TEXT,
+    ADD COLUMN IF NOT EXISTS solution_rendered TEXT,
+    ADD COLUMN IF NOT EXISTS hint_rendered     TEXT,
+    ADD COLUMN IF NOT EXISTS render_version    VARCHAR(20);
+
+CREATE INDEX IF NOT EXISTS idx_question_render_pending
+    ON questions (id)
+    WHERE render_version IS NULL AND is_deleted = false;
@@ -0,0 +1,8 @@
+-- =============================================
+-- СТОПРО — V20: Происхождение копий задач
+-- copied_from_id — исходная задача для копий из «Дублировать» и импорта из банка.
+-- Неизменённые копии не попадают в индекс почти-дубликатов
+-- =============================================
+
+ALTER TABLE questions
+    ADD COLUMN IF NOT EXISTS copied_from_id UUID REFERENCES questions(id) ON DELETE SET NULL;
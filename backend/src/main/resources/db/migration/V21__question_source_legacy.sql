@@ -0,0 +1,9 @@
+-- =============================================
+-- СТОПРО — V21: Источник задач без устаревших значений
+-- V1 ставил по умолчанию 'CUSTOM', которого нет в TaskSource:
+-- такие строки не читаются JPA и ломали бы выгрузку банка
+-- =============================================
+
+UPDATE questions SET source = 'TEACHER' WHERE source = 'CUSTOM';
+
+ALTER TABLE questions ALTER COLUMN source SET DEFAULT 'BANK';
@@ -0,0 +1,8 @@
+-- =============================================
+-- СТОПРО — V22: Версия счётчика непрочитанных
+-- Растёт при каждом изменении строки; кэш в Redis принимает значение
+-- только с большей версией, чем уже записанное
+-- =============================================
+
+ALTER TABLE notification_counters
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,26 @@
+-- =============================================
+-- СТОПРО — V23: Очередь писем
+-- Обработчик outbox только записывает письма сюда (ключ — событие и номер
+-- письма в нём), отправляет их отдельный исполнитель небольшими пачками
+-- и отмечает каждое письмо сразу после отправки
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS email_deliveries (
+    id           BIGSERIAL    PRIMARY KEY,
+    event_id     BIGINT       NOT NULL,
+    item_index   INTEGER      NOT NULL,
+    recipient_id UUID         NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    title        VARCHAR(255) NOT NULL,
+    body         TEXT,
+    status       VARCHAR(20)  NOT NULL DEFAULT 'PENDING',   -- PENDING | SENDING | SENT | SKIPPED
+    claimed_by   VARCHAR(64),
+    claimed_at   TIMESTAMP,
+    sent_at      TIMESTAMP,
+    created_at   TIMESTAMP    NOT NULL DEFAULT now(),
+
+    CONSTRAINT uq_email_delivery_item UNIQUE (event_id, item_index)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_deliveries_open
+    ON email_deliveries (id)
+    WHERE status IN ('PENDING', 'SENDING');
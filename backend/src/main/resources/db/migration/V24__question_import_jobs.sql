@@ -0,0 +1,30 @@
+-- =============================================
+-- СТОПРО — V24: Состояние задач массового импорта
+-- Прогресс пишет узел, выполняющий импорт, читает любой узел;
+-- updated_at — признак жизни: задача, которую давно никто не обновлял,
+-- считается прерванной
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS question_import_jobs (
+    id              UUID         PRIMARY KEY,
+    teacher_id      UUID         NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    format          VARCHAR(20)  NOT NULL,
+    status          VARCHAR(20)  NOT NULL,   -- QUEUED | RUNNING | COMPLETED | FAILED
+    read_count      BIGINT       NOT NULL DEFAULT 0,
+    imported_count  BIGINT       NOT NULL DEFAULT 0,
+    rejected_count  BIGINT       NOT NULL DEFAULT 0,
+    errors          TEXT,                    -- JSON-массив первых max-errors ошибок
+    failure_message TEXT,
+    started_at      TIMESTAMP,
+    finished_at     TIMESTAMP,
+    created_at      TIMESTAMP    NOT NULL DEFAULT now(),
+    updated_at      TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_question_import_jobs_open
+    ON question_import_jobs (updated_at)
+    WHERE status IN ('QUEUED', 'RUNNING');
+
+CREATE INDEX IF NOT EXISTS idx_question_import_jobs_finished
+    ON question_import_jobs (finished_at)
+    WHERE status IN ('COMPLETED', 'FAILED');
@@ -0,0 +1,22 @@
+-- =============================================
+-- СТОПРО — V7: Индексы для keyset-пагинации
+-- Стабильный порядок (ключ сортировки, id) позволяет читать
+-- любую страницу через index seek без OFFSET
+-- =============================================
+
+-- Публичный банк задач: ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_question_bank_keyset
+    ON questions (created_at DESC, id DESC)
+    WHERE is_active = TRUE AND is_deleted = FALSE;
+
+-- Задачи автора: ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_question_author_keyset
+    ON questions (author_id, created_at DESC, id DESC);
+
+-- Попытки ученика: ORDER BY started_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_attempt_student_keyset
+    ON attempts (student_id, started_at DESC, id DESC);
+
+-- Задания группы: ORDER BY deadline DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_assignment_group_keyset
+    ON assignments (group_id, deadline DESC, id DESC);
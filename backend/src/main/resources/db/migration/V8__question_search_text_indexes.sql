@@ -0,0 +1,13 @@
+-- =============================================
+-- СТОПРО — V8: Триграммные индексы для поиска задач
+-- Поиск идёт по content_plain (условие без LaTeX) и keywords
+-- вместо сырого content; LIKE '%...%' использует GIN-индекс pg_trgm
+-- =============================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_question_content_plain_trgm
+    ON questions USING gin (lower(content_plain) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_question_keywords_trgm
+    ON questions USING gin (keywords gin_trgm_ops);
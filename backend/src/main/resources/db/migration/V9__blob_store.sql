@@ -0,0 +1,17 @@
+-- =============================================
+-- СТОПРО — V9: Хранилище файлов с адресацией по содержимому
+-- Файлы лежат на диске под SHA-256, здесь — только метаданные.
+-- SVG-диаграммы задач переносятся из questions.diagram_svg
+-- в хранилище при старте приложения (DiagramBlobMigration)
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS blobs (
+    hash          VARCHAR(64)  PRIMARY KEY,
+    content_type  VARCHAR(100) NOT NULL,
+    size_bytes    BIGINT       NOT NULL,
+    created_by    UUID         REFERENCES users(id) ON DELETE SET NULL,
+    created_at    TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+ALTER TABLE questions
+    ADD COLUMN IF NOT EXISTS diagram_blob_hash VARCHAR(64) REFERENCES blobs(hash);
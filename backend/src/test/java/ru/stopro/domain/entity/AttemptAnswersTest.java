@@ -0,0 +1,82 @@
+package ru.stopro.domain.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Attempt.recordAnswer: повторные ответы на ту же задачу не накручивают
+ * счётчики отвеченных и правильных
+ */
+class AttemptAnswersTest {
+
+    private static final UUID FIRST = UUID.randomUUID();
+    private static final UUID SECOND = UUID.randomUUID();
+
+    @Test
+    void firstAnswersAreCounted() {
+        Attempt attempt = new Attempt();
+
+        answer(attempt, FIRST, true);
+        answer(attempt, SECOND, false);
+
+        assertThat(attempt.getAnsweredCount()).isEqualTo(2);
+        assertThat(attempt.getCorrectCount()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedCorrectAnswerCountsOnce() {
+        Attempt attempt = new Attempt();
+
+        answer(attempt, FIRST, true);
+        answer(attempt, FIRST, true);
+        answer(attempt, FIRST, true);
+
+        assertThat(attempt.getAnsweredCount()).isEqualTo(1);
+        assertThat(attempt.getCorrectCount()).isEqualTo(1);
+    }
+
+    @Test
+    void correctnessChangeMovesCorrectCountBothWays() {
+        Attempt attempt = new Attempt();
+
+        answer(attempt, FIRST, false);
+        assertThat(attempt.getCorrectCount()).isZero();
+
+        answer(attempt, FIRST, true);
+        assertThat(attempt.getCorrectCount()).isEqualTo(1);
+
+        answer(attempt, FIRST, false);
+        assertThat(attempt.getCorrectCount()).isZero();
+        assertThat(attempt.getAnsweredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void latestAnswerIsStored() {
+        Attempt attempt = new Attempt();
+
+        answer(attempt, FIRST, false);
+        attempt.recordAnswer(FIRST, Map.of("answer", "42", "isCorrect", true), true);
+
+        assertThat(attempt.getAnswers()).containsOnlyKeys(FIRST.toString());
+        assertThat(attempt.getAnswers().get(FIRST.toString()))
+                .isEqualTo(Map.of("answer", "42", "isCorrect", true));
+    }
+
+    @Test
+    void legacyPlaceholderReadsAsNoAnswers() {
+        Attempt attempt = new Attempt();
+        attempt.setAnswers("{}");
+
+        answer(attempt, FIRST, true);
+
+        assertThat(attempt.getAnsweredCount()).isEqualTo(1);
+    }
+
+    private static void answer(Attempt attempt, UUID questionId, boolean correct) {
+        attempt.recordAnswer(questionId, Map.of("answer", "x", "isCorrect", correct), correct);
+    }
+}
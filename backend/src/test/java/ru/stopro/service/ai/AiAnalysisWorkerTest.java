@@ -0,0 +1,286 @@
+package ru.stopro.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stopro.service.AiAnalysisService;
+import ru.stopro.service.stream.AttemptChangedEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AiAnalysisWorker против локальной заглушки AI-сервиса (JDK HttpServer):
+ * пачки по batch-size, один запрос на одинаковые ответы, повтор с backoff
+ * и окончательная ошибка после max-retries.
+ */
+class AiAnalysisWorkerTest {
+
+    private static final String OCR_PATH = "/api/v1/ocr/recognize-batch";
+    private static final String CHECK_PATH = "/api/v1/math/check-batch";
+    private static final int BATCH_SIZE = 3;
+    private static final int MAX_RETRIES = 2;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final List<Integer> checkBatches = new CopyOnWriteArrayList<>();
+    private final List<Integer> ocrBatches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger checkHits = new AtomicInteger();
+    private volatile int checkStatus = 200;
+    private volatile int failingCheckHits;
+
+    private StubQueue queue;
+    private RecordingAnalysisService analysisService;
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private AiAnalysisWorker worker;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext(OCR_PATH, exchange -> {
+            List<String> ids = itemIds(exchange);
+            ocrBatches.add(ids.size());
+            respond(exchange, 200, results(ids, "\"text\":\"x = 4\",\"confidence\":0.9"));
+        });
+        server.createContext(CHECK_PATH, exchange -> {
+            List<String> ids = itemIds(exchange);
+            if (checkHits.incrementAndGet() <= failingCheckHits) {
+                respond(exchange, checkStatus, "{}");
+                return;
+            }
+            checkBatches.add(ids.size());
+            respond(exchange, 200, results(ids, "\"analysis\":\"ok\",\"quality_score\":90"));
+        });
+        server.start();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AiServiceClient client = new AiServiceClient(MAPPER, registry,
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                1000, 2000, 2000, 8, 0, 0, 100, 100, 1000);
+        queue = new StubQueue();
+        analysisService = new RecordingAnalysisService();
+        worker = new AiAnalysisWorker(queue, client, analysisService,
+                new AiResultCache(new MemoryStore(), registry), events::add,
+                BATCH_SIZE, 4, MAX_RETRIES, 10, 100, 10, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void queueIsProcessedInBatchesOfBatchSize() {
+        for (int i = 0; i < 7; i++) {
+            queue.add(job("ответ " + i, i % 2 == 0 ? "http://example.test/" + i + ".png" : null, 0));
+        }
+
+        worker.poll();
+        await(() -> analysisService.completed.size() == 7);
+
+        assertThat(checkBatches).containsExactlyInAnyOrder(3, 3, 1);
+        // OCR — только для попыток с фото, в тех же пачках
+        assertThat(ocrBatches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(4);
+        assertThat(queue.failures).isEmpty();
+    }
+
+    @Test
+    void identicalAnswersInBatchAreCheckedOnce() {
+        UUID questionId = UUID.randomUUID();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            queue.add(job(questionId, "42", null, 0));
+        }
+
+        worker.poll();
+        await(() -> analysisService.completed.size() == BATCH_SIZE);
+
+        assertThat(checkBatches).containsExactly(1);
+    }
+
+    @Test
+    void serverErrorIsRetriedWithBackoff() {
+        failingCheckHits = 1;
+        checkStatus = 503;
+        AiAnalysisQueue.Job job = job("ответ", null, 0);
+        queue.add(job);
+
+        worker.poll();
+        await(() -> queue.failures.size() == 1);
+
+        AiAnalysisQueue.Failure failure = queue.failures.get(0);
+        assertThat(failure.retryCount()).isEqualTo(1);
+        assertThat(failure.nextAttemptAt()).isAfter(LocalDateTime.now().minusSeconds(1));
+        assertThat(events).isEmpty();
+
+        queue.add(withRetries(job, failure.retryCount()));
+        worker.poll();
+        await(() -> analysisService.completed.containsKey(job.attemptId()));
+    }
+
+    @Test
+    void clientErrorFailsWithoutRetry() {
+        failingCheckHits = Integer.MAX_VALUE;
+        checkStatus = 400;
+        queue.add(job("ответ", null, 0));
+
+        worker.poll();
+        await(() -> queue.failures.size() == 1 && events.size() == 1);
+
+        assertThat(queue.failures.get(0).nextAttemptAt()).isNull();
+        assertThat(events.get(0)).isInstanceOf(AttemptChangedEvent.class);
+    }
+
+    @Test
+    void lastRetryFailsTheAttempt() {
+        failingCheckHits = Integer.MAX_VALUE;
+        checkStatus = 503;
+        queue.add(job("ответ", null, MAX_RETRIES));
+
+        worker.poll();
+        await(() -> queue.failures.size() == 1);
+
+        assertThat(queue.failures.get(0).retryCount()).isEqualTo(MAX_RETRIES + 1);
+        assertThat(queue.failures.get(0).nextAttemptAt()).isNull();
+        await(() -> events.size() == 1);
+    }
+
+    /**
+     * Очередь в памяти: claim отдаёт до limit заданий, reschedule запоминает неудачи
+     */
+    private static class StubQueue extends AiAnalysisQueue {
+
+        private final List<Job> ready = new ArrayList<>();
+        private final List<Failure> failures = new CopyOnWriteArrayList<>();
+
+        StubQueue() {
+            super(null);
+        }
+
+        synchronized void add(Job job) {
+            ready.add(job);
+        }
+
+        @Override
+        public synchronized List<Job> claim(String token, int limit, LocalDateTime staleBefore) {
+            List<Job> claimed = new ArrayList<>(ready.subList(0, Math.min(limit, ready.size())));
+            ready.subList(0, claimed.size()).clear();
+            return claimed;
+        }
+
+        @Override
+        public void reschedule(String token, List<Failure> failures) {
+            this.failures.addAll(failures);
+        }
+    }
+
+    private static class RecordingAnalysisService extends AiAnalysisService {
+
+        private final Map<UUID, AiBatch.CheckResult> completed = new ConcurrentHashMap<>();
+
+        RecordingAnalysisService() {
+            super(null, null, null);
+        }
+
+        @Override
+        public boolean complete(String token, UUID attemptId, AiBatch.OcrResult ocr, AiBatch.CheckResult result) {
+            completed.put(attemptId, result);
+            return true;
+        }
+    }
+
+    private static class MemoryStore implements AiResultStore {
+
+        private final Map<String, AiBatch.CheckResult> results = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<AiBatch.CheckResult> get(String key) {
+            return Optional.ofNullable(results.get(key));
+        }
+
+        @Override
+        public void put(String key, AiBatch.CheckResult result) {
+            results.put(key, result);
+        }
+    }
+
+    private static AiAnalysisQueue.Job job(String answer, String imageUrl, int retries) {
+        return job(UUID.randomUUID(), answer, imageUrl, retries);
+    }
+
+    private static AiAnalysisQueue.Job job(UUID questionId, String answer, String imageUrl, int retries) {
+        return new AiAnalysisQueue.Job(UUID.randomUUID(), answer, null, imageUrl, null, retries,
+                UUID.randomUUID(), questionId, 1, "Найдите x", "4");
+    }
+
+    private static AiAnalysisQueue.Job withRetries(AiAnalysisQueue.Job job, int retries) {
+        return new AiAnalysisQueue.Job(job.attemptId(), job.userAnswer(), job.solutionText(), job.imageUrl(),
+                job.recognizedText(), retries, job.studentId(), job.questionId(), job.questionVersion(),
+                job.question(), job.correctAnswer());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("condition not reached in 5 s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static List<String> itemIds(HttpExchange exchange) throws IOException {
+        JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+        List<String> ids = new ArrayList<>();
+        request.path("items").forEach(item -> ids.add(item.path("id").asText()));
+        return Collections.unmodifiableList(ids);
+    }
+
+    private static String results(List<String> ids, String fields) {
+        List<String> results = new ArrayList<>();
+        for (String id : ids) {
+            results.add("{\"id\":\"" + id + "\"," + fields + "}");
+        }
+        return "{\"results\":[" + String.join(",", results) + "]}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
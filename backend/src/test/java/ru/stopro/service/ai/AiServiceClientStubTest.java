@@ -0,0 +1,233 @@
+package ru.stopro.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AiServiceClient против локальной заглушки AI-сервиса (JDK HttpServer):
+ * таймауты по эндпоинтам, автомат защиты, bulkhead и хедж OCR.
+ */
+class AiServiceClientStubTest {
+
+    private static final String OCR_PATH = "/api/v1/ocr/recognize-batch";
+    private static final String CHECK_PATH = "/api/v1/math/check-batch";
+    private static final long BREAKER_OPEN_MS = 300;
+    private static final UUID ITEM_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @FunctionalInterface
+    private interface Behavior {
+        void handle(HttpExchange exchange, int hit) throws Exception;
+    }
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private SimpleMeterRegistry registry;
+    private final AtomicInteger ocrHits = new AtomicInteger();
+    private final AtomicInteger checkHits = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Behavior ocrBehavior = (exchange, hit) -> respond(exchange, 200, ocrJson());
+    private volatile Behavior checkBehavior = (exchange, hit) -> respond(exchange, 200, checkJson());
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext(OCR_PATH, exchange -> dispatch(exchange, ocrBehavior, ocrHits));
+        server.createContext(CHECK_PATH, exchange -> dispatch(exchange, checkBehavior, checkHits));
+        server.start();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopStub() {
+        release.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void timeoutsAreIsolatedPerEndpoint() {
+        AiServiceClient client = client(2000, 200, 4, 0, 0);
+        checkBehavior = (exchange, hit) -> {
+            Thread.sleep(600);
+            respond(exchange, 200, checkJson());
+        };
+        ocrBehavior = (exchange, hit) -> {
+            Thread.sleep(600);
+            respond(exchange, 200, ocrJson());
+        };
+
+        assertThatThrownBy(() -> client.check(checkItems()))
+                .isInstanceOf(AiServiceException.class)
+                .hasMessageContaining("timeout")
+                .satisfies(e -> assertThat(((AiServiceException) e).isRetryable()).isTrue());
+        assertThat(client.recognize(ocrItems())).hasSize(1);
+    }
+
+    @Test
+    void breakerOpensThenProbesThenCloses() throws Exception {
+        AiServiceClient client = client(2000, 2000, 4, 0, 0);
+        checkBehavior = (exchange, hit) -> respond(exchange, 503, "{}");
+
+        // Окно 4, минимум 2 вызова, порог 50%: две ошибки размыкают цепь
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.check(checkItems())).isInstanceOf(AiServiceException.class);
+        }
+        assertThat(breakerState("check")).isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+        assertThatThrownBy(() -> client.check(checkItems())).hasMessageContaining("circuit is open");
+        assertThat(checkHits.get()).isEqualTo(2);
+
+        Thread.sleep(BREAKER_OPEN_MS + 100);
+        checkBehavior = (exchange, hit) -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, checkJson());
+        };
+        CompletableFuture<List<AiBatch.CheckResult>> probe =
+                CompletableFuture.supplyAsync(() -> client.check(checkItems()));
+        awaitHits(checkHits, 3);
+
+        // Пока идёт пробный вызов, остальные отклоняются
+        assertThat(breakerState("check")).isEqualTo(CircuitBreaker.State.HALF_OPEN.ordinal());
+        assertThatThrownBy(() -> client.check(checkItems())).hasMessageContaining("circuit is open");
+
+        release.countDown();
+        assertThat(probe.get(5, TimeUnit.SECONDS)).hasSize(1);
+        assertThat(breakerState("check")).isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+        assertThat(client.check(checkItems())).hasSize(1);
+    }
+
+    @Test
+    void bulkheadRejectsWhenEndpointIsSaturated() throws Exception {
+        AiServiceClient client = client(5000, 5000, 1, 50, 0);
+        checkBehavior = (exchange, hit) -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, checkJson());
+        };
+
+        CompletableFuture<List<AiBatch.CheckResult>> first =
+                CompletableFuture.supplyAsync(() -> client.check(checkItems()));
+        awaitHits(checkHits, 1);
+
+        assertThatThrownBy(() -> client.check(checkItems()))
+                .isInstanceOf(AiServiceException.class)
+                .hasMessageContaining("saturated");
+        assertThat(checkHits.get()).isEqualTo(1);
+        // Соседний эндпоинт свой лимит не делит
+        assertThat(client.recognize(ocrItems())).hasSize(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(1);
+    }
+
+    @Test
+    void ocrHedgeWinsOverSlowPrimary() {
+        AiServiceClient client = client(5000, 5000, 4, 0, 100);
+        ocrBehavior = (exchange, hit) -> {
+            if (hit == 1) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            respond(exchange, 200, ocrJson());
+        };
+
+        long started = System.nanoTime();
+        List<AiBatch.OcrResult> results = client.recognize(ocrItems());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(results).hasSize(1);
+        assertThat(elapsedMs).isLessThan(3000);
+        assertThat(ocrHits.get()).isEqualTo(2);
+        assertThat(registry.get("ai.service.hedged.requests").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void clientErrorsDoNotTripBreaker() {
+        AiServiceClient client = client(2000, 2000, 4, 0, 0);
+        checkBehavior = (exchange, hit) -> respond(exchange, 400, "{\"detail\":\"bad request\"}");
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> client.check(checkItems()))
+                    .isInstanceOf(AiServiceException.class)
+                    .satisfies(e -> assertThat(((AiServiceException) e).isRetryable()).isFalse());
+        }
+        assertThat(checkHits.get()).isEqualTo(10);
+        assertThat(breakerState("check")).isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+    }
+
+    private AiServiceClient client(long ocrTimeoutMs, long checkTimeoutMs, int maxConcurrent,
+                                   long bulkheadWaitMs, long hedgeDelayMs) {
+        return new AiServiceClient(new ObjectMapper(), registry,
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                1000, ocrTimeoutMs, checkTimeoutMs, maxConcurrent, bulkheadWaitMs, hedgeDelayMs,
+                4, 50, BREAKER_OPEN_MS);
+    }
+
+    private double breakerState(String endpoint) {
+        return registry.get("ai.service.circuit.state").tag("endpoint", endpoint).gauge().value();
+    }
+
+    private static void awaitHits(AtomicInteger hits, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hits.get() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("stub received " + hits.get() + " requests, expected " + expected);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void dispatch(HttpExchange exchange, Behavior behavior, AtomicInteger hits) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        try {
+            behavior.handle(exchange, hits.incrementAndGet());
+        } catch (Exception e) {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static List<AiBatch.OcrItem> ocrItems() {
+        return List.of(new AiBatch.OcrItem(ITEM_ID, "http://example.test/image.png"));
+    }
+
+    private static List<AiBatch.CheckItem> checkItems() {
+        return List.of(new AiBatch.CheckItem(ITEM_ID, "2+2", "4", "4", null));
+    }
+
+    private static String ocrJson() {
+        return "{\"results\":[{\"id\":\"" + ITEM_ID + "\",\"text\":\"x = 4\",\"confidence\":0.93}]}";
+    }
+
+    private static String checkJson() {
+        return "{\"results\":[{\"id\":\"" + ITEM_ID + "\",\"analysis\":\"ok\",\"quality_score\":90}]}";
+    }
+}
@@ -0,0 +1,154 @@
+package ru.stopro.service.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import ru.stopro.domain.entity.Assignment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AssignmentSnapshotCache: одновременный старт экзамена всей группой —
+ * одна загрузка снимка на всех; ошибка загрузки не кэшируется,
+ * изменение на другом узле сбрасывает снимок
+ */
+class AssignmentSnapshotCacheTest {
+
+    private static final int THREADS = 32;
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountingLoader loader = new CountingLoader();
+    private final AssignmentSnapshotCache cache =
+            new AssignmentSnapshotCache(loader, null, registry, 60, 100);
+
+    @Test
+    void simultaneousStartsShareOneLoad() throws Exception {
+        UUID assignmentId = UUID.randomUUID();
+        loader.gate = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        try {
+            List<Future<AssignmentSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    return cache.get(assignmentId);
+                }));
+            }
+            ready.await();
+            // Загрузка держится, пока все запросы не придут за снимком
+            awaitCoalesced(THREADS - 1);
+            loader.gate.countDown();
+
+            AssignmentSnapshot first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<AssignmentSnapshot> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(loader.calls.get()).isEqualTo(1);
+        assertThat(registry.counter("assignment.snapshot.loads").count()).isEqualTo(1.0);
+        assertThat(cache.get(assignmentId).getId()).isEqualTo(assignmentId);
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        UUID assignmentId = UUID.randomUUID();
+        loader.failures.set(1);
+
+        assertThatThrownBy(() -> cache.get(assignmentId)).hasMessage("database is down");
+
+        assertThat(cache.get(assignmentId).getId()).isEqualTo(assignmentId);
+        assertThat(loader.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void changeOnAnotherNodeEvictsSnapshot() {
+        UUID assignmentId = UUID.randomUUID();
+        cache.get(assignmentId);
+
+        cache.onMessage(new DefaultMessage(AssignmentSnapshotCache.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("other-node " + assignmentId).getBytes(StandardCharsets.UTF_8)), null);
+        cache.get(assignmentId);
+
+        assertThat(loader.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void sweepKeepsCacheUnderMaxEntries() {
+        AssignmentSnapshotCache small = new AssignmentSnapshotCache(loader, null, registry, 60, 10);
+
+        for (int i = 0; i < 25; i++) {
+            small.get(UUID.randomUUID());
+        }
+
+        assertThat(registry.get("assignment.snapshot.evicted").counter().count()).isGreaterThan(0);
+        assertThat(registry.get("assignment.snapshot.size").gauges())
+                .anySatisfy(gauge -> assertThat(gauge.value()).isLessThanOrEqualTo(10));
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.counter("assignment.snapshot.coalesced").count() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("only " + registry.counter("assignment.snapshot.coalesced").count()
+                        + " requests waited for the load");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Загрузчик без базы: считает вызовы, может ждать ворота и падать
+     */
+    private static class CountingLoader extends AssignmentSnapshotLoader {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile CountDownLatch gate;
+
+        CountingLoader() {
+            super(null, null, MAPPER, 1024);
+        }
+
+        @Override
+        public AssignmentSnapshot load(UUID assignmentId) {
+            calls.incrementAndGet();
+            if (gate != null) {
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("database is down");
+            }
+            Assignment assignment = Assignment.builder()
+                    .title("Контрольная")
+                    .deadline(LocalDateTime.now().plusDays(1))
+                    .build();
+            assignment.setId(assignmentId);
+            return AssignmentSnapshot.of(assignment, 30, MAPPER, 1024);
+        }
+    }
+}
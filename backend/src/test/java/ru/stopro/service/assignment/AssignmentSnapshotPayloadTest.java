@@ -0,0 +1,121 @@
+package ru.stopro.service.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.stopro.domain.entity.Assignment;
+import ru.stopro.domain.entity.Question;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Готовый JSON задания: сильный ETag зависит только от содержимого,
+ * сжатый вариант — те же байты со своим ETag, порядок вопросов
+ * у ученика стабилен и не меняет общий JSON
+ */
+class AssignmentSnapshotPayloadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+    private static final UUID ASSIGNMENT_ID = UUID.randomUUID();
+    private static final LocalDateTime DEADLINE = LocalDateTime.of(2030, 5, 20, 18, 0);
+    private static final List<Question> QUESTIONS = questions(12);
+
+    @Test
+    void sameContentGivesSameEtagOnEveryNode() {
+        AssignmentPayload first = snapshot(assignment("Контрольная"), 1024).getPayload();
+        AssignmentPayload second = snapshot(assignment("Контрольная"), 1024).getPayload();
+
+        assertThat(second.etag(false)).isEqualTo(first.etag(false));
+        assertThat(second.body(false)).isEqualTo(first.body(false));
+    }
+
+    @Test
+    void statisticsDoNotChangeEtag() {
+        Assignment assignment = assignment("Контрольная");
+        String before = snapshot(assignment, 1024).getPayload().etag(false);
+
+        assignment.setViewsCount(100);
+        assignment.setStartedCount(25);
+        assignment.setCompletedCount(20);
+
+        assertThat(snapshot(assignment, 1024).getPayload().etag(false)).isEqualTo(before);
+    }
+
+    @Test
+    void contentChangeChangesEtag() {
+        String before = snapshot(assignment("Контрольная"), 1024).getPayload().etag(false);
+
+        assertThat(snapshot(assignment("Контрольная (исправлено)"), 1024).getPayload().etag(false))
+                .isNotEqualTo(before);
+    }
+
+    @Test
+    void gzipVariantHasOwnEtagAndSameContent() throws IOException {
+        AssignmentPayload payload = snapshot(assignment("Контрольная"), 1).getPayload();
+
+        assertThat(payload.isGzipped(true)).isTrue();
+        assertThat(payload.etag(true)).isEqualTo(payload.etag(false) + "-gz");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload.body(true)))) {
+            assertThat(in.readAllBytes()).isEqualTo(payload.body(false));
+        }
+    }
+
+    @Test
+    void smallPayloadIsNotCompressed() {
+        AssignmentPayload payload = snapshot(assignment("Контрольная"), Integer.MAX_VALUE).getPayload();
+
+        assertThat(payload.isGzipped(true)).isFalse();
+        assertThat(payload.body(true)).isEqualTo(payload.body(false));
+        assertThat(payload.etag(true)).isEqualTo(payload.etag(false));
+    }
+
+    @Test
+    void questionOrderIsStablePerStudent() {
+        Assignment assignment = assignment("Контрольная");
+        assignment.setShuffleQuestions(true);
+        AssignmentSnapshot snapshot = snapshot(assignment, 1024);
+        UUID student = UUID.randomUUID();
+
+        int[] order = snapshot.questionOrder(student);
+
+        assertThat(snapshot(assignment, 1024).questionOrder(student)).containsExactly(order);
+        assertThat(order).containsExactlyInAnyOrder(IntStream.range(0, QUESTIONS.size()).toArray());
+        assertThat(snapshot(assignment("Контрольная"), 1024).questionOrder(student)).isNull();
+    }
+
+    private static AssignmentSnapshot snapshot(Assignment assignment, int gzipMinBytes) {
+        return AssignmentSnapshot.of(assignment, 30, MAPPER, gzipMinBytes);
+    }
+
+    private static Assignment assignment(String title) {
+        Assignment assignment = Assignment.builder()
+                .title(title)
+                .deadline(DEADLINE)
+                .questions(new ArrayList<>(QUESTIONS))
+                .build();
+        assignment.setId(ASSIGNMENT_ID);
+        return assignment;
+    }
+
+    private static List<Question> questions(int count) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Question question = Question.builder()
+                    .egeNumber(6)
+                    .content("Решите уравнение $x + " + i + " = 0$")
+                    .answer(String.valueOf(-i))
+                    .build();
+            question.setId(UUID.randomUUID());
+            questions.add(question);
+        }
+        return questions;
+    }
+}
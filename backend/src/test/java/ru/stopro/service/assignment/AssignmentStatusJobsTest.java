@@ -0,0 +1,224 @@
+package ru.stopro.service.assignment;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AssignmentPublishJob и AssignmentOverdueJob на настоящем PostgreSQL:
+ * переходы статусов одним UPDATE, лимит пачки, события об изменении заданий
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AssignmentStatusJobsTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final List<Object> events = new ArrayList<>();
+    private AssignmentPublishJob publishJob;
+    private AssignmentOverdueJob overdueJob;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Задачи просматривают всю таблицу, поэтому каждый тест начинает с пустой
+        jdbcTemplate.update("TRUNCATE assignments CASCADE");
+        publishJob = new AssignmentPublishJob(jdbcTemplate, events::add);
+        overdueJob = new AssignmentOverdueJob(jdbcTemplate, events::add);
+        ReflectionTestUtils.setField(publishJob, "intervalMs", 30_000L);
+        ReflectionTestUtils.setField(overdueJob, "intervalMs", 30_000L);
+    }
+
+    // ==================== Публикация ====================
+
+    @Test
+    void scheduledAssignmentIsPublishedOnceStartDatePasses() {
+        UUID groupId = newGroup(0);
+        UUID due = insertAssignment(groupId, "SCHEDULED", LocalDateTime.now().minusMinutes(1), 1);
+        UUID future = insertAssignment(groupId, "SCHEDULED", LocalDateTime.now().plusHours(1), 1);
+
+        int changed = publishJob.processChunk(10);
+
+        assertThat(changed).isEqualTo(1);
+        assertThat(status(due)).isEqualTo("PUBLISHED");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT published_at IS NOT NULL FROM assignments WHERE id = ?", Boolean.class, due)).isTrue();
+        assertThat(version(due)).isEqualTo(1);
+        assertThat(status(future)).isEqualTo("SCHEDULED");
+        assertThat(events).containsExactly(new AssignmentChangedEvent(due, true));
+    }
+
+    @Test
+    void publishKeepsExistingPublishedAt() {
+        UUID due = insertAssignment(newGroup(0), "SCHEDULED", LocalDateTime.now().minusMinutes(1), 1);
+        LocalDateTime publishedAt = LocalDateTime.of(2024, 9, 1, 9, 0);
+        jdbcTemplate.update("UPDATE assignments SET published_at = ? WHERE id = ?", publishedAt, due);
+
+        publishJob.processChunk(10);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT published_at FROM assignments WHERE id = ?", LocalDateTime.class, due)).isEqualTo(publishedAt);
+    }
+
+    @Test
+    void publishRespectsChunkLimit() {
+        UUID groupId = newGroup(0);
+        for (int i = 0; i < 5; i++) {
+            insertAssignment(groupId, "SCHEDULED", LocalDateTime.now().minusMinutes(5 - i), 1);
+        }
+
+        assertThat(publishJob.processChunk(2)).isEqualTo(2);
+        assertThat(publishJob.processChunk(2)).isEqualTo(2);
+        assertThat(publishJob.processChunk(2)).isEqualTo(1);
+        assertThat(publishJob.processChunk(2)).isZero();
+        assertThat(events).hasSize(5);
+    }
+
+    // ==================== Просрочка ====================
+
+    @Test
+    void assignmentIsCompletedWhenEveryStudentFinished() {
+        UUID groupId = newGroup(2);
+        UUID assignmentId = insertAssignment(groupId, "PUBLISHED", null, -1);
+        for (UUID studentId : students(groupId)) {
+            insertAttempt(studentId, assignmentId, true);
+            insertAttempt(studentId, assignmentId, true);
+        }
+
+        assertThat(overdueJob.processChunk(10)).isEqualTo(1);
+        assertThat(status(assignmentId)).isEqualTo("COMPLETED");
+        assertThat(events).containsExactly(new AssignmentChangedEvent(assignmentId, false));
+    }
+
+    @Test
+    void assignmentIsOverdueWhenSomeoneDidNotFinish() {
+        UUID groupId = newGroup(2);
+        UUID assignmentId = insertAssignment(groupId, "ACTIVE", null, -1);
+        List<UUID> students = students(groupId);
+        insertAttempt(students.get(0), assignmentId, true);
+        insertAttempt(students.get(1), assignmentId, false);
+
+        overdueJob.processChunk(10);
+
+        assertThat(status(assignmentId)).isEqualTo("OVERDUE");
+    }
+
+    @Test
+    void deletedAttemptsDoNotCountAsFinished() {
+        UUID groupId = newGroup(1);
+        UUID assignmentId = insertAssignment(groupId, "PUBLISHED", null, -1);
+        UUID attemptId = insertAttempt(students(groupId).get(0), assignmentId, true);
+        jdbcTemplate.update("UPDATE attempts SET is_deleted = true WHERE id = ?", attemptId);
+
+        overdueJob.processChunk(10);
+
+        assertThat(status(assignmentId)).isEqualTo("OVERDUE");
+    }
+
+    @Test
+    void assignmentsBeforeDeadlineOrInOtherStatusesAreUntouched() {
+        UUID groupId = newGroup(1);
+        UUID open = insertAssignment(groupId, "PUBLISHED", null, 1);
+        UUID draft = insertAssignment(groupId, "DRAFT", null, -1);
+        UUID deleted = insertAssignment(groupId, "PUBLISHED", null, -1);
+        jdbcTemplate.update("UPDATE assignments SET is_deleted = true WHERE id = ?", deleted);
+
+        assertThat(overdueJob.processChunk(10)).isZero();
+        assertThat(status(open)).isEqualTo("PUBLISHED");
+        assertThat(status(draft)).isEqualTo("DRAFT");
+        assertThat(status(deleted)).isEqualTo("PUBLISHED");
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void overdueRespectsChunkLimit() {
+        UUID groupId = newGroup(0);
+        for (int i = 0; i < 3; i++) {
+            insertAssignment(groupId, "PUBLISHED", null, -1 - i);
+        }
+
+        assertThat(overdueJob.processChunk(2)).isEqualTo(2);
+        assertThat(overdueJob.processChunk(2)).isEqualTo(1);
+        assertThat(overdueJob.interval()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    // ==================== Данные ====================
+
+    private static UUID newGroup(int studentCount) {
+        UUID teacherId = insertUser("TEACHER");
+        UUID groupId = jdbcTemplate.queryForObject(
+                "INSERT INTO study_groups (name, teacher_id, invite_code) VALUES ('Группа', ?, ?) RETURNING id",
+                UUID.class, teacherId, UUID.randomUUID().toString().substring(0, 8));
+        for (int i = 0; i < studentCount; i++) {
+            jdbcTemplate.update("INSERT INTO group_students (group_id, student_id) VALUES (?, ?)",
+                    groupId, insertUser("STUDENT"));
+        }
+        return groupId;
+    }
+
+    /** Задание со сдвигом дедлайна в часах от текущего момента; startDate может быть null. */
+    private static UUID insertAssignment(UUID groupId, String status, LocalDateTime startDate, int deadlineHours) {
+        UUID teacherId = jdbcTemplate.queryForObject(
+                "SELECT teacher_id FROM study_groups WHERE id = ?", UUID.class, groupId);
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO assignments (title, teacher_id, group_id, deadline, start_date, status) " +
+                "VALUES ('ДЗ', ?, ?, ?, ?, ?) RETURNING id",
+                UUID.class, teacherId, groupId, LocalDateTime.now().plusHours(deadlineHours), startDate, status);
+    }
+
+    private static UUID insertAttempt(UUID studentId, UUID assignmentId, boolean finished) {
+        UUID topicId = jdbcTemplate.queryForObject(
+                "INSERT INTO topics (name, ege_number) VALUES ('Уравнения', 6) RETURNING id", UUID.class);
+        UUID questionId = jdbcTemplate.queryForObject(
+                "INSERT INTO questions (topic_id, ege_number, content, answer) VALUES (?, 6, 'x + 1 = 2', '1') RETURNING id",
+                UUID.class, topicId);
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO attempts (student_id, assignment_id, question_id, status, finished_at) " +
+                "VALUES (?, ?, ?, ?, ?) RETURNING id",
+                UUID.class, studentId, assignmentId, questionId,
+                finished ? "COMPLETED" : "IN_PROGRESS", finished ? LocalDateTime.now().minusHours(2) : null);
+    }
+
+    private static UUID insertUser(String role) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', ?, 'Test') RETURNING id",
+                UUID.class, role.toLowerCase() + "-" + UUID.randomUUID(), role);
+    }
+
+    private static List<UUID> students(UUID groupId) {
+        return jdbcTemplate.queryForList(
+                "SELECT student_id FROM group_students WHERE group_id = ? ORDER BY student_id", UUID.class, groupId);
+    }
+
+    private static String status(UUID assignmentId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM assignments WHERE id = ?", String.class, assignmentId);
+    }
+
+    private static long version(UUID assignmentId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM assignments WHERE id = ?", Long.class, assignmentId);
+    }
+}
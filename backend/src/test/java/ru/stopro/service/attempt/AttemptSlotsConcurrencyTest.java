@@ -0,0 +1,150 @@
+package ru.stopro.service.attempt;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Параллельные «Начать» против одного счётчика attempt_slots на настоящем PostgreSQL:
+ * лимит и cooldown не должны пропускать лишние попытки ни при каком порядке.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AttemptSlotsConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static AttemptSlots slots;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        slots = new AttemptSlots(jdbcTemplate);
+    }
+
+    @Test
+    void parallelStartsNeverExceedMaxAttempts() throws Exception {
+        UUID[] ids = newStudentAndAssignment();
+
+        List<Integer> granted = race(ids[0], ids[1], 3, 0);
+
+        assertThat(granted).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(used(ids[0], ids[1])).isEqualTo(3);
+    }
+
+    @Test
+    void cooldownAdmitsOnlyOneOfSimultaneousStarts() throws Exception {
+        UUID[] ids = newStudentAndAssignment();
+
+        List<Integer> granted = race(ids[0], ids[1], 10, 5);
+
+        assertThat(granted).containsExactly(1);
+        assertThat(used(ids[0], ids[1])).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackStartReleasesItsSlot() {
+        UUID[] ids = newStudentAndAssignment();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            slots.reserve(ids[0], ids[1], 1, 0, LocalDateTime.now());
+            throw new IllegalStateException("attempt insert failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        Integer attempt = transactionTemplate.execute(status ->
+                slots.reserve(ids[0], ids[1], 1, 0, LocalDateTime.now()));
+        assertThat(attempt).isEqualTo(1);
+    }
+
+    /**
+     * THREADS потоков одновременно резервируют слот, каждый в своей транзакции;
+     * возвращает номера попыток, которые получили успешные потоки
+     */
+    private static List<Integer> race(UUID studentId, UUID assignmentId, int maxAttempts, int cooldownMinutes)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    try {
+                        return transactionTemplate.execute(status ->
+                                slots.reserve(studentId, assignmentId, maxAttempts, cooldownMinutes, startedAt));
+                    } catch (RuntimeException e) {
+                        return null;
+                    }
+                }));
+            }
+            ready.await();
+            go.countDown();
+
+            List<Integer> granted = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                Integer attempt = result.get(30, TimeUnit.SECONDS);
+                if (attempt != null) {
+                    granted.add(attempt);
+                }
+            }
+            return granted;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static UUID[] newStudentAndAssignment() {
+        UUID teacherId = insertUser("TEACHER");
+        UUID studentId = insertUser("STUDENT");
+        UUID groupId = jdbcTemplate.queryForObject(
+                "INSERT INTO study_groups (name, teacher_id, invite_code) VALUES ('Группа', ?, ?) RETURNING id",
+                UUID.class, teacherId, UUID.randomUUID().toString().substring(0, 8));
+        UUID assignmentId = jdbcTemplate.queryForObject(
+                "INSERT INTO assignments (title, teacher_id, group_id, deadline) VALUES ('ДЗ', ?, ?, ?) RETURNING id",
+                UUID.class, teacherId, groupId, LocalDateTime.now().plusDays(1));
+        return new UUID[] {studentId, assignmentId};
+    }
+
+    private static UUID insertUser(String role) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', ?, 'Test') RETURNING id",
+                UUID.class, role.toLowerCase() + "-" + UUID.randomUUID(), role);
+    }
+
+    private static int used(UUID studentId, UUID assignmentId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT used FROM attempt_slots WHERE student_id = ? AND assignment_id = ?",
+                Integer.class, studentId, assignmentId);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.stopro.service.attempt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TimerWheel: таймер срабатывает на первом тике не раньше дедлайна —
+ * на любом уровне колеса, после переноса и за горизонтом
+ */
+class TimerWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void timerFiresAtDeadlineTickNotBefore() {
+        TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+        wheel.schedule("a", START + 5_500);
+
+        assertThat(wheel.advance(START + 5_000)).isEmpty();
+        assertThat(wheel.advance(START + 5_999)).isEmpty();
+        assertThat(wheel.advance(START + 6_000)).containsExactly("a");
+        assertThat(wheel.contains("a")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+        wheel.schedule("late", START - 60_000);
+
+        assertThat(wheel.advance(START)).containsExactly("late");
+    }
+
+    @Test
+    void timersOnUpperLevelsCascadeDown() {
+        TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+        // 90 минут, 2 суток и 30 суток — уровни 1, 2 и 3
+        wheel.schedule("lesson", START + 90 * 60_000L);
+        wheel.schedule("weekend", START + 2 * 86_400_000L);
+        wheel.schedule("month", START + 30 * 86_400_000L);
+
+        assertThat(wheel.advance(START + 90 * 60_000L - TICK)).isEmpty();
+        assertThat(wheel.advance(START + 90 * 60_000L)).containsExactly("lesson");
+        assertThat(wheel.advance(START + 2 * 86_400_000L - TICK)).isEmpty();
+        assertThat(wheel.advance(START + 2 * 86_400_000L)).containsExactly("weekend");
+        assertThat(wheel.advance(START + 30 * 86_400_000L - TICK)).isEmpty();
+        assertThat(wheel.advance(START + 30 * 86_400_000L)).containsExactly("month");
+    }
+
+    @Test
+    void deadlineBeyondHorizonStillFiresOnTime() {
+        TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+        long deadline = START + 300 * 86_400_000L;
+        wheel.schedule("far", deadline);
+
+        assertThat(wheel.advance(deadline - TICK)).isEmpty();
+        assertThat(wheel.advance(deadline)).containsExactly("far");
+    }
+
+    @Test
+    void rescheduleAndCancelReplacePreviousTimer() {
+        TimerWheel<String> wheel = new TimerWheel<>(TICK, START);
+        wheel.schedule("extended", START + 10_000);
+        wheel.schedule("extended", START + 20_000);
+        wheel.schedule("finished", START + 10_000);
+        wheel.cancel("finished");
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 10_000)).isEmpty();
+        assertThat(wheel.advance(START + 20_000)).containsExactly("extended");
+    }
+
+    @Test
+    void randomScheduleMatchesNaiveModel() {
+        Random random = new Random(42);
+        TimerWheel<Integer> wheel = new TimerWheel<>(TICK, START);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = START;
+
+        for (int step = 0; step < 2_000; step++) {
+            for (int i = 0; i < 5; i++) {
+                int key = random.nextInt(500);
+                if (random.nextInt(10) == 0) {
+                    wheel.cancel(key);
+                    deadlines.remove(key);
+                } else {
+                    // От «уже прошло» до ~3 суток вперёд: задействованы три уровня
+                    long deadline = now - 5_000 + (long) (random.nextDouble() * 3 * 86_400_000L);
+                    wheel.schedule(key, deadline);
+                    deadlines.put(key, deadline);
+                }
+            }
+            now += random.nextInt(10) == 0 ? random.nextInt(6 * 3_600_000) : random.nextInt(120_000);
+
+            List<Integer> expected = new ArrayList<>();
+            long nowTick = now / TICK;
+            for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+                if (Math.floorDiv(entry.getValue() + TICK - 1, TICK) <= nowTick) {
+                    expected.add(entry.getKey());
+                }
+            }
+            expected.forEach(deadlines::remove);
+
+            assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(wheel.size()).isEqualTo(deadlines.size());
+        }
+    }
+}
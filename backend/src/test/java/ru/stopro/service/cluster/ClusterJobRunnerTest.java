@@ -0,0 +1,165 @@
+package ru.stopro.service.cluster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ClusterJobRunner на настоящем PostgreSQL: задачу выполняет один узел,
+ * работа идёт порциями до неполной, после остановки узла задачу подхватывает другой
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClusterJobRunnerTest {
+
+    private static final int CHUNK = 10;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void onlyOneNodeRunsTheJob() {
+        String name = "job-" + UUID.randomUUID();
+        CountingJob onFirst = new CountingJob(name, 0);
+        CountingJob onSecond = new CountingJob(name, 0);
+        ClusterJobRunner first = runner(onFirst);
+        ClusterJobRunner second = runner(onSecond);
+
+        for (int i = 0; i < 5; i++) {
+            first.tick();
+            second.tick();
+            sleep(20);
+        }
+
+        assertThat(onFirst.chunks.get()).isPositive();
+        assertThat(onSecond.chunks.get()).isZero();
+    }
+
+    @Test
+    void workIsProcessedInChunksUntilShortOne() {
+        CountingJob job = new CountingJob("job-" + UUID.randomUUID(), 3 * CHUNK + 4);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        runner(job, registry).tick();
+
+        assertThat(job.chunks.get()).isEqualTo(4);
+        assertThat(job.remaining.get()).isZero();
+        assertThat(registry.get("cluster.job.processed").counter().count()).isEqualTo(3 * CHUNK + 4);
+    }
+
+    @Test
+    void anotherNodeTakesOverAfterShutdown() {
+        String name = "job-" + UUID.randomUUID();
+        CountingJob onFirst = new CountingJob(name, 0);
+        CountingJob onSecond = new CountingJob(name, 0);
+        ClusterJobRunner first = runner(onFirst);
+        ClusterJobRunner second = runner(onSecond);
+
+        first.tick();
+        second.tick();
+        assertThat(onSecond.chunks.get()).isZero();
+
+        first.shutdown();
+        sleep(20);
+        second.tick();
+
+        assertThat(onSecond.chunks.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedChunkIsCountedAndRetriedNextRun() {
+        CountingJob job = new CountingJob("job-" + UUID.randomUUID(), CHUNK);
+        job.failNext = true;
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ClusterJobRunner runner = runner(job, registry);
+
+        runner.tick();
+        assertThat(registry.get("cluster.job.failures").counter().count()).isEqualTo(1.0);
+        assertThat(job.remaining.get()).isEqualTo(CHUNK);
+
+        sleep(20);
+        runner.tick();
+        assertThat(job.remaining.get()).isZero();
+    }
+
+    private static ClusterJobRunner runner(ClusterJob job) {
+        return runner(job, new SimpleMeterRegistry());
+    }
+
+    private static ClusterJobRunner runner(ClusterJob job, SimpleMeterRegistry registry) {
+        return new ClusterJobRunner(List.of(job), new LeaseManager(jdbcTemplate), transactionTemplate,
+                registry, 60_000, 30_000, CHUNK);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Задача с remaining записями работы; запуск считает вызванные порции
+     */
+    private static class CountingJob implements ClusterJob {
+
+        private final String name;
+        private final AtomicInteger remaining;
+        private final AtomicInteger chunks = new AtomicInteger();
+        private volatile boolean failNext;
+
+        CountingJob(String name, int work) {
+            this.name = name;
+            this.remaining = new AtomicInteger(work);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Duration interval() {
+            return Duration.ofMillis(10);
+        }
+
+        @Override
+        public int processChunk(int limit) {
+            chunks.incrementAndGet();
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("chunk failed");
+            }
+            int taken = Math.min(limit, remaining.get());
+            remaining.addAndGet(-taken);
+            return taken;
+        }
+    }
+}
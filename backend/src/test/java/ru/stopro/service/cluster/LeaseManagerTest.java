@@ -0,0 +1,116 @@
+package ru.stopro.service.cluster;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Аренда в scheduler_leases на настоящем PostgreSQL: один владелец,
+ * перехват только после истечения, освобождение при остановке
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LeaseManagerTest {
+
+    private static final int NODES = 16;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void ownerRenewsAndOthersWaitUntilExpiry() throws Exception {
+        String lease = lease();
+        LeaseManager first = new LeaseManager(jdbcTemplate);
+        LeaseManager second = new LeaseManager(jdbcTemplate);
+
+        assertThat(first.tryAcquire(lease, 500)).isTrue();
+        assertThat(second.tryAcquire(lease, 500)).isFalse();
+        assertThat(first.tryAcquire(lease, 500)).isTrue();
+        assertThat(owner(lease)).isEqualTo(first.getNodeId());
+
+        // Владелец перестал продлевать (узел упал): после истечения аренду забирает другой
+        Thread.sleep(700);
+        assertThat(second.tryAcquire(lease, 60_000)).isTrue();
+        assertThat(owner(lease)).isEqualTo(second.getNodeId());
+        assertThat(first.tryAcquire(lease, 500)).isFalse();
+    }
+
+    @Test
+    void releaseLetsAnotherNodeTakeOverAtOnce() {
+        String lease = lease();
+        LeaseManager first = new LeaseManager(jdbcTemplate);
+        LeaseManager second = new LeaseManager(jdbcTemplate);
+        assertThat(first.tryAcquire(lease, 60_000)).isTrue();
+
+        // Чужой release ничего не отпускает
+        second.release(lease);
+        assertThat(second.tryAcquire(lease, 60_000)).isFalse();
+
+        first.release(lease);
+        assertThat(second.tryAcquire(lease, 60_000)).isTrue();
+    }
+
+    @Test
+    void simultaneousAcquireHasOneWinner() throws Exception {
+        String lease = lease();
+        ExecutorService pool = Executors.newFixedThreadPool(NODES);
+        CountDownLatch ready = new CountDownLatch(NODES);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < NODES; i++) {
+                LeaseManager node = new LeaseManager(jdbcTemplate);
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    return node.tryAcquire(lease, 60_000);
+                }));
+            }
+            ready.await();
+            go.countDown();
+
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String lease() {
+        return "test:" + UUID.randomUUID();
+    }
+
+    private static String owner(String lease) {
+        return jdbcTemplate.queryForObject("SELECT owner FROM scheduler_leases WHERE name = ?", String.class, lease);
+    }
+}
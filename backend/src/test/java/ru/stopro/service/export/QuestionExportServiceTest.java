@@ -0,0 +1,99 @@
+package ru.stopro.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выгрузка NDJSON на настоящем PostgreSQL: списки, склеенные в базе через
+ * запятую, уходят настоящими JSON-массивами
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class QuestionExportServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JdbcTemplate jdbcTemplate;
+    private static QuestionExportService exportService;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        exportService = new QuestionExportService(dataSource, new DataSourceTransactionManager(dataSource),
+                MAPPER, null, 100);
+    }
+
+    @Test
+    void joinedListsAreExportedAsArrays() throws Exception {
+        UUID authorId = insertQuestion("квадратное уравнение, ,дискриминант,", "1,  -1", "[\"a.png\",\"b.png\"]");
+
+        JsonNode record = exportOf(authorId).get(0);
+
+        assertThat(texts(record.get("tags"))).containsExactly("квадратное уравнение", "дискриминант");
+        assertThat(texts(record.get("alternativeAnswers"))).containsExactly("1", "-1");
+        assertThat(texts(record.get("additionalImages"))).containsExactly("a.png", "b.png");
+    }
+
+    @Test
+    void emptyListsAreOmitted() throws Exception {
+        UUID authorId = insertQuestion(" , ", null, "");
+
+        JsonNode record = exportOf(authorId).get(0);
+
+        assertThat(record.has("tags")).isFalse();
+        assertThat(record.has("alternativeAnswers")).isFalse();
+        assertThat(record.has("additionalImages")).isFalse();
+    }
+
+    private static List<JsonNode> exportOf(UUID authorId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exportService.exportByAuthor(authorId, out, false)).isEqualTo(1);
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            records.add(MAPPER.readTree(line));
+        }
+        return records;
+    }
+
+    private static List<String> texts(JsonNode array) {
+        assertThat(array.isArray()).isTrue();
+        List<String> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    private static UUID insertQuestion(String tags, String alternativeAnswers, String additionalImages) {
+        UUID authorId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', 'TEACHER', 'Test') RETURNING id",
+                UUID.class, "teacher-" + UUID.randomUUID());
+        UUID topicId = jdbcTemplate.queryForObject(
+                "INSERT INTO topics (name, ege_number) VALUES ('Уравнения', 6) RETURNING id", UUID.class);
+        jdbcTemplate.update(
+                "INSERT INTO questions (topic_id, ege_number, content, answer, author_id, tags, " +
+                "alternative_answers, additional_images) VALUES (?, 6, 'Решите $x^2 = 1$', '1', ?, ?, ?, ?)",
+                topicId, authorId, tags, alternativeAnswers, additionalImages);
+        return authorId;
+    }
+}
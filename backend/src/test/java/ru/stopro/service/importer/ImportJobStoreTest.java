@@ -0,0 +1,121 @@
+package ru.stopro.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.stopro.dto.question.QuestionImportJobDto;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Состояние импорта в Postgres: прогресс, записанный одним узлом, виден
+ * другому, а задача умершего узла не висит в RUNNING вечно
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ImportJobStoreTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static ImportJobStore runningNode;
+    private static ImportJobStore otherNode;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        runningNode = new ImportJobStore(jdbcTemplate, objectMapper);
+        otherNode = new ImportJobStore(new JdbcTemplate(dataSource), objectMapper);
+    }
+
+    @Test
+    void progressIsVisibleFromAnotherNode() {
+        ImportJob job = new ImportJob(insertTeacher(), ImportFormat.NDJSON, false, 2);
+        runningNode.create(job);
+        assertThat(otherNode.find(job.getId(), job.getTeacherId()))
+                .hasValueSatisfying(dto -> assertThat(dto.getStatus()).isEqualTo("QUEUED"));
+
+        job.start();
+        for (int i = 0; i < 5; i++) {
+            job.recordRead();
+        }
+        job.recordImported(2);
+        job.reject(3, "Пустое условие");
+        job.reject(4, "Неизвестная тема");
+        job.reject(5, "Некорректный LaTeX");
+        runningNode.save(job);
+
+        QuestionImportJobDto dto = otherNode.find(job.getId(), job.getTeacherId()).orElseThrow();
+        assertThat(dto.getStatus()).isEqualTo("RUNNING");
+        assertThat(dto.getRead()).isEqualTo(5);
+        assertThat(dto.getImported()).isEqualTo(2);
+        assertThat(dto.getRejected()).isEqualTo(3);
+        assertThat(dto.getErrors()).extracting(QuestionImportJobDto.RecordError::getPosition)
+                .containsExactly(3L, 4L);
+        assertThat(dto.getStartedAt()).isNotNull();
+
+        job.complete();
+        runningNode.save(job);
+        assertThat(otherNode.find(job.getId(), job.getTeacherId()).orElseThrow().getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    void jobIsHiddenFromOtherTeachers() {
+        ImportJob job = new ImportJob(insertTeacher(), ImportFormat.CSV, false, 10);
+        runningNode.create(job);
+
+        assertThat(otherNode.find(job.getId(), insertTeacher())).isEmpty();
+        assertThat(otherNode.find(UUID.randomUUID(), job.getTeacherId())).isEmpty();
+    }
+
+    @Test
+    void abandonedJobIsMarkedFailedAndOldJobsAreDeleted() {
+        ImportJob abandoned = new ImportJob(insertTeacher(), ImportFormat.JSON, false, 10);
+        abandoned.start();
+        runningNode.save(abandoned);
+        jdbcTemplate.update("UPDATE question_import_jobs SET updated_at = now() - interval '1 hour' WHERE id = ?",
+                abandoned.getId());
+
+        ImportJob live = new ImportJob(insertTeacher(), ImportFormat.JSON, false, 10);
+        live.start();
+        runningNode.save(live);
+
+        ImportJob old = new ImportJob(insertTeacher(), ImportFormat.JSON, false, 10);
+        old.complete();
+        runningNode.save(old);
+        jdbcTemplate.update("UPDATE question_import_jobs SET finished_at = now() - interval '1 day' WHERE id = ?",
+                old.getId());
+
+        ImportJobCleanupJob cleanup = new ImportJobCleanupJob(jdbcTemplate);
+        ReflectionTestUtils.setField(cleanup, "staleMinutes", 15L);
+        ReflectionTestUtils.setField(cleanup, "retentionMinutes", 60L);
+        cleanup.processChunk(1000);
+
+        QuestionImportJobDto dto = otherNode.find(abandoned.getId(), abandoned.getTeacherId()).orElseThrow();
+        assertThat(dto.getStatus()).isEqualTo("FAILED");
+        assertThat(dto.getFailureMessage()).isNotBlank();
+        assertThat(otherNode.find(live.getId(), live.getTeacherId()))
+                .hasValueSatisfying(d -> assertThat(d.getStatus()).isEqualTo("RUNNING"));
+        assertThat(otherNode.find(old.getId(), old.getTeacherId())).isEmpty();
+    }
+
+    private static UUID insertTeacher() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', 'TEACHER', 'Test') RETURNING id",
+                UUID.class, "teacher-" + UUID.randomUUID());
+    }
+}
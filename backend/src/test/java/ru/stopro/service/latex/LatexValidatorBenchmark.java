@@ -0,0 +1,82 @@
+package ru.stopro.service.latex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк проверки LaTeX на решении около 20 КБ — типичный верхний
+ * предел развёрнутого решения задачи с формулами.
+ *
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=ru.stopro.service.latex.LatexValidatorBenchmark}
+ * или из IDE через {@link #main(String[])}. В обычный прогон тестов не входит.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatexValidatorBenchmark {
+
+    static final int SOLUTION_SIZE = 20 * 1024;
+
+    private static final String[] STEPS = {
+            "Перенесём слагаемые: $x^2 - 5x + 6 = 0$, откуда $D = 25 - 24 = 1$. ",
+            "Корни $x_{1,2} = \\frac{5 \\pm \\sqrt{1}}{2}$, то есть $x_1 = 2$, $x_2 = 3$.\n",
+            "Система $\\begin{cases} x + y = 5 \\\\ x - y = 1 \\end{cases}$ даёт $x = 3$. ",
+            "$$\\int_0^{\\pi} \\sin x \\, dx = \\left. -\\cos x \\right|_0^{\\pi} = 2$$\n",
+            "При $\\alpha \\in \\left( 0; \\frac{\\pi}{2} \\right)$ имеем $\\tg \\alpha > 0$. ",
+            "\\textbf{Ответ:} $\\log_2 8 + \\sqrt[3]{27} = 6$.\n"
+    };
+
+    private String solution;
+    private String invalidSolution;
+
+    @Setup
+    public void setUp() {
+        solution = solution(SOLUTION_SIZE);
+        // Ошибка в самом конце: валидатор проходит весь текст и строит позицию
+        invalidSolution = solution + "$\\frac{1}{2$";
+    }
+
+    @Benchmark
+    public LatexValidationResult validate() {
+        return LatexValidator.validate(solution);
+    }
+
+    @Benchmark
+    public LatexValidationResult validateWithError() {
+        return LatexValidator.validate(invalidSolution);
+    }
+
+    /**
+     * Решение не короче size символов из повторяющихся шагов с формулами
+     */
+    static String solution(int size) {
+        StringBuilder sb = new StringBuilder(size + 128);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append(STEPS[i % STEPS.length]);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LatexValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,251 @@
+package ru.stopro.service.latex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LatexValidator: позиции ошибок, парность окружений, скобок и ограничителей формул,
+ * словарь допустимых команд
+ */
+class LatexValidatorTest {
+
+    // ==================== Корректная разметка ====================
+
+    @Test
+    void validMarkupProducesPlainText() {
+        LatexValidationResult result = LatexValidator.validate("Найдите $\\frac{1}{2} + x^2$");
+
+        assertThat(result.valid()).isTrue();
+        assertThat(result.errors()).isEmpty();
+        assertThat(result.firstError()).isNull();
+        assertThat(result.plainText()).isEqualTo("Найдите 1/2 + x^2");
+    }
+
+    @Test
+    void emptyAndNullSourcesAreValid() {
+        assertThat(LatexValidator.validate(null).valid()).isTrue();
+        assertThat(LatexValidator.validate("").valid()).isTrue();
+    }
+
+    @Test
+    void nestedEnvironmentsAndAllDelimitersAreAccepted() {
+        LatexValidationResult result = LatexValidator.validate(
+                "Система $\\begin{cases} x + y = 1 \\\\ x - y = 0 \\end{cases}$, "
+                        + "затем $$\\left( \\begin{matrix} 1 & 0 \\end{matrix} \\right)$$, "
+                        + "\\(a \\leq b\\) и \\[\\sqrt{2}\\]");
+
+        assertThat(result.valid()).isTrue();
+    }
+
+    @Test
+    void benchmarkSolutionIsValid() {
+        // Бенчмарк должен мерить полный проход, а не ранний выход на ошибках
+        String solution = LatexValidatorBenchmark.solution(LatexValidatorBenchmark.SOLUTION_SIZE);
+
+        assertThat(solution.length()).isGreaterThanOrEqualTo(LatexValidatorBenchmark.SOLUTION_SIZE);
+        assertThat(LatexValidator.validate(solution).errors()).isEmpty();
+    }
+
+    // ==================== Позиции ошибок ====================
+
+    @Test
+    void errorReportsOffsetLineAndColumn() {
+        LatexValidationResult result = LatexValidator.validate("Строка один\n$x + \\foo$");
+
+        assertThat(result.valid()).isFalse();
+        LatexValidationResult.LatexError error = result.firstError();
+        assertThat(error.position()).isEqualTo(17);
+        assertThat(error.line()).isEqualTo(2);
+        assertThat(error.column()).isEqualTo(6);
+        assertThat(error.message()).isEqualTo("Неизвестная команда «\\foo»");
+    }
+
+    @Test
+    void errorsAreSortedByPosition() {
+        // Незакрытая формула обнаруживается в конце, но стоит в начале текста
+        LatexValidationResult result = LatexValidator.validate("$x} + \\foo");
+
+        assertThat(positions(result)).containsExactly(0, 2, 6);
+    }
+
+    @Test
+    void errorCountIsCapped() {
+        LatexValidationResult result = LatexValidator.validate("}".repeat(LatexValidator.MAX_ERRORS * 2));
+
+        assertThat(result.errors()).hasSize(LatexValidator.MAX_ERRORS);
+    }
+
+    // ==================== Окружения ====================
+
+    @Test
+    void beginWithoutEndIsReportedAtBegin() {
+        LatexValidationResult result = LatexValidator.validate("$\\begin{cases} x = 1$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(1);
+            assertThat(error.message()).isEqualTo("Окружение «cases» не закрыто до конца формулы");
+        });
+    }
+
+    @Test
+    void endWithoutBeginIsReportedAtEnd() {
+        LatexValidationResult result = LatexValidator.validate("$x \\end{cases}$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(3);
+            assertThat(error.message()).isEqualTo("«\\end{cases}» без «\\begin»");
+        });
+    }
+
+    @Test
+    void mismatchedEndIsReportedOnce() {
+        LatexValidationResult result = LatexValidator.validate("$\\begin{cases} x \\end{matrix}$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(17);
+            assertThat(error.message()).isEqualTo("«\\end{matrix}» не соответствует «\\begin{cases}»");
+        });
+    }
+
+    @Test
+    void environmentOutsideFormulaIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("\\begin{cases} x \\end{cases}");
+
+        assertThat(result.firstError().message()).isEqualTo("Окружение «cases» вне формулы");
+    }
+
+    @Test
+    void beginWithoutNameIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("$\\begin x$");
+
+        assertThat(result.firstError().message()).isEqualTo("«\\begin» без имени окружения");
+    }
+
+    // ==================== Скобки и ограничители ====================
+
+    @Test
+    void extraClosingBraceIsReported() {
+        LatexValidationResult result = LatexValidator.validate("$x}$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(2);
+            assertThat(error.message()).isEqualTo("Лишняя закрывающая скобка «}»");
+        });
+    }
+
+    @Test
+    void braceMustCloseInsideFormula() {
+        LatexValidationResult result = LatexValidator.validate("$\\frac{1}{2$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(9);
+            assertThat(error.message()).isEqualTo("Скобка «{» не закрыта до конца формулы");
+        });
+    }
+
+    @Test
+    void unclosedBraceInTextIsReported() {
+        LatexValidationResult result = LatexValidator.validate("a { b");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(2);
+            assertThat(error.message()).isEqualTo("Незакрытая скобка «{»");
+        });
+    }
+
+    @Test
+    void unclosedFormulaIsReportedAtOpening() {
+        LatexValidationResult result = LatexValidator.validate("Ответ: $x + 1");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(7);
+            assertThat(error.message()).isEqualTo("Незакрытая формула: нет парного «$»");
+        });
+    }
+
+    @Test
+    void displayFormulaClosedWithSingleDollarIsReported() {
+        LatexValidationResult result = LatexValidator.validate("$$x$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(3);
+            assertThat(error.message()).isEqualTo("Формула открыта «$$», а закрыта «$»");
+        });
+    }
+
+    @Test
+    void mismatchedParenDelimitersAreReported() {
+        LatexValidationResult result = LatexValidator.validate("\\(x\\]");
+
+        assertThat(messages(result)).containsExactly(
+                "Незакрытая формула: нет парного «\\)»",
+                "Закрывающая «\\]» без открывающей");
+        assertThat(positions(result)).containsExactly(0, 3);
+    }
+
+    @Test
+    void nestedFormulaIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("\\(x \\[y\\] \\)");
+
+        assertThat(result.firstError().message()).isEqualTo("Формула «\\[» внутри другой формулы");
+    }
+
+    @Test
+    void scriptOutsideFormulaIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("x^2");
+
+        assertThat(result.firstError().message()).isEqualTo("Символ «^» вне формулы");
+    }
+
+    // ==================== Словарь команд ====================
+
+    @Test
+    void unknownCommandIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("$\\input{secret}$");
+
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.position()).isEqualTo(1);
+            assertThat(error.message()).isEqualTo("Неизвестная команда «\\input»");
+        });
+    }
+
+    @Test
+    void mathCommandOutsideFormulaIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("Угол \\alpha");
+
+        assertThat(result.firstError().message()).isEqualTo("Команда «\\alpha» допустима только внутри формулы");
+    }
+
+    @Test
+    void textCommandsAreAllowedOutsideFormula() {
+        LatexValidationResult result = LatexValidator.validate("\\textbf{Ответ:} 5\\% \\quad \\no 3");
+
+        assertThat(result.valid()).isTrue();
+    }
+
+    @Test
+    void unknownEnvironmentIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("$\\begin{tabular} x \\end{tabular}$");
+
+        assertThat(result.errors()).singleElement().satisfies(error ->
+                assertThat(error.message()).isEqualTo("Неизвестное окружение «tabular»"));
+    }
+
+    @Test
+    void trailingBackslashIsRejected() {
+        LatexValidationResult result = LatexValidator.validate("$x$ \\");
+
+        assertThat(result.firstError().message()).isEqualTo("Одиночная «\\» в конце текста");
+    }
+
+    private static List<Integer> positions(LatexValidationResult result) {
+        return result.errors().stream().map(LatexValidationResult.LatexError::position).toList();
+    }
+
+    private static List<String> messages(LatexValidationResult result) {
+        return result.errors().stream().map(LatexValidationResult.LatexError::message).toList();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.stopro.service.leaderboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.stopro.service.outbox.OutboxEvent;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LeaderboardHandler: пачка событий сворачивается в уникальные пары, существующие таблицы
+ * обновляются по ученикам, отсутствующие группы собираются целиком
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LeaderboardHandlerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final AtomicLong EVENT_IDS = new AtomicLong();
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static LeaderboardStore store;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        store = new LeaderboardStore(new StringRedisTemplate(connectionFactory));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void existingTableIsUpdatedWithoutRebuild() {
+        UUID groupId = UUID.randomUUID();
+        UUID studentId = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        StubScores scores = new StubScores(List.of(row(groupId, studentId, 8, 3), row(groupId, other, 2, 2)));
+        store.replace(groupId, List.of(row(groupId, studentId, 1, 1), row(groupId, other, 2, 2)));
+
+        new LeaderboardHandler(scores, store).handle(List.of(event(groupId, studentId)));
+
+        assertThat(store.score(groupId, LeaderboardWindow.ALL_TIME, studentId)).isEqualTo(8);
+        assertThat(store.score(groupId, LeaderboardWindow.WEEK, studentId)).isEqualTo(3);
+        assertThat(scores.rebuiltGroups).isEmpty();
+    }
+
+    @Test
+    void missingGroupIsRebuiltWithAllStudents() {
+        UUID cached = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        UUID studentId = UUID.randomUUID();
+        UUID classmate = UUID.randomUUID();
+        StubScores scores = new StubScores(List.of(
+                row(cached, studentId, 4, 4),
+                row(missing, studentId, 6, 1),
+                row(missing, classmate, 9, 0)));
+        store.replace(cached, List.of(row(cached, studentId, 0, 0)));
+
+        new LeaderboardHandler(scores, store).handle(List.of(event(cached, studentId), event(missing, studentId)));
+
+        assertThat(scores.rebuiltGroups).containsExactly(List.of(missing));
+        assertThat(store.size(missing, LeaderboardWindow.ALL_TIME)).isEqualTo(2);
+        assertThat(store.score(missing, LeaderboardWindow.ALL_TIME, classmate)).isEqualTo(9);
+        assertThat(store.score(cached, LeaderboardWindow.ALL_TIME, studentId)).isEqualTo(4);
+    }
+
+    @Test
+    void duplicateEventsAreCollapsed() {
+        UUID groupId = UUID.randomUUID();
+        UUID studentId = UUID.randomUUID();
+        StubScores scores = new StubScores(List.of(row(groupId, studentId, 1, 1)));
+        store.replace(groupId, List.of(row(groupId, studentId, 0, 0)));
+
+        new LeaderboardHandler(scores, store).handle(List.of(
+                event(groupId, studentId), event(groupId, studentId), event(groupId, studentId)));
+
+        assertThat(scores.requestedStudents).containsExactly(studentId);
+    }
+
+    @Test
+    void studentWhoLeftGroupDoesNotCreateTable() {
+        UUID groupId = UUID.randomUUID();
+        StubScores scores = new StubScores(List.of());
+
+        new LeaderboardHandler(scores, store).handle(List.of(event(groupId, UUID.randomUUID())));
+
+        // forStudents не вернул строк — нечего писать и нечего пересобирать
+        assertThat(scores.rebuiltGroups).isEmpty();
+        assertThat(store.exists(groupId, LeaderboardWindow.ALL_TIME)).isFalse();
+    }
+
+    private static OutboxEvent event(UUID groupId, UUID studentId) {
+        return new OutboxEvent(EVENT_IDS.incrementAndGet(), "attempt", UUID.randomUUID(),
+                OutboxService.LEADERBOARD_UPDATE,
+                MAPPER.createObjectNode().put("groupId", groupId.toString()).put("studentId", studentId.toString()),
+                0, LocalDateTime.now());
+    }
+
+    private static LeaderboardScores.Row row(UUID groupId, UUID studentId, double allTime, double week) {
+        return new LeaderboardScores.Row(groupId, studentId, allTime, week);
+    }
+
+    /**
+     * Очки из заданного списка строк вместо базы
+     */
+    private static class StubScores extends LeaderboardScores {
+
+        private final List<Row> rows;
+        final List<UUID> requestedStudents = new ArrayList<>();
+        final List<List<UUID>> rebuiltGroups = new ArrayList<>();
+
+        StubScores(List<Row> rows) {
+            super(null);
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Row> forGroups(Collection<UUID> groupIds) {
+            rebuiltGroups.add(List.copyOf(groupIds));
+            return rows.stream().filter(row -> groupIds.contains(row.groupId())).toList();
+        }
+
+        @Override
+        public List<Row> forStudents(List<UUID> groupIds, List<UUID> studentIds) {
+            requestedStudents.addAll(studentIds);
+            List<Row> result = new ArrayList<>();
+            for (int i = 0; i < groupIds.size(); i++) {
+                UUID groupId = groupIds.get(i);
+                UUID studentId = studentIds.get(i);
+                rows.stream()
+                        .filter(row -> row.groupId().equals(groupId) && row.studentId().equals(studentId))
+                        .forEach(result::add);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.stopro.service.leaderboard;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LeaderboardStore на настоящем Redis: очки пишутся только в существующие таблицы,
+ * отсутствующие группы возвращаются на пересборку, подмена таблицы целиком, места при равных очках
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LeaderboardStoreTest {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+    private static LeaderboardStore store;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        store = new LeaderboardStore(redis);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    // ==================== Обновление ====================
+
+    @Test
+    void updateReportsMissingGroupsWithoutCreatingTables() {
+        UUID groupId = UUID.randomUUID();
+
+        assertThat(store.update(List.of(row(groupId, UUID.randomUUID(), 5, 1)))).containsExactly(groupId);
+
+        // Таблица из одного ученика выглядела бы полной для exists()
+        assertThat(store.exists(groupId, LeaderboardWindow.ALL_TIME)).isFalse();
+        assertThat(store.exists(groupId, LeaderboardWindow.WEEK)).isFalse();
+    }
+
+    @Test
+    void updateWritesScoresIntoExistingTables() {
+        UUID groupId = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        store.replace(groupId, List.of(row(groupId, first, 3, 1), row(groupId, second, 4, 0)));
+
+        assertThat(store.update(List.of(row(groupId, first, 10, 7)))).isEmpty();
+
+        assertThat(store.score(groupId, LeaderboardWindow.ALL_TIME, first)).isEqualTo(10);
+        assertThat(store.score(groupId, LeaderboardWindow.WEEK, first)).isEqualTo(7);
+        assertThat(store.score(groupId, LeaderboardWindow.ALL_TIME, second)).isEqualTo(4);
+        assertThat(store.size(groupId, LeaderboardWindow.ALL_TIME)).isEqualTo(2);
+    }
+
+    @Test
+    void groupMissingOneWindowIsReported() {
+        UUID existing = UUID.randomUUID();
+        UUID expiredWeek = UUID.randomUUID();
+        UUID studentId = UUID.randomUUID();
+        store.replace(existing, List.of(row(existing, studentId, 1, 1)));
+        store.replace(expiredWeek, List.of(row(expiredWeek, studentId, 1, 1)));
+        redis.delete(weekKey(expiredWeek));
+
+        assertThat(store.update(List.of(row(existing, studentId, 2, 2), row(expiredWeek, studentId, 2, 2))))
+                .containsExactly(expiredWeek);
+        assertThat(store.exists(expiredWeek, LeaderboardWindow.WEEK)).isFalse();
+    }
+
+    // ==================== Пересборка ====================
+
+    @Test
+    void replaceSwapsWholeTableAndSetsExpiry() {
+        UUID groupId = UUID.randomUUID();
+        UUID left = UUID.randomUUID();
+        UUID stayed = UUID.randomUUID();
+        store.replace(groupId, List.of(row(groupId, left, 5, 5), row(groupId, stayed, 1, 1)));
+
+        store.replace(groupId, List.of(row(groupId, stayed, 2, 2)));
+
+        assertThat(store.score(groupId, LeaderboardWindow.ALL_TIME, left)).isNull();
+        assertThat(store.size(groupId, LeaderboardWindow.ALL_TIME)).isEqualTo(1);
+        assertThat(redis.getExpire(weekKey(groupId))).isPositive();
+        assertThat(redis.getExpire("leaderboard:" + groupId + ":all")).isEqualTo(-1);
+        assertThat(redis.keys("leaderboard:" + groupId + "*:rebuild:*")).isEmpty();
+    }
+
+    @Test
+    void replaceWithoutStudentsDeletesTables() {
+        UUID groupId = UUID.randomUUID();
+        store.replace(groupId, List.of(row(groupId, UUID.randomUUID(), 1, 1)));
+
+        store.replace(groupId, List.of());
+
+        assertThat(store.exists(groupId, LeaderboardWindow.ALL_TIME)).isFalse();
+        assertThat(store.exists(groupId, LeaderboardWindow.WEEK)).isFalse();
+    }
+
+    // ==================== Чтение ====================
+
+    @Test
+    void topAndRankHandleTies() {
+        UUID groupId = UUID.randomUUID();
+        UUID leader = UUID.randomUUID();
+        UUID tied = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+        store.replace(groupId, List.of(row(groupId, leader, 10, 0), row(groupId, tied, 10, 0), row(groupId, last, 5, 0)));
+
+        assertThat(store.top(groupId, LeaderboardWindow.ALL_TIME, 2))
+                .extracting(ZSetOperations.TypedTuple::getScore)
+                .containsExactly(10.0, 10.0);
+        assertThat(store.rankOf(groupId, LeaderboardWindow.ALL_TIME, 10)).isEqualTo(1);
+        assertThat(store.rankOf(groupId, LeaderboardWindow.ALL_TIME, 5)).isEqualTo(3);
+    }
+
+    private static LeaderboardScores.Row row(UUID groupId, UUID studentId, double allTime, double week) {
+        return new LeaderboardScores.Row(groupId, studentId, allTime, week);
+    }
+
+    private static String weekKey(UUID groupId) {
+        return "leaderboard:" + groupId + ":week:" + LeaderboardScores.weekStart().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+}
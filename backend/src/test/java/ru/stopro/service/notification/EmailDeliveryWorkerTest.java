@@ -0,0 +1,184 @@
+package ru.stopro.service.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.stopro.service.outbox.OutboxEvent;
+import ru.stopro.service.outbox.OutboxService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Очередь писем на настоящем PostgreSQL: обработчик outbox не ждёт отправки,
+ * а рассылка дольше claim-timeout не перехватывается другим узлом
+ * и не уходит адресатам дважды.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EmailDeliveryWorkerTest {
+
+    private static final double RATE = 100;
+    private static final int CLAIM_SIZE = 50;
+    private static final long CLAIM_TIMEOUT_SECONDS = 2;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final AtomicLong EVENT_IDS = new AtomicLong();
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final Map<String, AtomicInteger> sent = new ConcurrentHashMap<>();
+    private final EmailTransport transport = (address, title, body) ->
+            sent.computeIfAbsent(address + " " + title, k -> new AtomicInteger()).incrementAndGet();
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void clearQueue() {
+        jdbcTemplate.update("DELETE FROM email_deliveries");
+    }
+
+    @Test
+    void handlerOnlyEnqueuesAndRedeliveryAddsNothing() {
+        EmailNotificationHandler handler = new EmailNotificationHandler(jdbcTemplate);
+        OutboxEvent event = emailEvent(insertUser(), 500);
+
+        long started = System.nanoTime();
+        handler.handle(List.of(event));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        handler.handle(List.of(event));
+
+        // 500 писем при 20 в секунду — 25 секунд; постановка в очередь — доли секунды
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+        assertThat(count("PENDING")).isEqualTo(500);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void batchLongerThanClaimTimeoutIsSentExactlyOnce() throws Exception {
+        // 600 писем на двух узлах по 100 в секунду — около 3 секунд, claim-timeout — 2 секунды
+        new EmailNotificationHandler(jdbcTemplate).handle(List.of(emailEvent(insertUser(), 600)));
+        EmailDeliveryWorker first = worker();
+        EmailDeliveryWorker second = worker();
+
+        long started = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> a = pool.submit(first::drain);
+            Future<?> b = pool.submit(second::drain);
+            a.get(60, TimeUnit.SECONDS);
+            b.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(elapsed).isGreaterThan(Duration.ofSeconds(CLAIM_TIMEOUT_SECONDS));
+        assertThat(count("SENT")).isEqualTo(600);
+        assertThat(sent).hasSize(600);
+        assertThat(sent.values()).allSatisfy(times -> assertThat(times.get()).isEqualTo(1));
+    }
+
+    @Test
+    void claimOfCrashedNodeIsTakenOverAfterTimeout() {
+        new EmailNotificationHandler(jdbcTemplate).handle(List.of(emailEvent(insertUser(), 3)));
+        jdbcTemplate.update("UPDATE email_deliveries SET status = 'SENDING', claimed_by = 'crashed', claimed_at = ?",
+                LocalDateTime.now().minusSeconds(CLAIM_TIMEOUT_SECONDS + 1));
+
+        worker().drain();
+
+        assertThat(count("SENT")).isEqualTo(3);
+        assertThat(sent).hasSize(3);
+    }
+
+    @Test
+    void freshClaimOfAnotherNodeIsLeftAlone() {
+        new EmailNotificationHandler(jdbcTemplate).handle(List.of(emailEvent(insertUser(), 3)));
+        jdbcTemplate.update("UPDATE email_deliveries SET status = 'SENDING', claimed_by = 'busy', claimed_at = now()");
+
+        worker().drain();
+
+        assertThat(count("SENDING")).isEqualTo(3);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void deletedRecipientIsSkipped() {
+        UUID recipientId = insertUser();
+        new EmailNotificationHandler(jdbcTemplate).handle(List.of(emailEvent(recipientId, 2)));
+        jdbcTemplate.update("UPDATE users SET is_deleted = true WHERE id = ?", recipientId);
+
+        worker().drain();
+
+        assertThat(count("SKIPPED")).isEqualTo(2);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void claimThatCannotBeSentWithinHalfTheTimeoutIsRejected() {
+        assertThatThrownBy(() -> new EmailDeliveryWorker(jdbcTemplate, transport, new SimpleMeterRegistry(),
+                20, 100, 10, 1000))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private EmailDeliveryWorker worker() {
+        return new EmailDeliveryWorker(jdbcTemplate, transport, new SimpleMeterRegistry(),
+                RATE, CLAIM_SIZE, CLAIM_TIMEOUT_SECONDS, 1000);
+    }
+
+    private static OutboxEvent emailEvent(UUID recipientId, int size) {
+        ArrayNode items = MAPPER.createArrayNode();
+        for (int i = 0; i < size; i++) {
+            items.addObject()
+                    .put("recipientId", recipientId.toString())
+                    .put("title", "Письмо " + i)
+                    .put("body", "Текст");
+        }
+        ObjectNode payload = MAPPER.createObjectNode();
+        payload.set("items", items);
+        return new OutboxEvent(EVENT_IDS.incrementAndGet(), "notification", UUID.randomUUID(),
+                OutboxService.NOTIFICATION_EMAIL, payload, 0, LocalDateTime.now());
+    }
+
+    private static UUID insertUser() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', 'STUDENT', 'Test') RETURNING id",
+                UUID.class, "student-" + UUID.randomUUID());
+    }
+
+    private static int count(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM email_deliveries WHERE status = ?", Integer.class, status);
+    }
+}
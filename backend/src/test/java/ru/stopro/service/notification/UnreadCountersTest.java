@@ -0,0 +1,210 @@
+package ru.stopro.service.notification;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * UnreadCounters на настоящих PostgreSQL и Redis: версия строки счётчика,
+ * кэш принимает только более новую версию, промах читает строку счётчика
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UnreadCountersTest {
+
+    private static final String PREFIX = "notifications:unread:";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private final List<UnreadCountEvent> events = new ArrayList<>();
+    private UnreadCounters counters;
+
+    @BeforeAll
+    static void setUpStores() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void tearDownStores() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        counters = new UnreadCounters(jdbcTemplate, redis, event -> events.add((UnreadCountEvent) event), 60);
+    }
+
+    // ==================== Изменение счётчиков ====================
+
+    @Test
+    void addChangesRowAndBumpsVersion() {
+        UUID userId = insertUser();
+
+        assertThat(add(userId, 3)).containsEntry(userId, 3);
+        assertThat(add(userId, -1)).containsEntry(userId, 2);
+
+        assertThat(row(userId)).isEqualTo("2:2");
+        assertThat(events).extracting(event -> event.counts().get(userId))
+                .containsExactly(new UnreadCountEvent.Count(3, 1), new UnreadCountEvent.Count(2, 2));
+    }
+
+    @Test
+    void counterNeverGoesNegative() {
+        UUID userId = insertUser();
+        add(userId, 1);
+
+        assertThat(add(userId, -5)).containsEntry(userId, 0);
+    }
+
+    @Test
+    void committedEventUpdatesCache() {
+        UUID userId = insertUser();
+        add(userId, 4);
+
+        counters.onUnreadCount(events.get(0));
+
+        assertThat(cached(userId)).isEqualTo("4:1");
+        assertThat(counters.get(userId)).isEqualTo(4);
+    }
+
+    // ==================== Версии в кэше ====================
+
+    @Test
+    void staleEventDoesNotOverwriteNewerValue() {
+        UUID userId = insertUser();
+        add(userId, 1);
+        add(userId, 1);
+
+        // События пришли в обратном порядке
+        counters.onUnreadCount(events.get(1));
+        counters.onUnreadCount(events.get(0));
+
+        assertThat(cached(userId)).isEqualTo("2:2");
+        assertThat(counters.get(userId)).isEqualTo(2);
+    }
+
+    @Test
+    void missReadBeforeConcurrentCommitDoesNotOverwriteIt() {
+        UUID userId = insertUser();
+        add(userId, 1);
+        UnreadCountEvent.Count staleRead = new UnreadCountEvent.Count(1, 1);
+        add(userId, 1);
+
+        // Коммит второго изменения обновил кэш раньше, чем промах записал прочитанное до него
+        counters.onUnreadCount(events.get(1));
+        counters.onUnreadCount(new UnreadCountEvent(Map.of(userId, staleRead)));
+
+        assertThat(counters.get(userId)).isEqualTo(2);
+    }
+
+    @Test
+    void equalVersionIsNotRewritten() {
+        UUID userId = insertUser();
+        redis.opsForValue().set(PREFIX + userId, "7:3");
+
+        counters.onUnreadCount(new UnreadCountEvent(Map.of(userId, new UnreadCountEvent.Count(1, 3))));
+
+        assertThat(cached(userId)).isEqualTo("7:3");
+    }
+
+    // ==================== Промах кэша ====================
+
+    @Test
+    void missReadsCounterRowAndCachesIt() {
+        UUID userId = insertUser();
+        add(userId, 5);
+
+        assertThat(cached(userId)).isNull();
+        assertThat(counters.get(userId)).isEqualTo(5);
+        assertThat(cached(userId)).isEqualTo("5:1");
+        assertThat(redis.getExpire(PREFIX + userId)).isPositive();
+    }
+
+    @Test
+    void missWithoutRowCachesZeroAtVersionZero() {
+        UUID userId = insertUser();
+
+        assertThat(counters.get(userId)).isZero();
+        assertThat(cached(userId)).isEqualTo("0:0");
+
+        // Первое изменение перекрывает нулевую версию
+        add(userId, 2);
+        counters.onUnreadCount(events.get(0));
+        assertThat(counters.get(userId)).isEqualTo(2);
+    }
+
+    @Test
+    void unavailableCacheFallsBackToCounterRow() {
+        UUID userId = insertUser();
+        add(userId, 3);
+        LettuceConnectionFactory downFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), 1),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(200)).build());
+        downFactory.afterPropertiesSet();
+        try {
+            UnreadCounters withoutCache = new UnreadCounters(
+                    jdbcTemplate, new StringRedisTemplate(downFactory), event -> { }, 60);
+
+            assertThat(withoutCache.get(userId)).isEqualTo(3);
+        } finally {
+            downFactory.destroy();
+        }
+    }
+
+    private Map<UUID, Integer> add(UUID userId, int delta) {
+        return transactionTemplate.execute(status -> counters.add(Map.of(userId, delta)));
+    }
+
+    private static String row(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT unread || ':' || version FROM notification_counters WHERE user_id = ?", String.class, userId);
+    }
+
+    private static String cached(UUID userId) {
+        return redis.opsForValue().get(PREFIX + userId);
+    }
+
+    private static UUID insertUser() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password_hash, role, full_name) VALUES (?, 'x', 'STUDENT', 'Test') RETURNING id",
+                UUID.class, "student-" + UUID.randomUUID());
+    }
+}